@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client;
+
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Analyzes the servers output line by line, via {@link Detector}s, which keep rolling statistics
+ * over the last {@link RollingCounter#MINUTES} minutes. By default detects lag ("Can't keep up!"),
+ * watchdog thread dumps, out of memory / GC overhead errors and exception storms by plugin. <br>
+ * Each detector checks a cheap {@link String#contains(CharSequence)} first, before using its precompiled patterns,
+ * since most lines match nothing. See the .perf command for the statistics.
+ */
+public class ConsoleAnalyzer {
+    /**
+     * Packages of the server, the JDK and common libraries, which are skipped when looking for the source of an exception.
+     */
+    private static final String[] NON_PLUGIN_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun.", "net.minecraft.",
+            "com.mojang.", "org.bukkit.", "org.spigotmc.", "io.papermc.", "com.destroystokyo.", "co.aikar.", "net.md_5.",
+            "io.netty.", "com.google.", "org.apache.", "it.unimi.", "org.slf4j.", "net.minecraftforge.", "net.neoforged.",
+            "cpw.mods.", "net.fabricmc.", "org.spongepowered.", "com.velocitypowered.", "org.yaml.", "ca.spottedleaf.",
+            "org.objectweb.", "kotlin."};
+    private static final Pattern PATTERN_FRAME = Pattern.compile("\\bat ([\\w$]+(?:\\.[\\w$]+)+)\\.[\\w$<>]+\\(");
+    private static final long MS_ALERT_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final List<Detector> detectors = new CopyOnWriteArrayList<>();
+    private final LagDetector lagDetector = new LagDetector();
+    private final ExceptionDetector exceptionDetector = new ExceptionDetector();
+
+    public ConsoleAnalyzer() {
+        detectors.add(lagDetector);
+        detectors.add(new WatchdogDetector());
+        detectors.add(new MemoryDetector());
+        detectors.add(exceptionDetector);
+    }
+
+    /**
+     * @return the source (first 3 package segments) of the stack frame in this line,
+     * or null if the line is no stack frame, or the frame belongs to the server/JDK/a library.
+     */
+    @Nullable
+    static String getSourceOfFrame(@NotNull String line) {
+        if (!line.contains("at ")) return null;
+        Matcher matcher = PATTERN_FRAME.matcher(line);
+        if (!matcher.find()) return null;
+        String className = matcher.group(1);
+        for (String nonPluginPackage : NON_PLUGIN_PACKAGES) {
+            if (className.startsWith(nonPluginPackage)) return null;
+        }
+        int end = -1;
+        for (int i = 0; i < 3; i++) {
+            int next = className.indexOf('.', end + 1);
+            if (next == -1) break;
+            end = next;
+        }
+        return end == -1 ? className : className.substring(0, end);
+    }
+
+    private static String formatTime(long ms) {
+        return ms == 0 ? "never" : new SimpleDateFormat("HH:mm:ss").format(new Date(ms));
+    }
+
+    /**
+     * Called by the servers output sink, thus never concurrently.
+     */
+    public void onLine(@NotNull String line) {
+        long msNow = System.currentTimeMillis();
+        for (Detector detector : detectors) {
+            try {
+                detector.onLine(line, msNow);
+            } catch (Exception e) {
+                AL.warn("Console analyzer '" + detector.getName() + "' failed at line: " + line, e);
+            }
+        }
+    }
+
+    public void addDetector(@NotNull Detector detector) {
+        detectors.add(detector);
+    }
+
+    public void removeDetector(@NotNull Detector detector) {
+        detectors.remove(detector);
+    }
+
+    /**
+     * @return the statistics of all detectors, ready to be printed.
+     */
+    @NotNull
+    public List<String> getStats() {
+        long msNow = System.currentTimeMillis();
+        List<String> lines = new ArrayList<>();
+        lines.add("Server performance of the last " + RollingCounter.MINUTES + " minutes:");
+        for (Detector detector : detectors) {
+            detector.addStats(lines, msNow);
+        }
+        return lines;
+    }
+
+    @NotNull
+    public LagDetector getLagDetector() {
+        return lagDetector;
+    }
+
+    @NotNull
+    public ExceptionDetector getExceptionDetector() {
+        return exceptionDetector;
+    }
+
+    /**
+     * Receives every line of the servers output.
+     */
+    public interface Detector {
+        @NotNull
+        String getName();
+
+        void onLine(@NotNull String line, long msNow);
+
+        /**
+         * Adds human-readable statistics. Called from another thread than {@link #onLine(String, long)}.
+         */
+        void addStats(@NotNull List<String> lines, long msNow);
+    }
+
+    /**
+     * Sums up values per minute, for the last {@link #MINUTES} minutes.
+     */
+    public static class RollingCounter {
+        public static final int MINUTES = 60;
+        private final long[] values = new long[MINUTES];
+        private final long[] minutes = new long[MINUTES];
+
+        public synchronized void add(long msNow, long value) {
+            long minute = msNow / 60000;
+            int i = (int) (minute % MINUTES);
+            if (minutes[i] != minute) {
+                minutes[i] = minute;
+                values[i] = 0;
+            }
+            values[i] += value;
+        }
+
+        /**
+         * @return the sum of the last given minutes, including the current one.
+         */
+        public synchronized long sum(long msNow, int countMinutes) {
+            long minute = msNow / 60000;
+            long sum = 0;
+            for (int i = 0; i < Math.min(countMinutes, MINUTES); i++) {
+                sum += get(minute - i);
+            }
+            return sum;
+        }
+
+        /**
+         * @return the value of each of the last given minutes, oldest first.
+         */
+        @NotNull
+        public synchronized long[] getPerMinute(long msNow, int countMinutes) {
+            long minute = msNow / 60000;
+            int count = Math.min(countMinutes, MINUTES);
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[count - 1 - i] = get(minute - i);
+            }
+            return result;
+        }
+
+        private long get(long minute) {
+            int i = (int) (minute % MINUTES);
+            return minutes[i] == minute ? values[i] : 0;
+        }
+    }
+
+    /**
+     * "Can't keep up! Is the server overloaded? Running 2043ms or 40 ticks behind"
+     */
+    public static class LagDetector implements Detector {
+        private static final Pattern PATTERN = Pattern.compile("Running (\\d+)ms or (\\d+) ticks behind");
+        private final RollingCounter ticksBehind = new RollingCounter();
+        private final RollingCounter countWarnings = new RollingCounter();
+        private volatile long msMaxBehind;
+        private volatile long msLast;
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "lag";
+        }
+
+        @Override
+        public void onLine(@NotNull String line, long msNow) {
+            if (!line.contains("Can't keep up!")) return;
+            Matcher matcher = PATTERN.matcher(line);
+            if (!matcher.find()) return;
+            long msBehind = Long.parseLong(matcher.group(1));
+            ticksBehind.add(msNow, Long.parseLong(matcher.group(2)));
+            countWarnings.add(msNow, 1);
+            if (msLast < msNow - TimeUnit.MINUTES.toMillis(RollingCounter.MINUTES)) msMaxBehind = 0;
+            msMaxBehind = Math.max(msMaxBehind, msBehind);
+            msLast = msNow;
+        }
+
+        @Override
+        public void addStats(@NotNull List<String> lines, long msNow) {
+            long count = countWarnings.sum(msNow, RollingCounter.MINUTES);
+            lines.add("Lag: " + count + " 'Can't keep up!' warnings, " + ticksBehind.sum(msNow, RollingCounter.MINUTES)
+                    + " ticks behind in total" + (count > 0 ? ", at most " + msMaxBehind + "ms behind, last at " + formatTime(msLast) : "") + ".");
+            StringBuilder trend = new StringBuilder("Ticks behind per minute (last 15 minutes, oldest first):");
+            for (long ticks : ticksBehind.getPerMinute(msNow, 15)) {
+                trend.append(' ').append(ticks);
+            }
+            lines.add(trend.toString());
+        }
+
+        /**
+         * @return the amount of ticks behind of each of the last given minutes, oldest first.
+         */
+        @NotNull
+        public long[] getTicksBehindPerMinute(int countMinutes) {
+            return ticksBehind.getPerMinute(System.currentTimeMillis(), countMinutes);
+        }
+    }
+
+    /**
+     * Watchdog messages of Spigot/Paper and vanilla, if the main thread got stuck.
+     * The first plugin frame of the following thread dump is reported as probable cause.
+     */
+    public static class WatchdogDetector implements Detector {
+        private static final Pattern PATTERN_TICK = Pattern.compile("A single server tick took (\\d+[.,]?\\d*) seconds");
+        private static final int MAX_DUMP_LINES = 200;
+        private final RollingCounter countEvents = new RollingCounter();
+        private volatile long msLast;
+        private volatile String lastCause;
+        private int countDumpLines = -1;
+        private long msLastAlert;
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "watchdog";
+        }
+
+        @Override
+        public void onLine(@NotNull String line, long msNow) {
+            if (countDumpLines >= 0) {
+                String source = getSourceOfFrame(line);
+                if (source != null) {
+                    lastCause = source;
+                    countDumpLines = -1;
+                    alert("The servers watchdog thread dump points at '" + source + "' as probable cause.", msNow);
+                } else if (++countDumpLines > MAX_DUMP_LINES) {
+                    countDumpLines = -1;
+                }
+            }
+            if (line.contains("The server has stopped responding!")) {
+                onEvent(msNow, "The server has stopped responding (watchdog)!");
+            } else if (line.contains("A single server tick took")) {
+                Matcher matcher = PATTERN_TICK.matcher(line);
+                if (matcher.find()) onEvent(msNow, "A single server tick took " + matcher.group(1) + " seconds (watchdog)!");
+            } else if (line.contains("Server thread dump")) {
+                countDumpLines = 0;
+            }
+        }
+
+        private void onEvent(long msNow, String message) {
+            countEvents.add(msNow, 1);
+            msLast = msNow;
+            countDumpLines = 0; // The thread dump usually follows
+            alert(message, msNow);
+        }
+
+        private void alert(String message, long msNow) {
+            if (msNow - msLastAlert < MS_ALERT_INTERVAL) return;
+            msLastAlert = msNow;
+            AL.warn(message);
+        }
+
+        @Override
+        public void addStats(@NotNull List<String> lines, long msNow) {
+            long count = countEvents.sum(msNow, RollingCounter.MINUTES);
+            lines.add("Watchdog: " + count + " events" + (count > 0 ? ", last at " + formatTime(msLast)
+                    + (lastCause != null ? ", probable cause: " + lastCause : "") : "") + ".");
+        }
+    }
+
+    /**
+     * "java.lang.OutOfMemoryError: GC overhead limit exceeded" and other OutOfMemoryErrors.
+     */
+    public static class MemoryDetector implements Detector {
+        private final RollingCounter countErrors = new RollingCounter();
+        private volatile long msLast;
+        private volatile String lastError;
+        private long msLastAlert;
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "memory";
+        }
+
+        @Override
+        public void onLine(@NotNull String line, long msNow) {
+            boolean isGcOverhead = line.contains("GC overhead limit exceeded");
+            if (!isGcOverhead && !line.contains("OutOfMemoryError")) return;
+            if (line.contains("Caused by:")) return; // Already counted
+            countErrors.add(msNow, 1);
+            msLast = msNow;
+            lastError = isGcOverhead ? "GC overhead limit exceeded" : line.substring(line.indexOf("OutOfMemoryError")).trim();
+            if (msNow - msLastAlert >= MS_ALERT_INTERVAL) {
+                msLastAlert = msNow;
+                AL.warn("The server is running out of memory (" + lastError + ")." +
+                        " Consider increasing the max memory (-Xmx) in the java start arguments.");
+            }
+        }
+
+        @Override
+        public void addStats(@NotNull List<String> lines, long msNow) {
+            long count = countErrors.sum(msNow, RollingCounter.MINUTES);
+            lines.add("Memory: " + count + " out of memory errors" + (count > 0 ? ", last at " + formatTime(msLast)
+                    + ": " + lastError : "") + ".");
+        }
+    }
+
+    /**
+     * Counts exceptions by their source, which is the package of the first stack frame that does not belong
+     * to the server, the JDK or a common library. Warns if there are more than {@link #STORM_PER_MINUTE} exceptions per minute.
+     */
+    public static class ExceptionDetector implements Detector {
+        public static final int STORM_PER_MINUTE = 50;
+        private static final Pattern PATTERN_EXCEPTION = Pattern.compile("(?:[\\w$]+\\.)+[\\w$]*(?:Exception|Error)\\b");
+        private static final int MAX_SOURCES = 256;
+        private static final int MAX_TRACE_LINES = 60;
+        private static final String UNKNOWN = "unknown";
+        private final RollingCounter countExceptions = new RollingCounter();
+        private final Map<String, RollingCounter> sources = new HashMap<>();
+        /**
+         * Amount of lines since the last exception, whose source was not found yet, or -1.
+         */
+        private int countTraceLines = -1;
+        private long msLastAlert;
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "exceptions";
+        }
+
+        @Override
+        public void onLine(@NotNull String line, long msNow) {
+            if (countTraceLines >= 0) {
+                String source = getSourceOfFrame(line);
+                if (source != null) {
+                    countSource(source, msNow);
+                    countTraceLines = -1;
+                    return;
+                }
+                if (++countTraceLines > MAX_TRACE_LINES) {
+                    countSource(UNKNOWN, msNow);
+                    countTraceLines = -1;
+                }
+            }
+            if ((!line.contains("Exception") && !line.contains("Error")) || line.contains("Caused by:")
+                    || PATTERN_FRAME.matcher(line).find()) return; // Frames can have a log prefix, thus no startsWith("at ")
+            if (!PATTERN_EXCEPTION.matcher(line).find()) return;
+            if (countTraceLines >= 0) countSource(UNKNOWN, msNow); // Previous one without plugin frames
+            countTraceLines = 0;
+            countExceptions.add(msNow, 1);
+            if (countExceptions.sum(msNow, 1) > STORM_PER_MINUTE && msNow - msLastAlert >= MS_ALERT_INTERVAL) {
+                msLastAlert = msNow;
+                List<Map.Entry<String, Long>> top = getTopSources(3, 1);
+                AL.warn("Exception storm: more than " + STORM_PER_MINUTE + " exceptions in the last minute."
+                        + (top.isEmpty() ? "" : " Top sources: " + toString(top)));
+            }
+        }
+
+        private void countSource(String source, long msNow) {
+            synchronized (sources) {
+                RollingCounter counter = sources.get(source);
+                if (counter == null) {
+                    if (sources.size() >= MAX_SOURCES) source = UNKNOWN;
+                    counter = sources.computeIfAbsent(source, k -> new RollingCounter());
+                }
+                counter.add(msNow, 1);
+            }
+        }
+
+        /**
+         * @return the sources with the most exceptions within the last given minutes, most exceptions first.
+         */
+        @NotNull
+        public List<Map.Entry<String, Long>> getTopSources(int count, int countMinutes) {
+            long msNow = System.currentTimeMillis();
+            List<Map.Entry<String, Long>> list = new ArrayList<>();
+            synchronized (sources) {
+                for (Map.Entry<String, RollingCounter> entry : sources.entrySet()) {
+                    long sum = entry.getValue().sum(msNow, countMinutes);
+                    if (sum > 0) list.add(new AbstractMap.SimpleEntry<>(entry.getKey(), sum));
+                }
+            }
+            list.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            return list.size() > count ? list.subList(0, count) : list;
+        }
+
+        private String toString(List<Map.Entry<String, Long>> sources) {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Long> entry : sources) {
+                if (sb.length() > 0) sb.append(", ");
+                sb.append(entry.getKey()).append(" (").append(entry.getValue()).append(")");
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void addStats(@NotNull List<String> lines, long msNow) {
+            List<Map.Entry<String, Long>> top = getTopSources(5, RollingCounter.MINUTES);
+            lines.add("Exceptions: " + countExceptions.sum(msNow, RollingCounter.MINUTES) + " in total, "
+                    + countExceptions.sum(msNow, 1) + " in the last minute."
+                    + (top.isEmpty() ? "" : " Top sources: " + toString(top)));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client;
+
+import com.osiris.autoplug.client.configs.SystemConfig;
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Detects servers that keep crashing shortly after being started, for example because of a broken plugin. <br>
+ * Keeps the crashes of the last 30 minutes (time, exit code and the last lines of the server output).
+ * Crashes after the server ran at least 5 minutes are not counted as rapid and reset the window. <br>
+ * Based on that, restarts are delayed exponentially and the expensive pre-startup tasks are skipped.
+ * When the server keeps crashing after a plugin or mod was updated, the most recently updated jar is moved to /autoplug/quarantine.
+ */
+public class CrashLoopGuard {
+    private static final long MS_WINDOW = 30 * 60 * 1000;
+    /**
+     * If the server ran at least this long, it was stable and a following crash is not counted as rapid.
+     */
+    private static final long MS_STABLE_RUN = 5 * 60 * 1000;
+    private static final long MS_MAX_RESTART_DELAY = 5 * 60 * 1000;
+    private static final int MAX_LAST_LINES = 20;
+    private final Deque<String> lastLines = new ArrayDeque<>();
+    private final Deque<Crash> crashes = new ArrayDeque<>();
+    private boolean isQuarantineDone;
+
+    public synchronized void onProcessStart() {
+        lastLines.clear();
+    }
+
+    public synchronized void onLine(@NotNull String line) {
+        if (lastLines.size() >= MAX_LAST_LINES) lastLines.removeFirst();
+        lastLines.addLast(line);
+    }
+
+    /**
+     * Called when the server exited without crashing, or ran long enough to count as stable.
+     */
+    public synchronized void onStableRun(long msProcessStart) {
+        crashes.clear();
+        isQuarantineDone = false;
+        try {
+            SystemConfig systemConfig = new SystemConfig();
+            systemConfig.lockFile();
+            systemConfig.load();
+            systemConfig.timestamp_last_stable_server_start.setValues(String.valueOf(msProcessStart));
+            systemConfig.save();
+            systemConfig.unlockFile();
+        } catch (Exception e) {
+            AL.warn("Failed to save the start time of the last stable server run.", e);
+        }
+    }
+
+    @NotNull
+    public synchronized Crash onCrash(int exitCode, long msProcessStart, long msExit) {
+        if (msExit - msProcessStart >= MS_STABLE_RUN) onStableRun(msProcessStart);
+        while (!crashes.isEmpty() && msExit - crashes.getFirst().msTime > MS_WINDOW) {
+            crashes.removeFirst();
+        }
+        Crash crash = new Crash(msExit, exitCode, msExit - msProcessStart, new ArrayList<>(lastLines));
+        crashes.addLast(crash);
+        AL.debug(this.getClass(), "Server crashed after " + crash.msRunTime + "ms with exit code " + exitCode
+                + ", rapid crashes in a row: " + getCountRapidCrashes() + ". Last output: " + crash.lastLines);
+        return crash;
+    }
+
+    /**
+     * @return the amount of crashes in a row, where the server crashed shortly after being started.
+     */
+    public synchronized int getCountRapidCrashes() {
+        int count = 0;
+        Iterator<Crash> it = crashes.descendingIterator();
+        while (it.hasNext() && it.next().isRapid()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the last crash happened shortly after the server was started.
+     * Restarts after such a crash skip the expensive pre-startup tasks (backups and updaters),
+     * since they ran only minutes ago.
+     */
+    public synchronized boolean isRapidRestart() {
+        return !crashes.isEmpty() && crashes.getLast().isRapid();
+    }
+
+    /**
+     * @return 0 after the first rapid crash, otherwise a delay that doubles with each rapid crash in a row,
+     * starting at 5 seconds and capped at 5 minutes.
+     */
+    public synchronized long getRestartDelay() {
+        int count = getCountRapidCrashes();
+        return count <= 1 ? 0 : Math.min(MS_MAX_RESTART_DELAY, 5000L << Math.min(count - 2, 10));
+    }
+
+    /**
+     * If the server crashed at least twice in a row and a plugin or mod was updated since the last stable run,
+     * moves the most recently updated jar to /autoplug/quarantine. Does this at most once per crash loop.
+     *
+     * @return the quarantined jar, or null if nothing was quarantined.
+     */
+    @Nullable
+    public synchronized File quarantineIfUpdateCaused() {
+        if (isQuarantineDone || getCountRapidCrashes() < 2) return null;
+        isQuarantineDone = true;
+        try {
+            String timestamp = new SystemConfig().timestamp_last_stable_server_start.asString();
+            if (timestamp == null) return null; // Never ran stable, thus no way of telling what changed
+            long msLastStableStart = Long.parseLong(timestamp);
+            long msFirstCrashedStart = Long.MAX_VALUE;
+            for (Crash crash : crashes) {
+                msFirstCrashedStart = Math.min(msFirstCrashedStart, crash.msTime - crash.msRunTime);
+            }
+
+            File lastUpdated = null;
+            for (File dir : Arrays.asList(new File(GD.WORKING_DIR + "/plugins"), new File(GD.WORKING_DIR + "/mods"))) {
+                File[] files = dir.listFiles((d, name) -> name.endsWith(".jar"));
+                if (files == null) continue;
+                for (File file : files) {
+                    long msModified = file.lastModified();
+                    // Updated after the last stable run started and before the crashes started
+                    if (msModified > msLastStableStart && msModified < msFirstCrashedStart
+                            && (lastUpdated == null || msModified > lastUpdated.lastModified()))
+                        lastUpdated = file;
+                }
+            }
+            if (lastUpdated == null) return null;
+
+            File quarantineDir = new File(GD.WORKING_DIR + "/autoplug/quarantine");
+            quarantineDir.mkdirs();
+            File dest = new File(quarantineDir, lastUpdated.getName());
+            Files.move(lastUpdated.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            AL.warn("Moved '" + lastUpdated.getName() + "' to " + quarantineDir + ", since the server keeps crashing after it was updated." +
+                    " Move it back once the issue is fixed.");
+            return dest;
+        } catch (Exception e) {
+            AL.warn("Failed to quarantine the most recently updated plugin/mod.", e);
+            return null;
+        }
+    }
+
+    @NotNull
+    public synchronized List<Crash> getCrashes() {
+        return new ArrayList<>(crashes);
+    }
+
+    public static class Crash {
+        public final long msTime;
+        public final int exitCode;
+        /**
+         * Time in ms the server ran before crashing.
+         */
+        public final long msRunTime;
+        /**
+         * The last lines of the server output before the crash.
+         */
+        public final List<String> lastLines;
+
+        public Crash(long msTime, int exitCode, long msRunTime, @NotNull List<String> lastLines) {
+            this.msTime = msTime;
+            this.exitCode = exitCode;
+            this.msRunTime = msRunTime;
+            this.lastLines = lastLines;
+        }
+
+        public boolean isRapid() {
+            return msRunTime < MS_STABLE_RUN;
+        }
+    }
+}
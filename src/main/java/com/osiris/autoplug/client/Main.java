@@ -17,6 +17,10 @@ import com.osiris.autoplug.client.network.local.ConPluginCommandReceive;
 import com.osiris.autoplug.client.network.online.ConMain;
 import com.osiris.autoplug.client.ui.MainWindow;
 import com.osiris.autoplug.client.utils.*;
+import com.osiris.autoplug.client.utils.io.AsyncLogPipeline;
+import com.osiris.autoplug.client.utils.io.ConsoleHistory;
+import com.osiris.autoplug.client.utils.io.LogArchiver;
+import com.osiris.autoplug.client.utils.io.LogStore;
 import com.osiris.dyml.Yaml;
 import com.osiris.dyml.YamlSection;
 import com.osiris.jlib.logger.AL;
@@ -28,6 +32,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,6 +59,9 @@ public class Main {
         // Check various things to ensure an fully functioning application.
         // If one of these checks fails this application is stopped.
         long now = System.currentTimeMillis();
+        StartupProfiler profiler = StartupProfiler.get();
+        SystemChecker systemChecker = null;
+        long msChecksDeadline = 0;
         try {
             System.out.println();
             System.out.println("Initialising " + GD.VERSION);
@@ -86,11 +96,17 @@ public class Main {
                 return;
             }
 
+            // The checks run in parallel to the logger and configs initialisation.
+            // The internet check is only awaited until the deadline, the probes continue in the background.
+            CompletableFuture<Void> readWriteCheck = null;
             if (!args.contains("skipSystemCheck")) {
-                SystemChecker system = new SystemChecker();
-                system.checkReadWritePermissions();
-                system.checkInternetAccess();
-                system.addShutDownHook();
+                StartupProfiler.Phase phase = profiler.begin("System checks");
+                systemChecker = new SystemChecker();
+                readWriteCheck = systemChecker.checkReadWritePermissionsAsync();
+                systemChecker.checkInternetAccess();
+                msChecksDeadline = System.currentTimeMillis() + 1000;
+                systemChecker.addShutDownHook();
+                phase.end();
             }
 
             // Set default SysOut to TeeOutput, for the OnlineConsole
@@ -106,18 +122,42 @@ public class Main {
             //PIPED_IN.actionsOnWriteLineEvent.add(line -> AL.debug(Main.class, line)); // For debugging
 
             // Start the logger
+            StartupProfiler.Phase phaseLogger = profiler.begin("Logger");
             Yaml logC = new Yaml(System.getProperty("user.dir") + "/autoplug/logger.yml");
             logC.load();
             YamlSection debug = logC.put("logger", "debug").setDefValues("false");
             YamlSection autoplug_label = logC.put("logger", "autoplug-label").setDefValues("AP");
             YamlSection force_ansi = logC.put("logger", "force-ANSI").setDefValues("false");
+            // Archive the logs of the previous session, before the logger opens them again
+            File archiveDir = new File(WORKING_DIR + "/autoplug/logs/archive");
+            LogArchiver logArchiver = new LogArchiver(archiveDir);
+            logArchiver.compressOldLogs(archiveDir, 0); // Interrupted by the previous session
+            logArchiver.archive(GD.AP_LATEST_LOG);
+            logArchiver.archive(GD.FILE_OUT);
+            logArchiver.archive(GD.FILE_ERR_OUT);
+            logArchiver.archive(GD.SERVER_LATEST_LOG);
+            logArchiver.compressOldLogs(new File(WORKING_DIR + "/autoplug/logs"), TimeUnit.DAYS.toMillis(1),
+                    GD.AP_LATEST_LOG.getName(), GD.SYSTEM_LATEST_LOG.getName(), GD.FILE_OUT.getName(), GD.FILE_ERR_OUT.getName(),
+                    GD.SERVER_LATEST_LOG.getName());
             MessageFormatter.dtf_small = MessageFormatter.dtf_long;
             AL.start(autoplug_label.asString(),
                     debug.asBoolean(), // must be a new Yaml and not the LoggerConfig
                     GD.AP_LATEST_LOG,
                     force_ansi.asBoolean()
             );
+            GD.TERMINAL_OUT = System.out; // The server output is written to the terminal and its own log file separately
             AL.mirrorSystemStreams(GD.FILE_OUT, GD.FILE_ERR_OUT);
+            AsyncLogPipeline.get().addSink(ConsoleHistory.logSink);
+            AsyncLogPipeline.get().start();
+            phaseLogger.end();
+
+            if (readWriteCheck != null) {
+                try {
+                    readWriteCheck.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
 
             try {
                 for (String arg : args) {
@@ -167,10 +207,14 @@ public class Main {
             AL.info(GD.VERSION + " by " + GD.AUTHOR);
             AL.info("Web-Panel: " + GD.OFFICIAL_WEBSITE);
             AL.info("| ------------------------------------------- |");
+            StartupProfiler.Phase phase = profiler.begin("Server executable search");
             Server.getServerExecutable(); // Make sure this is called here first and not in a task later
             // to avoid infinite initialising
 
+            phase.end();
+
             //AL.info("Checking configurations...");
+            phase = profiler.begin("Configs");
             now = System.currentTimeMillis();
             UtilsConfig utilsConfig = new UtilsConfig();
             utilsConfig.convertToNewNames();
@@ -185,6 +229,15 @@ public class Main {
 
             LoggerConfig loggerConfig = new LoggerConfig();
             utilsConfig.checkForDeprecatedSections(loggerConfig);
+            logArchiver.deleteOlderThan(loggerConfig.log_archive_max_days.asInt());
+            ConsoleHistory.get().setMaxBytes(loggerConfig.console_history_size.asInt() * 1024);
+            if (loggerConfig.log_store_enable.asBoolean()) {
+                try {
+                    LogStore.start(loggerConfig.log_store_max_days.asInt());
+                } catch (Exception e) {
+                    AL.warn("Failed to start the log store, thus console output will not be searchable.", e);
+                }
+            }
             allModules.addAll(loggerConfig.getAllInEdit());
             // Extra debug options
             if (loggerConfig.debug.asBoolean()) {
@@ -227,11 +280,22 @@ public class Main {
 
             utilsConfig.printAllModulesToDebugExceptServerKey(allModules, generalConfig.server_key.asString());
             AL.info("Checked configs, took " + (System.currentTimeMillis() - now) + "ms");
+            phase.end();
+
+            if (systemChecker != null) {
+                phase = profiler.begin("Internet access check");
+                if (!systemChecker.awaitInternetAccess(Math.max(0, msChecksDeadline - System.currentTimeMillis())))
+                    AL.warn("Failed to reach AutoPlug-Web and the update APIs, make sure that you have an internet connection!" +
+                            " Unreachable sources are skipped by the updaters.");
+                phase.end();
+            }
 
             try {
                 if (sharedFilesConfig.enable.asBoolean()) {
+                    phase = profiler.begin("File sync");
                     now = System.currentTimeMillis();
                     new SyncFilesManager(sharedFilesConfig);
+                    phase.end();
                     AL.info("Enabled sync for " + sharedFilesConfig.copy_from.getValues().size() + " directories, took " + (System.currentTimeMillis() - now) + "ms");
                 }
             } catch (Exception e) {
@@ -240,8 +304,10 @@ public class Main {
 
             try {
                 if (generalConfig.autoplug_system_tray.asBoolean()) {
+                    phase = profiler.begin("System-tray GUI");
                     now = System.currentTimeMillis();
                     new MainWindow();
+                    phase.end();
                     AL.info("Started system-tray GUI, took " + (System.currentTimeMillis() - now) + "ms");
                 }
             } catch (Exception e) {
@@ -267,8 +333,10 @@ public class Main {
                 AL.warn(e);
             }
 
+            phase = profiler.begin("Main connection");
             CON = new ConMain();
             CON.open();
+            phase.end();
 
             AL.info("Initialised successfully.");
             AL.info("| ------------------------------------------- |");
@@ -280,7 +348,9 @@ public class Main {
             new ThreadUserInput().start();
 
             if (GD.TARGET != Target.MINECRAFT_CLIENT && generalConfig.server_auto_start.asBoolean())
-                Server.start();
+                Server.start(); // Finishes the startup profiler
+            else
+                profiler.finish();
 
             // Execute arguments as commands if existing
             String argsString = "";
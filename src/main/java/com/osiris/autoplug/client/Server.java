@@ -8,6 +8,7 @@
 
 package com.osiris.autoplug.client;
 
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.GeneralConfig;
 import com.osiris.autoplug.client.configs.LoggerConfig;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
@@ -16,35 +17,62 @@ import com.osiris.autoplug.client.network.online.connections.ConAutoPlugConsoleS
 import com.osiris.autoplug.client.tasks.BeforeServerStartupTasks;
 import com.osiris.autoplug.client.utils.*;
 import com.osiris.autoplug.client.utils.io.AsyncInputStream;
+import com.osiris.autoplug.client.utils.io.CommandWriter;
+import com.osiris.autoplug.client.utils.io.ConsoleHistory;
+import com.osiris.autoplug.client.utils.io.LineRingBuffer;
+import com.osiris.autoplug.client.utils.io.LogStore;
 import com.osiris.dyml.SmartString;
 import com.osiris.dyml.YamlSection;
 import com.osiris.dyml.exceptions.*;
 import com.osiris.jlib.logger.AL;
 import net.lingala.zip4j.ZipFile;
 import net.lingala.zip4j.model.FileHeader;
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.SystemUtils;
 import org.fusesource.jansi.Ansi;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.OutputStream;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Scanner;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 public final class Server {
 
-    private static final AtomicBoolean isKill = new AtomicBoolean(false);
+    // Same escape codes as Ansi#fgRed() etc., but without creating a new builder for each line
+    private static final String ANSI_RED = "\u001B[31m";
+    private static final String ANSI_YELLOW = "\u001B[33m";
+    private static final String ANSI_CYAN = "\u001B[36m";
+    private static final String ANSI_RESET = "\u001B[m";
+    private static final ThreadLocal<StringBuilder> COLORIZE_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private static final CrashLoopGuard crashLoopGuard = new CrashLoopGuard();
+    private static final ServerStartupTracker startupTracker = new ServerStartupTracker();
+    private static final ConsoleAnalyzer consoleAnalyzer = new ConsoleAnalyzer();
     @Nullable
     public static AsyncInputStream ASYNC_SERVER_IN;
     private static Process process;
-    private static Thread threadServerAliveChecker;
+    @Nullable
+    private static volatile CommandWriter commandWriter;
+    private static volatile long msLastRejectWarning;
+    private static volatile State state = State.STOPPED;
+    /**
+     * Completed with the exit code of the current server process, once its state was updated.
+     */
+    private static volatile CompletableFuture<Integer> exitFuture = CompletableFuture.completedFuture(0);
+    private static volatile boolean isRestarting;
+    private static volatile long msProcessStart;
     private static boolean colorServerLog;
+    private static int serverOutputBufferSize = AsyncInputStream.DEFAULT_CAPACITY;
+    private static LineRingBuffer.OverflowPolicy serverOutputPolicy = LineRingBuffer.OverflowPolicy.DROP_OLDEST;
+    /**
+     * Contains the output of all server processes of this session, see {@link GD#SERVER_LATEST_LOG}.
+     */
+    private static PrintWriter serverLog;
 
     public static File getServerExecutable() throws NotLoadedException, YamlReaderException, YamlWriterException, IOException, IllegalKeyException, DuplicateKeyException, IllegalListException {
         File serverExe = null;
@@ -101,17 +129,30 @@ public final class Server {
     }
 
     public static void start() {
+        start(false);
+    }
+
+    /**
+     * @param isQuickStart if true, skips the expensive pre-startup tasks (backup and updaters).
+     */
+    private static void start(boolean isQuickStart) {
         try {
             try {
-                colorServerLog = new LoggerConfig().color_server_log.asBoolean();
+                LoggerConfig loggerConfig = new LoggerConfig();
+                colorServerLog = loggerConfig.color_server_log.asBoolean();
+                serverOutputBufferSize = loggerConfig.server_output_buffer_size.asInt();
+                serverOutputPolicy = LineRingBuffer.OverflowPolicy.valueOf(loggerConfig.server_output_overflow_policy.asString().toUpperCase());
             } catch (Exception e) {
                 AL.warn(e);
             }
 
             if (isRunning()) throw new Exception("Server already running!");
+            state = State.STARTING;
 
             // Runs all processes before starting the server
-            new BeforeServerStartupTasks();
+            StartupProfiler.Phase phase = StartupProfiler.get().begin("Pre-startup tasks");
+            new BeforeServerStartupTasks(isQuickStart);
+            phase.end();
 
             // Find server jar
             File serverExe = getServerExecutable();
@@ -121,42 +162,55 @@ public final class Server {
                         "Searched dir: '" + GD.WORKING_DIR + "'");
 
             AL.info("Starting server: " + serverExe.getName());
+            phase = StartupProfiler.get().begin("Server process");
             createProcess();
+            phase.end();
         } catch (Exception e) {
+            if (!isRunning()) state = State.STOPPED;
             AL.warn("Failed to start server: " + e.getMessage(), e);
         }
+        StartupProfiler.get().finish();
     }
 
     public static void restart() {
         //Before starting make backups and check for updates
         AL.info("Restarting server...");
+        isRestarting = true;
         try {
             stop();
             start();
         } catch (Exception e) {
             AL.warn(e);
+        } finally {
+            isRestarting = false;
         }
     }
 
     /**
-     * Blocks until the server was stopped.
+     * Blocks until the server was stopped, or kills it if it
+     * did not stop within the configured stop-timeout.
      */
     public static void stop() throws IOException, InterruptedException, YamlWriterException, NotLoadedException, IllegalKeyException, DuplicateKeyException, YamlReaderException, IllegalListException {
 
         AL.info("Stopping server...");
 
         if (isRunning()) {
-            YamlSection stopCommand = new GeneralConfig().server_stop_command;
+            GeneralConfig config = new GeneralConfig();
+            YamlSection stopCommand = config.server_stop_command;
             List<SmartString> values = stopCommand.getValues();
             if (values.isEmpty()) {
                 AL.warn("No stop command provided in " + new UtilsLists().toString(stopCommand.getKeys()));
                 return;
             }
+            state = State.STOPPING;
             for (SmartString v : values) {
-                submitCommand(v.asString());
+                submitCommand(v.asString(), "stop", 5000);
+            }
+            int timeout = config.server_stop_timeout.asInt();
+            if (!awaitExit(timeout * 1000L)) {
+                AL.warn("Server did not stop within " + timeout + " seconds, killing it...");
+                kill();
             }
-            while (Server.isRunning())
-                Thread.sleep(1000);
             ASYNC_SERVER_IN = null;
         } else {
             AL.warn("Server not running!");
@@ -168,19 +222,17 @@ public final class Server {
      * Blocks until server was killed.
      */
     public static boolean kill() {
-        isKill.set(true);
         AL.info("Killing server!");
         try {
 
             if (isRunning()) {
-                process.destroyForcibly().waitFor();
+                state = State.STOPPING;
+                process.destroyForcibly();
+                awaitExit(0);
             } else {
                 AL.warn("Server is not running!");
             }
 
-            while (isRunning()) {
-                Thread.sleep(1000);
-            }
             AL.info("Server killed!");
             return true;
 
@@ -194,6 +246,98 @@ public final class Server {
         return process != null && process.isAlive();
     }
 
+    /**
+     * Its statistics are kept over server restarts.
+     */
+    @NotNull
+    public static ConsoleAnalyzer getConsoleAnalyzer() {
+        return consoleAnalyzer;
+    }
+
+    @NotNull
+    public static State getState() {
+        return state;
+    }
+
+    /**
+     * Blocks until the current server process exited and its state was updated.
+     *
+     * @param msTimeout 0 or less to wait forever.
+     * @return false if the timeout was exceeded.
+     */
+    public static boolean awaitExit(long msTimeout) throws InterruptedException {
+        try {
+            if (msTimeout <= 0) exitFuture.get();
+            else exitFuture.get(msTimeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e); // Never completed exceptionally
+        }
+    }
+
+    /**
+     * Called by the waiter thread of the server process, right after it exited.
+     */
+    private static void onExit(int exitCode, @NotNull CompletableFuture<Integer> future) {
+        long msExit = System.currentTimeMillis();
+        CommandWriter writer = commandWriter;
+        if (writer != null) writer.close();
+        boolean isIntended = state == State.STOPPING;
+        boolean isRestart = isRestarting;
+        if (!isIntended && exitCode != 0) {
+            state = State.CRASHED;
+            AL.warn("Server crash was detected! Exit-Code should be 0, but is '" + exitCode + "'!");
+        } else {
+            state = State.STOPPED;
+            AL.info("Server was stopped.");
+        }
+        future.complete(exitCode);
+        if (state == State.CRASHED) crashLoopGuard.onCrash(exitCode, msProcessStart, msExit);
+        else crashLoopGuard.onStableRun(msProcessStart);
+        if (isRestart) return;
+
+        try {
+            if (ConfigRegistry.get(GeneralConfig.class).autoplug_auto_stop.asBoolean()) {
+                AL.info("Stopping AutoPlug too, since 'autoplug-stop' is enabled.");
+                System.exit(0);
+            } else {
+                AL.info("To stop AutoPlug too, enter '.stop both'.");
+            }
+
+            if (state == State.CRASHED && ConfigRegistry.get(GeneralConfig.class).server_restart_on_crash.asBoolean())
+                restartAfterCrash(msExit);
+        } catch (Exception e) {
+            AL.warn(e);
+        }
+    }
+
+    /**
+     * Restarts the server right away after the first crash. If it keeps crashing shortly after being started,
+     * the restarts get delayed and skip the expensive pre-startup tasks, see {@link CrashLoopGuard}.
+     */
+    private static void restartAfterCrash(long msExit) throws InterruptedException {
+        long msDelay = crashLoopGuard.getRestartDelay();
+        if (msDelay == 0)
+            AL.info("Restart on crash is enabled, thus the server is restarting...");
+        else {
+            AL.info("Restart on crash is enabled, thus the server is restarting in " + msDelay / 1000 + " seconds" +
+                    " (crashed " + crashLoopGuard.getCountRapidCrashes() + " times in a row)...");
+            crashLoopGuard.quarantineIfUpdateCaused();
+            Thread.sleep(msDelay);
+            if (state != State.CRASHED) {
+                AL.info("Cancelled restart on crash, since the server was started or stopped in the meantime.");
+                return;
+            }
+        }
+        boolean isQuickStart = crashLoopGuard.isRapidRestart();
+        if (isQuickStart) AL.info("Skipping backup and updater tasks, since the server crashed shortly after being started.");
+        start(isQuickStart);
+        if (isRunning())
+            AL.info("Restarted server " + (System.currentTimeMillis() - msExit) + "ms after the crash.");
+    }
+
     private static void createProcess() throws Exception {
         GeneralConfig config = new GeneralConfig();
         String startCommand = config.server_start_command.asString();
@@ -275,74 +419,83 @@ public final class Server {
         processBuilder.redirectInput(ProcessBuilder.Redirect.PIPE);
         processBuilder.redirectOutput(ProcessBuilder.Redirect.PIPE);
         process = processBuilder.start();
-
-        // Server OutputStream writes to our process InputStream, thus we can read its output:
-        ASYNC_SERVER_IN = new AsyncInputStream(process.getInputStream());
-        ASYNC_SERVER_IN.listeners.add(line -> {
-            try {
-                Ansi ansi = Ansi.ansi();
-                if (colorServerLog) {
-                    if (StringUtils.containsIgnoreCase(line, "error") ||
-                            StringUtils.containsIgnoreCase(line, "critical") ||
-                            StringUtils.containsIgnoreCase(line, "exception")) {
-                        ansi.fgRed().a(line).reset();
-                    } else if (StringUtils.containsIgnoreCase(line, "warn") ||
-                            StringUtils.containsIgnoreCase(line, "warning")) {
-                        ansi.fgYellow().a(line).reset();
-                    } else if (StringUtils.containsIgnoreCase(line, "debug")) {
-                        ansi.fgCyan().a(line).reset();
-                    } else {
-                        ansi.a(line).reset();
-                    }
-                } else {
-                    ansi.a(line).reset();
+        commandWriter = new CommandWriter(process.getOutputStream());
+        msProcessStart = System.currentTimeMillis();
+        state = State.RUNNING;
+        crashLoopGuard.onProcessStart();
+        startupTracker.onProcessStart(msProcessStart);
+
+        // Instead of polling isRunning(), a thread waits for the process to exit
+        // and handles it right away (Process.onExit() is not available on Java 8)
+        Process p = process;
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        exitFuture = future;
+        Thread waiter = new Thread(() -> {
+            int exitCode;
+            while (true) {
+                try {
+                    exitCode = p.waitFor();
+                    break;
+                } catch (InterruptedException ignored) {
                 }
-                System.out.println(ansi);
-                ConAutoPlugConsoleSend.send(String.valueOf(ansi));
-            } catch (Exception e) {
-                AL.warn(e);
             }
+            onExit(exitCode, future);
+        }, "AutoPlug-ServerWaiter");
+        waiter.setDaemon(true);
+        waiter.start();
+
+        // Server OutputStream writes to our process InputStream, thus we can read its output:
+        ASYNC_SERVER_IN = new AsyncInputStream(process.getInputStream(), serverOutputBufferSize);
+        ASYNC_SERVER_IN.listeners.add(crashLoopGuard::onLine);
+        ASYNC_SERVER_IN.listeners.add(startupTracker::onLine);
+        // Separate sinks, so that a slow terminal can skip lines without stalling the server, while the log file gets every line
+        ASYNC_SERVER_IN.addSink("terminal", serverOutputPolicy, line -> GD.TERMINAL_OUT.println(colorize(line)));
+        try {
+            if (serverLog != null) serverLog.close(); // Of the previous server process
+            GD.SERVER_LATEST_LOG.getParentFile().mkdirs();
+            PrintWriter log = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(GD.SERVER_LATEST_LOG, true), StandardCharsets.UTF_8)));
+            serverLog = log;
+            ASYNC_SERVER_IN.addSink("log-file", LineRingBuffer.OverflowPolicy.BLOCK, log::println, log::flush);
+        } catch (IOException e) {
+            AL.warn("Failed to open " + GD.SERVER_LATEST_LOG + ", the servers output is only shown in the terminal.", e);
+        }
+        ASYNC_SERVER_IN.addSink("console-analyzer", LineRingBuffer.OverflowPolicy.DROP_OLDEST, consoleAnalyzer::onLine);
+        ASYNC_SERVER_IN.addSink("online-console", LineRingBuffer.OverflowPolicy.DROP_OLDEST, line -> {
+            String coloredLine = colorize(line);
+            ConsoleHistory.get().add(coloredLine);
+            ConAutoPlugConsoleSend.send(coloredLine);
         });
+        LogStore logStore = LogStore.get();
+        if (logStore != null)
+            ASYNC_SERVER_IN.addSink("log-store", LineRingBuffer.OverflowPolicy.DROP_OLDEST, logStore::add);
+    }
 
-        // Also create a thread which checks if the server is running or not.
-        if (threadServerAliveChecker == null) {
-            threadServerAliveChecker = new Thread(() -> {
-                try {
-                    boolean lastIsRunningCheck = false;
-                    boolean currentIsRunningCheck;
-                    while (true) {
-                        Thread.sleep(2000);
-                        currentIsRunningCheck = Server.isRunning();
-                        if (!currentIsRunningCheck && lastIsRunningCheck) {
-                            AL.info("Server was stopped.");
-                            if (new GeneralConfig().autoplug_auto_stop.asBoolean()) {
-                                AL.info("Stopping AutoPlug too, since 'autoplug-stop' is enabled.");
-                                System.exit(0);
-                            } else {
-                                AL.info("To stop AutoPlug too, enter '.stop both'.");
-                            }
-
-                            if (process.exitValue() != 0) {
-                                if (isKill.get()) {
-                                    isKill.set(false);
-                                } else {
-                                    AL.warn("Server crash was detected! Exit-Code should be 0, but is '" + process.exitValue() + "'!");
-                                    if (new GeneralConfig().server_restart_on_crash.asBoolean()) {
-                                        AL.info("Restart on crash is enabled, thus the server is restarting...");
-                                        Server.start();
-                                    }
-                                }
-
-                            }
-                        }
-                        lastIsRunningCheck = currentIsRunningCheck;
-                    }
-                } catch (Exception e) {
-                    AL.error("Thread for checking if Server is alive was stopped due to an error.", e);
-                }
-            });
-            threadServerAliveChecker.start();
+    /**
+     * Colors the line by its log level, see {@link LogLevelClassifier}.
+     * Reuses a buffer per thread, since this is called for every line of the servers output.
+     */
+    @NotNull
+    private static String colorize(@NotNull String line) {
+        if (!Ansi.isEnabled()) return line;
+        StringBuilder sb = COLORIZE_BUFFER.get();
+        sb.setLength(0);
+        if (colorServerLog) {
+            switch (LogLevelClassifier.get().classify(line)) {
+                case ERROR:
+                    sb.append(ANSI_RED);
+                    break;
+                case WARN:
+                    sb.append(ANSI_YELLOW);
+                    break;
+                case DEBUG:
+                    sb.append(ANSI_CYAN);
+                    break;
+                default:
+                    break;
+            }
         }
+        return sb.append(line).append(ANSI_RESET).toString();
     }
 
     public static String getFileNameWithoutExt(String fileNameWithExt) throws NotLoadedException {
@@ -362,18 +515,53 @@ public final class Server {
         return false;
     }
 
-    public static void submitCommand(@NotNull String command) throws IOException {
-        if (isRunning()) {
-            OutputStream os = process.getOutputStream();
-            // Since the command won't be executed if it doesn't end with a new line char we do the below:
-            if (command.contains(System.lineSeparator()))
-                os.write(command.getBytes(StandardCharsets.UTF_8));//TERMINAL.writer().write(command);
-            else
-                os.write((command + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));//TERMINAL.writer().write(command + System.lineSeparator());
-            os.flush();
-        } else {
+    public static boolean submitCommand(@NotNull String command) {
+        return submitCommand(command, "autoplug");
+    }
+
+    /**
+     * Queues the command for the servers stdin, see {@link CommandWriter}. Never blocks.
+     * If too many commands of this source are queued, the command is rejected and a warning is logged, at most once per second.
+     *
+     * @param source for example "online-console", see {@link CommandWriter#submit(String, String)}.
+     * @return true if the command was queued.
+     */
+    public static boolean submitCommand(@NotNull String command, @NotNull String source) {
+        try {
+            return submitCommand(command, source, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #submitCommand(String, String)}, but waits for up to the given time, if too many commands are queued.
+     */
+    public static boolean submitCommand(@NotNull String command, @NotNull String source, long msMaxWait) throws InterruptedException {
+        CommandWriter writer = commandWriter;
+        if (!isRunning() || writer == null) {
             AL.warn("Failed to submit command '" + command + "' because server is not running!");
+            return false;
         }
+        if (msMaxWait > 0 ? writer.submit(command, source, msMaxWait) : writer.submit(command, source))
+            return true;
+        long msNow = System.currentTimeMillis();
+        if (msNow - msLastRejectWarning >= 1000) {
+            msLastRejectWarning = msNow;
+            AL.warn("Failed to submit command '" + command + "' because too many commands are queued ("
+                    + writer.getCountQueued(source) + " from " + source + ", " + writer.getCountQueued() + " in total, "
+                    + writer.getCountRejected() + " rejected so far)!");
+        }
+        return false;
+    }
+
+    /**
+     * @return the writer for the servers stdin, or null if the server was never started.
+     */
+    @Nullable
+    public static CommandWriter getCommandWriter() {
+        return commandWriter;
     }
 
     public static String getMCVersion() throws Exception {
@@ -382,6 +570,21 @@ public final class Server {
         if (mcVersion == null) throw new NullPointerException(GD.errorMsgFailedToGetMCVersion());
         return mcVersion;
     }
-}
-
 
+    public enum State {
+        /**
+         * Pre-startup tasks are running, or the process is being created.
+         */
+        STARTING,
+        RUNNING,
+        /**
+         * The stop command was sent, or the process is being killed.
+         */
+        STOPPING,
+        STOPPED,
+        /**
+         * The server exited unexpectedly with a non-zero exit code.
+         */
+        CRASHED
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client;
+
+import com.google.gson.Gson;
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.UtilsFile;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks how long the server takes to start, by listening for its "Done (12.345s)!" line,
+ * and the time until the first player joined. <br>
+ * Each start is saved to /autoplug/logs/server-startup-history.jsonl (one start per line), together with the
+ * plugin/mod jars that were installed or updated since the previous start. If the startup gets considerably slower
+ * and jars were changed, the start is flagged as regression and the changed jars are listed in the console.
+ */
+public class ServerStartupTracker {
+    private static final Pattern PATTERN_DONE = Pattern.compile("Done \\((\\d+[.,]?\\d*)s\\)!");
+    private static final int MAX_HISTORY = 100;
+    /**
+     * Amount of previous starts to compare with.
+     */
+    private static final int COUNT_COMPARE = 5;
+    /**
+     * Starts that are this much slower than the median of the previous starts are regressions.
+     */
+    private static final double REGRESSION_FACTOR = 1.2;
+    private final Gson gson = new Gson();
+    private final File file = new File(GD.WORKING_DIR + "/autoplug/logs/server-startup-history.jsonl");
+    private List<Start> history;
+    private volatile Start current;
+
+    /**
+     * Called right after the server process was created.
+     */
+    public synchronized void onProcessStart(long msProcessStart) {
+        Start start = new Start();
+        start.msStart = msProcessStart;
+        Start previous = getLast();
+        start.changedJars = getJarsChangedSince(previous != null ? previous.msStart : 0);
+        current = start;
+    }
+
+    public void onLine(@NotNull String line) {
+        Start start = current;
+        if (start == null || start.msFirstJoin != 0) return;
+        if (start.msReady == 0) {
+            if (!line.contains("Done (")) return;
+            Matcher matcher = PATTERN_DONE.matcher(line);
+            if (matcher.find()) onReady(start, matcher.group(1));
+        } else if (line.contains(" joined the game")) {
+            onFirstJoin(start);
+        }
+    }
+
+    private synchronized void onReady(@NotNull Start start, @NotNull String reportedSeconds) {
+        start.msReady = System.currentTimeMillis() - start.msStart;
+        try {
+            start.msReported = (long) (Double.parseDouble(reportedSeconds.replace(',', '.')) * 1000);
+        } catch (NumberFormatException ignored) {
+        }
+        long msMedian = getMedianReady();
+        start.isRegression = msMedian > 0 && start.msReady > msMedian * REGRESSION_FACTOR && !start.changedJars.isEmpty();
+        if (start.isRegression)
+            AL.warn("Server startup took " + formatMs(start.msReady) + ", which is " + (start.msReady * 100 / msMedian - 100)
+                    + "% slower than usual (" + formatMs(msMedian) + "). Jars changed since the last start: " + String.join(", ", start.changedJars));
+        else
+            AL.debug(this.getClass(), "Server ready after " + formatMs(start.msReady) + " (usually " + formatMs(msMedian) + ").");
+        addAndSave(start);
+    }
+
+    private synchronized void onFirstJoin(@NotNull Start start) {
+        start.msFirstJoin = System.currentTimeMillis() - start.msStart;
+        save();
+    }
+
+    /**
+     * @return the started servers, from oldest to newest.
+     */
+    @NotNull
+    public synchronized List<Start> getHistory() {
+        return new ArrayList<>(load());
+    }
+
+    @Nullable
+    private Start getLast() {
+        List<Start> list = load();
+        return list.isEmpty() ? null : list.get(list.size() - 1);
+    }
+
+    /**
+     * @return the median time-to-ready of the last starts, or 0 if there are none.
+     */
+    private long getMedianReady() {
+        List<Start> list = load();
+        List<Long> values = new ArrayList<>();
+        for (int i = list.size() - 1; i >= 0 && values.size() < COUNT_COMPARE; i--) {
+            if (list.get(i).msReady > 0) values.add(list.get(i).msReady);
+        }
+        if (values.isEmpty()) return 0;
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+
+    /**
+     * @return the names of the plugin/mod jars that were modified (installed or updated) after the provided time.
+     */
+    @NotNull
+    private List<String> getJarsChangedSince(long msTime) {
+        List<String> changed = new ArrayList<>();
+        if (msTime <= 0) return changed;
+        for (File dir : Arrays.asList(new File(GD.WORKING_DIR + "/plugins"), new File(GD.WORKING_DIR + "/mods"))) {
+            File[] files = dir.listFiles((d, name) -> name.endsWith(".jar"));
+            if (files == null) continue;
+            for (File jar : files) {
+                if (jar.lastModified() > msTime) changed.add(dir.getName() + "/" + jar.getName());
+            }
+        }
+        Collections.sort(changed);
+        return changed;
+    }
+
+    private void addAndSave(@NotNull Start start) {
+        List<Start> list = load();
+        list.add(start);
+        while (list.size() > MAX_HISTORY) {
+            list.remove(0);
+        }
+        save();
+    }
+
+    @NotNull
+    private List<Start> load() {
+        if (history != null) return history;
+        history = new ArrayList<>();
+        if (!file.exists()) return history;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Start start = gson.fromJson(line, Start.class);
+                if (start != null) history.add(start);
+            }
+        } catch (Exception e) {
+            AL.warn("Failed to read " + file, e);
+        }
+        return history;
+    }
+
+    private void save() {
+        try {
+            List<Start> starts = load();
+            new UtilsFile().writeAtomically(file, out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                for (Start start : starts) {
+                    writer.write(gson.toJson(start));
+                    writer.write("\n");
+                }
+                writer.flush();
+            });
+        } catch (Exception e) {
+            AL.warn("Failed to write " + file, e);
+        }
+    }
+
+    private String formatMs(long ms) {
+        return String.format("%.1fs", ms / 1000.0);
+    }
+
+    public static class Start {
+        /**
+         * Time in ms when the server process was created.
+         */
+        public long msStart;
+        /**
+         * Time in ms from creating the process until the server was ready, 0 if unknown.
+         */
+        public long msReady;
+        /**
+         * The time reported by the server itself in its "Done" line, 0 if unknown.
+         */
+        public long msReported;
+        /**
+         * Time in ms from creating the process until the first player joined, 0 if nobody joined yet.
+         */
+        public long msFirstJoin;
+        /**
+         * Plugin/mod jars installed or updated since the previous start.
+         */
+        public List<String> changedJars = new ArrayList<>();
+        public boolean isRegression;
+    }
+}
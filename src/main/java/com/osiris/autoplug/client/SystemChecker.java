@@ -8,12 +8,13 @@
 
 package com.osiris.autoplug.client;
 
+import com.osiris.autoplug.client.utils.HostReachability;
+import com.osiris.autoplug.client.utils.io.AsyncLogPipeline;
+import com.osiris.autoplug.client.utils.io.LogStore;
 import com.osiris.jlib.logger.AL;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.InetAddress;
-import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 public class SystemChecker {
 
@@ -42,20 +43,41 @@ public class SystemChecker {
         }
     }
 
-    public void checkInternetAccess() throws Exception {
-        try {
-            boolean reachable = InetAddress.getByName("www.google.com").isReachable(10000);
-            if (!reachable) throw new Exception("Failed to reach www.google.com!");
-        } catch (Exception e) {
+    /**
+     * Runs {@link #checkReadWritePermissions()} in a separate thread,
+     * so that it does not delay the rest of the startup.
+     */
+    public CompletableFuture<Void> checkReadWritePermissionsAsync() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
             try {
-                HttpURLConnection connection = (HttpURLConnection) new URL("https://www.google.com").openConnection();
-                connection.connect();
-                connection.disconnect();
-            } catch (Exception ex) {
-                System.err.println("Make sure that you have an internet connection!");
-                throw ex;
+                checkReadWritePermissions();
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
             }
-        }
+        }, "AutoPlug-ReadWriteCheck");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Starts probing the hosts AutoPlug uses in parallel and returns immediately.
+     * The results are cached for the updaters, see {@link HostReachability}.
+     * Use {@link #awaitInternetAccess(long)} to get the result.
+     */
+    public void checkInternetAccess() {
+        HostReachability.get().probe(HostReachability.getDefaultHosts());
+    }
+
+    /**
+     * Waits at most the provided time for the probes started by {@link #checkInternetAccess()}.
+     *
+     * @return false if none of the hosts is reachable.
+     */
+    public boolean awaitInternetAccess(long msTimeout) throws InterruptedException {
+        return HostReachability.get().awaitAnyReachable(msTimeout);
     }
 
     /**
@@ -70,6 +92,19 @@ public class SystemChecker {
                 AL.warn("Error during shutdown, related to stopping the server!", e);
             }
 
+            try {
+                AsyncLogPipeline.get().close(1000);
+            } catch (Exception e) {
+                AL.warn("Error during shutdown, related to the log pipeline!", e);
+            }
+
+            try {
+                LogStore logStore = LogStore.get();
+                if (logStore != null) logStore.close();
+            } catch (Exception e) {
+                AL.warn("Error during shutdown, related to the log store!", e);
+            }
+
             try {
                 if (AL.isStarted) {
                     AL.info("See you soon!");
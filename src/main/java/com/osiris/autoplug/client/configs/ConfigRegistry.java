@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.configs;
+
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of configs, to avoid re-reading and re-parsing the same yaml file
+ * in loops and frequently called code, like the server-alive checker or connections. <br>
+ * Each config file is parsed once into a read-only snapshot that all threads share, reads are lock-free.
+ * When the file gets modified by the user, a new snapshot gets parsed and swapped in atomically.
+ * When it gets saved programmatically (by another instance of that config) and its content changed, the snapshot is dropped
+ * and parsed again on the next access. <br>
+ * Snapshots must not be modified, their values are read-only and {@link MyYaml#save()} throws an exception for them.
+ * Code that modifies a config should create its own instance as before.
+ * If the values cannot be made read-only (see {@link MyYaml#freezeValues()}), snapshots are disabled with a warning
+ * and each access parses the file into a new instance instead. <br>
+ * Example: <br>
+ * <pre>
+ * if (ConfigRegistry.get(WebConfig.class).online_console.asBoolean()) ...
+ * </pre>
+ */
+public class ConfigRegistry {
+    private static final Map<Class<? extends MyYaml>, MyYaml> SNAPSHOTS = new ConcurrentHashMap<>();
+    private static final Map<String, Class<? extends MyYaml>> PATHS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Boolean> IS_LOADING = ThreadLocal.withInitial(() -> false);
+    /**
+     * Incremented on each {@link #invalidate(String)} and {@link #reload(String)}, so that a snapshot parsed meanwhile is not cached.
+     * Only accessed while holding the lock of {@link #SNAPSHOTS}.
+     */
+    private static long generation;
+    private static volatile boolean isSnapshotsEnabled = true;
+
+    /**
+     * @return the current snapshot of the provided config, parses the file if there is none yet.
+     */
+    @NotNull
+    public static <T extends MyYaml> T get(@NotNull Class<T> type) throws Exception {
+        MyYaml snapshot = SNAPSHOTS.get(type);
+        if (snapshot == null) snapshot = load(type);
+        return type.cast(snapshot);
+    }
+
+    /**
+     * Parses the file again and swaps the snapshot. Called when the file was modified by the user.
+     * Does nothing if there is no snapshot for that file yet.
+     */
+    static void reload(@NotNull String path) {
+        Class<? extends MyYaml> type = PATHS.get(path);
+        if (type == null || !SNAPSHOTS.containsKey(type)) return;
+        synchronized (SNAPSHOTS) {
+            generation++; // So that running loads do not put back the old content
+        }
+        try {
+            load(type);
+        } catch (Exception e) {
+            SNAPSHOTS.remove(type);
+            AL.warn("Failed to reload config snapshot of " + path, e);
+        }
+    }
+
+    /**
+     * Drops the snapshot, so that the next access parses the file again. Called when the file was saved programmatically.
+     */
+    static void invalidate(@NotNull String path) {
+        synchronized (SNAPSHOTS) {
+            generation++;
+            Class<? extends MyYaml> type = PATHS.get(path);
+            if (type != null) SNAPSHOTS.remove(type);
+        }
+    }
+
+    /**
+     * True while a snapshot gets created in the current thread. Snapshots never register file listeners,
+     * since those load the new values into the instance that registered them.
+     */
+    static boolean isLoadingSnapshot() {
+        return IS_LOADING.get();
+    }
+
+    private static MyYaml load(Class<? extends MyYaml> type) throws Exception {
+        long generationAtStart;
+        synchronized (SNAPSHOTS) {
+            generationAtStart = generation;
+        }
+        MyYaml config;
+        IS_LOADING.set(true);
+        try {
+            config = newInstance(type);
+        } finally {
+            IS_LOADING.set(false);
+        }
+        if (!isSnapshotsEnabled) return config;
+        try {
+            config.freezeValues();
+        } catch (IllegalStateException e) {
+            isSnapshotsEnabled = false;
+            AL.warn("Disabled shared config snapshots, each access parses the config file again.", e);
+            return config;
+        }
+        String path = config.getAbsolutePath();
+        PATHS.put(path, type);
+        // Make sure the file is watched, also for configs that do not register a listener themselves
+        if (!MyYaml.isWatched(path))
+            newInstance(type).addSingletonConfigFileEventListener(e -> {
+            });
+        synchronized (SNAPSHOTS) {
+            // A config was saved while parsing, maybe this one, thus it could be outdated already
+            if (generation != generationAtStart) return config;
+            SNAPSHOTS.put(type, config);
+        }
+        AL.debug(ConfigRegistry.class, "Parsed config snapshot of " + path);
+        return config;
+    }
+
+    private static MyYaml newInstance(Class<? extends MyYaml> type) throws Exception {
+        try {
+            return type.getConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+}
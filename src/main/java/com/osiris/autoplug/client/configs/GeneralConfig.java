@@ -34,6 +34,7 @@ public class GeneralConfig extends MyYaml {
     public YamlSection server_auto_eula;
     public YamlSection server_start_command;
     public YamlSection server_stop_command;
+    public YamlSection server_stop_timeout;
     public YamlSection server_restart_on_crash;
 
     public YamlSection directory_cleaner;
@@ -138,6 +139,9 @@ public class GeneralConfig extends MyYaml {
         server_stop_command = put(name, "server", "stop-command").setDefValues("stop", "shutdown", "end", "close", "finish", "terminate", "abort").setComments(
                 "AutoPlug uses this command to stop your server.",
                 "By default there are multiple provided to ensure the right one is also there for your server type.");
+        server_stop_timeout = put(name, "server", "stop-timeout").setDefValues("60").setComments(
+                "Time in seconds to wait for the server to stop, after the stop command was sent.",
+                "If the server is still running after that time, it gets killed. 0 to wait forever.");
 
         // Convert old config stuff to new one:
         YamlSection oldJavaPath = get(name, "server", "java-path");
@@ -21,6 +21,13 @@ public class LoggerConfig extends MyYaml {
     public YamlSection autoplug_label;
     public YamlSection force_ansi;
     public YamlSection color_server_log;
+    public YamlSection server_output_buffer_size;
+    public YamlSection server_output_overflow_policy;
+    public YamlSection console_history_size;
+    public YamlSection console_history_replay_lines;
+    public YamlSection log_store_enable;
+    public YamlSection log_store_max_days;
+    public YamlSection log_archive_max_days;
 
     // Tasks
     public YamlSection live_tasks;
@@ -56,7 +63,9 @@ public class LoggerConfig extends MyYaml {
 
         debug = put(name, "debug").setDefValues("false").setComments(
                 "Writes the debug output to console.\n" +
-                        "The log file contains the debug output by default and this option wont affect that.\n");
+                        "The log file contains the debug output by default and this option wont affect that.\n" +
+                        "Except for the detailed output of the updaters and connections (search scores, URLs, hashes),\n" +
+                        "which is only created if this is enabled, since it is expensive.\n");
 
         autoplug_label = put(name, "autoplug-label").setDefValues("AP");
         force_ansi = put(name, "force-ANSI").setDefValues("false").setComments(
@@ -65,6 +74,37 @@ public class LoggerConfig extends MyYaml {
         color_server_log = put(name, "color-server-log").setDefValues("true").setComments(
                 "Checks the received line from the server process for specific words like 'warn' or 'exception' etc. and colors it accordingly."
         );
+        server_output_buffer_size = put(name, "server-output", "buffer-size").setDefValues("8192").setComments(
+                "The servers output is buffered for each of its receivers (terminal/log-file, online console, etc.),",
+                "so that a slow receiver does not slow down the server. This is the maximum amount of buffered lines."
+        );
+        server_output_overflow_policy = put(name, "server-output", "overflow-policy").setDefValues("DROP_OLDEST").setComments(
+                "What happens if the terminal cannot keep up with the servers output and the buffer is full.",
+                "BLOCK: The server waits until the lines were written.",
+                "DROP_OLDEST: Skips the oldest buffered lines and warns about the amount of skipped lines. The server never waits.",
+                "The log file (/autoplug/logs/server-latest.log) has its own buffer and always receives every line.",
+                "The online console always uses DROP_OLDEST, so that a slow connection never stalls the server."
+        );
+        console_history_size = put(name, "console-history", "size").setDefValues("4096").setComments(
+                "Memory in kilobytes, used to keep the most recent console lines (AutoPlug and server).",
+                "Older lines are moved to /autoplug/logs/console-history.bin, which is cleared on each start.",
+                "All of them can be viewed page by page with the '.logs history' command."
+        );
+        console_history_replay_lines = put(name, "console-history", "replay-lines").setDefValues("2000").setComments(
+                "The amount of recent lines the online console receives when it connects."
+        );
+        log_store_enable = put(name, "log-store", "enable").setDefValues("true").setComments(
+                "Stores the console output (AutoPlug and server) compressed and indexed in /autoplug/logs/store,",
+                "so that it can be searched quickly with the '.logs search' command."
+        );
+        log_store_max_days = put(name, "log-store", "max-days").setDefValues("14").setComments(
+                "Stored output older than this amount of days gets deleted."
+        );
+        log_archive_max_days = put(name, "log-archive", "max-days").setDefValues("30").setComments(
+                "On each start, the log files of the previous session are moved to /autoplug/logs/archive and compressed in the background.",
+                "Old, uncompressed logs in /autoplug/logs get compressed too.",
+                "Archived logs older than this amount of days get deleted."
+        );
 
         put(name, "tasks").setCountTopLineBreaks(1);
         //TODO printer_serial = put(name, "tasks", "serial-printer", "enable").setDefValues("true");
@@ -8,7 +8,9 @@
 
 package com.osiris.autoplug.client.configs;
 
+import com.osiris.autoplug.client.utils.UtilsFile;
 import com.osiris.dyml.Yaml;
+import com.osiris.dyml.YamlSection;
 import com.osiris.dyml.exceptions.DuplicateKeyException;
 import com.osiris.dyml.exceptions.IllegalListException;
 import com.osiris.dyml.exceptions.YamlReaderException;
@@ -20,8 +22,23 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public abstract class MyYaml extends Yaml {
@@ -78,7 +95,32 @@ public abstract class MyYaml extends Yaml {
      */
     private static final Map<String, PSave> filesAndPEvents = new HashMap<>();
 
+    /**
+     * Configs with a pending {@link #saveLater()}.
+     */
+    private static final Set<MyYaml> PENDING_SAVES = ConcurrentHashMap.newKeySet();
+    private static final long MS_SAVE_DELAY = 500;
+    private static final ScheduledExecutorService SAVE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "AutoPlug-ConfigWriter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (MyYaml yaml : PENDING_SAVES) {
+                yaml.flush();
+            }
+        }, "AutoPlug-ConfigWriter-Shutdown"));
+    }
+
     private final long msLastEvent = 0;
+    private final AtomicBoolean isSavePending = new AtomicBoolean(false);
+
+    /**
+     * True if this instance is shared by the {@link ConfigRegistry}, which means it must not be modified.
+     */
+    volatile boolean isSnapshot = false;
 
     /**
      * We can't count correctly bc the received events count is not exactly the same?!
@@ -98,6 +140,7 @@ public abstract class MyYaml extends Yaml {
      */
     public Yaml addSingletonConfigFileEventListener(Consumer<FileEvent> listener) throws IOException {
         if (file == null) throw new RuntimeException("file cannot be null.");
+        if (ConfigRegistry.isLoadingSnapshot()) return this; // Snapshots must not be loaded into, see ConfigRegistry
         String path = file.getAbsolutePath();
 
         synchronized (filesAndPEvents) {
@@ -138,6 +181,7 @@ public abstract class MyYaml extends Yaml {
                         AL.warn(preInfo + "Failed to update internal values for config. One or multiple values are not valid.", ex);
                         return;
                     }
+                    ConfigRegistry.reload(path);
                     listener.accept(e);
                     AL.info(preInfo + "Internal values updated.");
                 } catch (Exception ex) {
@@ -151,17 +195,126 @@ public abstract class MyYaml extends Yaml {
 
     public abstract Yaml validateValues();
 
+    /**
+     * Writes the file atomically: the yaml gets written to a temporary file next to it first,
+     * which is then synced to disk and renamed to the actual file. Thus a crash while saving
+     * never leaves a truncated config behind. Also cancels a pending {@link #saveLater()}. <br>
+     * If the content did not change, the file is not touched, like when a config gets created
+     * and all its sections already exist.
+     */
     @Override
-    public Yaml save(boolean overwrite) throws IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
+    public synchronized Yaml save(boolean overwrite) throws IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
+        if (isSnapshot)
+            throw new UnsupportedOperationException("Cannot save " + file.getName() + ", because this is a read-only snapshot. Create a new instance of the config instead.");
+        isSavePending.set(false);
         validateValues();
-        synchronized (filesAndPEvents) {
-            String path = file.getAbsolutePath();
-            if (filesAndPEvents.containsKey(path)) {
-                PSave p = filesAndPEvents.get(path);
-                p.msLastSave = System.currentTimeMillis();
+        String path = file.getAbsolutePath();
+        File target = file;
+        File temp = new File(path + ".tmp");
+        try {
+            // Copy first, because without overwrite the existing content is merged
+            if (target.exists()) Files.copy(target.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            else Files.deleteIfExists(temp.toPath());
+            // Written by a separate instance with the same sections, since other threads use our file meanwhile
+            Yaml writer = new Yaml(temp);
+            writer.getAllLoaded().addAll(getAllLoaded());
+            writer.getAllInEdit().addAll(getAllInEdit());
+            writer.save(overwrite);
+            if (isSameContent(temp, target))
+                return this; // Nothing changed, thus the file and the snapshot in the ConfigRegistry stay as they are
+            synchronized (filesAndPEvents) {
+                if (filesAndPEvents.containsKey(path)) {
+                    PSave p = filesAndPEvents.get(path);
+                    p.msLastSave = System.currentTimeMillis();
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
             }
+            new UtilsFile().moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
         }
-        return super.save(overwrite);
+        ConfigRegistry.invalidate(path);
+        return this;
+    }
+
+    private static boolean isSameContent(File file1, File file2) throws IOException {
+        if (!file1.exists() || !file2.exists() || file1.length() != file2.length()) return false;
+        return Arrays.equals(Files.readAllBytes(file1.toPath()), Files.readAllBytes(file2.toPath()));
+    }
+
+    /**
+     * Write-behind variant of {@link #save()}: the save happens asynchronously, after a short delay.
+     * All calls within that delay (and all modifications made until then) result in a single write. <br>
+     * Use this for frequent modifications that do not need to be on disk immediately,
+     * pending saves are also written before AutoPlug exits, see {@link #flush()}. <br>
+     * Since the save runs on another thread, modify this config only while holding its lock
+     * (synchronized on this instance, like {@link #save(boolean)}) once this was called.
+     */
+    public void saveLater() {
+        if (isSnapshot)
+            throw new UnsupportedOperationException("Cannot save " + file.getName() + ", because this is a read-only snapshot. Create a new instance of the config instead.");
+        if (!isSavePending.compareAndSet(false, true)) return; // Already scheduled
+        PENDING_SAVES.add(this);
+        SAVE_EXECUTOR.schedule(this::flush, MS_SAVE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Performs a pending {@link #saveLater()} right now. Does nothing if there is none.
+     */
+    public void flush() {
+        PENDING_SAVES.remove(this);
+        if (!isSavePending.get()) return;
+        try {
+            save();
+        } catch (Exception e) {
+            AL.warn("Failed to save " + file.getName() + "!", e);
+        }
+    }
+
+    /**
+     * Replaces the values of all sections with read-only copies, see {@link ConfigRegistry}.
+     * Then setValues() and the like throw an {@link UnsupportedOperationException}, instead of modifying the shared snapshot. <br>
+     * Dyml has no read-only sections, thus this replaces their internal lists and checks that setValues() fails afterwards.
+     *
+     * @throws IllegalStateException if the values could not be made read-only, for example with another Dyml version.
+     */
+    void freezeValues() {
+        List<YamlSection> sections = getAllInEdit();
+        try {
+            Field fieldValues = YamlSection.class.getDeclaredField("values");
+            fieldValues.setAccessible(true);
+            for (YamlSection section : sections) {
+                List<?> values = (List<?>) fieldValues.get(section);
+                fieldValues.set(section, Collections.unmodifiableList(new ArrayList<>(values)));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to make the values of " + file.getName() + " read-only.", e);
+        }
+        for (YamlSection section : sections) {
+            if (section.getValues().isEmpty()) continue;
+            boolean isReadOnly = false;
+            try {
+                section.setValues(section.asString());
+            } catch (UnsupportedOperationException e) {
+                isReadOnly = true;
+            }
+            if (!isReadOnly)
+                throw new IllegalStateException("Values of " + file.getName() + " are still modifiable after making them read-only.");
+            break; // All sections were frozen the same way
+        }
+        isSnapshot = true;
+    }
+
+    static boolean isWatched(String path) {
+        synchronized (filesAndPEvents) {
+            return filesAndPEvents.containsKey(path);
+        }
+    }
+
+    String getAbsolutePath() {
+        return file.getAbsolutePath();
     }
 
     /**
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.configs;
+
+import com.google.gson.Gson;
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.UtilsFile;
+import com.osiris.dyml.Yaml;
+import com.osiris.dyml.YamlSection;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of the installed plugins or mods, keyed by their name. <br>
+ * The {@link PluginsConfig plugins.yml} and {@link ModsConfig mods.yml} stay the user-editable view of this data,
+ * but reading it (for example for the UI) does not require parsing the yaml anymore. Instead the registry gets persisted
+ * in a compact json-lines file (/autoplug/plugins.jsonl, one resource per line) and the yaml is only imported again
+ * if it was modified since the last import. <br>
+ * The updaters read and modify the resources directly, see {@link #getOrCreate(String)},
+ * and then render them into the yaml, see {@link #save(Yaml, boolean, Collection)}.
+ */
+public class ResourceRegistry {
+    public static final String PLUGINS = "plugins";
+    public static final String MODS = "mods";
+    private static final Map<String, ResourceRegistry> REGISTRIES = new ConcurrentHashMap<>();
+    private final Gson gson = new Gson();
+    private final String type;
+    private final File yamlFile;
+    private final File file;
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    private Header header = new Header();
+    private boolean isLoaded;
+
+    private ResourceRegistry(@NotNull String type) {
+        this.type = type;
+        this.yamlFile = new File(GD.WORKING_DIR + "/autoplug/" + type + ".yml");
+        this.file = new File(GD.WORKING_DIR + "/autoplug/" + type + ".jsonl");
+    }
+
+    /**
+     * @param type {@link #PLUGINS} or {@link #MODS}.
+     */
+    @NotNull
+    public static ResourceRegistry get(@NotNull String type) {
+        return REGISTRIES.computeIfAbsent(type, ResourceRegistry::new);
+    }
+
+    @Nullable
+    public Resource getResource(@NotNull String name) {
+        return resources.get(name);
+    }
+
+    /**
+     * @return the resource with the provided name, which gets added if it does not exist yet.
+     * Changes to it are written to disk by {@link #save(Yaml, boolean, Collection)}.
+     */
+    @NotNull
+    public Resource getOrCreate(@NotNull String name) {
+        return resources.computeIfAbsent(name, key -> {
+            Resource r = new Resource();
+            r.name = key;
+            return r;
+        });
+    }
+
+    /**
+     * Removes all resources except the provided ones, for example the ones that were uninstalled.
+     */
+    public synchronized void retain(@NotNull Collection<String> names) {
+        resources.keySet().retainAll(names);
+    }
+
+    /**
+     * @return all resources, sorted by name.
+     */
+    @NotNull
+    public List<Resource> getAll() {
+        List<Resource> list = new ArrayList<>(resources.values());
+        list.sort(Comparator.comparing(r -> r.name.toLowerCase()));
+        return list;
+    }
+
+    /**
+     * Loads the registry from disk if not done yet and imports the yaml file,
+     * if it was modified since the last import (for example by the user).
+     */
+    public void refresh() throws Exception {
+        refresh(null);
+    }
+
+    /**
+     * See {@link #refresh()}.
+     *
+     * @param loadedYaml the yaml file if it was already loaded, to avoid parsing it again. Otherwise null.
+     */
+    public synchronized void refresh(@Nullable Yaml loadedYaml) throws Exception {
+        if (!isLoaded) {
+            load();
+            isLoaded = true;
+        }
+        if (!yamlFile.exists()) return;
+        if (yamlFile.lastModified() == header.yamlLastModified && yamlFile.length() == header.yamlLength) return;
+        Yaml yaml = loadedYaml;
+        if (yaml == null) {
+            yaml = new Yaml(yamlFile);
+            yaml.load();
+        }
+        importFrom(yaml);
+    }
+
+    /**
+     * Replaces the registry content with the resources of the provided (already loaded) yaml
+     * and persists it. Existing resources are updated in place, thus references to them stay valid.
+     */
+    private void importFrom(@NotNull Yaml yaml) throws IOException {
+        isLoaded = true;
+        YamlSection root = yaml.get(type);
+        Map<String, Resource> imported = new HashMap<>();
+        if (root != null) {
+            for (YamlSection section : root.getChildSections()) {
+                String name = section.getLastKey();
+                if (name.equals("general")) continue; // Not a resource
+                Resource r = resources.get(name);
+                if (r == null) {
+                    r = new Resource();
+                    r.name = name;
+                }
+                r.exclude = Boolean.parseBoolean(value(yaml, name, "exclude"));
+                r.version = value(yaml, name, "version");
+                r.latestVersion = value(yaml, name, "latest-version");
+                r.author = value(yaml, name, "author");
+                r.spigotId = value(yaml, name, "spigot-id");
+                r.bukkitId = value(yaml, name, "bukkit-id");
+                r.modrinthId = value(yaml, name, "modrinth-id");
+                r.curseforgeId = value(yaml, name, "curseforge-id");
+                r.ignoreContentType = Boolean.parseBoolean(value(yaml, name, "ignore-content-type"));
+                r.forceLatest = Boolean.parseBoolean(value(yaml, name, "force-latest"));
+                r.customCheckUrl = value(yaml, name, "custom-check-url");
+                r.customDownloadUrl = value(yaml, name, "custom-download-url");
+                r.githubRepoName = value(yaml, name, "alternatives", "github", "repo-name");
+                r.githubAssetName = value(yaml, name, "alternatives", "github", "asset-name");
+                r.jenkinsProjectUrl = value(yaml, name, "alternatives", "jenkins", "project-url");
+                r.jenkinsArtifactName = value(yaml, name, "alternatives", "jenkins", "artifact-name");
+                r.jenkinsBuildId = value(yaml, name, "alternatives", "jenkins", "build-id");
+                imported.put(name, r);
+            }
+        }
+        resources.keySet().retainAll(imported.keySet());
+        resources.putAll(imported);
+        header = new Header();
+        header.yamlLastModified = yamlFile.lastModified();
+        header.yamlLength = yamlFile.length();
+        save();
+    }
+
+    @Nullable
+    private String value(Yaml yaml, String... keys) {
+        YamlSection section = yaml.get(withType(keys));
+        return section != null ? section.asString() : null;
+    }
+
+    /**
+     * Persists the registry, renders it into the provided yaml and saves that too.
+     *
+     * @param overwrite    true to remove the sections of resources that are not in the registry anymore, see {@link #retain(Collection)}.
+     * @param checkedNames names of the resources that were just checked for updates, to update their last-check time.
+     */
+    public synchronized void save(@NotNull Yaml yaml, boolean overwrite, @NotNull Collection<String> checkedNames) throws Exception {
+        long now = System.currentTimeMillis();
+        for (String name : checkedNames) {
+            Resource r = resources.get(name);
+            if (r != null) r.msLastCheck = now;
+        }
+        synchronized (yaml) { // Might get saved right now, see MyYaml#saveLater()
+            render(yaml);
+            yaml.save(overwrite);
+        }
+        isLoaded = true;
+        header = new Header();
+        header.yamlLastModified = yamlFile.lastModified();
+        header.yamlLength = yamlFile.length();
+        save();
+    }
+
+    /**
+     * Writes the values of all resources into the provided yaml, without saving it.
+     * Values that are null do not replace the existing values.
+     */
+    public void render(@NotNull Yaml yaml) throws Exception {
+        synchronized (yaml) {
+            for (Resource r : getAll()) {
+                put(yaml, String.valueOf(r.exclude), r.name, "exclude");
+                put(yaml, r.version, r.name, "version");
+                put(yaml, r.latestVersion, r.name, "latest-version");
+                put(yaml, r.author, r.name, "author");
+                if (type.equals(PLUGINS)) {
+                    put(yaml, r.spigotId, r.name, "spigot-id");
+                    put(yaml, r.modrinthId, r.name, "modrinth-id");
+                    put(yaml, r.bukkitId, r.name, "bukkit-id");
+                    put(yaml, String.valueOf(r.ignoreContentType), r.name, "ignore-content-type");
+                    put(yaml, r.customCheckUrl, r.name, "custom-check-url");
+                } else {
+                    put(yaml, r.modrinthId, r.name, "modrinth-id");
+                    put(yaml, r.curseforgeId, r.name, "curseforge-id");
+                    put(yaml, String.valueOf(r.ignoreContentType), r.name, "ignore-content-type");
+                    put(yaml, String.valueOf(r.forceLatest), r.name, "force-latest");
+                }
+                put(yaml, r.customDownloadUrl, r.name, "custom-download-url");
+                put(yaml, r.githubRepoName, r.name, "alternatives", "github", "repo-name");
+                put(yaml, r.githubAssetName, r.name, "alternatives", "github", "asset-name");
+                put(yaml, r.jenkinsProjectUrl, r.name, "alternatives", "jenkins", "project-url");
+                put(yaml, r.jenkinsArtifactName, r.name, "alternatives", "jenkins", "artifact-name");
+                put(yaml, r.jenkinsBuildId, r.name, "alternatives", "jenkins", "build-id");
+            }
+        }
+    }
+
+    private void put(Yaml yaml, @Nullable String value, String... keys) throws Exception {
+        YamlSection section = yaml.put(withType(keys));
+        if (value != null) section.setValues(value);
+    }
+
+    private String[] withType(String... keys) {
+        String[] fullKeys = new String[keys.length + 1];
+        fullKeys[0] = type;
+        System.arraycopy(keys, 0, fullKeys, 1, keys.length);
+        return fullKeys;
+    }
+
+    private void load() throws IOException {
+        resources.clear();
+        if (!file.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null) return;
+            header = gson.fromJson(line, Header.class);
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Resource r = gson.fromJson(line, Resource.class);
+                if (r != null && r.name != null) resources.put(r.name, r);
+            }
+        } catch (Exception e) {
+            // Gets rebuilt from the yaml
+            AL.warn("Failed to read " + file.getName() + ", importing " + yamlFile.getName() + " instead.", e);
+            resources.clear();
+            header = new Header();
+        }
+    }
+
+    private void save() throws IOException {
+        new UtilsFile().writeAtomically(file, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(gson.toJson(header));
+            writer.write("\n");
+            for (Resource r : getAll()) {
+                writer.write(gson.toJson(r));
+                writer.write("\n");
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * First line of the file, used to detect modifications of the yaml.
+     */
+    private static class Header {
+        long yamlLastModified;
+        long yamlLength;
+    }
+
+    /**
+     * An installed plugin or mod. Values are the same as in the yaml, thus can be null.
+     */
+    public static class Resource {
+        public String name;
+        public boolean exclude;
+        public String version;
+        public String latestVersion;
+        public String author;
+        public String spigotId;
+        public String bukkitId;
+        public String modrinthId;
+        public String curseforgeId;
+        public boolean ignoreContentType;
+        /**
+         * Only used by mods.
+         */
+        public boolean forceLatest;
+        /**
+         * Only used by plugins.
+         */
+        public String customCheckUrl;
+        public String customDownloadUrl;
+        public String githubRepoName;
+        public String githubAssetName;
+        public String jenkinsProjectUrl;
+        public String jenkinsArtifactName;
+        public String jenkinsBuildId;
+        /**
+         * Time in ms of the last update check, 0 if unknown.
+         */
+        public long msLastCheck;
+    }
+}
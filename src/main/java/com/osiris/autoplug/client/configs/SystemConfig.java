@@ -20,6 +20,7 @@ public class SystemConfig extends MyYaml {
     public YamlSection timestamp_last_backup;
 
     public YamlSection timestamp_last_updater_tasks; // Only matters if global cooldown for updaters is enabled
+    public YamlSection timestamp_last_stable_server_start; // In ms, used to detect updates that cause crashes
     public YamlSection autoplug_web_ssl;
     public YamlSection autoplug_web_ip;
     public YamlSection autoplug_web_port;
@@ -50,6 +51,7 @@ public class SystemConfig extends MyYaml {
         timestamp_last_updater_tasks = put(name, "timestamp-last-updater-tasks");
 
         timestamp_last_backup = put(name, "timestamp-last-backup-task");
+        timestamp_last_stable_server_start = put(name, "timestamp-last-stable-server-start");
 
         autoplug_web_ssl = put(name, "autoplug-web-ssl").setDefValues("true").setComments("If localhost is used below, remember to set this to false too!");
         autoplug_web_ip = put(name, "autoplug-web-ip").setDefValues("144.91.78.158").setComments("Set to localhost to test on the local server.");
@@ -9,13 +9,17 @@
 package com.osiris.autoplug.client.configs;
 
 import com.osiris.autoplug.client.Main;
+import com.osiris.autoplug.client.tasks.updater.DownloadScheduler;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
 import com.osiris.autoplug.client.tasks.updater.TaskDownload;
 import com.osiris.autoplug.client.tasks.updater.search.GithubSearch;
 import com.osiris.autoplug.client.tasks.updater.search.JenkinsSearch;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
 import com.osiris.autoplug.client.tasks.updater.server.TaskServerUpdater;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.UpdateCheckerThread;
+import com.osiris.autoplug.client.utils.tasks.ResourceGate;
 import com.osiris.dyml.Yaml;
 import com.osiris.dyml.YamlSection;
 import com.osiris.dyml.exceptions.*;
@@ -24,12 +28,22 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 
 public class UpdaterConfig extends MyYaml {
 
     public YamlSection global_cool_down;
     public YamlSection global_recurring_checks;
     public YamlSection global_recurring_checks_intervall;
+    public YamlSection global_downloads_max_concurrent;
+    public YamlSection global_downloads_max_bandwidth;
+    public YamlSection global_downloads_unpack_while_downloading;
+    public YamlSection global_sources_max_connect_timeout;
+    public YamlSection global_sources_max_read_timeout;
+    public YamlSection global_sources_max_failures;
+    public YamlSection global_sources_retry_after;
+    public YamlSection global_sources_deadline;
+    public YamlSection global_staging;
 
     public YamlSection self_updater;
     public YamlSection self_updater_profile;
@@ -120,6 +134,34 @@ public class UpdaterConfig extends MyYaml {
                 .setComments("Intervall in hours between each update check.",
                         "Note that the value cannot be below 12h. This is done to protect the underlying online services from spam.");
         if (global_recurring_checks_intervall.asInt() < 12) global_recurring_checks_intervall.setValues("12");
+        put(name, "global-downloads").setComments("Downloads of all updaters share these limits.",
+                "Critical downloads (AutoPlug, Java, server) are always started first, then smaller downloads before bigger ones.");
+        global_downloads_max_concurrent = put(name, "global-downloads", "max-concurrent").setDefValues("4")
+                .setComments("Maximum amount of downloads running at the same time.");
+        global_downloads_max_bandwidth = put(name, "global-downloads", "max-bandwidth").setDefValues("0")
+                .setComments("Maximum total download speed in kilobytes per second. Set to 0 to disable.");
+        global_downloads_unpack_while_downloading = put(name, "global-downloads", "unpack-while-downloading").setDefValues("true")
+                .setComments("Zip and tar.gz archives (Java, plugins) get unpacked directly from the download stream,",
+                        "instead of being written to disk first and unpacked afterwards.");
+        put(name, "global-sources").setComments("Protects the plugins and mods updaters from slow or unreachable update sources (Spiget, Jenkins, etc.).",
+                "Each host gets its own timeouts, based on its previous response times, but never higher than the maximums below.");
+        global_sources_max_connect_timeout = put(name, "global-sources", "max-connect-timeout").setDefValues("5")
+                .setComments("Maximum time in seconds to wait for a connection to a host.");
+        global_sources_max_read_timeout = put(name, "global-sources", "max-read-timeout").setDefValues("10")
+                .setComments("Maximum time in seconds to wait for data from a host.");
+        global_sources_max_failures = put(name, "global-sources", "max-failures").setDefValues("3")
+                .setComments("After this amount of consecutive connection errors, the update checks of all remaining plugins/mods",
+                        "on that host are skipped immediately. Set to 0 to disable.");
+        global_sources_retry_after = put(name, "global-sources", "retry-after").setDefValues("30")
+                .setComments("Time in seconds after which a single update check is let through to a skipped host, to see if its back online.");
+        global_sources_deadline = put(name, "global-sources", "deadline").setDefValues("120")
+                .setComments("Maximum time in seconds the plugins and mods updaters spend on update checks.",
+                        "Update checks that did not start before that are skipped. Set to 0 to disable.");
+        global_staging = put(name, "global-staging").setDefValues("true")
+                .setComments("If enabled, updaters that run while the server is running (recurring checks or commands like '.check plugins')",
+                        "download and verify updates in the background and stage them in /autoplug/staged.",
+                        "They get installed at the next server restart, which then does not need to download anything.",
+                        "If disabled, updaters cannot run while the server is running.");
 
         put(name, "self-updater").setCountTopLineBreaks(1);
         self_updater = put(name, "self-updater", "enable").setDefValues("true").setComments(
@@ -235,6 +277,9 @@ public class UpdaterConfig extends MyYaml {
 
         save();
         unlockFile();
+        DownloadScheduler.get().configure(global_downloads_max_concurrent.asInt(), global_downloads_max_bandwidth.asInt());
+        SourceGuard.get().configure(global_sources_max_connect_timeout.asInt(), global_sources_max_read_timeout.asInt(),
+                global_sources_max_failures.asInt(), global_sources_retry_after.asInt());
     }
 
     @Override
@@ -348,6 +393,14 @@ public class UpdaterConfig extends MyYaml {
                         File final_dest = serverExe;
                         if (final_dest == null)
                             final_dest = new File(GD.WORKING_DIR + "/" + onlineFileName);
+                        if (StagingArea.isStagingRequired()) {
+                            StagingArea.get().stage(cache_dest, final_dest, null, "server", StagingArea.RESOURCE_SERVER_JAR,
+                                    Collections.singletonList(StagingArea.Commit.of(UpdaterConfig.class, latestVersion, version.getKeys())));
+                            task.setStatus("Staged server update (" + version.asString() + " -> " + latestVersion + "), gets installed at the next restart.");
+                            task.setSuccess(true);
+                            break;
+                        }
+                        ResourceGate.get(ResourceGate.SERVER_FILES).awaitWritable(task);
                         if (final_dest.exists()) final_dest.delete();
                         final_dest.createNewFile();
                         FileUtils.copyFile(cache_dest, final_dest);
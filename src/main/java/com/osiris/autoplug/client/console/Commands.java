@@ -16,7 +16,9 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import com.osiris.dyml.exceptions.*;
 import org.jetbrains.annotations.NotNull;
@@ -42,8 +44,13 @@ import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
 import com.osiris.autoplug.client.tasks.updater.self.TaskSelfUpdater;
 import com.osiris.autoplug.client.tasks.updater.server.TaskServerUpdater;
 import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.StartupProfiler;
 import com.osiris.autoplug.client.utils.UtilsFile;
 import com.osiris.autoplug.client.utils.UtilsMinecraft;
+import com.osiris.autoplug.client.utils.io.AsyncLogPipeline;
+import com.osiris.autoplug.client.utils.io.CommandWriter;
+import com.osiris.autoplug.client.utils.io.ConsoleHistory;
+import com.osiris.autoplug.client.utils.io.LogStore;
 import com.osiris.autoplug.client.utils.tasks.MyBThreadManager;
 import com.osiris.autoplug.client.utils.tasks.UtilsTasks;
 import com.osiris.betterthread.exceptions.JLineLinkException;
@@ -54,6 +61,7 @@ import com.osiris.jlib.logger.AL;
  * List the server with .help
  */
 public final class Commands {
+    private static final int HISTORY_PAGE_LINES = 100;
 
     /**
      * Returns true if the provided String is a AutoPlug command.
@@ -82,7 +90,10 @@ public final class Commands {
                     AL.info(".con reload | Closes and reconnects all connections (.cr)");
                     AL.info(".backup | Ignores cool-down and does an backup (.b)");
                     AL.info(".env info | Shows environment details (.ei)");
+                    AL.info(".startup info | Shows the duration of each startup phase (.sti)");
                     AL.info(".find java | Finds all Java installations and lists current Javas binaries (.fj)");
+                    AL.info(".logs search (optional -d <days>) <text> | Searches the console output of the last 7 days (.ls)");
+                    AL.info(".logs history (optional <page>) | Shows the console output since the start, page 1 being the latest (.lh)");
                     AL.info("");
                     AL.info("Server related commands:");
                     AL.info(".start | Starts the server (.s)");
@@ -92,6 +103,7 @@ public final class Commands {
                     AL.info(".kill | Kills the server without saving (.k)");
                     AL.info(".kill both | Kills the server without saving and closes AutoPlug (.kb)");
                     AL.info(".server info | Shows details about this server (.si)");
+                    AL.info(".perf | Shows lag, watchdog, memory and exception statistics of the server console");
                     AL.info("");
                     AL.info("Direct install commands:");
                     AL.info(".install plugin <name> | Installs a new plugin by its name over spigot (.ip)");
@@ -157,6 +169,10 @@ public final class Commands {
                     ConSendPublicDetails conPublic = Main.CON.CON_PUBLIC_DETAILS;
                     ConSendPrivateDetails conPrivate = Main.CON.CON_PRIVATE_DETAILS;
                     AL.info("Running: " + Server.isRunning());
+                    CommandWriter commandWriter = Server.getCommandWriter();
+                    if (commandWriter != null)
+                        AL.info("Commands: " + commandWriter.getCountQueued() + " queued, " + commandWriter.getCountWritten()
+                                + " written in " + commandWriter.getCountFlushes() + " flushes, " + commandWriter.getCountRejected() + " rejected");
                     String ip;
                     try (BufferedReader in = new BufferedReader(new InputStreamReader(new URL("http://checkip.amazonaws.com").openStream()))) {
                         ip = in.readLine();
@@ -186,6 +202,23 @@ public final class Commands {
                         AL.info("MEM total: " + conPrivate.memTotal + " Gb");
                     }
                     return true;
+                } else if (command.equals(".startup info") || command.equals(".sti")) {
+                    for (String line : StartupProfiler.get().getTimeline()) {
+                        AL.info(line);
+                    }
+                    AL.info("History of previous startups: " + GD.WORKING_DIR + "/autoplug/logs/startup-history.txt");
+                    return true;
+                } else if (command.equals(".perf")) {
+                    for (String line : Server.getConsoleAnalyzer().getStats()) {
+                        AL.info(line);
+                    }
+                    return true;
+                } else if (command.startsWith(".logs search") || command.startsWith(".ls ")) {
+                    searchLogs(command);
+                    return true;
+                } else if (command.startsWith(".logs history") || command.equals(".lh") || command.startsWith(".lh ")) {
+                    showHistory(command);
+                    return true;
                 } else if (command.equals(".env info") || command.equals(".ei")) {
 
                     AL.info("###################################################");
@@ -340,6 +373,76 @@ public final class Commands {
         }
     }
 
+    public static void searchLogs(String command) throws Exception {
+        LogStore logStore = LogStore.get();
+        if (logStore == null) {
+            AL.warn("The log store is disabled, enable it in the logger config.");
+            return;
+        }
+        String input = command.replaceFirst("^(\\.logs search|\\.ls)", "").trim();
+        int days = 7;
+        if (input.startsWith("-d ")) {
+            String[] split = input.split(" ", 3);
+            try {
+                days = Integer.parseInt(split[1]);
+            } catch (NumberFormatException e) {
+                days = -1;
+            }
+            if (days < 1) {
+                AL.warn("Invalid amount of days '" + split[1] + "'. Usage: .logs search (optional -d <days>) <text>");
+                return;
+            }
+            input = split.length > 2 ? split[2].trim() : "";
+        }
+        if (input.isEmpty()) {
+            AL.warn("Provide the text to search for, for example: .logs search OutOfMemoryError");
+            return;
+        }
+        LogStore.Result result = logStore.search(input, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days), 100);
+        List<String> lines = result.getLines();
+        List<Long> timestamps = result.getTimestamps();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        // Not stored, otherwise every search would add more lines containing the searched text
+        for (int i = 0; i < lines.size(); i++) {
+            AsyncLogPipeline.infoUnstored("[" + format.format(new Date(timestamps.get(i))) + "] " + lines.get(i));
+        }
+        AsyncLogPipeline.infoUnstored("Found " + result.getCountMatches() + " lines containing '" + input + "' in the last " + days + " days"
+                + (result.getCountMatches() > lines.size() ? ", showing the last " + lines.size() : "")
+                + ". Scanned " + result.getCountBlocksScanned() + "/" + result.getCountBlocks() + " blocks in " + result.getMsDuration() + "ms.");
+    }
+
+    public static void showHistory(String command) throws Exception {
+        String input = command.replaceFirst("^(\\.logs history|\\.lh)", "").trim();
+        int page = 1;
+        if (!input.isEmpty()) {
+            try {
+                page = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                page = -1;
+            }
+            if (page < 1) {
+                AL.warn("Invalid page '" + input + "'. Usage: .logs history (optional <page>)");
+                return;
+            }
+        }
+        ConsoleHistory history = ConsoleHistory.get();
+        long firstSeq = history.getFirstSeq();
+        long nextSeq = history.getNextSeq();
+        long countPages = (nextSeq - firstSeq + HISTORY_PAGE_LINES - 1) / HISTORY_PAGE_LINES;
+        if (page > countPages) {
+            AL.warn("Page " + page + " does not exist, the console history has " + countPages + " pages.");
+            return;
+        }
+        long to = nextSeq - (long) (page - 1) * HISTORY_PAGE_LINES;
+        long from = Math.max(firstSeq, to - HISTORY_PAGE_LINES);
+        // Not stored, otherwise each page would be added to the history again
+        for (String line : history.getPage(from, (int) (to - from))) {
+            AsyncLogPipeline.infoUnstored(line);
+        }
+        AsyncLogPipeline.infoUnstored("Page " + page + "/" + countPages + " of the console history (lines " + from + " to " + (to - 1) + ")."
+                + (page < countPages ? " Older lines: .logs history " + (page + 1) : ""));
+    }
+
     public static boolean installPlugin(String command) throws Exception {
         String input = command.replaceFirst("\\.install plugin", "").replaceFirst("\\.ip", "").trim();
         SearchResult result = null;
@@ -431,6 +534,7 @@ public final class Commands {
         File finalDest = new File(pluginsDir + "/" + result.plugin.getName() + "-LATEST-[" + result.latestVersion + "].jar");
         TaskPluginDownload task = new TaskPluginDownload("PluginDownloader", myManager.manager, tempName, result.latestVersion,
                 result.downloadUrl, result.plugin.getIgnoreContentType(), "AUTOMATIC", finalDest);
+        task.searchResult = result;
         task.start();
         new UtilsTasks().printResultsWhenDone(myManager.manager);
         List<MinecraftPlugin> plugins = new UtilsMinecraft().getPlugins(pluginsDir);
@@ -67,7 +67,7 @@ public class ThreadUserInput extends Thread {
                         }
 
                     } else
-                        Server.submitCommand(user_input);
+                        Server.submitCommand(user_input, "terminal");
 
                 } catch (UserInterruptException e) {
                     // Ignore
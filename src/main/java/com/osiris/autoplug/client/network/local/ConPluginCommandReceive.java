@@ -10,8 +10,10 @@ package com.osiris.autoplug.client.network.local;
 
 
 import com.osiris.autoplug.client.Server;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.SystemConfig;
 import com.osiris.autoplug.client.console.Commands;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.dyml.exceptions.*;
 import com.osiris.jlib.logger.AL;
 
@@ -43,11 +45,11 @@ public class ConPluginCommandReceive {
                 int port = 35565;
                 while (local_server_socket == null) {
                     try {
-                        AL.debug(this.getClass(), "Binding on localhost:" + port + " for AutoPlug-Plugin...");
+                        DebugLog.debug(this.getClass(), "Binding on localhost:{} for AutoPlug-Plugin...", port);
                         local_server_socket = new ServerSocket(port);
-                        AL.debug(this.getClass(), "Success!");
+                        DebugLog.debug(this.getClass(), "Success!");
                     } catch (IOException e) {
-                        AL.debug(this.getClass(), "Failed to bind on port " + port + "! " + e.getMessage());
+                        DebugLog.debug(this.getClass(), "Failed to bind on port {}! {}", port, e.getMessage());
                         local_server_socket = null;
                         port++;
                     }
@@ -60,13 +62,13 @@ public class ConPluginCommandReceive {
                 while (true) {
 
                     //This blocks the thread till a client connects
-                    AL.debug(this.getClass(), "Waiting for AutoPlug-Plugin to connect...");
+                    DebugLog.debug(this.getClass(), "Waiting for AutoPlug-Plugin to connect...");
                     Socket socket = local_server_socket.accept();
 
                     DataInputStream dis = new DataInputStream(socket.getInputStream());
                     DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
 
-                    String key = new SystemConfig().autoplug_plugin_key.asString();
+                    String key = ConfigRegistry.get(SystemConfig.class).autoplug_plugin_key.asString();
                     dos.writeUTF(key);
                     if (!dis.readUTF().equals(key)) {
                         socket.close();
@@ -82,7 +84,7 @@ public class ConPluginCommandReceive {
                                     while (!socket.isClosed() && (line = reader.readLine()) != null) {
                                         AL.info("Received Plugin-Command: " + line);
                                         if (!Commands.execute(line))
-                                            Server.submitCommand(line);
+                                            Server.submitCommand(line, "plugin");
                                     }
                                 }
                             } catch (Exception e) {
@@ -8,14 +8,13 @@
 
 package com.osiris.autoplug.client.network.local;
 
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.GeneralConfig;
-import com.osiris.dyml.exceptions.*;
 import com.osiris.jlib.logger.AL;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.IOException;
 import java.net.Socket;
 
 @Deprecated
@@ -30,7 +29,7 @@ public class LocalConnectionValidator {
 
                 AL.info("Validating current AutoPlugPlugin connection...");
 
-                boolean matches = local_dis.readUTF().equals(new GeneralConfig().server_key.asString());
+                boolean matches = local_dis.readUTF().equals(ConfigRegistry.get(GeneralConfig.class).server_key.asString());
 
                 if (matches) {
                     local_dos.writeUTF("true");
@@ -42,9 +41,7 @@ public class LocalConnectionValidator {
                     AL.info("Wrong AutoPlugPlugin! Validation failed!");
                 }
 
-            } catch (@NotNull
-            IOException | DuplicateKeyException | YamlReaderException | IllegalListException | YamlWriterException |
-            NotLoadedException | IllegalKeyException e) {
+            } catch (@NotNull Exception e) {
                 e.printStackTrace();
             }
 
@@ -9,6 +9,7 @@
 package com.osiris.autoplug.client.network.online;
 
 import com.osiris.autoplug.client.network.online.connections.*;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.jlib.logger.AL;
 
 import java.io.IOException;
@@ -72,7 +73,7 @@ public class ConMain extends DefaultConnection {
 
                     if (isUserActive.get()) {
                         if (!isUserActiveOld) {
-                            AL.debug(this.getClass(), "Owner/Staff is online/active.");
+                            DebugLog.debug(this.getClass(), "Owner/Staff is online/active.");
                             // User is online, so open secondary connections if they weren't already
                             if (CON_CONSOLE_RECEIVE.isAlive()) CON_CONSOLE_RECEIVE.close();
                             CON_CONSOLE_RECEIVE.open();
@@ -90,7 +91,7 @@ public class ConMain extends DefaultConnection {
                         }
                     } else {
                         if (isUserActiveOld) {
-                            AL.debug(this.getClass(), "Owner/Staff is offline/inactive.");
+                            DebugLog.debug(this.getClass(), "Owner/Staff is offline/inactive.");
                             // Close secondary connections when user is offline/logged out
                             if (CON_CONSOLE_RECEIVE.isAlive()) CON_CONSOLE_RECEIVE.close();
                             if (CON_CONSOLE_SEND.isAlive()) CON_CONSOLE_SEND.close();
@@ -8,11 +8,13 @@
 
 package com.osiris.autoplug.client.network.online;
 
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.GeneralConfig;
 import com.osiris.autoplug.client.configs.SystemConfig;
 import com.osiris.autoplug.client.network.online.connections.ConAutoPlugConsoleReceive;
 import com.osiris.autoplug.client.network.online.connections.ConAutoPlugConsoleSend;
 import com.osiris.autoplug.client.network.online.connections.ConPluginsUpdateResult;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.UtilsLists;
 import com.osiris.jlib.logger.AL;
@@ -98,7 +100,7 @@ public class DefaultConnection implements AutoCloseable {
     }
 
     public synchronized boolean open() throws Exception {
-        AL.debug(this.getClass(), "open()");
+        DebugLog.debug(this.getClass(), "open()");
         _open();
         if (errorCode == 2) { // Retry in 10 seconds because it might be
             // that we just reconnected (there is a timeout of 5 seconds for the old connection until it gets closed)
@@ -114,17 +116,17 @@ public class DefaultConnection implements AutoCloseable {
         errorCode = 0;
         close();
         isClosing.set(false);
-        String serverKey = new GeneralConfig().server_key.asString();
+        String serverKey = ConfigRegistry.get(GeneralConfig.class).server_key.asString();
         if (serverKey == null || serverKey.equals("INSERT_KEY_HERE") ||
                 serverKey.equals("NO_KEY"))
             throw new Exception("No valid key provided." +
                     " Register your server at " + GD.OFFICIAL_WEBSITE + ", get your server-key and add it to the /autoplug/general.yml config file." +
                     " Enter '.con reload' to retry.");
         while (true) {
-            SystemConfig systemConfig = new SystemConfig();
+            SystemConfig systemConfig = ConfigRegistry.get(SystemConfig.class);
             String ip = systemConfig.autoplug_web_ip.asString();
             int port = systemConfig.autoplug_web_port.asInt();
-            AL.debug(this.getClass(), "[CON_TYPE: " + conType + "] Connecting to AutoPlug-Web (" + ip + ":" + port + ")...");
+            DebugLog.debug(this.getClass(), "[CON_TYPE: {}] Connecting to AutoPlug-Web ({}:{})...", conType, ip, port);
             if (systemConfig.autoplug_web_ssl.asBoolean())
                 createSSLConnection(ip, port);
             else {
@@ -134,15 +136,15 @@ public class DefaultConnection implements AutoCloseable {
             // DDOS protection
             int punishment = in.readInt();
             if (punishment == 0) {
-                AL.debug(this.getClass(), "[CON_TYPE: " + conType + "] Connected to AutoPlug-Web successfully!");
+                DebugLog.debug(this.getClass(), "[CON_TYPE: {}] Connected to AutoPlug-Web successfully!", conType);
                 break;
             }
 
-            AL.debug(this.getClass(), "[CON_TYPE: " + conType + "] Connection to AutoPlug-Web throttled! Retrying in " + punishment / 1000 + " second(s).");
+            DebugLog.debug(this.getClass(), "[CON_TYPE: {}] Connection to AutoPlug-Web throttled! Retrying in {} second(s).", conType, punishment / 1000);
             Thread.sleep(punishment + 250); // + 250ms, just to be safe
         }
 
-        AL.debug(this.getClass(), "[CON_TYPE: " + conType + "] Authenticating server with Server-Key...");
+        DebugLog.debug(this.getClass(), "[CON_TYPE: {}] Authenticating server with Server-Key...", conType);
         socket.setSoTimeout(60000);
         out.writeUTF(serverKey); // Send server key
         out.writeByte(conType); // Send connection type
@@ -153,7 +155,7 @@ public class DefaultConnection implements AutoCloseable {
     private void throwError() throws Exception {
         switch (errorCode) {
             case 0:
-                AL.debug(this.getClass(), "[CON_TYPE: " + conType + "] Authenticated server successfully!");
+                DebugLog.debug(this.getClass(), "[CON_TYPE: {}] Authenticated server successfully!", conType);
                 break;
             case 1:
                 throw new Exception("[CON_TYPE: " + conType + "] Authentication failed (code:" + errorCode + "): No matching server key found! Register your server at " + GD.OFFICIAL_WEBSITE + ", get your server-key and add it to the /autoplug/general.yml config file. Enter '.con reload' to retry.");
@@ -230,7 +232,7 @@ public class DefaultConnection implements AutoCloseable {
                     " has been closed or if there has been an error during the SSL/TLS handshake process." +
                     " It could also be invalid if the SSLSession has timed out due to inactivity. ");
 
-        AL.debug(DefaultConnection.class, "Valid SSL session created for con_type " + conType + ". Details: " + session);
+        DebugLog.debug(DefaultConnection.class, "Valid SSL session created for con_type {}. Details: {}", conType, session);
 
         input = socket.getInputStream();
         output = socket.getOutputStream();
@@ -278,7 +280,7 @@ public class DefaultConnection implements AutoCloseable {
     }
 
     private void _close(Thread thread, InputStream in, OutputStream out, Socket socket) throws Exception {
-        AL.debug(this.getClass(), "_close()");
+        DebugLog.debug(this.getClass(), "_close()");
         if (in != null) in.close();
         if (out != null) out.close();
         if (socket != null) socket.close();
@@ -10,9 +10,11 @@ package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
 import com.osiris.autoplug.client.Server;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.console.Commands;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.jlib.logger.AL;
 
 import java.io.BufferedReader;
@@ -33,7 +35,7 @@ public class ConAutoPlugConsoleReceive extends DefaultConnection {
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().online_console.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).online_console.asBoolean()) {
             super.open();
             setAndStartAsync(() -> {
                 try {
@@ -45,7 +47,7 @@ public class ConAutoPlugConsoleReceive extends DefaultConnection {
                         while (!socket.isClosed() && (line = reader.readLine()) != null) {
                             AL.info("Received Web-Command for Console: " + line);
                             if (!Commands.execute(line))
-                                Server.submitCommand(line);
+                                Server.submitCommand(line, "online-console");
                         }
                     }
                 } catch (Exception e) {
@@ -53,10 +55,10 @@ public class ConAutoPlugConsoleReceive extends DefaultConnection {
                     throw e;
                 }
             });
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
@@ -9,22 +9,22 @@
 package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.LoggerConfig;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
-import com.osiris.autoplug.client.utils.GD;
-import com.osiris.jlib.events.MessageEvent;
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.io.AsyncLogPipeline;
+import com.osiris.autoplug.client.utils.io.CoalescingWriter;
+import com.osiris.autoplug.client.utils.io.ConsoleHistory;
 import com.osiris.jlib.logger.AL;
 import com.osiris.jlib.logger.Message;
-import com.osiris.jlib.logger.MessageFormatter;
-import org.apache.commons.io.input.ReversedLinesFileReader;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 
@@ -36,26 +36,23 @@ import java.util.Objects;
 public class ConAutoPlugConsoleSend extends DefaultConnection {
     public static boolean isDebug;
     @Nullable
-    private static BufferedWriter out;
+    private static CoalescingWriter out;
 
     static {
         try {
-            isDebug = new LoggerConfig().debug.asBoolean();
+            isDebug = ConfigRegistry.get(LoggerConfig.class).debug.asBoolean();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public static final MessageEvent<Message> onMessageEvent = message -> {
-        try {
-            if (Objects.requireNonNull(message.getType()) == Message.Type.DEBUG) {
-                if (isDebug)
-                    send(MessageFormatter.formatForAnsiConsole(message));
-            } else {
-                send(MessageFormatter.formatForAnsiConsole(message));
-            }
-        } catch (Exception e) {
-            AL.warn("Failed to send message to online console!", e);
+    public static final AsyncLogPipeline.Sink logSink = entry -> {
+        Message message = entry.getMessage();
+        if (Objects.requireNonNull(message.getType()) == Message.Type.DEBUG) {
+            if (isDebug)
+                send(entry.getAnsi());
+        } else {
+            send(entry.getAnsi(), message.getType() != Message.Type.INFO);
         }
     };
 
@@ -64,59 +61,48 @@ public class ConAutoPlugConsoleSend extends DefaultConnection {
     }
 
     public static void send(@NotNull String message) {
-        try {
-            if (out != null) {
-                if (!message.contains(System.lineSeparator())) {
-                    out.write(message + "\n");
-                } else {
-                    out.write(message);
-                }
-            }
-            out.flush();
-        } catch (Exception e) { // Do not use AL.warn because that would cause an infinite loop
-        }
+        send(message, false);
+    }
+
+    /**
+     * Messages are sent in batches, see {@link CoalescingWriter}.
+     *
+     * @param isUrgent if true, the message and all queued messages are sent right away.
+     */
+    public static void send(@NotNull String message, boolean isUrgent) {
+        CoalescingWriter out = ConAutoPlugConsoleSend.out;
+        if (out != null) out.write(message, isUrgent);
     }
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().online_console.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).online_console.asBoolean()) {
             super.open();
             getSocket().setSoTimeout(0);
-            out = new BufferedWriter(new OutputStreamWriter(getOut()));
+            if (out != null) out.close();
+            out = new CoalescingWriter(new BufferedWriter(new OutputStreamWriter(getOut())), "online-console");
 
 
-            // Sending recent server log
+            // Sending recent console lines
             try {
-                if (GD.AP_LATEST_LOG.exists()) {
-                    ReversedLinesFileReader object = new ReversedLinesFileReader(GD.FILE_OUT.toPath(), StandardCharsets.UTF_8);
-                    String[] lines = new String[10];
-                    for (int i = 0; i < 10; i++) { // Read last 10 lines
-                        try {
-                            lines[i] = object.readLine();
-                        } catch (Exception ignored) {
-                        }
-                    }
-                    for (int i = lines.length - 1; i >= 0; i--) {
-                        if (lines[i] != null)
-                            send(lines[i]);
-                    }
+                int countLines = ConfigRegistry.get(LoggerConfig.class).console_history_replay_lines.asInt();
+                for (String line : ConsoleHistory.get().getLast(countLines)) {
+                    send(line);
                 }
 
-                if (!AL.actionsOnMessageEvent.contains(onMessageEvent))
-                    AL.actionsOnMessageEvent.add(onMessageEvent);
+                AsyncLogPipeline.get().addSink(logSink);
 
             } catch (Exception e) {
                 if (!Main.CON.isUserActive.get()) return false; // Ignore after logout
                 AL.warn(e, "Error during recent log sending.");
             }
 
-            if (!AL.actionsOnMessageEvent.contains(onMessageEvent))
-                AL.actionsOnMessageEvent.add(onMessageEvent);
+            AsyncLogPipeline.get().addSink(logSink);
 
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
@@ -125,7 +111,9 @@ public class ConAutoPlugConsoleSend extends DefaultConnection {
     public void close() throws IOException {
 
         try {
-            AL.actionsOnMessageEvent.remove(onMessageEvent);
+            AsyncLogPipeline.get().removeSink(logSink);
+            if (out != null) out.close();
+            out = null;
         } catch (Exception ignored) {
         }
 
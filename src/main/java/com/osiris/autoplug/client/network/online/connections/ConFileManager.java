@@ -9,8 +9,10 @@
 package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.io.UFDataIn;
 import com.osiris.autoplug.client.utils.io.UFDataOut;
@@ -38,7 +40,7 @@ public class ConFileManager extends DefaultConnection {
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().file_manager.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).file_manager.asBoolean()) {
             super.open();
             getSocket().setSoTimeout(0);
             dos = new UFDataOut(out);
@@ -75,10 +77,10 @@ public class ConFileManager extends DefaultConnection {
                     throw e;
                 }
             });
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
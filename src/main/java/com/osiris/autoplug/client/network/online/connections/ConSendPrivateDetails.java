@@ -9,10 +9,11 @@
 package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.io.UFDataOut;
-import com.osiris.jlib.logger.AL;
 import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
 import oshi.hardware.GlobalMemory;
@@ -42,7 +43,7 @@ public class ConSendPrivateDetails extends DefaultConnection {
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().send_private_details.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).send_private_details.asBoolean()) {
             super.open();
             getSocket().setSoTimeout(0);
             UFDataOut dos = new UFDataOut(getOut());
@@ -97,10 +98,10 @@ public class ConSendPrivateDetails extends DefaultConnection {
                     throw e;
                 }
             });
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
@@ -10,8 +10,10 @@ package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
 import com.osiris.autoplug.client.Server;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.MineStat;
 import com.osiris.autoplug.client.utils.io.UFDataOut;
@@ -41,11 +43,11 @@ public class ConSendPublicDetails extends DefaultConnection {
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().send_public_details.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).send_public_details.asBoolean()) {
             super.open();
             getSocket().setSoTimeout(0);
             UFDataOut dos = new UFDataOut(getOut());
-            WebConfig webConfig = new WebConfig();
+            WebConfig webConfig = ConfigRegistry.get(WebConfig.class);
             host = webConfig.send_server_status_ip.asString();
             if (webConfig.send_server_status_port.asString() == null) {
                 try { // Find port of server
@@ -62,10 +64,11 @@ public class ConSendPublicDetails extends DefaultConnection {
                     // Maybe make a more universal approach like getting the port after the server process was started.
 
                     if (portAsString != null) {
-                        port = webConfig.send_server_status_port.setDefValues(portAsString).asInt();
-                        webConfig.lockFile();
-                        webConfig.save();
-                        webConfig.unlockFile();
+                        WebConfig config = new WebConfig(); // The snapshot is read-only
+                        port = config.send_server_status_port.setDefValues(portAsString).asInt();
+                        config.lockFile();
+                        config.save();
+                        config.unlockFile();
                     } else
                         throw new Exception("Failed to find the servers' port! Please set it manually inside the '/autoplug/web-config.yml'.");
                 } catch (Exception e) {
@@ -103,10 +106,10 @@ public class ConSendPublicDetails extends DefaultConnection {
                     throw e;
                 }
             });
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
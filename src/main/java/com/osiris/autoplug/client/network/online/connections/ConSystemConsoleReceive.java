@@ -9,8 +9,10 @@
 package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.jlib.logger.AL;
 
 import java.io.BufferedReader;
@@ -30,7 +32,7 @@ public class ConSystemConsoleReceive extends DefaultConnection {
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().online_system_console.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).online_system_console.asBoolean()) {
             super.open();
             setAndStartAsync(() -> {
                 try {
@@ -54,10 +56,10 @@ public class ConSystemConsoleReceive extends DefaultConnection {
                 }
 
             });
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
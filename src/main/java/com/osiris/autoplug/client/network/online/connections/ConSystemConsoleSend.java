@@ -9,9 +9,12 @@
 package com.osiris.autoplug.client.network.online.connections;
 
 import com.osiris.autoplug.client.Main;
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.network.online.DefaultConnection;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.io.CoalescingWriter;
 import com.osiris.autoplug.client.utils.terminal.AsyncTerminal;
 import com.osiris.jlib.logger.AL;
 import org.jetbrains.annotations.NotNull;
@@ -31,48 +34,41 @@ import java.util.Date;
  */
 public class ConSystemConsoleSend extends DefaultConnection {
     public static AsyncTerminal asyncTerminal;
-    public static BufferedWriter asyncTerminalLogWriter;
+    public static CoalescingWriter asyncTerminalLogWriter;
 
     @Nullable
-    private static BufferedWriter out;
+    private static CoalescingWriter out;
 
     public ConSystemConsoleSend() {
         super((byte) 7);  // Each connection has its own auth_id.
     }
 
+    /**
+     * Messages are written in batches, see {@link CoalescingWriter}.
+     */
     public static void send(@NotNull String message) {
-        try {
-            asyncTerminalLogWriter.write(message + "\n");
-            asyncTerminalLogWriter.flush();
-        } catch (Exception e) {
-            AL.warn("Failed to write to " + GD.SYSTEM_LATEST_LOG, e);
-        }
-        try {
-            if (out != null) {
-                if (!message.contains(System.lineSeparator())) {
-                    out.write(message + "\n");
-                } else {
-                    out.write(message);
-                }
-            }
-            out.flush();
-        } catch (Exception e) { // Do not use AL.warn because that would cause an infinite loop
-        }
+        CoalescingWriter logWriter = asyncTerminalLogWriter;
+        if (logWriter != null) logWriter.write(message);
+        CoalescingWriter out = ConSystemConsoleSend.out;
+        if (out != null) out.write(message);
     }
 
     @Override
     public boolean open() throws Exception {
-        if (new WebConfig().online_system_console.asBoolean()) {
+        if (ConfigRegistry.get(WebConfig.class).online_system_console.asBoolean()) {
             super.open();
             getSocket().setSoTimeout(0);
-            out = new BufferedWriter(new OutputStreamWriter(getOut()));
+            if (out != null) out.close();
+            out = new CoalescingWriter(new BufferedWriter(new OutputStreamWriter(getOut())), "system-console");
 
             if (asyncTerminal != null) asyncTerminal.close();
             if (asyncTerminalLogWriter != null) asyncTerminalLogWriter.close();
             if (GD.SYSTEM_LATEST_LOG.exists()) GD.SYSTEM_LATEST_LOG.delete();
             GD.SYSTEM_LATEST_LOG.getParentFile().mkdirs();
             GD.SYSTEM_LATEST_LOG.createNewFile();
-            asyncTerminalLogWriter = new BufferedWriter(new FileWriter(GD.SYSTEM_LATEST_LOG));
+            // The file is local, thus allow more pending chars before dropping
+            asyncTerminalLogWriter = new CoalescingWriter(new BufferedWriter(new FileWriter(GD.SYSTEM_LATEST_LOG)),
+                    "system-console-log", 8192, 8 * 1024 * 1024, 20);
             send("Connected to AutoPlug-Web at " + new Date());
             send("Current working directory: " + GD.WORKING_DIR);
             asyncTerminal = new AsyncTerminal(null, line -> {
@@ -91,10 +87,10 @@ public class ConSystemConsoleSend extends DefaultConnection {
                 }
             });
 
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' connected.");
+            DebugLog.debug(this.getClass(), "Connection '{}' connected.", this.getClass().getSimpleName());
             return true;
         } else {
-            AL.debug(this.getClass(), "Connection '" + this.getClass().getSimpleName() + "' not connected, because not enabled in the web-config.");
+            DebugLog.debug(this.getClass(), "Connection '{}' not connected, because not enabled in the web-config.", this.getClass().getSimpleName());
             return false;
         }
     }
@@ -105,6 +101,8 @@ public class ConSystemConsoleSend extends DefaultConnection {
         try {
             if (asyncTerminal != null) asyncTerminal.close();
             if (asyncTerminalLogWriter != null) asyncTerminalLogWriter.close();
+            if (out != null) out.close();
+            out = null;
         } catch (Exception ignored) {
         }
 
@@ -15,14 +15,19 @@ import com.osiris.autoplug.client.configs.UpdaterConfig;
 import com.osiris.autoplug.client.tasks.backup.TaskBackup;
 import com.osiris.autoplug.client.tasks.scheduler.TaskCustomRestarter;
 import com.osiris.autoplug.client.tasks.scheduler.TaskDailyRestarter;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
+import com.osiris.autoplug.client.tasks.updater.TaskStagedInstaller;
 import com.osiris.autoplug.client.tasks.updater.java.TaskJavaUpdater;
 import com.osiris.autoplug.client.tasks.updater.mods.TaskModsUpdater;
 import com.osiris.autoplug.client.tasks.updater.plugins.TaskPluginsUpdater;
 import com.osiris.autoplug.client.tasks.updater.self.TaskSelfUpdater;
 import com.osiris.autoplug.client.tasks.updater.server.TaskServerUpdater;
+import com.osiris.autoplug.client.utils.StartupProfiler;
 import com.osiris.autoplug.client.utils.UtilsConfig;
 import com.osiris.autoplug.client.utils.tasks.CoolDownReport;
 import com.osiris.autoplug.client.utils.tasks.MyBThreadManager;
+import com.osiris.autoplug.client.utils.tasks.ResourceGate;
+import com.osiris.autoplug.client.utils.tasks.TaskGraph;
 import com.osiris.autoplug.client.utils.tasks.UtilsTasks;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
@@ -33,6 +38,7 @@ import org.jetbrains.annotations.NotNull;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -42,6 +48,14 @@ public class BeforeServerStartupTasks {
     private LoggerConfig loggerConfig;
 
     public BeforeServerStartupTasks() {
+        this(false);
+    }
+
+    /**
+     * @param isQuickStart if true, the self-updater, backup and updater tasks are skipped,
+     *                     for example when restarting right after a crash.
+     */
+    public BeforeServerStartupTasks(boolean isQuickStart) {
         BThreadManager manager = null;
         BThreadPrinter printer = null; // We have our own way of displaying the warnings, that's why its set to false
         try {
@@ -50,7 +64,7 @@ public class BeforeServerStartupTasks {
 
             // Wait until the main connection stuff is done, so the log isn't a mess
             while (!Main.CON.isDone)
-                Thread.sleep(1000);
+                Thread.sleep(100);
 
             // Do cool-down check stuff
             boolean isUpdaterCoolDownActive = false;
@@ -61,7 +75,9 @@ public class BeforeServerStartupTasks {
                     config.global_cool_down.asInt(),
                     new SimpleDateFormat(format),
                     systemConfig.timestamp_last_updater_tasks.asString()); // Get the report first before saving any new values
-            if (coolDownReport.isInCoolDown()) {
+            if (isQuickStart) {
+                isUpdaterCoolDownActive = true;
+            } else if (coolDownReport.isInCoolDown()) {
                 AL.info("Skipped updater tasks. Global updater cool-down still active (" + (((coolDownReport.getMsRemaining() / 1000) / 60)) + " minutes remaining).");
                 isUpdaterCoolDownActive = true;
             }
@@ -76,10 +92,16 @@ public class BeforeServerStartupTasks {
             if (!isUpdaterCoolDownActive)
                 selfUpdater = new TaskSelfUpdater("SelfUpdater", manager);
 
-            TaskBackup taskBackup = new TaskBackup("BackupTask", manager);
+            TaskBackup taskBackup = null;
+            if (!isQuickStart)
+                taskBackup = new TaskBackup("BackupTask", manager);
 
             TaskGeneral taskGeneral = new TaskGeneral("GeneralTasks", manager);
 
+            TaskStagedInstaller taskStagedInstaller = null;
+            if (StagingArea.get().hasStaged())
+                taskStagedInstaller = new TaskStagedInstaller("StagedInstaller", manager);
+
             TaskDailyRestarter taskDailyRestarter = new TaskDailyRestarter("DailyRestarter", manager);
             TaskCustomRestarter taskCustomRestarter = new TaskCustomRestarter("CustomRestarter", manager);
 
@@ -98,47 +120,54 @@ public class BeforeServerStartupTasks {
 
 
             // Start processes
+            // Everything waits for the self-updater, since it might restart AutoPlug.
+            // Update checks and downloads run while the backup is running, only
+            // their installation waits for it, see ResourceGate#awaitWritable.
+            TaskGraph graph = new TaskGraph();
+            TaskGraph.Node nodeSelfUpdater = graph.add(selfUpdater);
+            TaskGraph.Node nodeBackup = graph.add(taskBackup);
+            if (nodeBackup != null)
+                nodeBackup.dependsOn(nodeSelfUpdater).reads(ResourceGate.SERVER_FILES);
+            // Updates staged while the server was running, must be installed before the updaters of the same resources run.
+            // The installer waits for the backup itself, and only for the servers files, see StagingArea#install
+            TaskGraph.Node nodeStagedInstaller = graph.add(taskStagedInstaller);
+            if (nodeStagedInstaller != null)
+                nodeStagedInstaller.dependsOn(nodeSelfUpdater)
+                        .writes(StagingArea.get().getStagedResources().toArray(new String[0]));
+            graph.add(taskGeneral).dependsOn(nodeSelfUpdater).writes(ResourceGate.SERVER_FILES);
+            graph.add(taskDailyRestarter).dependsOn(nodeSelfUpdater);
+            graph.add(taskCustomRestarter).dependsOn(nodeSelfUpdater);
             if (!isUpdaterCoolDownActive) {
-                selfUpdater.start();
-                while (!selfUpdater.isFinished()) // Wait until the self updater finishes
-                    Thread.sleep(1000);
+                graph.add(taskJavaUpdater).dependsOn(nodeSelfUpdater).writes(StagingArea.RESOURCE_JAVA);
+                graph.add(taskServerUpdater).dependsOn(nodeSelfUpdater).writes(StagingArea.RESOURCE_SERVER_JAR);
+                graph.add(taskPluginsUpdater).dependsOn(nodeSelfUpdater).writes(StagingArea.RESOURCE_PLUGINS);
+                graph.add(taskModsUpdater).dependsOn(nodeSelfUpdater).writes(StagingArea.RESOURCE_MODS);
             }
+            graph.start();
+            graph.awaitFinished();
 
-            taskBackup.start();
-
-            // Wait till backup is done
-            while (!taskBackup.isFinished())
-                Thread.sleep(1000);
-
-            taskGeneral.start();
-
-            taskDailyRestarter.start();
-            taskCustomRestarter.start();
-
-            if (!isUpdaterCoolDownActive) {
-                taskJavaUpdater.start();
-                taskServerUpdater.start();
-                taskPluginsUpdater.start();
-                taskModsUpdater.start();
+            // Wait until the rest (for example download tasks created by the tasks above) is finished
+            for (BThread t : new ArrayList<>(manager.getAll())) {
+                t.join();
             }
-
-            // Wait until the rest is finished
             if (loggerConfig.live_tasks.asBoolean()) {
                 // In this case we have to wait until the displayer thread finishes, because
                 // of some stuff related to the System.out and to avoid duplicate printing of the summary
-                while (printer.isAlive())
-                    Thread.sleep(1000);
-            } else {
-                while (!manager.isFinished())
-                    Thread.sleep(1000);
+                printer.join();
+            }
+            AL.info("Pre-startup tasks critical path: " + graph.getCriticalPathAsString());
+            for (TaskGraph.Node node : graph.getNodes()) {
+                StartupProfiler.get().record(node.getTask().getName(), node.getMsStart(), node.getMsEnd());
             }
 
             // Update the updater global cool-down with current time
-            systemConfig.lockFile();
-            systemConfig.load();
-            systemConfig.timestamp_last_updater_tasks.setValues(LocalDateTime.now().format(DateTimeFormatter.ofPattern(format)));
-            systemConfig.save();
-            systemConfig.unlockFile();// Save the current timestamp to file
+            if (!isQuickStart) {
+                systemConfig.lockFile();
+                systemConfig.load();
+                systemConfig.timestamp_last_updater_tasks.setValues(LocalDateTime.now().format(DateTimeFormatter.ofPattern(format)));
+                systemConfig.save();
+                systemConfig.unlockFile();// Save the current timestamp to file
+            }
 
             if (!loggerConfig.live_tasks.asBoolean()) {
                 printer.printAll();
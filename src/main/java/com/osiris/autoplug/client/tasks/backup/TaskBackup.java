@@ -14,6 +14,7 @@ import com.osiris.autoplug.client.configs.SystemConfig;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.UtilsConfig;
 import com.osiris.autoplug.client.utils.tasks.CoolDownReport;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
 import com.osiris.betterthread.BWarning;
@@ -25,8 +26,11 @@ import net.lingala.zip4j.progress.ProgressMonitor;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.AgeFileFilter;
 import org.apache.commons.lang.time.DateUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -34,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TaskBackup extends BThread {
 
@@ -105,61 +110,56 @@ public class TaskBackup extends BThread {
             setStatus("Creating backup zip...");
             ZipFile zip = new ZipFile(server_backup_dest);
             ProgressMonitor progress = zip.getProgressMonitor();
-            BThread _this = this;
-            new Thread(() -> {
-                try {
-                    while (!_this.isFinished()) { // Parent thread
-                        setStatus("Backing up " + progress.getFileName() + " " + progress.getPercentDone() + "% - " + progress.getCurrentTask());
-                        Thread.sleep(100);
+            // zip4j resets its monitor for each added file/folder, thus sum up the finished ones ourselves
+            AtomicLong zippedBytes = new AtomicLong();
+            try (ProgressReporter reporter = new ProgressReporter(this, "Backing up", zip.getFile().getName(), -1)
+                    .setSource(() -> zippedBytes.get() + (progress.getState() == ProgressMonitor.State.BUSY ? progress.getWorkCompleted() : 0))
+                    .setDetail(() -> progress.getState() == ProgressMonitor.State.BUSY ? progress.getFileName() : null)) {
+                List<File> filesToBackup = new ArrayList<>();
+
+                if (config.backup_include.asBoolean()) filesToBackup.addAll(config.getIncludedFiles());
+                if (config.backup_exclude.asBoolean()) {
+                    List<File> excludedFiles = config.getExcludedFiles();
+                    for (File file :
+                            excludedFiles) {
+                        AL.debug(this.getClass(), "Excluded '" + file.getName() + "' from backup. Full path: " + file.getAbsolutePath());
                     }
-                } catch (Exception e) {
-                    addWarning(new BWarning(this, e));
-                }
-            }).start();
-            List<File> filesToBackup = new ArrayList<>();
-
-            if (config.backup_include.asBoolean()) filesToBackup.addAll(config.getIncludedFiles());
-            if (config.backup_exclude.asBoolean()) {
-                List<File> excludedFiles = config.getExcludedFiles();
-                for (File file :
-                        excludedFiles) {
-                    AL.debug(this.getClass(), "Excluded '" + file.getName() + "' from backup. Full path: " + file.getAbsolutePath());
-                }
-                ExcludeFileFilter excludeFileFilter = excludedFiles::contains;
-                setMax(filesToBackup.size());
-                for (File file : filesToBackup) { //Add each file to the zip
-                    try {
-                        ZipParameters zipParameters = new ZipParameters();
-                        zipParameters.setExcludeFileFilter(excludeFileFilter);
-                        if (file.isDirectory())
-                            zip.addFolder(file, zipParameters);
-                        else
-                            zip.addFile(file, zipParameters);
-                    } catch (Exception e) {
-                        getWarnings().add(new BWarning(this, e, "Failed to add " + file.getName() + " to zip."));
+                    ExcludeFileFilter excludeFileFilter = excludedFiles::contains;
+                    setMax(filesToBackup.size());
+                    for (File file : filesToBackup) { //Add each file to the zip
+                        try {
+                            ZipParameters zipParameters = new ZipParameters();
+                            zipParameters.setExcludeFileFilter(excludeFileFilter);
+                            if (file.isDirectory())
+                                zip.addFolder(file, zipParameters);
+                            else
+                                zip.addFile(file, zipParameters);
+                            zippedBytes.addAndGet(sizeOf(file, excludeFileFilter));
+                        } catch (Exception e) {
+                            getWarnings().add(new BWarning(this, e, "Failed to add " + file.getName() + " to zip."));
+                        }
+                        step();
                     }
-                    step();
-                }
-            } else {
-                setMax(filesToBackup.size());
-                for (File file : filesToBackup) { //Add each file to the zip
-                    try {
-                        if (file.isDirectory())
-                            zip.addFolder(file);
-                        else
-                            zip.addFile(file);
-                    } catch (Exception e) {
-                        getWarnings().add(new BWarning(this, e, "Failed to add " + file.getName() + " to zip."));
+                } else {
+                    setMax(filesToBackup.size());
+                    for (File file : filesToBackup) { //Add each file to the zip
+                        try {
+                            if (file.isDirectory())
+                                zip.addFolder(file);
+                            else
+                                zip.addFile(file);
+                            zippedBytes.addAndGet(sizeOf(file, null));
+                        } catch (Exception e) {
+                            getWarnings().add(new BWarning(this, e, "Failed to add " + file.getName() + " to zip."));
+                        }
+                        step();
                     }
-                    step();
                 }
             }
 
             //Upload
             if (config.backup_upload.asBoolean()) {
 
-                setStatus("Uploading server-files backup...");
-
                 Upload upload = new Upload(config.backup_upload_host.asString(),
                         config.backup_upload_port.asInt(),
                         config.backup_upload_user.asString(),
@@ -168,9 +168,10 @@ public class TaskBackup extends BThread {
                         zip.getFile());
 
                 String rsa = config.backup_upload_rsa.asString();
-                try {
-                    if (rsa == null || rsa.trim().isEmpty()) upload.ftps();
-                    else upload.sftp(rsa.trim());
+                try (ProgressReporter uploadProgress = new ProgressReporter(this, "Uploading", zip.getFile().getName(),
+                        zip.getFile().length())) {
+                    if (rsa == null || rsa.trim().isEmpty()) upload.ftps(uploadProgress);
+                    else upload.sftp(rsa.trim(), uploadProgress);
 
                     if (config.backup_upload_delete_on_complete.asBoolean())
                         zip.getFile().delete();
@@ -196,4 +197,21 @@ public class TaskBackup extends BThread {
         finish();
     }
 
+    /**
+     * @return the size of the file, or the total size of the files inside the folder, without the excluded ones.
+     * That's the work zip4j reports for adding them.
+     */
+    private long sizeOf(@NotNull File file, @Nullable ExcludeFileFilter excludeFileFilter) {
+        if (excludeFileFilter != null && excludeFileFilter.isExcluded(file)) return 0;
+        if (!file.isDirectory()) return file.length();
+        if (Files.isSymbolicLink(file.toPath())) return 0;
+        long size = 0;
+        File[] files = file.listFiles();
+        if (files != null)
+            for (File f : files) {
+                size += sizeOf(f, excludeFileFilter);
+            }
+        return size;
+    }
+
 }
@@ -9,10 +9,13 @@
 package com.osiris.autoplug.client.tasks.backup;
 
 import com.jcraft.jsch.*;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
 import org.apache.commons.net.PrintCommandListener;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPReply;
 import org.apache.commons.net.ftp.FTPSClient;
+import org.apache.commons.net.io.CopyStreamAdapter;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -38,6 +41,13 @@ public class Upload {
     }
 
     public void sftp(String rsa) throws JSchException, SftpException {
+        sftp(rsa, null);
+    }
+
+    /**
+     * @param progress if not null, receives the amount of uploaded bytes.
+     */
+    public void sftp(String rsa, @Nullable ProgressReporter progress) throws JSchException, SftpException {
         JSch jSch = new JSch();
 
         //HostKey verification
@@ -53,7 +63,25 @@ public class Upload {
         channel.connect();
 
         //Upload
-        channel.put(zipFile.getPath(), path + this.zipFile.getName());
+        if (progress == null)
+            channel.put(zipFile.getPath(), path + this.zipFile.getName());
+        else
+            channel.put(zipFile.getPath(), path + this.zipFile.getName(), new SftpProgressMonitor() {
+                @Override
+                public void init(int op, String src, String dest, long max) {
+                    progress.setTotal(max);
+                }
+
+                @Override
+                public boolean count(long count) {
+                    progress.add(count);
+                    return true; // Continue
+                }
+
+                @Override
+                public void end() {
+                }
+            });
 
         //Disconnect
         channel.exit();
@@ -61,6 +89,13 @@ public class Upload {
     }
 
     public void ftps() throws Exception {
+        ftps(null);
+    }
+
+    /**
+     * @param progress if not null, receives the amount of uploaded bytes.
+     */
+    public void ftps(@Nullable ProgressReporter progress) throws Exception {
 
         FileInputStream zipFileStream = new FileInputStream(zipFile);
 
@@ -80,6 +115,13 @@ public class Upload {
         ftps.login(user, password);
         ftps.setFileType(FTP.BINARY_FILE_TYPE);
         ftps.enterLocalPassiveMode();
+        if (progress != null)
+            ftps.setCopyStreamListener(new CopyStreamAdapter() {
+                @Override
+                public void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize) {
+                    progress.add(bytesTransferred);
+                }
+            });
 
         //Upload
         if (!ftps.storeFile(path + zipFile.getName(), zipFileStream))
@@ -56,7 +56,7 @@ public class RestartJob implements Job {
                                 if (command == null)
                                     AL.debug(this.getClass(), "Command for second '" + i + "' is null.");
                                 else
-                                    Server.submitCommand(command);
+                                    Server.submitCommand(command, "restarter");
                             } catch (Exception e) {
                                 AL.warn(e, "Error executing '" + command + "' command!");
                             }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.tasks.updater;
+
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
+import com.osiris.betterthread.BThread;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coordinates all downloads of this process, so that for example the JDK download does not
+ * compete with dozens of plugin downloads at startup. <br>
+ * Downloads wait in a bounded queue until a transfer slot is free and get started
+ * ordered by {@link Priority} first and by their (expected) size second, so that many small downloads finish early.
+ * All running transfers share a global bandwidth budget. <br>
+ * Settings are taken from the updater config, see {@link #configure(int, long)}.
+ */
+public class DownloadScheduler {
+    private static final DownloadScheduler INSTANCE = new DownloadScheduler();
+    private static final int MAX_QUEUED = 512;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder transferredBytes = new LongAdder();
+    private final Object bucketLock = new Object();
+    private final Object sampleLock = new Object();
+    private int active;
+    private volatile int maxConcurrent = 4;
+    private volatile long maxBytesPerSecond = 0;
+    private long bucketBytes;
+    private long bucketNanos = System.nanoTime();
+    private long sampleBytes;
+    private long sampleMs = System.currentTimeMillis();
+    private long bytesPerSecond;
+
+    @NotNull
+    public static DownloadScheduler get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param maxConcurrent      maximum amount of concurrent transfers. Values below 1 are treated as 1.
+     * @param maxKiloBytesPerSec total bandwidth budget shared by all transfers. 0 or less to disable.
+     */
+    public void configure(int maxConcurrent, long maxKiloBytesPerSec) {
+        lock.lock();
+        try {
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.maxBytesPerSecond = Math.max(0, maxKiloBytesPerSec) * 1024;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the download is allowed to start.
+     * While waiting, the tasks status shows the current queue depth and throughput.
+     * The returned ticket must be closed once the download finished.
+     *
+     * @param task     the task that wants to download something.
+     * @param name     name of the download, for example the file name.
+     * @param priority the downloads priority class.
+     * @param sizeHint the expected size in bytes, or a value smaller than 1 if unknown.
+     *                 Unknown sizes are treated as largest.
+     */
+    @NotNull
+    public Ticket acquire(@NotNull BThread task, @NotNull String name, @NotNull Priority priority, long sizeHint) throws InterruptedException {
+        Ticket ticket = new Ticket(priority, sizeHint > 0 ? sizeHint : Long.MAX_VALUE, sequence.getAndIncrement());
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() >= MAX_QUEUED) {
+                task.setStatus("Waiting for a free slot in the download queue (" + queue.size() + " queued)...");
+                changed.await(500, TimeUnit.MILLISECONDS);
+            }
+            queue.add(ticket);
+            try {
+                while (queue.peek() != ticket || active >= maxConcurrent) {
+                    task.setStatus("Queued " + name + "... (" + queue.size() + " queued, " + active + " active, "
+                            + ProgressReporter.formatBytes(getBytesPerSecond()) + "/s)");
+                    changed.await(500, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                queue.remove(ticket);
+                changed.signalAll();
+                throw e;
+            }
+            queue.poll();
+            active++;
+            changed.signalAll();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            active--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Token bucket shared by all transfers, with a burst of at most one second.
+     */
+    private void consume(int bytes) throws InterruptedException {
+        transferredBytes.add(bytes);
+        long limit = maxBytesPerSecond;
+        if (limit <= 0) return;
+        synchronized (bucketLock) {
+            long now = System.nanoTime();
+            bucketBytes = Math.min(limit, bucketBytes + (now - bucketNanos) * limit / 1_000_000_000L);
+            bucketNanos = now;
+            bucketBytes -= bytes;
+            if (bucketBytes < 0)
+                TimeUnit.NANOSECONDS.sleep(-bucketBytes * 1_000_000_000L / limit);
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the total throughput of all transfers, sampled at most once per second.
+     */
+    public long getBytesPerSecond() {
+        synchronized (sampleLock) {
+            long now = System.currentTimeMillis();
+            long elapsed = now - sampleMs;
+            if (elapsed >= 1000) {
+                long total = transferredBytes.sum();
+                bytesPerSecond = (total - sampleBytes) * 1000 / elapsed;
+                sampleBytes = total;
+                sampleMs = now;
+            }
+            return bytesPerSecond;
+        }
+    }
+
+    public enum Priority {
+        /**
+         * Downloads the server cannot start without, like the server jar, the JDK or AutoPlug itself.
+         */
+        CRITICAL,
+        /**
+         * Plugins, mods and everything else.
+         */
+        NORMAL
+    }
+
+    public class Ticket implements Comparable<Ticket>, AutoCloseable {
+        private final Priority priority;
+        private final long size;
+        private final long sequence;
+        private boolean isClosed;
+
+        private Ticket(Priority priority, long size, long sequence) {
+            this.priority = priority;
+            this.size = size;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Call this after each read chunk. Blocks if the global bandwidth budget is exceeded.
+         */
+        public void throttle(int bytes) throws InterruptedException {
+            consume(bytes);
+        }
+
+        @Override
+        public int compareTo(@NotNull Ticket o) {
+            int result = priority.compareTo(o.priority);
+            if (result == 0) result = Long.compare(size, o.size);
+            if (result == 0) result = Long.compare(sequence, o.sequence);
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) return;
+            isClosed = true;
+            release();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.tasks.updater;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.osiris.autoplug.client.Server;
+import com.osiris.autoplug.client.configs.MyYaml;
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.UtilsCrypto;
+import com.osiris.autoplug.client.utils.UtilsFile;
+import com.osiris.autoplug.client.utils.tasks.ResourceGate;
+import com.osiris.betterthread.BThread;
+import com.osiris.betterthread.BWarning;
+import com.osiris.jlib.logger.AL;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Updates found while the server is running cannot be installed, since the server uses the files. <br>
+ * Instead, the updaters download and verify them in the background and stage them in /autoplug/staged,
+ * together with their final destination. At the next restart {@link #install(BThread)} only has to move
+ * the staged files into place, which does not depend on the network at all. <br>
+ * The staged files are listed in /autoplug/staged/staged.json, thus they survive a restart of AutoPlug. <br>
+ * The new version of an update is only written to the configs once it was installed, via the {@link Commit}s of its entry,
+ * so that a failed installation gets retried by the next update check.
+ */
+public class StagingArea {
+    /**
+     * Resources of the staged updates, also used as {@link com.osiris.autoplug.client.utils.tasks.TaskGraph} resources,
+     * so that only the updaters of staged resources wait for the {@link TaskStagedInstaller}.
+     */
+    public static final String RESOURCE_JAVA = "java";
+    public static final String RESOURCE_SERVER_JAR = "server-jar";
+    public static final String RESOURCE_PLUGINS = "plugins";
+    public static final String RESOURCE_MODS = "mods";
+    private static final StagingArea INSTANCE = new StagingArea(new File(GD.WORKING_DIR + "/autoplug/staged"));
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final File dir;
+    private final File manifest;
+    private List<Entry> entries;
+
+    StagingArea(@NotNull File dir) {
+        this.dir = dir;
+        this.manifest = new File(dir, "staged.json");
+    }
+
+    @NotNull
+    public static StagingArea get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if updates must be staged instead of being installed directly,
+     * which is the case while the server is running.
+     */
+    public static boolean isStagingRequired() {
+        return Server.isRunning();
+    }
+
+    /**
+     * Moves the provided file or directory into the staging area.
+     * An already staged update for the same target gets replaced.
+     *
+     * @param source       the verified update. Gets moved, not copied.
+     * @param target       where the update gets installed to. If its a directory, its contents get replaced completely.
+     * @param deleteOnSwap file that gets deleted on installation, for example the old plugin jar with a different name. Can be null.
+     * @param name         a human-readable name, for example the plugins name.
+     * @param resource     for example {@link #RESOURCE_PLUGINS}.
+     * @param commits      config values, like the new version, that get written once the update was installed successfully.
+     */
+    public synchronized void stage(@NotNull File source, @NotNull File target, @Nullable File deleteOnSwap, @NotNull String name,
+                                   @NotNull String resource, @NotNull List<Commit> commits) throws IOException {
+        List<Entry> entries = getEntries();
+        String targetPath = target.getAbsolutePath();
+        for (Entry entry : new ArrayList<>(entries)) {
+            if (entry.target.equals(targetPath)) {
+                FileUtils.deleteQuietly(new File(dir, entry.file));
+                entries.remove(entry);
+            }
+        }
+
+        Entry entry = new Entry();
+        entry.name = name;
+        entry.file = System.currentTimeMillis() + "-" + source.getName();
+        entry.target = targetPath;
+        entry.deleteOnSwap = deleteOnSwap != null ? deleteOnSwap.getAbsolutePath() : null;
+        entry.isDirectory = source.isDirectory();
+        entry.resource = resource;
+        entry.commits = new ArrayList<>(commits);
+        File staged = new File(dir, entry.file);
+        dir.mkdirs();
+        if (entry.isDirectory) FileUtils.moveDirectory(source, staged);
+        else {
+            FileUtils.moveFile(source, staged);
+            entry.sha256 = UtilsCrypto.fastSHA256(staged);
+        }
+        entries.add(entry);
+        save();
+        DebugLog.debug(this.getClass(), "Staged '{}' for '{}'.", name, targetPath);
+    }
+
+    /**
+     * Installs all staged updates and writes their {@link Commit}s. Updates that fail are removed from the staging area
+     * and reported as warnings of the provided task, without writing their commits. <br>
+     * Updates of the servers files wait until no other task reads them anymore (for example the backup),
+     * see {@link ResourceGate#awaitWritable(BThread)}, Java updates do not.
+     *
+     * @return the amount of installed updates.
+     */
+    public synchronized int install(@Nullable BThread task) throws IOException, InterruptedException {
+        List<Entry> entries = getEntries();
+        int count = 0;
+        for (Entry entry : new ArrayList<>(entries)) {
+            File staged = new File(dir, entry.file);
+            File target = new File(entry.target);
+            if (!RESOURCE_JAVA.equals(entry.resource))
+                ResourceGate.get(ResourceGate.SERVER_FILES).awaitWritable(task);
+            try {
+                if (task != null) task.setStatus("Installing staged update of " + entry.name + "...");
+                if (!staged.exists())
+                    throw new FileNotFoundException("Staged file '" + staged + "' does not exist anymore.");
+                if (entry.isDirectory) replaceDirectory(staged, target);
+                else {
+                    String hash = UtilsCrypto.fastSHA256(staged);
+                    if (entry.sha256 != null && !entry.sha256.equalsIgnoreCase(hash))
+                        throw new IOException("Staged file '" + staged + "' was modified (SHA-256 " + hash + " expected " + entry.sha256 + ").");
+                    replaceFile(staged, target);
+                }
+                if (entry.deleteOnSwap != null && !entry.deleteOnSwap.equals(entry.target))
+                    FileUtils.deleteQuietly(new File(entry.deleteOnSwap));
+                commit(entry);
+                count++;
+                DebugLog.debug(this.getClass(), "Installed staged '{}' into '{}'.", entry.name, target);
+            } catch (Exception e) {
+                FileUtils.deleteQuietly(staged);
+                if (task != null) task.addWarning(new BWarning(task, e, "Failed to install staged update of " + entry.name + "!"));
+                else AL.warn("Failed to install staged update of " + entry.name + "!", e);
+            }
+            entries.remove(entry);
+            save();
+        }
+        return count;
+    }
+
+    /**
+     * Writes the commits of the installed entry into their configs.
+     */
+    private void commit(Entry entry) throws Exception {
+        if (entry.commits == null || entry.commits.isEmpty()) return;
+        Map<String, MyYaml> configs = new LinkedHashMap<>();
+        try {
+            for (Commit commit : entry.commits) {
+                MyYaml config = configs.get(commit.config);
+                if (config == null) {
+                    config = Class.forName(commit.config).asSubclass(MyYaml.class).getConstructor().newInstance();
+                    config.lockFile();
+                    configs.put(commit.config, config);
+                    config.load();
+                }
+                config.put(commit.keys.toArray(new String[0])).setValues(commit.value);
+            }
+            for (MyYaml config : configs.values()) {
+                config.save();
+            }
+        } finally {
+            for (MyYaml config : configs.values()) {
+                config.unlockFile();
+            }
+        }
+    }
+
+    /**
+     * @return the resources of all staged updates, see {@link #RESOURCE_PLUGINS} for example.
+     */
+    @NotNull
+    public synchronized Set<String> getStagedResources() {
+        Set<String> resources = new HashSet<>();
+        try {
+            for (Entry entry : getEntries()) {
+                // Entries staged before resources existed could be anything
+                if (entry.resource == null) return new HashSet<>(Arrays.asList(RESOURCE_JAVA, RESOURCE_SERVER_JAR, RESOURCE_PLUGINS, RESOURCE_MODS));
+                resources.add(entry.resource);
+            }
+        } catch (IOException e) {
+            AL.warn(e);
+        }
+        return resources;
+    }
+
+    public synchronized boolean hasStaged() {
+        try {
+            return !getEntries().isEmpty();
+        } catch (IOException e) {
+            AL.warn(e);
+            return false;
+        }
+    }
+
+    @NotNull
+    public synchronized List<Entry> getEntries() throws IOException {
+        if (entries == null) {
+            entries = new ArrayList<>();
+            if (manifest.exists())
+                try (Reader reader = new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8)) {
+                    List<Entry> list = gson.fromJson(reader, new TypeToken<List<Entry>>() {
+                    }.getType());
+                    if (list != null) entries.addAll(list);
+                }
+        }
+        return entries;
+    }
+
+    /**
+     * The target file is never missing or half-written: the staged file is first moved next to it and then renamed.
+     */
+    private void replaceFile(File staged, File target) throws IOException {
+        target.getAbsoluteFile().getParentFile().mkdirs();
+        File temp = new File(target.getAbsolutePath() + ".staged");
+        Files.move(staged.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        new UtilsFile().moveAtomically(temp, target);
+    }
+
+    /**
+     * Keeps the old directory until the new one is in place, to be able to restore it on failure.
+     */
+    private void replaceDirectory(File staged, File target) throws IOException {
+        File old = new File(target.getAbsolutePath() + ".old");
+        FileUtils.deleteQuietly(old);
+        if (target.exists()) Files.move(target.toPath(), old.toPath());
+        try {
+            FileUtils.moveDirectory(staged, target);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(target);
+            if (old.exists()) Files.move(old.toPath(), target.toPath());
+            throw e;
+        }
+        FileUtils.deleteQuietly(old);
+    }
+
+    private void save() throws IOException {
+        new UtilsFile().writeAtomically(manifest, out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            gson.toJson(entries, writer);
+            writer.flush();
+        });
+    }
+
+    public static class Entry {
+        public String name;
+        /**
+         * Name of the staged file or directory inside the staging area.
+         */
+        public String file;
+        public String target;
+        public String deleteOnSwap;
+        /**
+         * Null for directories.
+         */
+        public String sha256;
+        public boolean isDirectory;
+        /**
+         * Null for entries staged by older versions, in that case the servers files are assumed.
+         */
+        public String resource;
+        public List<Commit> commits;
+    }
+
+    /**
+     * A config value that gets written once the staged update was installed successfully.
+     */
+    public static class Commit {
+        /**
+         * Class name of the config, which must have a public no-args constructor.
+         */
+        public String config;
+        public List<String> keys;
+        public String value;
+
+        @NotNull
+        public static Commit of(@NotNull Class<? extends MyYaml> config, @NotNull String value, @NotNull List<String> keys) {
+            Commit commit = new Commit();
+            commit.config = config.getName();
+            commit.keys = new ArrayList<>(keys);
+            commit.value = value;
+            return commit;
+        }
+
+        @NotNull
+        public static Commit of(@NotNull Class<? extends MyYaml> config, @NotNull String value, @NotNull String... keys) {
+            return of(config, value, Arrays.asList(keys));
+        }
+    }
+}
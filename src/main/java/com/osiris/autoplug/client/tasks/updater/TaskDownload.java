@@ -8,10 +8,11 @@
 
 package com.osiris.autoplug.client.tasks.updater;
 
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.UtilsCrypto;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
-import com.osiris.jlib.logger.AL;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -61,15 +62,17 @@ public class TaskDownload extends BThread {
 
         final String fileName = dest.getName();
         setStatus("Downloading " + fileName + "... (0mb/0mb)");
-        AL.debug(this.getClass(), "Downloading " + fileName + " from: " + url);
+        DebugLog.debug(this.getClass(), "Downloading {} from: {}", fileName, url);
 
         Request request = new Request.Builder().url(url)
                 .header("User-Agent", "AutoPlug Client/" + new Random().nextInt() + " - https://autoplug.one")
                 .build();
 
-        Response response = new OkHttpClient.Builder().followRedirects(true).build().newCall(request).execute();
+        DownloadScheduler.Ticket ticket = DownloadScheduler.get().acquire(this, fileName, DownloadScheduler.Priority.CRITICAL, -1);
+        Response response = null;
         ResponseBody body = null;
         try {
+            response = new OkHttpClient.Builder().followRedirects(true).build().newCall(request).execute();
             if (response.code() != 200)
                 throw new Exception("Download of '" + dest.getName() + "' failed! Code: " + response.code() + " Message: " + response.message() + " Url: " + url);
 
@@ -90,32 +93,34 @@ public class TaskDownload extends BThread {
             }
 
             long completeFileSize = body.contentLength();
-            setMax(completeFileSize);
+            ProgressReporter progress = new ProgressReporter(this, "Downloading", fileName, completeFileSize);
 
             BufferedInputStream in = new BufferedInputStream(body.byteStream());
             FileOutputStream fos = new FileOutputStream(dest);
-            BufferedOutputStream bout = new BufferedOutputStream(fos, 1024);
-            byte[] data = new byte[1024];
-            long downloadedFileSize = 0;
+            BufferedOutputStream bout = new BufferedOutputStream(fos, 8192);
+            byte[] data = new byte[8192];
             int x = 0;
-            while ((x = in.read(data, 0, 1024)) >= 0) {
-                downloadedFileSize += x;
-
-                setStatus("Downloading " + fileName + "... (" + downloadedFileSize / (1024 * 1024) + "mb/" + completeFileSize / (1024 * 1024) + "mb)");
-                setNow(downloadedFileSize);
-
-                bout.write(data, 0, x);
+            try {
+                while ((x = in.read(data, 0, data.length)) >= 0) {
+                    bout.write(data, 0, x);
+                    progress.add(x);
+                    ticket.throttle(x);
+                }
+            } finally {
+                progress.close();
             }
 
-            setStatus("Downloaded " + fileName + " (" + downloadedFileSize / (1024 * 1024) + "mb/" + completeFileSize / (1024 * 1024) + "mb)");
+            setStatus("Downloaded " + fileName + " " + progress.summary());
             bout.close();
             in.close();
             body.close();
             response.close();
         } catch (Exception e) {
             if (body != null) body.close();
-            response.close();
+            if (response != null) response.close();
             throw e;
+        } finally {
+            ticket.close();
         }
     }
 
@@ -130,8 +135,7 @@ public class TaskDownload extends BThread {
         expectedHash = expectedHash.trim();
         final String myHash = UtilsCrypto.fastMD5(dest).trim();
         boolean result = myHash.equals(expectedHash);
-        AL.debug(this.getClass(), "Comparing hashes (MD5). Is equal? " +
-                result + " Excepted: \"" + expectedHash + "\" Actual: \"" + myHash + "\"");
+        DebugLog.debug(this.getClass(), "Comparing hashes (MD5). Is equal? {} Excepted: \"{}\" Actual: \"{}\"", result, expectedHash, myHash);
         return result;
     }
 
@@ -146,8 +150,7 @@ public class TaskDownload extends BThread {
         expectedHash = expectedHash.trim().toLowerCase();
         final String myHash = UtilsCrypto.fastSHA256(dest).trim().toLowerCase();
         boolean result = myHash.equals(expectedHash);
-        AL.debug(this.getClass(), "Comparing hashes (SHA-256). Is equal? " +
-                result + " Excepted: \"" + expectedHash + "\" Actual: \"" + myHash + "\"");
+        DebugLog.debug(this.getClass(), "Comparing hashes (SHA-256). Is equal? {} Excepted: \"{}\" Actual: \"{}\"", result, expectedHash, myHash);
         return result;
     }
 
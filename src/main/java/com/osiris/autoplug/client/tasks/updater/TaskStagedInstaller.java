@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.tasks.updater;
+
+import com.osiris.betterthread.BThread;
+import com.osiris.betterthread.BThreadManager;
+
+/**
+ * Installs the updates that were staged while the server was running, see {@link StagingArea}. <br>
+ * Only the updaters of the staged resources wait for this task, see {@link StagingArea#getStagedResources()}.
+ */
+public class TaskStagedInstaller extends BThread {
+
+    public TaskStagedInstaller(String name, BThreadManager manager) {
+        super(name, manager);
+    }
+
+    @Override
+    public void runAtStart() throws Exception {
+        super.runAtStart();
+        if (StagingArea.isStagingRequired()) {
+            setStatus("Skipped staged updates installation, because the server is running.");
+            skip();
+            return;
+        }
+        int count = StagingArea.get().install(this);
+        finish("Installed " + count + " staged update(s).");
+    }
+}
@@ -10,13 +10,17 @@ package com.osiris.autoplug.client.tasks.updater.java;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.osiris.jlib.json.Json;
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 import com.osiris.jlib.json.exceptions.HttpErrorException;
 import com.osiris.jlib.json.exceptions.WrongJsonTypeException;
-import com.osiris.jlib.logger.AL;
 
 import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Details here: https://api.adoptium.net/q/swagger-ui
@@ -68,7 +72,7 @@ public class AdoptV3API {
     public JsonArray getVersionInformation(String releaseVersionName, OperatingSystemArchitectureType osArchitectureType, boolean isLargeHeapSize, ImageType imageType,
                                            boolean isHotspotImpl, boolean isOnlyLTS, OperatingSystemType osType, int maxItems,
                                            VendorProjectType vendorProject, ReleaseType releaseType) throws WrongJsonTypeException, IOException, HttpErrorException {
-        return Json.getAsJsonArray(getVersionInformationUrl(
+        return JsonStream.getAsJsonArray(getVersionInformationUrl(
                 releaseVersionName, osArchitectureType, isLargeHeapSize, imageType, isHotspotImpl,
                 isOnlyLTS, osType, maxItems, vendorProject, releaseType
         ));
@@ -113,7 +117,7 @@ public class AdoptV3API {
             while (true) { // Loop through all pages until last request gives 404 error code
                 url = getReleasesUrl(page, osArchitectureType, isLargeHeapSize, imageType,
                         isHotspotImpl, isOnlyLTS, osType, maxItems, vendorProject, releaseType);
-                Boolean shouldContinue = onNewPage.apply(Json.getAsObject(url));
+                Boolean shouldContinue = onNewPage.apply(JsonStream.getAsObject(url));
                 if (!shouldContinue) break;
                 page++;
             }
@@ -123,6 +127,47 @@ public class AdoptV3API {
         }
     }
 
+    /**
+     * Same as {@link #getReleases(OperatingSystemArchitectureType, boolean, ImageType, boolean, boolean, OperatingSystemType, int, VendorProjectType, ReleaseType, Function)},
+     * but streams the pages and only reads the provided fields of each release version.
+     * Stops reading (also in the middle of a page) once a matching release version was found.
+     *
+     * @param fields  the fields of each release version to read, for example "major", "build" and "semver".
+     * @param isMatch returns true for the wanted release version.
+     * @return the first matching release version, or null if none was found.
+     */
+    public JsonObject findRelease(OperatingSystemArchitectureType osArchitectureType, boolean isLargeHeapSize, ImageType imageType,
+                                  boolean isHotspotImpl, boolean isOnlyLTS, OperatingSystemType osType, int maxItems,
+                                  VendorProjectType vendorProject, ReleaseType releaseType,
+                                  Set<String> fields, Predicate<JsonObject> isMatch) throws IOException, HttpErrorException {
+        AtomicReference<JsonObject> refMatch = new AtomicReference<>();
+        int page = 0;
+        try {
+            while (true) { // Loop through all pages until last request gives 404 error code
+                String url = getReleasesUrl(page, osArchitectureType, isLargeHeapSize, imageType,
+                        isHotspotImpl, isOnlyLTS, osType, maxItems, vendorProject, releaseType);
+                int count;
+                try (JsonStream json = new JsonStream(url)) {
+                    if (!json.seek("versions")) break;
+                    AtomicInteger countVersions = new AtomicInteger();
+                    json.forEach(fields, version -> {
+                        countVersions.incrementAndGet();
+                        if (!isMatch.test(version)) return true;
+                        refMatch.set(version);
+                        return false;
+                    });
+                    count = countVersions.get();
+                }
+                if (refMatch.get() != null || count < maxItems) break; // Found or last page
+                page++;
+            }
+        } catch (HttpErrorException e) {
+            if (e.getHttpErrorCode() != 404) // 404 == Page not found
+                throw e;
+        }
+        return refMatch.get();
+    }
+
     /**
      * Creates and returns a new url from the provided parameters. <br>
      * For a list of all available parameters types see: https://api.adoptium.net/q/swagger-ui/#/Binary/getBinaryByVersion
@@ -147,7 +192,7 @@ public class AdoptV3API {
     }
 
     private String log(String s) {
-        AL.debug(this.getClass(), s);
+        DebugLog.debug(this.getClass(), s);
         return s;
     }
 
@@ -8,16 +8,20 @@
 
 package com.osiris.autoplug.client.tasks.updater.java;
 
+import com.osiris.autoplug.client.tasks.updater.DownloadScheduler;
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.io.StreamingExtractor;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
 import com.osiris.betterthread.BWarning;
-import com.osiris.jlib.logger.AL;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import org.apache.commons.io.FileUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -34,8 +38,10 @@ public class TaskJavaDownload extends BThread {
     private final String url;
     private final AdoptV3API.OperatingSystemType osType;
     private final File dest;
+    private final File extractDir;
     private File newDest;
     private boolean isTar;
+    private String streamHash;
 
     /**
      * Downloads a file from an url to the cache first and then
@@ -48,10 +54,19 @@ public class TaskJavaDownload extends BThread {
      *                the actual file type gets set when there is download information available.
      */
     public TaskJavaDownload(String name, BThreadManager manager, String url, File dest, AdoptV3API.OperatingSystemType osType) {
+        this(name, manager, url, dest, osType, null);
+    }
+
+    /**
+     * @param extractDir if not null, zip and tar.gz archives get unpacked into this directory while downloading,
+     *                   instead of being written to dest. Use {@link #isExtracted()} to check if that was the case.
+     */
+    public TaskJavaDownload(String name, BThreadManager manager, String url, File dest, AdoptV3API.OperatingSystemType osType, @Nullable File extractDir) {
         super(name, manager);
         this.url = url;
         this.dest = dest;
         this.osType = osType;
+        this.extractDir = extractDir;
     }
 
     @Override
@@ -60,14 +75,16 @@ public class TaskJavaDownload extends BThread {
 
         String fileName = dest.getName();
         setStatus("Downloading " + fileName + "... (0mb/0mb)");
-        AL.debug(this.getClass(), "Downloading " + fileName + " from: " + url);
+        DebugLog.debug(this.getClass(), "Downloading {} from: {}", fileName, url);
 
         Request request = new Request.Builder().url(url)
                 .header("User-Agent", "AutoPlug Client/" + new Random().nextInt() + " - https://autoplug.one")
                 .build();
-        Response response = new OkHttpClient().newCall(request).execute();
+        DownloadScheduler.Ticket ticket = DownloadScheduler.get().acquire(this, fileName, DownloadScheduler.Priority.CRITICAL, -1);
+        Response response = null;
         ResponseBody body = null;
         try {
+            response = new OkHttpClient().newCall(request).execute();
             if (response.code() != 200)
                 throw new Exception("Download of '" + fileName + "' failed! Code: " + response.code() + " Message: " + response.message() + " Url: " + url);
 
@@ -110,6 +127,24 @@ public class TaskJavaDownload extends BThread {
                 }
             }
 
+            if (extractDir != null && (isTar || fileName.endsWith(".zip"))) {
+                // Unpack while downloading, the archive never hits the disk
+                ProgressReporter progress = new ProgressReporter(this, "Downloading and unpacking", fileName, body.contentLength());
+                StreamingExtractor extractor = new StreamingExtractor(extractDir, isTar);
+                try {
+                    extractor.extract(body.byteStream(), n -> {
+                        progress.add(n);
+                        ticket.throttle(n);
+                    });
+                } finally {
+                    progress.close();
+                }
+                streamHash = extractor.getHash();
+                setStatus("Downloaded and unpacked " + fileName + " " + progress.summary());
+                body.close();
+                response.close();
+                return;
+            }
 
             // We need to at least create the cache dest to then rename it
             if (dest.exists()) dest.delete();
@@ -123,25 +158,24 @@ public class TaskJavaDownload extends BThread {
             newDest.createNewFile();
 
             long completeFileSize = body.contentLength();
-            setMax(completeFileSize);
-
+            ProgressReporter progress = new ProgressReporter(this, "Downloading", fileName, completeFileSize);
 
             BufferedInputStream in = new BufferedInputStream(body.byteStream());
             FileOutputStream fos = new FileOutputStream(dest);
-            BufferedOutputStream bout = new BufferedOutputStream(fos, 1024);
-            byte[] data = new byte[1024];
-            long downloadedFileSize = 0;
+            BufferedOutputStream bout = new BufferedOutputStream(fos, 8192);
+            byte[] data = new byte[8192];
             int x = 0;
-            while ((x = in.read(data, 0, 1024)) >= 0) {
-                downloadedFileSize += x;
-
-                setStatus("Downloading " + fileName + "... (" + downloadedFileSize / (1024 * 1024) + "mb/" + completeFileSize / (1024 * 1024) + "mb)");
-                setNow(downloadedFileSize);
-
-                bout.write(data, 0, x);
+            try {
+                while ((x = in.read(data, 0, data.length)) >= 0) {
+                    bout.write(data, 0, x);
+                    progress.add(x);
+                    ticket.throttle(x);
+                }
+            } finally {
+                progress.close();
             }
 
-            setStatus("Downloaded " + fileName + " (" + downloadedFileSize / (1024 * 1024) + "mb/" + completeFileSize / (1024 * 1024) + "mb)");
+            setStatus("Downloaded " + fileName + " " + progress.summary());
             bout.close();
             in.close();
             body.close();
@@ -150,8 +184,10 @@ public class TaskJavaDownload extends BThread {
             Files.copy(dest.toPath(), newDest.toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (Exception e) {
             if (body != null) body.close();
-            response.close();
+            if (response != null) response.close();
             throw e;
+        } finally {
+            ticket.close();
         }
     }
 
@@ -166,6 +202,15 @@ public class TaskJavaDownload extends BThread {
         return newDest;
     }
 
+    /**
+     * Retrieve this once the task finished to get a correct result.
+     *
+     * @return true if the archive was unpacked into the extract directory while downloading.
+     */
+    public boolean isExtracted() {
+        return streamHash != null;
+    }
+
     /**
      * Only use this method after finishing the download.
      * It will get the hash for the newly downloaded file and
@@ -175,14 +220,20 @@ public class TaskJavaDownload extends BThread {
      * @return true if the hashes match
      */
     public boolean compareWithSHA256(String sha256) {
+        if (streamHash != null) {
+            DebugLog.debug(this.getClass(), "Comparing hashes (SHA-256) of streamed archive:");
+            DebugLog.debug(this.getClass(), "Input-Hash: {}", sha256);
+            DebugLog.debug(this.getClass(), "Stream-Hash: {}", streamHash);
+            return streamHash.equalsIgnoreCase(sha256);
+        }
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] encodedhash = digest.digest(
                     FileUtils.readFileToByteArray(dest));
             final String hashResult = bytesToHex(encodedhash);
-            AL.debug(this.getClass(), "Comparing hashes (SHA-256):");
-            AL.debug(this.getClass(), "Input-Hash: " + sha256);
-            AL.debug(this.getClass(), "File-Hash: " + hashResult);
+            DebugLog.debug(this.getClass(), "Comparing hashes (SHA-256):");
+            DebugLog.debug(this.getClass(), "Input-Hash: {}", sha256);
+            DebugLog.debug(this.getClass(), "File-Hash: {}", hashResult);
             return hashResult.equalsIgnoreCase(sha256);
         } catch (Exception e) {
             getWarnings().add(new BWarning(this, e));
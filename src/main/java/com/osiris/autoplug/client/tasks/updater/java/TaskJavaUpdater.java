@@ -9,14 +9,17 @@
 package com.osiris.autoplug.client.tasks.updater.java;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.osiris.autoplug.client.Server;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.UtilsArchive;
+import com.osiris.autoplug.client.utils.io.JsonStream;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
-import com.osiris.jlib.logger.AL;
 import org.apache.commons.io.FileUtils;
 import org.rauschig.jarchivelib.ArchiveFormat;
 import org.rauschig.jarchivelib.Archiver;
@@ -24,8 +27,12 @@ import org.rauschig.jarchivelib.ArchiverFactory;
 import org.rauschig.jarchivelib.CompressionType;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Searches for updates and installs them is AUTOMATIC profile is selected.
@@ -45,7 +52,8 @@ public class TaskJavaUpdater extends BThread {
             skip();
             return;
         }
-        if (Server.isRunning()) throw new Exception("Cannot perform update while server is running!");
+        if (Server.isRunning() && !updaterConfig.global_staging.asBoolean())
+            throw new Exception("Cannot perform update while server is running!");
 
         if (!updaterConfig.java_updater.asBoolean()) {
             skip();
@@ -75,11 +83,11 @@ public class TaskJavaUpdater extends BThread {
                 osArchitectureType = AdoptV3API.OperatingSystemArchitectureType.X64;
             else
                 osArchitectureType = AdoptV3API.OperatingSystemArchitectureType.X32;
-            AL.debug(this.getClass(), "The current operating systems architecture '" + actualOsArchitecture +
-                    "' was not found in the architectures list '" + Arrays.toString(AdoptV3API.OperatingSystemArchitectureType.values()) + "'." +
-                    " Defaulting to '" + osArchitectureType + "'.");
+            DebugLog.debug(this.getClass(), "The current operating systems architecture '{}' was not found in the architectures list '{}'." +
+                            " Defaulting to '{}'.", actualOsArchitecture,
+                    Arrays.toString(AdoptV3API.OperatingSystemArchitectureType.values()), osArchitectureType);
         }
-        AL.debug(this.getClass(), "Determined '" + osArchitectureType.name() + "' as operating systems architecture.");
+        DebugLog.debug(this.getClass(), "Determined '{}' as operating systems architecture.", osArchitectureType.name());
 
         // Set the operating systems type
         AdoptV3API.OperatingSystemType osType;
@@ -99,10 +107,9 @@ public class TaskJavaUpdater extends BThread {
             osType = AdoptV3API.OperatingSystemType.SOLARIS;
         else {
             osType = AdoptV3API.OperatingSystemType.LINUX;
-            AL.debug(this.getClass(), "The current operating system '" + actualOsType + "' was not found in the supported operating systems list." +
-                    " Defaulting to '" + AdoptV3API.OperatingSystemType.LINUX.name() + "'.");
+            DebugLog.debug(this.getClass(), "The current operating system '{}' was not found in the supported operating systems list. Defaulting to '{}'.", actualOsType, AdoptV3API.OperatingSystemType.LINUX.name());
         }
-        AL.debug(this.getClass(), "Determined '" + osType.name() + "' as operating system.");
+        DebugLog.debug(this.getClass(), "Determined '{}' as operating system.", osType.name());
 
         boolean isLargeHeapSize = updaterConfig.java_updater_large_heap.asBoolean();
         String javaVersion = updaterConfig.java_updater_version.asString();
@@ -114,9 +121,10 @@ public class TaskJavaUpdater extends BThread {
         // when onlyLTS is disabled. That's why we must use JDK currently.
         // TODO Hopefully this is temporary and can be fixed soon.
 
-        AtomicReference<JsonObject> refJsonLatestRelease = new AtomicReference<>(null);
+        Set<String> releaseFields = JsonStream.fields("major", "build", "semver");
+        Predicate<JsonObject> isWantedRelease = o -> o.get("major").getAsString().equals(javaVersion);
         boolean isOnlyLTS = true;
-        new AdoptV3API().getReleases(
+        JsonObject jsonLatestRelease = new AdoptV3API().findRelease(
                 osArchitectureType,
                 isLargeHeapSize,
                 imageType,
@@ -126,26 +134,15 @@ public class TaskJavaUpdater extends BThread {
                 50,
                 AdoptV3API.VendorProjectType.JDK,
                 AdoptV3API.ReleaseType.GENERAL_AVAILABILITY,
-                jsonReleases -> { // The below gets executed now, in the current thread
-                    for (JsonElement e :
-                            jsonReleases.getAsJsonArray("versions")) {
-                        JsonObject o = e.getAsJsonObject();
-                        String version = o.get("major").getAsString();
-                        if (version.equals(javaVersion)) {
-                            refJsonLatestRelease.set(o);
-                            return false; // Should continue? No, since we found it!
-                        }
-                    }
-                    return true;
-                }
+                releaseFields,
+                isWantedRelease
         );
-        JsonObject jsonLatestRelease = refJsonLatestRelease.get();
         if (jsonLatestRelease == null) {
             isOnlyLTS = false;
             // Do the above search again, but this time with onlyLTS=false
             // Note that this seems to exclude all LTS releases, thats why the above
             // is still necessary.
-            new AdoptV3API().getReleases(
+            jsonLatestRelease = new AdoptV3API().findRelease(
                     osArchitectureType,
                     isLargeHeapSize,
                     imageType,
@@ -155,22 +152,11 @@ public class TaskJavaUpdater extends BThread {
                     50,
                     AdoptV3API.VendorProjectType.JDK,
                     AdoptV3API.ReleaseType.GENERAL_AVAILABILITY,
-                    jsonReleases -> { // The below gets executed now, in the current thread
-                        for (JsonElement e :
-                                jsonReleases.getAsJsonArray("versions")) {
-                            JsonObject o = e.getAsJsonObject();
-                            String version = o.get("major").getAsString();
-                            if (version.equals(javaVersion)) {
-                                refJsonLatestRelease.set(o);
-                                return false; // Should continue? No, since we found it!
-                            }
-                        }
-                        return true;
-                    }
+                    releaseFields,
+                    isWantedRelease
             );
         }
 
-        jsonLatestRelease = refJsonLatestRelease.get();
         if (jsonLatestRelease == null)
             throw new Exception("Couldn't find a matching major version to '" + javaVersion + "'.");
 
@@ -210,7 +196,7 @@ public class TaskJavaUpdater extends BThread {
                 AdoptV3API.VendorProjectType.JDK
         );
 
-        AL.debug(this.getClass(), "Update found " + currentBuildId + " -> " + latestBuildId);
+        DebugLog.debug(this.getClass(), "Update found {} -> {}", currentBuildId, latestBuildId);
         String profile = updaterConfig.java_updater_profile.asString();
         if (profile.equals("NOTIFY")) {
             setStatus("Update found (" + currentBuildId + " -> " + latestBuildId + ")!");
@@ -249,7 +235,12 @@ public class TaskJavaUpdater extends BThread {
 
             File final_dir_dest = new File(GD.WORKING_DIR + "/autoplug/system/jre");
             File cache_dest = new File(GD.WORKING_DIR + "/autoplug/downloads/" + imageType + "-" + versionString + ".file");
-            TaskJavaDownload download = new TaskJavaDownload("JavaDownloader", getManager(), downloadURL, cache_dest, osType);
+            File staging_dir = null;
+            if (updaterConfig.global_downloads_unpack_while_downloading.asBoolean()) {
+                staging_dir = new File(GD.WORKING_DIR + "/autoplug/downloads/" + imageType + "-" + versionString);
+                if (staging_dir.exists()) FileUtils.deleteDirectory(staging_dir);
+            }
+            TaskJavaDownload download = new TaskJavaDownload("JavaDownloader", getManager(), downloadURL, cache_dest, osType, staging_dir);
             download.start();
 
             while (true) {
@@ -257,7 +248,31 @@ public class TaskJavaUpdater extends BThread {
                 if (download.isFinished()) {
                     if (download.isSuccess()) {
                         setStatus("Java update downloaded. Checking hash...");
-                        if (download.compareWithSHA256(checksum)) {
+                        boolean isHashValid = download.compareWithSHA256(checksum);
+                        if (isHashValid && StagingArea.isStagingRequired()) {
+                            // The current installation is in use, thus only unpack and stage it
+                            File unpacked_dir = staging_dir;
+                            if (!download.isExtracted()) {
+                                unpacked_dir = new File(GD.WORKING_DIR + "/autoplug/downloads/" + imageType + "-" + versionString);
+                                if (unpacked_dir.exists()) FileUtils.deleteDirectory(unpacked_dir);
+                                unpacked_dir.mkdirs();
+                                Archiver archiver;
+                                if (download.isTar())
+                                    archiver = ArchiverFactory.createArchiver(ArchiveFormat.TAR, CompressionType.GZIP);
+                                else // A zip
+                                    archiver = ArchiverFactory.createArchiver(ArchiveFormat.ZIP);
+
+                                try (ProgressReporter progress = new ProgressReporter(this, "Unpacking",
+                                        download.getNewCacheDest().getName(), -1)) {
+                                    new UtilsArchive().extract(archiver, download.getNewCacheDest(), unpacked_dir, progress);
+                                }
+                            }
+                            StagingArea.get().stage(unpacked_dir, final_dir_dest, null, "Java", StagingArea.RESOURCE_JAVA,
+                                    Collections.singletonList(StagingArea.Commit.of(UpdaterConfig.class,
+                                            String.valueOf(latestBuildId), updaterConfig.java_updater_build_id.getKeys())));
+                            setStatus("Staged Java update (" + currentBuildId + " -> " + latestBuildId + "), gets installed at the next restart.");
+                            finish(true);
+                        } else if (isHashValid) {
                             setStatus("Java update downloaded. Removing old installation...");
                             if (final_dir_dest.exists()) {
                                 File[] files = final_dir_dest.listFiles();
@@ -272,23 +287,37 @@ public class TaskJavaUpdater extends BThread {
                             }
                             final_dir_dest.mkdirs();
 
-                            Archiver archiver;
-                            if (download.isTar())
-                                archiver = ArchiverFactory.createArchiver(ArchiveFormat.TAR, CompressionType.GZIP);
-                            else // A zip
-                                archiver = ArchiverFactory.createArchiver(ArchiveFormat.ZIP);
+                            if (download.isExtracted()) {
+                                // Already unpacked while downloading, only move it
+                                for (File file : staging_dir.listFiles()) {
+                                    Files.move(file.toPath(), new File(final_dir_dest, file.getName()).toPath(),
+                                            StandardCopyOption.REPLACE_EXISTING);
+                                }
+                                FileUtils.deleteDirectory(staging_dir);
+                            } else {
+                                Archiver archiver;
+                                if (download.isTar())
+                                    archiver = ArchiverFactory.createArchiver(ArchiveFormat.TAR, CompressionType.GZIP);
+                                else // A zip
+                                    archiver = ArchiverFactory.createArchiver(ArchiveFormat.ZIP);
 
-                            archiver.extract(download.getNewCacheDest(), final_dir_dest);
+                                try (ProgressReporter progress = new ProgressReporter(this, "Unpacking",
+                                        download.getNewCacheDest().getName(), -1)) {
+                                    new UtilsArchive().extract(archiver, download.getNewCacheDest(), final_dir_dest, progress);
+                                }
+                            }
                             setStatus("Java update was installed successfully (" + currentBuildId + " -> " + latestBuildId + ")!");
                             updaterConfig.java_updater_build_id.setValues(String.valueOf(latestBuildId));
                             updaterConfig.save();
                             finish(true);
                         } else {
+                            if (staging_dir != null && staging_dir.exists()) FileUtils.deleteDirectory(staging_dir);
                             setStatus("Downloaded Java update is broken. Nothing changed!");
                             finish(false);
                         }
 
                     } else {
+                        if (staging_dir != null && staging_dir.exists()) FileUtils.deleteDirectory(staging_dir);
                         setStatus("Java update failed!");
                         finish(false);
                     }
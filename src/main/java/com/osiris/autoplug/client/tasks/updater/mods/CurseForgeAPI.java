@@ -8,14 +8,14 @@
 
 package com.osiris.autoplug.client.tasks.updater.mods;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.UtilsURL;
-import com.osiris.jlib.logger.AL;
-import com.osiris.jlib.sort.QuickSort;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.BufferedReader;
@@ -29,8 +29,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CurseForgeAPI {
+    /**
+     * Maximum allowed by the api.
+     */
+    private static final int PAGE_SIZE = 50;
+    private static final Set<String> RELEASE_FIELDS = JsonStream.fields("id", "fileName", "fileDate", "downloadUrl", "gameVersions");
     private final String baseUrl = "https://api.curseforge.com/v1";
 
     /**
@@ -38,7 +46,6 @@ public class CurseForgeAPI {
      */
     public SearchResult searchUpdate(InstalledModLoader modLoader, MinecraftMod mod, String mcVersion, boolean checkNameForModLoader) {
         boolean isIdNumber = isInt(mod.curseforgeId);
-        String url;
         Exception exception = null;
         String latest = null;
         String type = ".jar";
@@ -56,75 +63,15 @@ public class CurseForgeAPI {
             }
             if (mod.curseforgeId == null) throw new Exception("Failed to determine curseforge-id!");
             modInfo += "/" + mod.curseforgeId;
-            url = baseUrl + "/mods/" + mod.curseforgeId + "/files" +
-                    (mod.forceLatest ? "" : "?gameVersion=" + mcVersion);
-            url = new UtilsURL().clean(url);
-            AL.debug(this.getClass(), modInfo + " fetch details from: " + url);
-            JsonArray arr;
+            JsonObject release;
             try {
-                arr = new CurseForgeJson().getJsonObject(url).get("data").getAsJsonArray();
+                release = findLatestRelease(modLoader, mod, mod.curseforgeId, mcVersion, checkNameForModLoader, modInfo);
             } catch (Exception e) {
-                if (!isInt(mod.curseforgeId)) { // Try another url, with slug replaced _ with -
-                    url = baseUrl + "/mods/" + mod.curseforgeId.replace("_", "-") + "/files" +
-                            (mod.forceLatest ? "" : "?gameVersion=" + mcVersion);
-                    url = new UtilsURL().clean(url);
-                    AL.debug(this.getClass(), modInfo + " fetch details from: " + url);
-                    arr = new CurseForgeJson().getJsonObject(url).get("data").getAsJsonArray();
-                } else
+                if (!isInt(mod.curseforgeId)) // Try another url, with slug replaced _ with -
+                    release = findLatestRelease(modLoader, mod, mod.curseforgeId.replace("_", "-"), mcVersion, checkNameForModLoader, modInfo);
+                else
                     throw e;
             }
-            // Compares this object with the specified object for order.
-            // Returns a negative integer, zero, or a positive integer as this object is less than, equal to, or greater than the specified objec
-            new QuickSort().sortJsonArray(arr, (thisEl, otherEl) -> {
-                int thisId = thisEl.el.getAsJsonObject().get("id").getAsInt();
-                int otherId = otherEl.el.getAsJsonObject().get("id").getAsInt();
-                return Integer.compare(thisId, otherId);
-            });
-            JsonObject release = null;
-            for (int i = arr.size() - 1; i >= 0; i--) {
-                JsonObject tempRelease = arr.get(i).getAsJsonObject();
-                boolean isVersionCompatible = false, isModLoaderCompatible = false;
-                if (mod.forceLatest) {
-                    isVersionCompatible = true;
-                } else {
-                    for (JsonElement el : tempRelease.get("gameVersions").getAsJsonArray()) {
-                        if (el.getAsString().equals(mcVersion)) {
-                            isVersionCompatible = true;
-                            break;
-                        }
-                    }
-                }
-
-                // If the release has no fabric or forge tag, then we expect only forge support.
-                if (modLoader.isFabric || modLoader.isQuilt) { // FABRIC or QUILT
-                    for (JsonElement el : tempRelease.get("gameVersions").getAsJsonArray()) { // check if game versions contain fabric
-                        if (StringUtils.containsIgnoreCase(el.getAsString(), "fabric")) {
-                            isModLoaderCompatible = true;
-                            break;
-                        }
-                    }
-                    if (checkNameForModLoader && !isModLoaderCompatible) // check if name contains fabric
-                        if (StringUtils.containsIgnoreCase(
-                                tempRelease.get("fileName").getAsString(),
-                                "fabric")) {
-                            isModLoaderCompatible = true;
-                        }
-                } else { // FORGE
-                    isModLoaderCompatible = true; // since no fabric/forge tag == forge is supported,
-                    // we only need to check if it has no fabric tag
-                    for (JsonElement el : tempRelease.get("gameVersions").getAsJsonArray()) {
-                        if (StringUtils.containsIgnoreCase(el.getAsString(), "fabric")) {
-                            isModLoaderCompatible = false;
-                            break;
-                        }
-                    }
-                }
-
-                if (isVersionCompatible && isModLoaderCompatible) {
-                    release = tempRelease;
-                    break;
-                }
-            }
             if (release == null)
                 throw new Exception("Failed to find a single release of this mod for mc version " + mcVersion);
             try {
@@ -150,6 +97,75 @@ public class CurseForgeAPI {
         return result;
     }
 
+    /**
+     * Streams the files list of the mod and returns the compatible release with the highest id,
+     * or null if there is none. Only the fields needed for the checks below are read,
+     * thus the complete list is never held in memory and does not need to be sorted.
+     */
+    private JsonObject findLatestRelease(InstalledModLoader modLoader, MinecraftMod mod, String curseforgeId, String mcVersion,
+                                         boolean checkNameForModLoader, String modInfo) throws Exception {
+        // The files endpoint has no sort parameter, thus request the maximum page size explicitly
+        String url = baseUrl + "/mods/" + curseforgeId + "/files?index=0&pageSize=" + PAGE_SIZE +
+                (mod.forceLatest ? "" : "&gameVersion=" + mcVersion);
+        url = new UtilsURL().clean(url);
+        DebugLog.debug(this.getClass(), "{} fetch details from: {}", modInfo, url);
+        AtomicReference<JsonObject> refRelease = new AtomicReference<>();
+        try (JsonStream json = new JsonStream(url, Collections.singletonMap("x-api-key", new CurseForgeJson().key))) {
+            if (!json.seek("data"))
+                throw new Exception("Response of " + url + " does not contain a 'data' array!");
+            json.forEach(RELEASE_FIELDS, tempRelease -> {
+                JsonObject release = refRelease.get();
+                if (release != null && release.get("id").getAsInt() >= tempRelease.get("id").getAsInt())
+                    return true;
+                if (isCompatible(modLoader, mod, tempRelease, mcVersion, checkNameForModLoader))
+                    refRelease.set(tempRelease);
+                return true;
+            }); // Stops at the end of "data", the pagination details are not needed
+        }
+        return refRelease.get();
+    }
+
+    private boolean isCompatible(InstalledModLoader modLoader, MinecraftMod mod, JsonObject tempRelease, String mcVersion,
+                                 boolean checkNameForModLoader) {
+        boolean isVersionCompatible = false, isModLoaderCompatible = false;
+        if (mod.forceLatest) {
+            isVersionCompatible = true;
+        } else {
+            for (JsonElement el : tempRelease.get("gameVersions").getAsJsonArray()) {
+                if (el.getAsString().equals(mcVersion)) {
+                    isVersionCompatible = true;
+                    break;
+                }
+            }
+        }
+
+        // If the release has no fabric or forge tag, then we expect only forge support.
+        if (modLoader.isFabric || modLoader.isQuilt) { // FABRIC or QUILT
+            for (JsonElement el : tempRelease.get("gameVersions").getAsJsonArray()) { // check if game versions contain fabric
+                if (StringUtils.containsIgnoreCase(el.getAsString(), "fabric")) {
+                    isModLoaderCompatible = true;
+                    break;
+                }
+            }
+            if (checkNameForModLoader && !isModLoaderCompatible) // check if name contains fabric
+                if (StringUtils.containsIgnoreCase(
+                        tempRelease.get("fileName").getAsString(),
+                        "fabric")) {
+                    isModLoaderCompatible = true;
+                }
+        } else { // FORGE
+            isModLoaderCompatible = true; // since no fabric/forge tag == forge is supported,
+            // we only need to check if it has no fabric tag
+            for (JsonElement el : tempRelease.get("gameVersions").getAsJsonArray()) {
+                if (StringUtils.containsIgnoreCase(el.getAsString(), "fabric")) {
+                    isModLoaderCompatible = false;
+                    break;
+                }
+            }
+        }
+        return isVersionCompatible && isModLoaderCompatible;
+    }
+
     private long fileDateToMs(String fileDate) {
         return Instant.parse(fileDate).toEpochMilli();
     }
@@ -178,10 +194,12 @@ public class CurseForgeAPI {
         URL mUrl = new URL(baseUrl + "/fingerprints");
         urlConn = (HttpURLConnection) mUrl.openConnection();
         urlConn.setDoOutput(true);
+        SourceGuard.get().applyTimeouts(urlConn);
         urlConn.addRequestProperty("Accept", "application/json");
         urlConn.addRequestProperty("x-api-key", new CurseForgeJson().key);
         urlConn.addRequestProperty("Content-Type", "application/json");
         urlConn.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        SourceGuard.get().connect(urlConn);
 
         StringBuilder content;
         BufferedReader br = new BufferedReader(new InputStreamReader(urlConn.getInputStream()));
@@ -12,6 +12,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.jlib.json.exceptions.HttpErrorException;
 import com.osiris.jlib.json.exceptions.WrongJsonTypeException;
@@ -42,15 +43,14 @@ public class CurseForgeJson {
             con = (HttpURLConnection) new URL(input_url).openConnection();
             con.addRequestProperty("User-Agent", "AutoPlug-Client - Contact: " + GD.OFFICIAL_WEBSITE);
             con.addRequestProperty("x-api-key", key);
-            con.setConnectTimeout(1000);
-            con.connect();
+            int code = SourceGuard.get().connect(con);
 
-            if (con.getResponseCode() == 200) {
+            if (code == 200) {
                 try (InputStreamReader inr = new InputStreamReader(con.getInputStream())) {
                     element = JsonParser.parseReader(inr);
                 }
             } else {
-                throw new HttpErrorException(con.getResponseCode(), con.getResponseMessage(), "Couldn't get the json file from: " + input_url);
+                throw new HttpErrorException(code, con.getResponseMessage(), "Couldn't get the json file from: " + input_url);
             }
         } catch (IOException | HttpErrorException e) {
             if (con != null) con.disconnect();
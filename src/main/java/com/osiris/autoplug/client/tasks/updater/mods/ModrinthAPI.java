@@ -11,9 +11,9 @@ package com.osiris.autoplug.client.tasks.updater.mods;
 import com.google.gson.JsonObject;
 import com.osiris.autoplug.client.tasks.updater.plugins.MinecraftPlugin;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.UtilsURL;
-import com.osiris.jlib.json.Json;
-import com.osiris.jlib.logger.AL;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 
 import java.io.File;
 import java.time.Instant;
@@ -60,18 +60,18 @@ public class ModrinthAPI {
             if (id == null)
                 throw new Exception("Modrinth-id is null!"); // Modrinth id can be slug or actual id
 
-            AL.debug(this.getClass(), url);
+            DebugLog.debug(this.getClass(), url);
             JsonObject release;
             try {
-                release = Json.getAsJsonArray(url)
+                release = JsonStream.getAsJsonArray(url)
                         .get(0).getAsJsonObject();
             } catch (Exception e) {
                 if (!isInt(id)) { // Try another url, with slug replaced _ with -
                     url = baseUrl + "/project/" + id.replace("_", "-")
                             + "/version?loaders=[\"" +
                             loader + "\"]" + (forceLatest ? "" : "&game_versions=[\"" + mcVersion + "\"]");
-                    AL.debug(this.getClass(), url);
-                    release = Json.getAsJsonArray(url)
+                    DebugLog.debug(this.getClass(), url);
+                    release = JsonStream.getAsJsonArray(url)
                             .get(0).getAsJsonObject();
                 } else
                     throw e;
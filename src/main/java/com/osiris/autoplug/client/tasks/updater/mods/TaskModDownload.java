@@ -8,11 +8,15 @@
 
 package com.osiris.autoplug.client.tasks.updater.mods;
 
+import com.osiris.autoplug.client.tasks.updater.DownloadScheduler;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
+import com.osiris.autoplug.client.utils.tasks.ResourceGate;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
-import com.osiris.jlib.logger.AL;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -23,6 +27,8 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class TaskModDownload extends BThread {
@@ -39,6 +45,11 @@ public class TaskModDownload extends BThread {
     private File dest;
     private boolean isDownloadSuccessful;
     private boolean isInstallSuccessful;
+    private boolean isStaged;
+    /**
+     * Config values written once a staged update was installed, see {@link StagingArea.Commit}.
+     */
+    public List<StagingArea.Commit> commitsOnInstall = new ArrayList<>();
 
     public TaskModDownload(String name, BThreadManager manager,
                            String plName, String plLatestVersion,
@@ -102,7 +113,14 @@ public class TaskModDownload extends BThread {
         } else {
             download();
             isDownloadSuccessful = true;
-            AL.debug(this.getClass(), "Installing mod into " + finalDest.getAbsolutePath());
+            if (StagingArea.isStagingRequired()) {
+                StagingArea.get().stage(dest, finalDest, deleteDest, plName, StagingArea.RESOURCE_MODS, commitsOnInstall);
+                isStaged = true;
+                setStatus("Staged update for " + plName + ", gets installed at the next restart.");
+                return;
+            }
+            ResourceGate.get(ResourceGate.SERVER_FILES).awaitWritable(this);
+            DebugLog.debug(this.getClass(), "Installing mod into {}", finalDest.getAbsolutePath());
             if (finalDest.exists()) finalDest.delete();
             finalDest.createNewFile();
             if (deleteDest != null && deleteDest.exists()) deleteDest.delete();
@@ -118,7 +136,7 @@ public class TaskModDownload extends BThread {
         if (!dir.exists()) dir.mkdirs();
 
         dest = new File(dir + "/" + plName + "-[" + plLatestVersion + "].jar");
-        AL.debug(this.getClass(), "Downloading " + dest.getName() + " to '" + dest.getAbsolutePath() + "' from '" + url + "'");
+        DebugLog.debug(this.getClass(), "Downloading {} to '{}' from '{}'", dest.getName(), dest.getAbsolutePath(), url);
         if (dest.exists()) dest.delete();
         dest.createNewFile();
 
@@ -129,9 +147,11 @@ public class TaskModDownload extends BThread {
                 .header("User-Agent", "AutoPlug-Client - https://autoplug.one")
                 .build();
 
-        Response response = new OkHttpClient().newCall(request).execute();
+        DownloadScheduler.Ticket ticket = DownloadScheduler.get().acquire(this, fileName, DownloadScheduler.Priority.NORMAL, getSizeHint());
+        Response response = null;
         ResponseBody body = null;
         try {
+            response = new OkHttpClient().newCall(request).execute();
             if (response.code() != 200)
                 throw new Exception("Download error for " + plName + " code: " + response.code() + " message: " + response.message() + " url: " + url);
 
@@ -150,35 +170,47 @@ public class TaskModDownload extends BThread {
                 throw new Exception("Download of '" + dest.getName() + "' failed because of invalid sub-content type: " + body.contentType().subtype());
 
             long completeFileSize = body.contentLength();
-            setMax(completeFileSize);
+            ProgressReporter progress = new ProgressReporter(this, "Downloading", fileName, completeFileSize);
 
             BufferedInputStream in = new BufferedInputStream(body.byteStream());
             FileOutputStream fos = new FileOutputStream(dest);
-            BufferedOutputStream bout = new BufferedOutputStream(fos, 1024);
-            byte[] data = new byte[1024];
-            long downloadedFileSize = 0;
+            BufferedOutputStream bout = new BufferedOutputStream(fos, 8192);
+            byte[] data = new byte[8192];
             int x = 0;
-            while ((x = in.read(data, 0, 1024)) >= 0) {
-                downloadedFileSize += x;
-
-                setStatus("Downloading " + fileName + "... (" + downloadedFileSize / 1024 + "kb/" + completeFileSize / 1024 + "kb)");
-                setNow(downloadedFileSize);
-
-                bout.write(data, 0, x);
+            try {
+                while ((x = in.read(data, 0, data.length)) >= 0) {
+                    bout.write(data, 0, x);
+                    progress.add(x);
+                    ticket.throttle(x);
+                }
+            } finally {
+                progress.close();
             }
 
-            setStatus("Downloaded " + fileName + " (" + downloadedFileSize / 1024 + "kb/" + completeFileSize / 1024 + "kb)");
+            setStatus("Downloaded " + fileName + " " + progress.summary());
             bout.close();
             in.close();
             body.close();
             response.close();
         } catch (Exception e) {
             if (body != null) body.close();
-            response.close();
+            if (response != null) response.close();
             throw e;
+        } finally {
+            ticket.close();
         }
     }
 
+    /**
+     * @return the size of the currently installed version, which should be close to the size of the update,
+     * or -1 if unknown. Used by the {@link DownloadScheduler} to start small downloads first.
+     */
+    private long getSizeHint() {
+        if (deleteDest != null && deleteDest.exists()) return deleteDest.length();
+        if (mod != null && mod.installationPath != null) return new File(mod.installationPath).length();
+        return -1;
+    }
+
     public String getPlName() {
         return plName;
     }
@@ -214,4 +246,11 @@ public class TaskModDownload extends BThread {
     public boolean isInstallSuccessful() {
         return isInstallSuccessful;
     }
+
+    /**
+     * @return true if the update was staged instead of installed, since the server is running.
+     */
+    public boolean isStaged() {
+        return isStaged;
+    }
 }
@@ -10,9 +10,11 @@ package com.osiris.autoplug.client.tasks.updater.mods;
 
 import com.osiris.autoplug.client.Server;
 import com.osiris.autoplug.client.configs.ModsConfig;
+import com.osiris.autoplug.client.configs.ResourceRegistry;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
 import com.osiris.autoplug.client.managers.FileManager;
 import com.osiris.autoplug.client.tasks.updater.plugins.ResourceFinder;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.UtilsFile;
@@ -20,8 +22,6 @@ import com.osiris.autoplug.client.utils.UtilsMinecraft;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
 import com.osiris.betterthread.BWarning;
-import com.osiris.dyml.YamlSection;
-import com.osiris.dyml.exceptions.DuplicateKeyException;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.DataInputStream;
@@ -29,7 +29,10 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -51,6 +54,8 @@ public class TaskModsUpdater extends BThread {
     private UpdaterConfig updaterConfig;
     private String userProfile;
     private String modsConfigName;
+    private ResourceRegistry registry;
+    private boolean isOverwrite;
     private Socket online_socket;
     private DataInputStream online_dis;
     private DataOutputStream online_dos;
@@ -68,11 +73,14 @@ public class TaskModsUpdater extends BThread {
             skip();
             return;
         }
-        if (Server.isRunning()) throw new Exception("Cannot perform mods update while server is running!");
+        if (Server.isRunning() && !updaterConfig.global_staging.asBoolean())
+            throw new Exception("Cannot perform mods update while server is running!");
 
         modsConfig = new ModsConfig();
         modsConfig.load(); // No lock needed, since there are no other threads that access this file
-        String name = modsConfig.getFileNameWithoutExt();
+        modsConfigName = modsConfig.getFileNameWithoutExt();
+        registry = ResourceRegistry.get(ResourceRegistry.MODS);
+        registry.refresh(modsConfig); // Imports the changes of the user, if there are any
 
 
         // First we get the latest mod details from the yml config.
@@ -83,79 +91,70 @@ public class TaskModsUpdater extends BThread {
         userProfile = updaterConfig.mods_updater_profile.asString();
         this.allMods.addAll(new UtilsMinecraft().getMods(FileManager.convertRelativeToAbsolutePath(updaterConfig.mods_updater_path.asString())));
 
+        Set<String> installedNames = new HashSet<>();
         for (MinecraftMod installedMod :
                 allMods) {
             try {
                 final String plName = installedMod.getName();
                 if (installedMod.getName() == null || installedMod.getName().isEmpty())
                     throw new Exception("The mods name couldn't be determined for '" + installedMod.installationPath + "'!");
+                if (!installedNames.add(plName)) {
+                    addWarning(new BWarning(this, new Exception("Duplicate mod '" + installedMod.getName() + "' (or mod name from its internal config) found in your mods directory. " +
+                            "Its recommended to remove it.")));
+                    continue;
+                }
+
+                ResourceRegistry.Resource r = registry.getOrCreate(plName);
+                if (r.version == null) r.version = installedMod.getVersion();
+                if (r.author == null) r.author = installedMod.getAuthor();
+                if (r.jenkinsBuildId == null) r.jenkinsBuildId = "0";
 
-                YamlSection exclude = modsConfig.put(name, plName, "exclude").setDefValues("false");
-                YamlSection version = modsConfig.put(name, plName, "version").setDefValues(installedMod.getVersion());
-                YamlSection latestVersion = modsConfig.put(name, plName, "latest-version");
-                YamlSection author = modsConfig.put(name, plName, "author").setDefValues(installedMod.getAuthor());
-                YamlSection modrinthId = modsConfig.put(name, plName, "modrinth-id");
-                YamlSection curseforgeId = modsConfig.put(name, plName, "curseforge-id");
-                YamlSection ignoreContentType = modsConfig.put(name, plName, "ignore-content-type").setDefValues("false");
-                YamlSection forceLatest = modsConfig.put(name, plName, "force-latest").setDefValues("false");
-                YamlSection customDownloadURL = modsConfig.put(name, plName, "custom-download-url");
-                YamlSection githubRepoUrl = modsConfig.put(name, plName, "alternatives", "github", "repo-name");
-                YamlSection githubAssetName = modsConfig.put(name, plName, "alternatives", "github", "asset-name");
-                YamlSection jenkinsProjectUrl = modsConfig.put(name, plName, "alternatives", "jenkins", "project-url");
-                YamlSection jenkinsArtifactName = modsConfig.put(name, plName, "alternatives", "jenkins", "artifact-name");
-                YamlSection jenkinsBuildId = modsConfig.put(name, plName, "alternatives", "jenkins", "build-id").setDefValues("0");
-
-                if (installedMod.modrinthId != null) modrinthId.setValues(installedMod.modrinthId);
-                if (installedMod.curseforgeId != null) curseforgeId.setValues(installedMod.curseforgeId);
+                if (installedMod.modrinthId != null) r.modrinthId = installedMod.modrinthId;
+                if (installedMod.curseforgeId != null) r.curseforgeId = installedMod.curseforgeId;
 
                 // Update the detailed mods in-memory values
-                installedMod.modrinthId = modrinthId.asString();
-                installedMod.curseforgeId = (curseforgeId.asString());
-                installedMod.ignoreContentType = (ignoreContentType.asBoolean());
-                installedMod.forceLatest = (forceLatest.asBoolean());
-                installedMod.customDownloadURL = (customDownloadURL.asString());
-                installedMod.githubRepoName = (githubRepoUrl.asString());
-                installedMod.githubAssetName = (githubAssetName.asString());
-                installedMod.jenkinsProjectUrl = (jenkinsProjectUrl.asString());
-                installedMod.jenkinsArtifactName = (jenkinsArtifactName.asString());
-                installedMod.jenkinsBuildId = (jenkinsBuildId.asInt());
+                installedMod.modrinthId = r.modrinthId;
+                installedMod.curseforgeId = r.curseforgeId;
+                installedMod.ignoreContentType = r.ignoreContentType;
+                installedMod.forceLatest = r.forceLatest;
+                installedMod.customDownloadURL = r.customDownloadUrl;
+                installedMod.githubRepoName = r.githubRepoName;
+                installedMod.githubAssetName = r.githubAssetName;
+                installedMod.jenkinsProjectUrl = r.jenkinsProjectUrl;
+                installedMod.jenkinsArtifactName = r.jenkinsArtifactName;
+                installedMod.jenkinsBuildId = Integer.parseInt(r.jenkinsBuildId.trim());
 
                 // Check for missing author in internal config
                 if ((installedMod.getVersion() == null)
-                        && (modrinthId.asString() == null)
-                        && (curseforgeId.asString() == null)) {
-                    exclude.setValues("true");
+                        && (r.modrinthId == null)
+                        && (r.curseforgeId == null)) {
+                    r.exclude = true;
                     this.addWarning("Mod " + installedMod.getName() + " is missing 'version' in its internal config file and was excluded.");
                 }
 
                 // Check for missing version in internal config
                 if ((installedMod.getAuthor() == null)
-                        && (modrinthId.asString() == null)
-                        && (curseforgeId.asString() == null)
-                        && jenkinsArtifactName.asString() == null
-                        && githubAssetName.asString() == null) {
-                    exclude.setValues("true");
+                        && (r.modrinthId == null)
+                        && (r.curseforgeId == null)
+                        && r.jenkinsArtifactName == null
+                        && r.githubAssetName == null) {
+                    r.exclude = true;
                     this.addWarning("Mod " + installedMod.getName() + " is missing 'author' or 'authors' in its internal config file and was excluded.");
                 }
 
-                if (exclude.asBoolean())
+                if (r.exclude)
                     excludedMods.add(installedMod);
                 else
                     includedMods.add(installedMod);
-            } catch (DuplicateKeyException e) {
-                addWarning(new BWarning(this, e, "Duplicate mod '" + installedMod.getName() + "' (or mod name from its internal config) found in your mods directory. " +
-                        "Its recommended to remove it."));
             } catch (Exception e) {
                 addWarning(new BWarning(this, e));
             }
         }
 
-        if (modsConfig.keep_removed.asBoolean())
-            modsConfig.save();
-        else {
-            modsConfig.save(true); // This overwrites the file and removes everything else that wasn't added via the add/put method before.
-        }
-        modsConfigName = modsConfig.getFileNameWithoutExt();
+        isOverwrite = !modsConfig.keep_removed.asBoolean();
+        if (isOverwrite)
+            registry.retain(installedNames); // The yaml gets overwritten, which removes the sections of the other mods
+        registry.save(modsConfig, isOverwrite, Collections.emptyList());
 
         // TODO DO COOL-DOWN CHECK STUFF LOCALLY
         /*
@@ -188,6 +187,9 @@ public class TaskModsUpdater extends BThread {
         else
             executorService = Executors.newSingleThreadExecutor();
         InstalledModLoader modLoader = new InstalledModLoader();
+        long msDeadline = updaterConfig.global_sources_deadline.asInt() > 0 ?
+                System.currentTimeMillis() + updaterConfig.global_sources_deadline.asInt() * 1000L : 0;
+        ResourceFinder finder = new ResourceFinder(msDeadline);
         List<Future<SearchResult>> activeFutures = new ArrayList<>();
         for (MinecraftMod mod :
                 includedMods) {
@@ -195,15 +197,15 @@ public class TaskModsUpdater extends BThread {
                 setStatus("Initialising update check for  " + mod.getName() + "...");
                 if (mod.jenkinsProjectUrl != null) { // JENKINS MOD
                     sizeJenkinsMods++;
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findByJenkinsUrl(mod)));
+                    activeFutures.add(executorService.submit(() -> finder.findByJenkinsUrl(mod)));
                 } else if (mod.githubRepoName != null) { // GITHUB MOD
                     sizeGithubMods++;
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findByGithubUrl(mod)));
+                    activeFutures.add(executorService.submit(() -> finder.findByGithubUrl(mod)));
                 } else {
                     sizeUnknownMods++; // MODRINTH OR CURSEFORGE MOD
                     mod.ignoreContentType = true; // TODO temporary workaround for xamazon-json content type curseforge/bukkit issue: https://github.com/Osiris-Team/AutoPlug-Client/issues/109
                     String finalMcVersion = mcVersion;
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findByModrinthOrCurseforge(modLoader, mod, finalMcVersion, updaterConfig.mods_update_check_name_for_mod_loader.asBoolean())));
+                    activeFutures.add(executorService.submit(() -> finder.findByModrinthOrCurseforge(modLoader, mod, finalMcVersion, updaterConfig.mods_update_check_name_for_mod_loader.asBoolean())));
                 }
             } catch (Exception e) {
                 this.getWarnings().add(new BWarning(this, e, "Critical error while searching for update for '" + mod.getName() + "' mod!"));
@@ -213,6 +215,15 @@ public class TaskModsUpdater extends BThread {
         List<SearchResult> results = new ArrayList<>();
         while (!activeFutures.isEmpty()) {
             Thread.sleep(250);
+            if (msDeadline > 0 && System.currentTimeMillis() > msDeadline + ResourceFinder.DEADLINE_GRACE_MS) {
+                getWarnings().add(new BWarning(this, new Exception("Stopped waiting for " + activeFutures.size()
+                        + " update checks, because they did not finish in time. See 'global-sources' in the updater config.")));
+                for (Future<SearchResult> future : activeFutures) {
+                    future.cancel(true);
+                }
+                activeFutures.clear();
+                break;
+            }
             Future<SearchResult> finishedFuture = null;
             for (Future<SearchResult> future :
                     activeFutures) {
@@ -232,7 +243,6 @@ public class TaskModsUpdater extends BThread {
                 String latest = result.getLatestVersion(); // The latest version as String
                 String downloadUrl = result.getDownloadUrl(); // The download url for the latest version
                 String resultmodrinthId = result.getSpigotId();
-                String resultBukkitId = result.getBukkitId();
                 this.setStatus("Checked '" + mod.getName() + "' mod (" + results.size() + "/" + includedSize + ")");
                 if (code == 0 || code == 1) {
                     doDownloadLogic(mod, result);
@@ -247,17 +257,12 @@ public class TaskModsUpdater extends BThread {
                     getWarnings().add(new BWarning(this, new Exception("Unknown error occurred! Code: " + code + "."), "Notify the developers. Fastest way is through discord (https://discord.gg/GGNmtCC)."));
 
                 try {
-                    YamlSection mmodrinthId = modsConfig.get(modsConfigName, mod.getName(), "modrinth-id");
+                    ResourceRegistry.Resource r = registry.getOrCreate(mod.getName());
                     if (resultmodrinthId != null
-                            && (mmodrinthId.asString() == null || mmodrinthId.asInt() == 0)) // Because we can get a "null" string from the server
-                        mmodrinthId.setValues(resultmodrinthId);
-
-                    YamlSection mBukkitId = modsConfig.get(modsConfigName, mod.getName(), "bukkit-id");
-                    if (resultBukkitId != null
-                            && (mmodrinthId.asString() == null || mmodrinthId.asInt() == 0)) // Because we can get a "null" string from the server
-                        mBukkitId.setValues(resultBukkitId);
+                            && (r.modrinthId == null || r.modrinthId.equals("0"))) // Because we can get a "null" string from the server
+                        r.modrinthId = resultmodrinthId;
 
-                    // The config gets saved at the end of the runAtStart method.
+                    // The registry and config get saved at the end of the runAtStart method.
                 } catch (Exception e) {
                     getWarnings().add(new BWarning(this, e));
                 }
@@ -289,28 +294,30 @@ public class TaskModsUpdater extends BThread {
                 if (matchingResult == null)
                     throw new Exception("This should not happen! Please report to the devs!");
 
+                ResourceRegistry.Resource r = registry.getOrCreate(download.mod.getName());
                 if (download.mod.modrinthId != null)
-                    modsConfig.put(modsConfigName, download.mod.getName(), "modrinth-id").setValues(download.mod.modrinthId);
+                    r.modrinthId = download.mod.modrinthId;
                 if (download.mod.curseforgeId != null)
-                    modsConfig.put(modsConfigName, download.mod.getName(), "modrinth-id").setValues(download.mod.curseforgeId);
+                    r.curseforgeId = download.mod.curseforgeId;
 
                 if (download.isDownloadSuccessful())
                     matchingResult.setResultCode((byte) 5);
 
                 if (download.isInstallSuccessful()) {
                     matchingResult.setResultCode((byte) 6);
-                    YamlSection jenkinsBuildId = modsConfig.get(
-                            modsConfigName, download.getPlName(), "alternatives", "jenkins", "build-id");
-                    jenkinsBuildId.setValues(String.valueOf(download.searchResult.jenkinsId));
-                    YamlSection version = modsConfig.get(
-                            modsConfigName, download.getPlName(), "version");
-                    version.setValues(download.searchResult.getLatestVersion());
+                    ResourceRegistry.Resource installed = registry.getOrCreate(download.getPlName());
+                    installed.jenkinsBuildId = String.valueOf(download.searchResult.jenkinsId);
+                    installed.version = download.searchResult.getLatestVersion();
                 }
 
             }
         }
 
-        modsConfig.save();
+        Set<String> checkedNames = new HashSet<>();
+        for (SearchResult result : results) {
+            if (result.getResultCode() != 2) checkedNames.add(result.mod.getName());
+        }
+        registry.save(modsConfig, isOverwrite, checkedNames);
 
         /* // TODO
         if (new WebConfig().send_mods_updater_results.asBoolean()) {
@@ -345,13 +352,7 @@ public class TaskModsUpdater extends BThread {
         } else {
             updatesAvailable++;
 
-            try {
-                // Update the in-memory config
-                YamlSection mLatest = modsConfig.get(modsConfigName, mod.getName(), "latest-version");
-                mLatest.setValues(latest); // Gets saved later
-            } catch (Exception e) {
-                getWarnings().add(new BWarning(this, e));
-            }
+            registry.getOrCreate(mod.getName()).latestVersion = latest; // Gets saved later
 
             if (userProfile.equals(notifyProfile)) {
                 addInfo("NOTIFY: Mod '" + mod.getName() + "' has an update available (" + mod.getVersion() + " -> " + latest + "). Download url: " + downloadUrl);
@@ -376,6 +377,11 @@ public class TaskModsUpdater extends BThread {
                                 latest, downloadUrl, mod.ignoreContentType, userProfile, dest, oldPl);
                         task.mod = mod;
                         task.searchResult = result;
+                        // Same values as for an installed update below, but only written once a staged update was installed
+                        task.commitsOnInstall.add(StagingArea.Commit.of(ModsConfig.class, String.valueOf(result.jenkinsId),
+                                modsConfigName, mod.getName(), "alternatives", "jenkins", "build-id"));
+                        task.commitsOnInstall.add(StagingArea.Commit.of(ModsConfig.class, result.getLatestVersion(),
+                                modsConfigName, mod.getName(), "version"));
                         downloadTasksList.add(task);
                         task.start();
                     }
@@ -16,12 +16,39 @@ import com.osiris.autoplug.client.tasks.updater.mods.ModrinthAPI;
 import com.osiris.autoplug.client.tasks.updater.search.GithubSearch;
 import com.osiris.autoplug.client.tasks.updater.search.JenkinsSearch;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
 import com.osiris.autoplug.client.tasks.updater.search.bukkit.BukkitSearchById;
 import com.osiris.autoplug.client.tasks.updater.search.spigot.SpigotSearchByAuthor;
 import com.osiris.autoplug.client.tasks.updater.search.spigot.SpigotSearchById;
 import com.osiris.autoplug.client.tasks.updater.search.spigot.SpigotSearchByName;
 
+import java.util.function.Supplier;
+
 public class ResourceFinder {
+    /**
+     * Time searches that were started before the deadline get to finish, before the updaters stop waiting for them.
+     */
+    public static final long DEADLINE_GRACE_MS = 15000;
+    private static final String HOST_SPIGET = "api.spiget.org";
+    private static final String HOST_CURSEFORGE = "api.curseforge.com"; // Also serves the bukkit api
+    private static final String HOST_MODRINTH = "api.modrinth.com";
+    private static final String HOST_GITHUB = "api.github.com";
+    private final long msDeadline;
+
+    public ResourceFinder() {
+        this(0);
+    }
+
+    /**
+     * All searches go through the {@link SourceGuard}, thus searches for unreachable
+     * hosts fail fast with result code 2.
+     *
+     * @param msDeadline time in ms (see {@link System#currentTimeMillis()}) after which no new searches are started,
+     *                   and a result with code 2 is returned instead. 0 for no deadline.
+     */
+    public ResourceFinder(long msDeadline) {
+        this.msDeadline = msDeadline;
+    }
 
     /**
      * If the spigot/bukkit id is not given this type of search
@@ -29,12 +56,12 @@ public class ResourceFinder {
      */
     public SearchResult findUnknownSpigotPlugin(MinecraftPlugin plugin) {
         // Do spigot search by name
-        SearchResult sr = new SpigotSearchByName().search(plugin);
+        SearchResult sr = guard(HOST_SPIGET, () -> new SpigotSearchByName().search(plugin));
 
         if (sr == null || sr.getResultCode() == 2 || sr.getResultCode() == 3) {
             //Couldn't find author or resource via first search
             //Do alternative search:
-            sr = new SpigotSearchByAuthor().search(plugin);
+            sr = guard(HOST_SPIGET, () -> new SpigotSearchByAuthor().search(plugin));
         }
 
         plugin.setPremium(sr.isPremium);
@@ -48,12 +75,12 @@ public class ResourceFinder {
      */
     public SearchResult findByModrinthOrCurseforge(InstalledModLoader modLoader, MinecraftMod mod, String mcVersion, boolean checkNameForModLoader) {
         // TODO actualy do search by name, since currently it still searches by id
-        SearchResult sr = new ModrinthAPI().searchUpdateMod(modLoader, mod, mcVersion);
+        SearchResult sr = guard(HOST_MODRINTH, () -> new ModrinthAPI().searchUpdateMod(modLoader, mod, mcVersion));
 
         if (sr == null || sr.getResultCode() == 2 || sr.getResultCode() == 3) {
             //Couldn't find author or resource via first search
             //Do alternative search:
-            sr = new CurseForgeAPI().searchUpdate(modLoader, mod, mcVersion, checkNameForModLoader);
+            sr = guard(HOST_CURSEFORGE, () -> new CurseForgeAPI().searchUpdate(modLoader, mod, mcVersion, checkNameForModLoader));
         }
 
         sr.mod = mod;
@@ -61,59 +88,65 @@ public class ResourceFinder {
     }
 
     public SearchResult findPluginBySpigotId(MinecraftPlugin plugin) {
-        SearchResult sr = new SpigotSearchById().search(plugin);
+        SearchResult sr = guard(HOST_SPIGET, () -> new SpigotSearchById().search(plugin));
         plugin.setPremium(sr.isPremium);
         sr.plugin = plugin;
         return sr;
     }
 
     public SearchResult findPluginByBukkitId(MinecraftPlugin plugin) {
-        SearchResult sr = new BukkitSearchById().search(plugin);
+        SearchResult sr = guard(HOST_CURSEFORGE, () -> new BukkitSearchById().search(plugin));
         plugin.setPremium(sr.isPremium);
         sr.plugin = plugin;
         return sr;
     }
     public SearchResult findPluginByModrinthId(MinecraftPlugin plugin, String mcVersion) {
-        SearchResult sr = new ModrinthAPI().searchUpdatePlugin(plugin, mcVersion);
+        SearchResult sr = guard(HOST_MODRINTH, () -> new ModrinthAPI().searchUpdatePlugin(plugin, mcVersion));
         sr.plugin = plugin;
         return sr;
     }
 
     public SearchResult findModByModrinthId(InstalledModLoader modLoader, MinecraftMod mod, String mcVersion) {
-        SearchResult sr = new ModrinthAPI().searchUpdateMod(modLoader, mod, mcVersion);
+        SearchResult sr = guard(HOST_MODRINTH, () -> new ModrinthAPI().searchUpdateMod(modLoader, mod, mcVersion));
         sr.mod = mod;
         return sr;
     }
 
     public SearchResult findModByCurseforgeId(InstalledModLoader modLoader, MinecraftMod mod, String mcVersion, boolean checkNameForModLoader) {
-        SearchResult sr = new CurseForgeAPI().searchUpdate(modLoader, mod, mcVersion, checkNameForModLoader);
+        SearchResult sr = guard(HOST_CURSEFORGE, () -> new CurseForgeAPI().searchUpdate(modLoader, mod, mcVersion, checkNameForModLoader));
         sr.mod = mod;
         return sr;
     }
 
     public SearchResult findByGithubUrl(MinecraftMod mod) {
-        SearchResult sr = new GithubSearch().search(mod.githubRepoName, mod.githubAssetName, mod.getVersion());
+        SearchResult sr = guard(HOST_GITHUB, () -> new GithubSearch().search(mod.githubRepoName, mod.githubAssetName, mod.getVersion()));
         sr.mod = mod;
         return sr;
     }
 
     public SearchResult findByJenkinsUrl(MinecraftMod mod) {
-        SearchResult sr = new JenkinsSearch().search(mod.jenkinsProjectUrl, mod.jenkinsArtifactName, mod.jenkinsBuildId);
+        SearchResult sr = guard(SourceGuard.getHost(mod.jenkinsProjectUrl),
+                () -> new JenkinsSearch().search(mod.jenkinsProjectUrl, mod.jenkinsArtifactName, mod.jenkinsBuildId));
         sr.mod = mod;
         return sr;
     }
 
     public SearchResult findByGithubUrl(MinecraftPlugin plugin) {
-        SearchResult sr = new GithubSearch().search(plugin.getGithubRepoName(), plugin.getGithubAssetName(), plugin.getVersion());
+        SearchResult sr = guard(HOST_GITHUB, () -> new GithubSearch().search(plugin.getGithubRepoName(), plugin.getGithubAssetName(), plugin.getVersion()));
         plugin.setPremium(sr.isPremium);
         sr.plugin = plugin;
         return sr;
     }
 
     public SearchResult findByJenkinsUrl(MinecraftPlugin plugin) {
-        SearchResult sr = new JenkinsSearch().search(plugin.getJenkinsProjectUrl(), plugin.getJenkinsArtifactName(), plugin.getJenkinsBuildId());
+        SearchResult sr = guard(SourceGuard.getHost(plugin.getJenkinsProjectUrl()),
+                () -> new JenkinsSearch().search(plugin.getJenkinsProjectUrl(), plugin.getJenkinsArtifactName(), plugin.getJenkinsBuildId()));
         plugin.setPremium(sr.isPremium);
         sr.plugin = plugin;
         return sr;
     }
+
+    private SearchResult guard(String host, Supplier<SearchResult> search) {
+        return SourceGuard.get().search(host, msDeadline, search);
+    }
 }
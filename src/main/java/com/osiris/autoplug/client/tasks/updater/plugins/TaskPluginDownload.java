@@ -8,13 +8,22 @@
 
 package com.osiris.autoplug.client.tasks.updater.plugins;
 
+import com.osiris.autoplug.client.configs.ConfigRegistry;
+import com.osiris.autoplug.client.configs.UpdaterConfig;
+import com.osiris.autoplug.client.tasks.updater.DownloadScheduler;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.StringComparator;
+import com.osiris.autoplug.client.utils.UtilsArchive;
+import com.osiris.autoplug.client.utils.UtilsCrypto;
+import com.osiris.autoplug.client.utils.io.StreamingExtractor;
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
+import com.osiris.autoplug.client.utils.tasks.ResourceGate;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
 import com.osiris.jlib.UtilsFiles;
-import com.osiris.jlib.logger.AL;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -29,7 +38,9 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 
 public class TaskPluginDownload extends BThread {
@@ -46,6 +57,11 @@ public class TaskPluginDownload extends BThread {
     private File dest;
     private boolean isDownloadSuccessful;
     private boolean isInstallSuccessful;
+    private boolean isStaged;
+    /**
+     * Config values written once a staged update was installed, see {@link StagingArea.Commit}.
+     */
+    public List<StagingArea.Commit> commitsOnInstall = new ArrayList<>();
 
     public TaskPluginDownload(String name, BThreadManager manager,
                               String plName, String plLatestVersion,
@@ -109,7 +125,14 @@ public class TaskPluginDownload extends BThread {
         } else {
             download();
             isDownloadSuccessful = true;
-            AL.debug(this.getClass(), "Installing plugin into " + finalDest.getAbsolutePath());
+            if (StagingArea.isStagingRequired()) {
+                StagingArea.get().stage(dest, finalDest, deleteDest, plName, StagingArea.RESOURCE_PLUGINS, commitsOnInstall);
+                isStaged = true;
+                setStatus("Staged update for " + plName + ", gets installed at the next restart.");
+                return;
+            }
+            ResourceGate.get(ResourceGate.SERVER_FILES).awaitWritable(this);
+            DebugLog.debug(this.getClass(), "Installing plugin into {}", finalDest.getAbsolutePath());
             if (finalDest.exists()) finalDest.delete();
             finalDest.createNewFile();
             if (deleteDest != null && deleteDest.exists()) deleteDest.delete();
@@ -119,13 +142,21 @@ public class TaskPluginDownload extends BThread {
         }
     }
 
+    /**
+     * @return true if no hash is expected, or if the hash matches the expected hash.
+     */
+    private boolean isExpectedHash(String hash) {
+        if (searchResult == null || searchResult.downloadSha256 == null) return true;
+        return searchResult.downloadSha256.equalsIgnoreCase(hash);
+    }
+
     public void download() throws Exception {
         GD.WORKING_DIR = new File(System.getProperty("user.dir"));
         File dir = new File(GD.WORKING_DIR + "/autoplug/downloads");
         if (!dir.exists()) dir.mkdirs();
 
         dest = new File(dir + "/" + plName + "-[" + plLatestVersion + "].jar");
-        AL.debug(this.getClass(), "Downloading " + dest.getName() + " to '" + dest.getAbsolutePath() + "' from '" + url + "'");
+        DebugLog.debug(this.getClass(), "Downloading {} to '{}' from '{}'", dest.getName(), dest.getAbsolutePath(), url);
         if (dest.exists()) dest.delete();
         dest.createNewFile();
 
@@ -136,9 +167,11 @@ public class TaskPluginDownload extends BThread {
                 .header("User-Agent", "AutoPlug-Client - https://autoplug.one")
                 .build();
 
-        Response response = new OkHttpClient().newCall(request).execute();
+        DownloadScheduler.Ticket ticket = DownloadScheduler.get().acquire(this, fileName, DownloadScheduler.Priority.NORMAL, getSizeHint());
+        Response response = null;
         ResponseBody body = null;
         try {
+            response = new OkHttpClient().newCall(request).execute();
             if (response.code() != 200)
                 throw new Exception("Download error for " + plName + " code: " + response.code() + " message: " + response.message() + " url: " + url);
 
@@ -160,53 +193,93 @@ public class TaskPluginDownload extends BThread {
             // Zip/Tar support
             boolean isZip = false, isTar = false;
             if (body.contentType().subtype().equals("zip")) {
+                isZip = true;
                 dest = new File(dir + "/" + plName + "-[" + plLatestVersion + "].zip");
-                AL.debug(this.getClass(), "Downloading " + dest.getName() + " to '" + dest.getAbsolutePath() + "' from '" + url + "'");
-                if (dest.exists()) dest.delete();
-                dest.createNewFile();
             } else if (body.contentType().subtype().equals("x-gtar")) {
+                isTar = true;
                 dest = new File(dir + "/" + plName + "-[" + plLatestVersion + "].tar.gz");
-                AL.debug(this.getClass(), "Downloading " + dest.getName() + " to '" + dest.getAbsolutePath() + "' from '" + url + "'");
-                if (dest.exists()) dest.delete();
-                dest.createNewFile();
             }
+            File folder = new File(dir + "/" + plName + "-[" + plLatestVersion + "]");
+            boolean isStreamed = (isZip || isTar) && ConfigRegistry.get(UpdaterConfig.class).global_downloads_unpack_while_downloading.asBoolean();
 
             long completeFileSize = body.contentLength();
-            setMax(completeFileSize);
-
-            BufferedInputStream in = new BufferedInputStream(body.byteStream());
-            FileOutputStream fos = new FileOutputStream(dest);
-            BufferedOutputStream bout = new BufferedOutputStream(fos, 1024);
-            byte[] data = new byte[1024];
-            long downloadedFileSize = 0;
-            int x = 0;
-            while ((x = in.read(data, 0, 1024)) >= 0) {
-                downloadedFileSize += x;
-
-                setStatus("Downloading " + fileName + "... (" + downloadedFileSize / 1024 + "kb/" + completeFileSize / 1024 + "kb)");
-                setNow(downloadedFileSize);
+            ProgressReporter progress;
+            if (isStreamed) {
+                // Unpack while downloading, the archive never hits the disk
+                if (dest.exists()) dest.delete();
+                if (folder.exists()) new UtilsFiles().forceDeleteDirectory(folder);
+                progress = new ProgressReporter(this, "Downloading and unpacking", fileName, completeFileSize);
+                StreamingExtractor extractor = new StreamingExtractor(folder, isTar);
+                try {
+                    extractor.extract(body.byteStream(), n -> {
+                        progress.add(n);
+                        ticket.throttle(n);
+                    });
+                } finally {
+                    progress.close();
+                    ticket.close();
+                }
+                DebugLog.debug(this.getClass(), "Unpacked {} files from {} (SHA-256: {})", extractor.getCountEntries(), url, extractor.getHash());
+                body.close();
+                response.close();
+                if (!isExpectedHash(extractor.getHash())) {
+                    new UtilsFiles().forceDeleteDirectory(folder);
+                    throw new Exception("Download of '" + fileName + "' failed because its SHA-256 hash " + extractor.getHash()
+                            + " does not match the expected hash " + searchResult.downloadSha256 + "!");
+                }
+            } else {
+                if (isZip || isTar) {
+                    DebugLog.debug(this.getClass(), "Downloading {} to '{}' from '{}'", dest.getName(), dest.getAbsolutePath(), url);
+                    if (dest.exists()) dest.delete();
+                    dest.createNewFile();
+                }
+                progress = new ProgressReporter(this, "Downloading", fileName, completeFileSize);
+
+                BufferedInputStream in = new BufferedInputStream(body.byteStream());
+                FileOutputStream fos = new FileOutputStream(dest);
+                BufferedOutputStream bout = new BufferedOutputStream(fos, 8192);
+                byte[] data = new byte[8192];
+                int x = 0;
+                try {
+                    while ((x = in.read(data, 0, data.length)) >= 0) {
+                        bout.write(data, 0, x);
+                        progress.add(x);
+                        ticket.throttle(x);
+                    }
+                } finally {
+                    progress.close();
+                    ticket.close(); // Free the slot before unpacking
+                }
 
-                bout.write(data, 0, x);
+                setStatus("Downloaded " + fileName + " " + progress.summary());
+                bout.close();
+                in.close();
+                body.close();
+                response.close();
+                if (searchResult != null && searchResult.downloadSha256 != null) {
+                    String hash = UtilsCrypto.fastSHA256(dest);
+                    if (!isExpectedHash(hash)) {
+                        dest.delete();
+                        throw new Exception("Download of '" + fileName + "' failed because its SHA-256 hash " + hash
+                                + " does not match the expected hash " + searchResult.downloadSha256 + "!");
+                    }
+                }
             }
 
-            setStatus("Downloaded " + fileName + " (" + downloadedFileSize / 1024 + "kb/" + completeFileSize / 1024 + "kb)");
-            bout.close();
-            in.close();
-            body.close();
-            response.close();
-
             // Zip/Tar support
             if (isTar || isZip) {
-                setStatus("Unpacking " + fileName + "...");
-                Archiver archiver;
-                if (isTar)
-                    archiver = ArchiverFactory.createArchiver(ArchiveFormat.TAR, CompressionType.GZIP);
-                else // Zip
-                    archiver = ArchiverFactory.createArchiver(ArchiveFormat.ZIP);
-                File folder = new File(dir + "/" + plName + "-[" + plLatestVersion + "]");
-                if (folder.exists()) new UtilsFiles().forceDeleteDirectory(folder);
-                folder.mkdirs();
-                archiver.extract(dest, folder);
+                if (!isStreamed) {
+                    Archiver archiver;
+                    if (isTar)
+                        archiver = ArchiverFactory.createArchiver(ArchiveFormat.TAR, CompressionType.GZIP);
+                    else // Zip
+                        archiver = ArchiverFactory.createArchiver(ArchiveFormat.ZIP);
+                    if (folder.exists()) new UtilsFiles().forceDeleteDirectory(folder);
+                    folder.mkdirs();
+                    try (ProgressReporter unpackProgress = new ProgressReporter(this, "Unpacking", fileName, -1)) {
+                        new UtilsArchive().extract(archiver, dest, folder, unpackProgress);
+                    }
+                }
                 File[] files = folder.listFiles();
                 Double[] similarities = new Double[files.length];
                 String plName = // Remove any separator chars (-+_/\) from both plugin name and file name
@@ -222,17 +295,29 @@ public class TaskPluginDownload extends BThread {
                 }
                 Arrays.sort(similarities);
                 dest = files[files.length - 1];
-                setStatus("Downloaded, unpacked " + fileName + " (" + downloadedFileSize / 1024 + "kb/" + completeFileSize / 1024 + "kb)" +
+                setStatus("Downloaded, unpacked " + fileName + " " + progress.summary() +
                         " and selected " + dest.getName());
             }
 
         } catch (Exception e) {
             if (body != null) body.close();
-            response.close();
+            if (response != null) response.close();
             throw e;
+        } finally {
+            ticket.close();
         }
     }
 
+    /**
+     * @return the size of the currently installed version, which should be close to the size of the update,
+     * or -1 if unknown. Used by the {@link DownloadScheduler} to start small downloads first.
+     */
+    private long getSizeHint() {
+        if (deleteDest != null && deleteDest.exists()) return deleteDest.length();
+        if (plugin != null && plugin.getInstallationPath() != null) return new File(plugin.getInstallationPath()).length();
+        return -1;
+    }
+
     public String getPlName() {
         return plName;
     }
@@ -268,4 +353,11 @@ public class TaskPluginDownload extends BThread {
     public boolean isInstallSuccessful() {
         return isInstallSuccessful;
     }
+
+    /**
+     * @return true if the update was staged instead of installed, since the server is running.
+     */
+    public boolean isStaged() {
+        return isStaged;
+    }
 }
@@ -15,10 +15,12 @@ import com.google.gson.reflect.TypeToken;
 import com.osiris.autoplug.client.Server;
 import com.osiris.autoplug.client.configs.GeneralConfig;
 import com.osiris.autoplug.client.configs.PluginsConfig;
+import com.osiris.autoplug.client.configs.ResourceRegistry;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
 import com.osiris.autoplug.client.configs.WebConfig;
 import com.osiris.autoplug.client.managers.FileManager;
 import com.osiris.autoplug.client.network.online.connections.ConPluginsUpdateResult;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.UtilsFile;
@@ -27,8 +29,6 @@ import com.osiris.autoplug.client.utils.UtilsMinecraft;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
 import com.osiris.betterthread.BWarning;
-import com.osiris.dyml.YamlSection;
-import com.osiris.dyml.exceptions.DuplicateKeyException;
 import com.osiris.jlib.json.Json;
 import com.osiris.jlib.json.exceptions.HttpErrorException;
 import com.osiris.jlib.sort.QuickSort;
@@ -40,9 +40,11 @@ import java.io.File;
 import java.lang.reflect.Type;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -62,6 +64,8 @@ public class TaskPluginsUpdater extends BThread {
     private final List<MinecraftPlugin> excludedPlugins = new ArrayList<>();
     private final Gson gson = new GsonBuilder().create();
     PluginsConfig pluginsConfig;
+    private ResourceRegistry registry;
+    private boolean isOverwrite;
     private UpdaterConfig updaterConfig;
     private String userProfile;
     private String pluginsConfigName;
@@ -79,7 +83,6 @@ public class TaskPluginsUpdater extends BThread {
     public void runAtStart() throws Exception {
         pluginsConfig = new PluginsConfig();
         pluginsConfig.load(); // No lock needed, since there are no other threads that access this file
-        String name = pluginsConfig.getFileNameWithoutExt();
 
         pluginsConfigName = pluginsConfig.getFileNameWithoutExt();
         generalConfig = new GeneralConfig();
@@ -90,7 +93,8 @@ public class TaskPluginsUpdater extends BThread {
             skip();
             return;
         }
-        if (Server.isRunning()) throw new Exception("Cannot perform plugins update while server is running!");
+        if (Server.isRunning() && !updaterConfig.global_staging.asBoolean())
+            throw new Exception("Cannot perform plugins update while server is running!");
 
         boolean isPremiumServer = false;
         if (updaterConfig.plugins_updater_web_database.asBoolean()) {
@@ -118,50 +122,48 @@ public class TaskPluginsUpdater extends BThread {
             }
         }
 
+        registry = ResourceRegistry.get(ResourceRegistry.PLUGINS);
+        registry.refresh(pluginsConfig); // Imports the changes of the user, if there are any
         UtilsMinecraft utilsMinecraft = new UtilsMinecraft();
         this.allPlugins.addAll(utilsMinecraft.getPlugins(FileManager.convertRelativeToAbsolutePath(updaterConfig.plugins_updater_path.asString())));
+        Set<String> installedNames = new HashSet<>();
         for (MinecraftPlugin installedPlugin :
                 allPlugins) {
             try {
                 final String plName = installedPlugin.getName();
                 if (installedPlugin.getName() == null || installedPlugin.getName().isEmpty())
                     throw new Exception("The plugins name couldn't be determined for '" + installedPlugin.getInstallationPath() + "'!");
+                if (!installedNames.add(plName)) {
+                    addWarning(new BWarning(this, new Exception("Duplicate plugin '" + installedPlugin.getName() + "' (or plugin name from its plugin.yml) found in your plugins directory. " +
+                            "Its recommended to remove it.")));
+                    continue;
+                }
 
-                YamlSection exclude = pluginsConfig.put(name, plName, "exclude").setDefValues("false"); // Check this plugin?
-                if (exclude.asBoolean()) {
+                ResourceRegistry.Resource r = registry.getOrCreate(plName);
+                if (r.exclude) { // Check this plugin?
                     excludedPlugins.add(installedPlugin);
                     continue;
                 }
-                YamlSection version = pluginsConfig.put(name, plName, "version").setDefValues(installedPlugin.getVersion());
-                YamlSection latestVersion = pluginsConfig.put(name, plName, "latest-version");
-                YamlSection author = pluginsConfig.put(name, plName, "author").setDefValues(installedPlugin.getAuthor());
-                YamlSection spigotId = pluginsConfig.put(name, plName, "spigot-id").setDefValues("0");
-                YamlSection modrinthId = pluginsConfig.put(name, plName, "modrinth-id");
-                //YamlSection songodaId = new YamlSection(config, getModules(), name, plName,+".songoda-id", 0); // TODO WORK_IN_PROGRESS
-                YamlSection bukkitId = pluginsConfig.put(name, plName, "bukkit-id").setDefValues("0");
-                YamlSection ignoreContentType = pluginsConfig.put(name, plName, "ignore-content-type").setDefValues("false");
-                YamlSection customCheckURL = pluginsConfig.put(name, plName, "custom-check-url");
-                YamlSection customDownloadURL = pluginsConfig.put(name, plName, "custom-download-url");
-                YamlSection githubRepoName = pluginsConfig.put(name, plName, "alternatives", "github", "repo-name");
-                YamlSection githubAssetName = pluginsConfig.put(name, plName, "alternatives", "github", "asset-name");
-                YamlSection jenkinsProjectUrl = pluginsConfig.put(name, plName, "alternatives", "jenkins", "project-url");
-                YamlSection jenkinsArtifactName = pluginsConfig.put(name, plName, "alternatives", "jenkins", "artifact-name");
-                YamlSection jenkinsBuildId = pluginsConfig.put(name, plName, "alternatives", "jenkins", "build-id").setDefValues("0");
+                if (r.version == null) r.version = installedPlugin.getVersion();
+                if (r.author == null) r.author = installedPlugin.getAuthor();
+                if (r.spigotId == null) r.spigotId = "0";
+                if (r.bukkitId == null) r.bukkitId = "0";
+                if (r.jenkinsBuildId == null) r.jenkinsBuildId = "0";
 
                 // The plugin devs can add their spigot/bukkit ids to their plugin.yml files
-                if (installedPlugin.getSpigotId() != 0 && spigotId.asString() != null && spigotId.asInt() == 0) // Don't update the value, if the user has already set it
-                    spigotId.setValues(String.valueOf(installedPlugin.getSpigotId()));
-                if (installedPlugin.getBukkitId() != 0 && bukkitId.asString() != null && bukkitId.asInt() == 0)
-                    bukkitId.setValues(String.valueOf(installedPlugin.getBukkitId()));
+                if (installedPlugin.getSpigotId() != 0 && toInt(r.spigotId) == 0) // Don't update the value, if the user has already set it
+                    r.spigotId = String.valueOf(installedPlugin.getSpigotId());
+                if (installedPlugin.getBukkitId() != 0 && toInt(r.bukkitId) == 0)
+                    r.bukkitId = String.valueOf(installedPlugin.getBukkitId());
 
                 // Fetch missing details from the AutoPlug-Web database
                 if (isPremiumServer) {
                     try {
-                        if (plName != null && author.asString() != null && !author.asString().trim().isEmpty()) {
+                        if (plName != null && r.author != null && !r.author.trim().isEmpty()) {
                             JsonObject request = new JsonObject();
                             request.addProperty("serverKey", generalConfig.server_key.asString());
                             request.addProperty("name", plName);
-                            request.addProperty("author", author.asString());
+                            request.addProperty("author", r.author);
                             JsonObject result = Json.post(GD.OFFICIAL_WEBSITE + "api/minecraft-plugin-details", request).getAsJsonObject();
                             Type typeOfSet = new TypeToken<HashSet<Entry>>() {
                             }.getType();
@@ -173,29 +175,29 @@ public class TaskPluginsUpdater extends BThread {
                             Entry webJenkinsArtifactName = getValidEntryWithMostUsages(gson.fromJson(result.get("jenkinsArtifactName").getAsString(), typeOfSet), updaterConfig.plugins_updater_web_database_min_usages.asInt());
 
                             // Fill missing id information
-                            if (webSpigotId != null && (spigotId.asString() == null || spigotId.asInt() == 0))
-                                spigotId.setValues(webSpigotId.key);
-                            if (webBukkitId != null && (bukkitId.asString() == null || bukkitId.asInt() == 0))
-                                bukkitId.setValues(webBukkitId.key);
+                            if (webSpigotId != null && toInt(r.spigotId) == 0)
+                                r.spigotId = webSpigotId.key;
+                            if (webBukkitId != null && toInt(r.bukkitId) == 0)
+                                r.bukkitId = webBukkitId.key;
 
                             // Fill missing alternative information, only if it has more usages than the ids
-                            if (githubRepoName.asString() == null && githubAssetName.asString() == null
+                            if (r.githubRepoName == null && r.githubAssetName == null
                                     && webGithubRepoName != null && webGithubAssetName != null
                                     && (webSpigotId != null && webSpigotId.usage < webGithubRepoName.usage)
                                     && (webBukkitId != null && webBukkitId.usage < webGithubRepoName.usage)) {
-                                spigotId.setValues("0");
-                                bukkitId.setValues("0");
-                                githubRepoName.setValues(webGithubRepoName.key);
-                                githubAssetName.setValues(webGithubAssetName.key);
+                                r.spigotId = "0";
+                                r.bukkitId = "0";
+                                r.githubRepoName = webGithubRepoName.key;
+                                r.githubAssetName = webGithubAssetName.key;
                             }
-                            if (jenkinsProjectUrl.asString() == null && jenkinsArtifactName.asString() == null
+                            if (r.jenkinsProjectUrl == null && r.jenkinsArtifactName == null
                                     && webJenkinsProjectUrl != null && webJenkinsArtifactName != null
                                     && (webSpigotId != null && webSpigotId.usage < webJenkinsProjectUrl.usage)
                                     && (webBukkitId != null && webBukkitId.usage < webJenkinsProjectUrl.usage)) {
-                                spigotId.setValues("0");
-                                bukkitId.setValues("0");
-                                jenkinsProjectUrl.setValues(webJenkinsProjectUrl.key);
-                                jenkinsArtifactName.setValues(webJenkinsArtifactName.key);
+                                r.spigotId = "0";
+                                r.bukkitId = "0";
+                                r.jenkinsProjectUrl = webJenkinsProjectUrl.key;
+                                r.jenkinsArtifactName = webJenkinsArtifactName.key;
                             }
                         }
                     } catch (HttpErrorException e) {
@@ -208,56 +210,52 @@ public class TaskPluginsUpdater extends BThread {
                 }
 
                 // Update the detailed plugins in-memory values
-                installedPlugin.setSpigotId(spigotId.asInt());
-                installedPlugin.setBukkitId(bukkitId.asInt());
-                installedPlugin.setIgnoreContentType(ignoreContentType.asBoolean());
-                installedPlugin.setCustomDownloadURL(customDownloadURL.asString());
-                installedPlugin.setGithubRepoName(githubRepoName.asString());
-                installedPlugin.setGithubAssetName(githubAssetName.asString());
-                installedPlugin.setJenkinsProjectUrl(jenkinsProjectUrl.asString());
-                installedPlugin.setJenkinsArtifactName(jenkinsArtifactName.asString());
-                installedPlugin.setJenkinsBuildId(jenkinsBuildId.asInt());
-                installedPlugin.setModrinthId(modrinthId.asString());
+                installedPlugin.setSpigotId(toInt(r.spigotId));
+                installedPlugin.setBukkitId(toInt(r.bukkitId));
+                installedPlugin.setIgnoreContentType(r.ignoreContentType);
+                installedPlugin.setCustomDownloadURL(r.customDownloadUrl);
+                installedPlugin.setGithubRepoName(r.githubRepoName);
+                installedPlugin.setGithubAssetName(r.githubAssetName);
+                installedPlugin.setJenkinsProjectUrl(r.jenkinsProjectUrl);
+                installedPlugin.setJenkinsArtifactName(r.jenkinsArtifactName);
+                installedPlugin.setJenkinsBuildId(toInt(r.jenkinsBuildId));
+                installedPlugin.setModrinthId(r.modrinthId);
 
                 // Check for missing plugin details in plugin.yml
-                if (jenkinsArtifactName.asString() != null && jenkinsProjectUrl.asString() != null)
-                    exclude.setValues("false");
-                else if (githubAssetName.asString() != null && githubRepoName.asString() != null)
-                    exclude.setValues("false");
-                else if (spigotId.asString() != null && spigotId.asInt() != 0)
-                    exclude.setValues("false");
-                else if (bukkitId.asString() != null && bukkitId.asInt() != 0)
-                    exclude.setValues("false");
+                if (r.jenkinsArtifactName != null && r.jenkinsProjectUrl != null)
+                    r.exclude = false;
+                else if (r.githubAssetName != null && r.githubRepoName != null)
+                    r.exclude = false;
+                else if (toInt(r.spigotId) != 0)
+                    r.exclude = false;
+                else if (toInt(r.bukkitId) != 0)
+                    r.exclude = false;
                 else if (installedPlugin.getVersion() == null || installedPlugin.getVersion().trim().isEmpty()) {
-                    exclude.setValues("true");
+                    r.exclude = true;
                     this.addWarning("Plugin " + installedPlugin.getName() + " is missing 'version' in its plugin.yml file and was excluded." +
                             " Provide additional information in /autoplug/plugins.yml.");
                 } else if (installedPlugin.getAuthor() == null || installedPlugin.getAuthor().trim().isEmpty()) {
-                    exclude.setValues("true");
+                    r.exclude = true;
                     this.addWarning("Plugin " + installedPlugin.getName() + " is missing 'author' or 'authors' in its plugin.yml file and was excluded." +
                             " Provide additional information in /autoplug/plugins.yml.");
                 } else {
                     // Probably first time using this plugin, thus no information available yet
-                    exclude.setValues("false");
+                    r.exclude = false;
                 }
 
-                if (exclude.asBoolean())
+                if (r.exclude)
                     excludedPlugins.add(installedPlugin);
                 else
                     includedPlugins.add(installedPlugin);
-            } catch (DuplicateKeyException e) {
-                addWarning(new BWarning(this, e, "Duplicate plugin '" + installedPlugin.getName() + "' (or plugin name from its plugin.yml) found in your plugins directory. " +
-                        "Its recommended to remove it."));
             } catch (Exception e) {
                 addWarning(new BWarning(this, e));
             }
         }
 
-        if (pluginsConfig.keep_removed.asBoolean())
-            pluginsConfig.save();
-        else {
-            pluginsConfig.save(true); // This overwrites the file and removes everything else that wasn't added via the add method before.
-        }
+        isOverwrite = !pluginsConfig.keep_removed.asBoolean();
+        if (isOverwrite)
+            registry.retain(installedNames); // The yaml gets overwritten, which removes the sections of the other plugins
+        registry.save(pluginsConfig, isOverwrite, Collections.emptyList());
 
         // TODO DO COOL-DOWN CHECK STUFF LOCALLY
         /*
@@ -292,10 +290,12 @@ public class TaskPluginsUpdater extends BThread {
         else
             executorService = Executors.newSingleThreadExecutor();
         List<Future<SearchResult>> activeFutures = new ArrayList<>();
-        UpdaterConfig updaterConfig = new UpdaterConfig();
 
         String mcVersion = updaterConfig.plugins_updater_version.asString();
         if (mcVersion == null) mcVersion = Server.getMCVersion();
+        long msDeadline = updaterConfig.global_sources_deadline.asInt() > 0 ?
+                System.currentTimeMillis() + updaterConfig.global_sources_deadline.asInt() * 1000L : 0;
+        ResourceFinder finder = new ResourceFinder(msDeadline);
 
         for (MinecraftPlugin pl :
                 includedPlugins) {
@@ -303,25 +303,25 @@ public class TaskPluginsUpdater extends BThread {
                 setStatus("Initialising update check for  " + pl.getName() + "...");
                 if (pl.getJenkinsProjectUrl() != null) { // JENKINS PLUGIN
                     sizeJenkinsPlugins++;
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findByJenkinsUrl(pl)));
+                    activeFutures.add(executorService.submit(() -> finder.findByJenkinsUrl(pl)));
                 } else if (pl.getGithubRepoName() != null) { // GITHUB PLUGIN
                     sizeGithubPlugins++;
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findByGithubUrl(pl)));
+                    activeFutures.add(executorService.submit(() -> finder.findByGithubUrl(pl)));
                 } else if (pl.getSpigotId() != 0) {
                     sizeSpigotPlugins++; // SPIGOT PLUGIN
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findPluginBySpigotId(pl)));
+                    activeFutures.add(executorService.submit(() -> finder.findPluginBySpigotId(pl)));
                 } else if (pl.getBukkitId() != 0) {
                     sizeBukkitPlugins++; // BUKKIT PLUGIN
                     pl.setIgnoreContentType(true); // TODO temporary workaround for xamazon-json content type curseforge/bukkit issue: https://github.com/Osiris-Team/AutoPlug-Client/issues/109
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findPluginByBukkitId(pl)));
+                    activeFutures.add(executorService.submit(() -> finder.findPluginByBukkitId(pl)));
                 } else if (pl.getModrinthId() != null) { // MODRINTH PLUGIN
                     sizeModrinthPlugins++;
                     String finalMcVersion = mcVersion;
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findPluginByModrinthId(pl, finalMcVersion)));
+                    activeFutures.add(executorService.submit(() -> finder.findPluginByModrinthId(pl, finalMcVersion)));
                 } else {
                     sizeUnknownPlugins++; // UNKNOWN PLUGIN
                     pl.setIgnoreContentType(true); // TODO temporary workaround for xamazon-json content type curseforge/bukkit issue: https://github.com/Osiris-Team/AutoPlug-Client/issues/109
-                    activeFutures.add(executorService.submit(() -> new ResourceFinder().findUnknownSpigotPlugin(pl)));
+                    activeFutures.add(executorService.submit(() -> finder.findUnknownSpigotPlugin(pl)));
                 }
             } catch (Exception e) {
                 this.getWarnings().add(new BWarning(this, e, "Critical error while searching for update for '" + pl.getName() + "' plugin!"));
@@ -331,6 +331,15 @@ public class TaskPluginsUpdater extends BThread {
         List<SearchResult> results = new ArrayList<>();
         while (!activeFutures.isEmpty()) {
             Thread.sleep(250);
+            if (msDeadline > 0 && System.currentTimeMillis() > msDeadline + ResourceFinder.DEADLINE_GRACE_MS) {
+                getWarnings().add(new BWarning(this, new Exception("Stopped waiting for " + activeFutures.size()
+                        + " update checks, because they did not finish in time. See 'global-sources' in the updater config.")));
+                for (Future<SearchResult> future : activeFutures) {
+                    future.cancel(true);
+                }
+                activeFutures.clear();
+                break;
+            }
             Future<SearchResult> finishedFuture = null;
             for (Future<SearchResult> future :
                     activeFutures) {
@@ -371,25 +380,19 @@ public class TaskPluginsUpdater extends BThread {
                     getWarnings().add(new BWarning(this, new Exception("Unknown error occurred! Code: " + code + "."), "Notify the developers. Fastest way is through discord (https://discord.gg/GGNmtCC)."));
 
                 try {
-                    YamlSection mSpigotId = pluginsConfig.get(pluginsConfigName, pl.getName(), "spigot-id");
-                    if (resultSpigotId != null
-                            && (mSpigotId.asString() == null || mSpigotId.asInt() == 0)) // Because we can get a "null" string from the server
-                        mSpigotId.setValues(resultSpigotId);
-
-                    YamlSection mBukkitId = pluginsConfig.get(pluginsConfigName, pl.getName(), "bukkit-id");
-                    if (resultBukkitId != null
-                            && (mSpigotId.asString() == null || mSpigotId.asInt() == 0)) // Because we can get a "null" string from the server
-                        mBukkitId.setValues(resultBukkitId);
+                    ResourceRegistry.Resource r = registry.getOrCreate(pl.getName());
+                    if (resultSpigotId != null && toInt(r.spigotId) == 0) // Because we can get a "null" string from the server
+                        r.spigotId = resultSpigotId;
+                    if (resultBukkitId != null && toInt(r.bukkitId) == 0)
+                        r.bukkitId = resultBukkitId;
 
-                    // The config gets saved at the end of the runAtStart method.
+                    // The registry and config get saved at the end of the runAtStart method.
                 } catch (Exception e) {
                     getWarnings().add(new BWarning(this, e));
                 }
             }
         }
 
-        pluginsConfig.save();
-
         // Wait until all download tasks have finished.
         while (!downloadTasksList.isEmpty()) {
             Thread.sleep(1000);
@@ -420,12 +423,9 @@ public class TaskPluginsUpdater extends BThread {
 
                 if (finishedDownloadTask.isInstallSuccessful()) {
                     matchingResult.setResultCode((byte) 6);
-                    YamlSection jenkinsBuildId = pluginsConfig.get(
-                            pluginsConfigName, finishedDownloadTask.getPlName(), "alternatives", "jenkins", "build-id");
-                    jenkinsBuildId.setValues(String.valueOf(finishedDownloadTask.searchResult.jenkinsId));
-                    YamlSection version = pluginsConfig.get(
-                            pluginsConfigName, finishedDownloadTask.getPlName(), "version");
-                    version.setValues(finishedDownloadTask.searchResult.getLatestVersion());
+                    ResourceRegistry.Resource r = registry.getOrCreate(finishedDownloadTask.getPlName());
+                    r.jenkinsBuildId = String.valueOf(finishedDownloadTask.searchResult.jenkinsId);
+                    r.version = finishedDownloadTask.searchResult.getLatestVersion();
                 }
 
             }
@@ -441,7 +441,11 @@ public class TaskPluginsUpdater extends BThread {
             }
         }
 
-        pluginsConfig.save();
+        Set<String> checkedNames = new HashSet<>();
+        for (SearchResult result : results) {
+            if (result.getResultCode() != 2) checkedNames.add(result.getPlugin().getName());
+        }
+        registry.save(pluginsConfig, isOverwrite, checkedNames);
         if (excludedPlugins.size() > 0) {
             includedSize += excludedPlugins.size();
             finish("Checked " + results.size() + "/" + includedSize + " plugins. Some plugins were excluded.");
@@ -451,6 +455,13 @@ public class TaskPluginsUpdater extends BThread {
 
     }
 
+    /**
+     * @return 0 if the provided id is null, for example because it is not set in the yaml.
+     */
+    private int toInt(String id) {
+        return id != null ? Integer.parseInt(id.trim()) : 0;
+    }
+
     /**
      * @return null if all keys of this map have usages below the minimum and
      * the keys are "null" or "0".
@@ -486,13 +497,7 @@ public class TaskPluginsUpdater extends BThread {
         } else {
             updatesAvailable++;
 
-            try {
-                // Update the in-memory config
-                YamlSection mLatest = pluginsConfig.get(pluginsConfigName, pl.getName(), "latest-version");
-                mLatest.setValues(latest); // Gets saved later
-            } catch (Exception e) {
-                getWarnings().add(new BWarning(this, e));
-            }
+            registry.getOrCreate(pl.getName()).latestVersion = latest; // Gets saved later
 
             if (userProfile.equals(notifyProfile)) {
                 addInfo("NOTIFY: Plugin '" + pl.getName() + "' has an update available (" + pl.getVersion() + " -> " + latest + "). Download url: " + downloadUrl);
@@ -516,6 +521,11 @@ public class TaskPluginsUpdater extends BThread {
                             TaskPluginDownload task = new TaskPluginDownload("PluginDownloader", getManager(), pl.getName(), latest, downloadUrl, pl.getIgnoreContentType(), userProfile, dest, oldPl);
                             task.plugin = pl;
                             task.searchResult = result;
+                            // Same values as for an installed update below, but only written once a staged update was installed
+                            task.commitsOnInstall.add(StagingArea.Commit.of(PluginsConfig.class, String.valueOf(result.jenkinsId),
+                                    pluginsConfigName, pl.getName(), "alternatives", "jenkins", "build-id"));
+                            task.commitsOnInstall.add(StagingArea.Commit.of(PluginsConfig.class, result.getLatestVersion(),
+                                    pluginsConfigName, pl.getName(), "version"));
                             downloadTasksList.add(task);
                             task.start();
                         }
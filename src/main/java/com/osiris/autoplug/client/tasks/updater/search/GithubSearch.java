@@ -10,7 +10,7 @@ package com.osiris.autoplug.client.tasks.updater.search;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.osiris.jlib.json.Json;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 import com.osiris.jlib.search.Version;
 
 import java.util.ArrayList;
@@ -28,8 +28,9 @@ public class GithubSearch {
         String downloadType = ".jar";
         String latestVersion = null;
         String fileName = null;
+        String downloadSha256 = null;
         try {
-            JsonObject latestRelease = Json.getAsObject("https://api.github.com/repos/" + githubRepoName + "/releases/latest");
+            JsonObject latestRelease = JsonStream.getAsObject("https://api.github.com/repos/" + githubRepoName + "/releases/latest");
             latestVersion = latestRelease.get("tag_name").getAsString();
             if (latestVersion != null)
                 latestVersion = latestVersion.replaceAll("[^0-9.]", ""); // Before passing over remove everything except numbers and dots
@@ -65,6 +66,9 @@ public class GithubSearch {
                     if (n.contains(githubAssetName)) {
                         fileName = n;
                         downloadUrl = obj.get("browser_download_url").getAsString();
+                        JsonElement digest = obj.get("digest"); // For example "sha256:abc...", missing for older assets
+                        if (digest != null && !digest.isJsonNull() && digest.getAsString().startsWith("sha256:"))
+                            downloadSha256 = digest.getAsString().substring("sha256:".length());
                         if (fileName.contains("."))
                             downloadType = fileName.substring(fileName.lastIndexOf("."));
                         break;
@@ -90,6 +94,7 @@ public class GithubSearch {
         SearchResult rs = new SearchResult(null, resultCode, latestVersion, downloadUrl, downloadType, null, null, false);
         rs.setException(exception);
         rs.fileName = fileName;
+        rs.downloadSha256 = downloadSha256;
         return rs;
     }
 }
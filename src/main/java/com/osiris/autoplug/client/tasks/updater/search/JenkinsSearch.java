@@ -8,16 +8,17 @@
 
 package com.osiris.autoplug.client.tasks.updater.search;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.osiris.jlib.json.Json;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 public class JenkinsSearch {
+    private static final Set<String> BUILD_FIELDS = JsonStream.fields("number", "url");
+    private static final Set<String> ARTIFACT_FIELDS = JsonStream.fields("fileName", "relativePath");
 
     public SearchResult search(String project_url, String providedArtifactName, int build_id) {
         Exception exception = null;
@@ -28,8 +29,14 @@ public class JenkinsSearch {
         int latest_build_id = 0;
         String fileName = null;
         try {
-            JsonObject json_project = Json.getAsObject(project_url + (project_url.endsWith("/") ? "" : "/") + "api/json");
-            JsonObject json_last_successful_build = json_project.get("lastSuccessfulBuild").getAsJsonObject();
+            // The (url encoded) tree parameter makes Jenkins only return the fields we need
+            JsonObject json_last_successful_build;
+            String projectApiUrl = project_url + (project_url.endsWith("/") ? "" : "/") + "api/json?tree=lastSuccessfulBuild%5Bnumber,url%5D";
+            try (JsonStream json = new JsonStream(projectApiUrl)) {
+                json_last_successful_build = json.seek("lastSuccessfulBuild") ? json.readObject(BUILD_FIELDS) : null;
+            }
+            if (json_last_successful_build == null)
+                throw new Exception("Failed to find the last successful build of " + project_url + "!");
             latest_build_id = json_last_successful_build.get("number").getAsInt();
             latestVersion = String.valueOf(latest_build_id);
             if (latest_build_id > build_id) {
@@ -37,14 +44,18 @@ public class JenkinsSearch {
                 String buildUrl = json_last_successful_build.get("url").getAsString();
                 if (!buildUrl.endsWith("api/json"))
                     buildUrl = buildUrl + (buildUrl.endsWith("/") ? "" : "/") + "api/json";
-                JsonArray arrayArtifacts = Json.getAsObject(buildUrl).getAsJsonArray("artifacts");
+                buildUrl = buildUrl + "?tree=artifacts%5BfileName,relativePath%5D";
+                List<JsonObject> artifactObjects = new ArrayList<>();
+                try (JsonStream json = new JsonStream(buildUrl)) {
+                    if (json.seek("artifacts"))
+                        json.forEach(ARTIFACT_FIELDS, artifactObjects::add);
+                }
 
                 // Contains JsonObjects sorted by their artifact names lengths, from smallest to longest.
                 // The following does that sorting.
                 List<JsonObject> sortedArtifactObjects = new ArrayList<>();
-                for (JsonElement e :
-                        arrayArtifacts) {
-                    JsonObject obj = e.getAsJsonObject();
+                for (JsonObject obj :
+                        artifactObjects) {
                     String name = obj.get("fileName").getAsString();
                     if (sortedArtifactObjects.size() == 0) sortedArtifactObjects.add(obj);
                     else {
@@ -38,6 +38,10 @@ public class SearchResult {
     public byte resultCode;
     public Exception exception;
     public String fileName;
+    /**
+     * SHA-256 hash of the download, null if not provided by the API.
+     */
+    public String downloadSha256;
 
     /**
      * @param resultCode    All codes: <br>
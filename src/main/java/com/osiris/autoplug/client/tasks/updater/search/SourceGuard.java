@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.tasks.updater.search;
+
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.HostReachability;
+import com.osiris.jlib.json.exceptions.HttpErrorException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Protects the updaters from slow or unreachable update sources (Spiget, Jenkins, etc.). <br>
+ * Each host has its own circuit breaker: after {@link #configure(int, int, int, int) maxFailures} consecutive
+ * connection errors it opens, and all following searches for that host fail immediately with result code 2,
+ * instead of blocking a worker thread for the complete socket timeout. After a cool-down a single search is let
+ * through as probe (half-open), which closes the breaker again on success. <br>
+ * Each host also gets its own connect/read timeouts, derived from its past response times and capped by the configured maximum,
+ * so that a normally fast host that suddenly stalls is detected early.
+ * Thus all requests to update sources must be sent via {@link #connect(HttpURLConnection)}, for example by using {@link com.osiris.autoplug.client.utils.io.JsonStream}. <br>
+ * A failed reachability probe at startup opens the hosts breaker right away, see {@link HostReachability}.
+ */
+public class SourceGuard {
+    private static final SourceGuard INSTANCE = new SourceGuard();
+    private static final int MIN_CONNECT_TIMEOUT_MS = 1000;
+    private static final int MIN_READ_TIMEOUT_MS = 2000;
+    private static final int MAX_COOL_DOWN_FACTOR = 8;
+    private final ConcurrentHashMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private volatile int maxConnectTimeoutMs = 5000;
+    private volatile int maxReadTimeoutMs = 10000;
+    private volatile int maxFailures = 3;
+    private volatile long msCoolDown = 30000;
+
+    @NotNull
+    public static SourceGuard get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the host of the provided url, or the url itself if it is malformed.
+     */
+    @NotNull
+    public static String getHost(@NotNull String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (Exception e) {
+            return url;
+        }
+    }
+
+    /**
+     * @param maxConnectTimeoutSec maximum connect timeout in seconds.
+     * @param maxReadTimeoutSec    maximum read timeout in seconds.
+     * @param maxFailures          consecutive failures after which a hosts breaker opens. 0 or less to disable the breakers.
+     * @param coolDownSec          seconds an open breaker waits before letting a probe through.
+     */
+    public void configure(int maxConnectTimeoutSec, int maxReadTimeoutSec, int maxFailures, int coolDownSec) {
+        this.maxConnectTimeoutMs = Math.max(MIN_CONNECT_TIMEOUT_MS, maxConnectTimeoutSec * 1000);
+        this.maxReadTimeoutMs = Math.max(MIN_READ_TIMEOUT_MS, maxReadTimeoutSec * 1000);
+        this.maxFailures = maxFailures;
+        this.msCoolDown = Math.max(0, coolDownSec) * 1000L;
+    }
+
+    /**
+     * Sets the timeouts of the provided connection, based on its host.
+     */
+    public void applyTimeouts(@NotNull HttpURLConnection con) {
+        Breaker breaker = getBreaker(con.getURL().getHost());
+        con.setConnectTimeout(breaker.getConnectTimeout());
+        con.setReadTimeout(breaker.getReadTimeout());
+    }
+
+    /**
+     * Sets the timeouts of the provided connection (see {@link #applyTimeouts(HttpURLConnection)}),
+     * sends the request and waits for the response status. <br>
+     * The time until the status was received is recorded as response time of the host,
+     * which its timeouts are based on. For requests with a body, call {@link #applyTimeouts(HttpURLConnection)}
+     * before writing it, then this method.
+     *
+     * @return the response code.
+     */
+    public int connect(@NotNull HttpURLConnection con) throws IOException {
+        Breaker breaker = getBreaker(con.getURL().getHost());
+        con.setConnectTimeout(breaker.getConnectTimeout());
+        con.setReadTimeout(breaker.getReadTimeout());
+        long msStart = System.currentTimeMillis();
+        int code = con.getResponseCode();
+        breaker.onResponse(System.currentTimeMillis() - msStart);
+        return code;
+    }
+
+    /**
+     * Runs the provided search, unless the hosts breaker is open or the deadline was exceeded,
+     * in which case a result with code 2 is returned immediately.
+     *
+     * @param host       the host the search connects to, for example "api.spiget.org".
+     * @param msDeadline time in ms (see {@link System#currentTimeMillis()}) after which no new searches are started,
+     *                   or 0 for no deadline.
+     */
+    @NotNull
+    public SearchResult search(@NotNull String host, long msDeadline, @NotNull Supplier<SearchResult> search) {
+        if (msDeadline > 0 && System.currentTimeMillis() > msDeadline)
+            return failed(new Exception("Skipped update check, because the updaters deadline was exceeded."));
+        Breaker breaker = getBreaker(host);
+        if (!breaker.tryAcquire())
+            return failed(new Exception("Skipped update check, because '" + host + "' failed " + breaker.failures
+                    + " times in a row. Trying again in " + (Math.max(0, breaker.msRetry - System.currentTimeMillis()) + 999) / 1000 + " seconds."));
+        SearchResult result = null;
+        try {
+            result = search.get();
+            return result;
+        } finally {
+            if (result == null // Unexpected exception, also makes sure a probe does not stay half-open forever
+                    || (result.getResultCode() == 2 && isHostFailure(result.getException())))
+                breaker.onFailure(host);
+            else
+                breaker.onSuccess();
+        }
+    }
+
+    /**
+     * Opens the hosts breaker, so that its searches are skipped until the cool-down passed,
+     * see {@link HostReachability}.
+     */
+    public void onProbeFailed(@NotNull String host) {
+        getBreaker(host).open(host);
+    }
+
+    /**
+     * @return true if the host is currently skipped.
+     */
+    public boolean isOpen(@NotNull String host) {
+        Breaker breaker = breakers.get(host);
+        return breaker != null && breaker.state != State.CLOSED;
+    }
+
+    @NotNull
+    private Breaker getBreaker(@NotNull String host) {
+        return breakers.computeIfAbsent(host, h -> new Breaker());
+    }
+
+    @NotNull
+    private SearchResult failed(@NotNull Exception e) {
+        SearchResult result = new SearchResult(null, (byte) 2, null, null, null, null, null, false);
+        result.setException(e);
+        return result;
+    }
+
+    /**
+     * Only connection problems and server errors count as failure of the host.
+     * Not found and other client errors are problems of the specific plugin.
+     */
+    private boolean isHostFailure(Throwable e) {
+        for (int i = 0; e != null && i < 10; i++, e = e.getCause()) {
+            if (e instanceof HttpErrorException) {
+                int code = ((HttpErrorException) e).getHttpErrorCode();
+                return code >= 500 || code == 429;
+            }
+            if (e instanceof FileNotFoundException) return false; // 404 of HttpURLConnection
+            if (e instanceof IOException) return true;
+        }
+        return false;
+    }
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private class Breaker {
+        private volatile State state = State.CLOSED;
+        private volatile int failures;
+        private int countOpened;
+        private volatile long msRetry;
+        /**
+         * Exponentially weighted moving average of the response times of single requests, -1 if unknown.
+         */
+        private volatile long msAverage = -1;
+
+        private synchronized boolean tryAcquire() {
+            if (maxFailures <= 0 || state == State.CLOSED) return true;
+            if (state == State.OPEN && System.currentTimeMillis() >= msRetry) {
+                state = State.HALF_OPEN; // Let exactly one probe through
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void onSuccess() {
+            state = State.CLOSED;
+            failures = 0;
+            countOpened = 0;
+        }
+
+        private synchronized void onResponse(long msDuration) {
+            long avg = msAverage;
+            msAverage = avg < 0 ? msDuration : (avg * 3 + msDuration) / 4;
+        }
+
+        private synchronized void onFailure(String host) {
+            failures++;
+            if (maxFailures <= 0) return;
+            if (state == State.HALF_OPEN || failures >= maxFailures) open(host);
+        }
+
+        private synchronized void open(String host) {
+            if (maxFailures <= 0) return;
+            countOpened++;
+            state = State.OPEN;
+            long msWait = msCoolDown * Math.min(MAX_COOL_DOWN_FACTOR, 1L << Math.min(countOpened - 1, 3));
+            msRetry = System.currentTimeMillis() + msWait;
+            DebugLog.debug(SourceGuard.class, "Skipping '{}' for {} seconds after {} consecutive failures.", host, msWait / 1000, failures);
+        }
+
+        private int getConnectTimeout() {
+            long avg = msAverage;
+            if (avg < 0) return maxConnectTimeoutMs;
+            return (int) Math.min(maxConnectTimeoutMs, Math.max(MIN_CONNECT_TIMEOUT_MS, avg * 2));
+        }
+
+        private int getReadTimeout() {
+            long avg = msAverage;
+            if (avg < 0) return maxReadTimeoutMs;
+            return (int) Math.min(maxReadTimeoutMs, Math.max(MIN_READ_TIMEOUT_MS, avg * 4));
+        }
+    }
+}
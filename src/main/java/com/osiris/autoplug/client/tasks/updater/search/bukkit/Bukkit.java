@@ -12,6 +12,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
 import com.osiris.autoplug.client.utils.StringComparator;
 import com.osiris.jlib.logger.AL;
 import com.osiris.jlib.search.Version;
@@ -108,6 +109,7 @@ public class Bukkit {
             URL url = new URL(request_url + search_input);
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
             connection.addRequestProperty("User-Agent", "Mozilla/5.0");
+            SourceGuard.get().connect(connection);
             InputStream inputStream = connection.getInputStream();
             InputStreamReader reader = new InputStreamReader(inputStream);
             return JsonParser.parseReader(reader);
@@ -12,8 +12,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.osiris.autoplug.client.tasks.updater.plugins.MinecraftPlugin;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
-import com.osiris.jlib.json.Json;
-import com.osiris.jlib.logger.AL;
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 import com.osiris.jlib.search.Version;
 
 import java.util.regex.Matcher;
@@ -22,11 +22,11 @@ import java.util.regex.Pattern;
 public class BukkitSearchById {
 
     public SearchResult search(MinecraftPlugin plugin) {
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] Performing bukkit search by id");
+        DebugLog.debug(this.getClass(), "[{}] Performing bukkit search by id", plugin.getName());
         int bukkitId = plugin.getBukkitId();
 
         String url = "https://api.curseforge.com/servermods/files?projectIds=" + bukkitId;
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] Fetching latest release... (" + url + ")");
+        DebugLog.debug(this.getClass(), "[{}] Fetching latest release... ({})", plugin.getName(), url);
 
         Exception exception = null;
         JsonArray versions = null;
@@ -36,7 +36,7 @@ public class BukkitSearchById {
         String downloadType = "unknown";
         byte code = 0;
         try {
-            versions = Json.getAsJsonArray(url);
+            versions = JsonStream.getAsJsonArray(url);
             json = versions.get(versions.size() - 1).getAsJsonObject();
             latest = json.get("name").getAsString();
             if (latest != null)
@@ -55,7 +55,7 @@ public class BukkitSearchById {
 
         if (Version.isLatestBigger(plugin.getVersion(), latest == null ? "0" : latest)) code = 1;
 
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] Finished check with results: code:" + code + " latest:" + latest + " downloadURL:" + downloadUrl + " type:" + downloadType + " ");
+        DebugLog.debug(this.getClass(), "[{}] Finished check with results: code:{} latest:{} downloadURL:{} type:{} ", plugin.getName(), code, latest, downloadUrl, downloadType);
         SearchResult result = new SearchResult(plugin, code, latest, downloadUrl, downloadType, null, String.valueOf(bukkitId), false);
         result.setException(exception);
         return result;
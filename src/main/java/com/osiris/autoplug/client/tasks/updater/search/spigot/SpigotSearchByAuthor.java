@@ -12,8 +12,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.osiris.autoplug.client.tasks.updater.plugins.MinecraftPlugin;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.StringComparator;
-import com.osiris.jlib.logger.AL;
 
 public class SpigotSearchByAuthor {
 
@@ -28,31 +28,31 @@ public class SpigotSearchByAuthor {
 
         Exception exception = null;
         try {
-            AL.debug(this.getClass(), "[" + plugin.getName() + "] Searching for author " + plAuthor + "(" + plName + ")...");
+            DebugLog.debug(this.getClass(), "[{}] Searching for author {}({})...", plugin.getName(), plAuthor, plName);
             JsonArray jsonAuthors = new SpigetAPI().getAuthors(plAuthor);
-            AL.debug(this.getClass(), "[" + plugin.getName() + "] Found " + jsonAuthors.size() + " similar authors...");
+            DebugLog.debug(this.getClass(), "[{}] Found {} similar authors...", plugin.getName(), jsonAuthors.size());
 
             for (int i = 0; i < jsonAuthors.size(); i++) {
                 JsonObject jAuthor = jsonAuthors.get(i).getAsJsonObject();
                 String jAuthorName = jAuthor.get("name").getAsString();
 
                 double similarity = StringComparator.similarity(jAuthorName, plAuthor);
-                AL.debug(this.getClass(), "[" + plugin.getName() + "] Similarity between -> " + plAuthor + " and " + jAuthorName + " is: " + similarity);
+                if (DebugLog.isEnabled()) DebugLog.debug(this.getClass(), "[{}] Similarity between -> {} and {} is: {}", plugin.getName(), plAuthor, jAuthorName, similarity);
 
                 if (similarity > 0.6) {
                     String jAuthorId = jAuthor.get("id").getAsString();
-                    AL.debug(this.getClass(), "[" + plugin.getName() + "] Author matches! Continuing with " + jAuthorName + " ID: " + jAuthorId);
+                    DebugLog.debug(this.getClass(), "[{}] Author matches! Continuing with {} ID: {}", plugin.getName(), jAuthorName, jAuthorId);
                     JsonArray jsonAuthorPlugins = new SpigetAPI().getAuthorResources(jAuthorId);
-                    AL.debug(this.getClass(), "[" + plugin.getName() + "] Found " + jsonAuthorPlugins.size() + " resources of this author...");
+                    DebugLog.debug(this.getClass(), "[{}] Found {} resources of this author...", plugin.getName(), jsonAuthorPlugins.size());
 
                     for (int j = 0; j < jsonAuthorPlugins.size(); j++) {
                         JsonObject jPL = jsonAuthorPlugins.get(j).getAsJsonObject();
                         String jPLName = jPL.get("name").getAsString();
                         String jPLID = jPL.get("id").getAsString();
                         double similarity2 = StringComparator.similarity(jPLName, plName);
-                        AL.debug(this.getClass(), "[" + plugin.getName() + "] Similarity between -> " + plName + " and " + jPLName + " is: " + similarity2);
+                        if (DebugLog.isEnabled()) DebugLog.debug(this.getClass(), "[{}] Similarity between -> {} and {} is: {}", plugin.getName(), plName, jPLName, similarity2);
                         if (similarity2 > 0.5) {
-                            AL.debug(this.getClass(), "[" + plugin.getName() + "] Plugin found!: " + jPLName);
+                            DebugLog.debug(this.getClass(), "[{}] Plugin found!: {}", plugin.getName(), jPLName);
                             plugin.setSpigotId(Integer.parseInt(jPLID));
                             return new SpigotSearchById().search(plugin);
                         }
@@ -62,7 +62,7 @@ public class SpigotSearchByAuthor {
         } catch (Exception ex) {
             exception = ex;
         }
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] No match found for " + plName + "!");
+        DebugLog.debug(this.getClass(), "[{}] No match found for {}!", plugin.getName(), plName);
         SearchResult result;
         if (exception != null)
             result = new SearchResult(plugin, (byte) 2, null, null, null, null, null, false);
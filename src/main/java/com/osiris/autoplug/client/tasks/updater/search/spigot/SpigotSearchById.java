@@ -11,8 +11,8 @@ package com.osiris.autoplug.client.tasks.updater.search.spigot;
 import com.google.gson.JsonObject;
 import com.osiris.autoplug.client.tasks.updater.plugins.MinecraftPlugin;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
-import com.osiris.jlib.json.Json;
-import com.osiris.jlib.logger.AL;
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 import com.osiris.jlib.search.Version;
 
 public class SpigotSearchById {
@@ -23,7 +23,7 @@ public class SpigotSearchById {
 
         String url = "https://api.spiget.org/v2/resources/" + spigotId +
                 "/versions?size=1&sort=-releaseDate";
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] Fetching latest release... (" + url + ")");
+        DebugLog.debug(this.getClass(), "[{}] Fetching latest release... ({})", plugin.getName(), url);
         String latest = null;
         String type = null;
         String downloadUrl = null;
@@ -31,15 +31,15 @@ public class SpigotSearchById {
         boolean isPremium = false;
         try {
             // Get the latest version
-            latest = Json.getAsJsonArray(url).get(0).getAsJsonObject().get("name").getAsString();
+            latest = JsonStream.getAsJsonArray(url).get(0).getAsJsonObject().get("name").getAsString();
             if (latest != null)
                 latest = latest.replaceAll("[^0-9.]", ""); // Before passing over remove everything except numbers and dots
 
             // Get the file type and downloadUrl
             String url1 = "https://api.spiget.org/v2/resources/" + spigotId;
-            AL.debug(this.getClass(), "[" + plugin.getName() + "] Fetching resource details... (" + url1 + ")");
-            JsonObject json = Json.getAsObject(url1).getAsJsonObject("file");
-            isPremium = Boolean.parseBoolean(Json.getAsObject(url1).get("premium").getAsString());
+            DebugLog.debug(this.getClass(), "[{}] Fetching resource details... ({})", plugin.getName(), url1);
+            JsonObject json = JsonStream.getAsObject(url1).getAsJsonObject("file");
+            isPremium = Boolean.parseBoolean(JsonStream.getAsObject(url1).get("premium").getAsString());
             type = json.get("type").getAsString();
             downloadUrl = "https://www.spigotmc.org/" + json.get("url").getAsString();
 
@@ -53,7 +53,7 @@ public class SpigotSearchById {
             code = 2;
         }
 
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] Finished check with results: code:" + code + " latest:" + latest + " downloadURL:" + downloadUrl + " type:" + type + " ");
+        DebugLog.debug(this.getClass(), "[{}] Finished check with results: code:{} latest:{} downloadURL:{} type:{} ", plugin.getName(), code, latest, downloadUrl, type);
         SearchResult result = new SearchResult(plugin, code, latest, downloadUrl, type, String.valueOf(spigotId), null, isPremium);
         result.setException(exception);
         return result;
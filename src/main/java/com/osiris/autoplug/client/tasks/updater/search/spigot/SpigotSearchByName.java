@@ -12,8 +12,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.osiris.autoplug.client.tasks.updater.plugins.MinecraftPlugin;
 import com.osiris.autoplug.client.tasks.updater.search.SearchResult;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.StringComparator;
-import com.osiris.jlib.logger.AL;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,9 +33,9 @@ public class SpigotSearchByName {
         Exception exception = null;
         List<MinecraftPlugin> similarPlugins = new ArrayList<>();
         try {
-            AL.debug(this.getClass(), "[" + plugin.getName() + "] Searching for plugin " + plName + "(" + plAuthor + ")...");
+            DebugLog.debug(this.getClass(), "[{}] Searching for plugin {}({})...", plugin.getName(), plName, plAuthor);
             JsonArray queryPlugins = new SpigetAPI().getPlugins(plName);
-            AL.debug(this.getClass(), "[" + plugin.getName() + "] Found " + queryPlugins.size() + " similar plugins!");
+            DebugLog.debug(this.getClass(), "[{}] Found {} similar plugins!", plugin.getName(), queryPlugins.size());
 
             for (int i = 0; i < queryPlugins.size(); i++) {
 
@@ -57,9 +57,9 @@ public class SpigotSearchByName {
                     similarPlugins.add(new MinecraftPlugin(null, plName, plVersion, plAuthor, plId, 0, null));
 
                     double similarity = StringComparator.similarity(queryAuthor, plAuthor);
-                    AL.debug(this.getClass(), "[" + plugin.getName() + "] Similarity between -> " + plAuthor + " and " + queryAuthor + " is: " + similarity);
+                    if (DebugLog.isEnabled()) DebugLog.debug(this.getClass(), "[{}] Similarity between -> {} and {} is: {}", plugin.getName(), plAuthor, queryAuthor, similarity);
                     if (similarity > 0.5) {
-                        AL.debug(this.getClass(), "[" + plugin.getName() + "] Found plugin " + plName + " with matching author: " + queryAuthor + ")");
+                        DebugLog.debug(this.getClass(), "[{}] Found plugin {} with matching author: {})", plugin.getName(), plName, queryAuthor);
                         plugin.setSpigotId(plId);
                         return new SpigotSearchById().search(plugin);
                     }
@@ -69,7 +69,7 @@ public class SpigotSearchByName {
         } catch (Exception e) {
             exception = e;
         }
-        AL.debug(this.getClass(), "[" + plugin.getName() + "] No match found for " + plName + "!");
+        DebugLog.debug(this.getClass(), "[{}] No match found for {}!", plugin.getName(), plName);
         SearchResult result;
         if (exception != null)
             result = new SearchResult(plugin, (byte) 2, null, null, null, null, null, false);
@@ -13,12 +13,14 @@ import com.osiris.autoplug.client.SelfInstaller;
 import com.osiris.autoplug.client.Server;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
 import com.osiris.autoplug.client.managers.FileManager;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
 import com.osiris.autoplug.client.tasks.updater.TaskDownload;
 import com.osiris.autoplug.client.utils.GD;
+import com.osiris.autoplug.client.utils.UtilsCrypto;
 import com.osiris.autoplug.client.utils.UtilsJar;
+import com.osiris.autoplug.client.utils.io.JsonStream;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
-import com.osiris.jlib.json.Json;
 import com.osiris.jlib.search.Version;
 
 import java.io.File;
@@ -50,7 +52,8 @@ public class TaskSelfUpdater extends BThread {
             skip();
             return;
         }
-        if (Server.isRunning()) throw new Exception("Cannot perform self update while server is running!");
+        if (Server.isRunning() && !updaterConfig.global_staging.asBoolean())
+            throw new Exception("Cannot perform self update while server is running!");
 
         if (updaterConfig.self_updater_build.asString().equals("stable"))
             doUpdating(stableUpdateUrl);
@@ -61,7 +64,7 @@ public class TaskSelfUpdater extends BThread {
     private void doUpdating(String url) throws Exception {
         // This url contains a JsonArray with JsonObjects, each representing a java application.
         // In this case we are only interested in the AutoPlug-Client.jar with id 0.
-        List<JsonObject> apps = Json.getAsList(url);
+        List<JsonObject> apps = JsonStream.getAsList(url);
         JsonObject jsonLatestJar = null;
         for (JsonObject o :
                 apps) {
@@ -139,41 +142,47 @@ public class TaskSelfUpdater extends BThread {
                 }
             }
         } else {
-            setStatus("Update found (" + currentVersion + " -> " + version + "), started download!");
-
-            // Download the file
             File cache_dest = new File(downloadsDir.getAbsolutePath() + "/" + installationFile.getName());
-            if (cache_dest.exists()) cache_dest.delete();
-            cache_dest.createNewFile();
-            TaskDownload download = new TaskDownload("Downloader", getManager(), downloadUrl, cache_dest);
-            download.start();
-
-            while (true) {
-                Thread.sleep(500);
-                if (download.isFinished()) {
-                    if (!download.isSuccess()) {
-                        finish("AutoPlug update failed!", false);
-                        return;
-                    }
-                    setStatus("AutoPlug update downloaded. Checking hash...");
-                    if (!download.compareWithSHA256(sha256)) {
-                        finish("Downloaded AutoPlug update is broken. Nothing changed!", false);
-                        return;
-                    }
-                    setStatus("Installing AutoPlug update (" + currentVersion + " -> " + version + ")...");
-                    // Create the actual update copy file, by simply copying the newly downloaded file.
-                    Files.copy(cache_dest.toPath(),
-                            new File(downloadsDir.getAbsolutePath() + "/AutoPlug-Client-Copy.jar").toPath(),
-                            StandardCopyOption.REPLACE_EXISTING);
-                    // Start that newly downloaded AutoPlug-Client.jar in the downloads dir.
-                    // That jar detects, that its started inside of the downloads dir and installs the AutoPlug-Client-Copy.jar and starts it
-                    new SelfInstaller().startJarFromPath(cache_dest, cache_dest.getParentFile());
-                    System.exit(0);
-                    finish(true);
-                    break;
+            // The update may have been downloaded already while the server was running, see StagingArea
+            boolean isPrefetched = cache_dest.exists() && sha256.equalsIgnoreCase(UtilsCrypto.fastSHA256(cache_dest));
+            if (isPrefetched && StagingArea.isStagingRequired()) {
+                finish("AutoPlug update (" + currentVersion + " -> " + version + ") downloaded, gets installed at the next restart.");
+                return;
+            }
+            if (!isPrefetched) {
+                setStatus("Update found (" + currentVersion + " -> " + version + "), started download!");
+
+                // Download the file
+                if (cache_dest.exists()) cache_dest.delete();
+                cache_dest.createNewFile();
+                TaskDownload download = new TaskDownload("Downloader", getManager(), downloadUrl, cache_dest);
+                download.start();
+                download.join();
+                if (!download.isSuccess()) {
+                    finish("AutoPlug update failed!", false);
+                    return;
+                }
+                setStatus("AutoPlug update downloaded. Checking hash...");
+                if (!download.compareWithSHA256(sha256)) {
+                    finish("Downloaded AutoPlug update is broken. Nothing changed!", false);
+                    return;
+                }
+                if (StagingArea.isStagingRequired()) {
+                    finish("AutoPlug update (" + currentVersion + " -> " + version + ") downloaded, gets installed at the next restart.");
+                    return;
                 }
-
             }
+
+            setStatus("Installing AutoPlug update (" + currentVersion + " -> " + version + ")...");
+            // Create the actual update copy file, by simply copying the newly downloaded file.
+            Files.copy(cache_dest.toPath(),
+                    new File(downloadsDir.getAbsolutePath() + "/AutoPlug-Client-Copy.jar").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            // Start that newly downloaded AutoPlug-Client.jar in the downloads dir.
+            // That jar detects, that its started inside of the downloads dir and installs the AutoPlug-Client-Copy.jar and starts it
+            new SelfInstaller().startJarFromPath(cache_dest, cache_dest.getParentFile());
+            System.exit(0);
+            finish(true);
         }
 
 
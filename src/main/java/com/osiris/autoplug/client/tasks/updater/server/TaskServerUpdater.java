@@ -12,21 +12,26 @@ import com.osiris.autoplug.client.Server;
 import com.osiris.autoplug.client.configs.GeneralConfig;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
 import com.osiris.autoplug.client.managers.FileManager;
+import com.osiris.autoplug.client.tasks.updater.StagingArea;
+import com.osiris.autoplug.client.utils.DebugLog;
 import com.osiris.autoplug.client.utils.GD;
 import com.osiris.autoplug.client.utils.SteamCMD;
 import com.osiris.autoplug.client.utils.UtilsLists;
 import com.osiris.autoplug.client.utils.UtilsMinecraft;
+import com.osiris.autoplug.client.utils.tasks.ResourceGate;
 import com.osiris.betterthread.BThread;
 import com.osiris.betterthread.BThreadManager;
 import com.osiris.betterthread.BWarning;
 import com.osiris.dyml.exceptions.*;
-import com.osiris.jlib.logger.AL;
 import me.hsgamer.mcserverupdater.UpdateBuilder;
 import me.hsgamer.mcserverupdater.UpdateStatus;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.osiris.jprocesses2.util.OS.isWindows;
 
@@ -45,8 +50,9 @@ public class TaskServerUpdater extends BThread {
     @Override
     public void runAtStart() throws Exception {
         super.runAtStart();
-        if (Server.isRunning()) throw new Exception("Cannot perform update while server is running!");
         updaterConfig = new UpdaterConfig();
+        if (Server.isRunning() && !updaterConfig.global_staging.asBoolean())
+            throw new Exception("Cannot perform update while server is running!");
         if (!updaterConfig.server_updater.asBoolean()) {
             skip();
             return;
@@ -86,13 +92,19 @@ public class TaskServerUpdater extends BThread {
                 .updateProject(serverSoftware)
                 .version(serverVersion)
                 .debugConsumer(s -> {
-                    AL.debug(getClass(), s);
+                    DebugLog.debug(getClass(), s);
                     setStatus(s);
                 });
 
         // Change the output file based on the profile.
         File outputFile;
-        if (profile.equals("MANUAL")) {
+        File stagedFile = null;
+        if (profile.equals("AUTOMATIC") && StagingArea.isStagingRequired()) {
+            // The server jar is in use, thus download next to it and install at the next restart
+            stagedFile = new File(downloadsDir.getAbsolutePath() + "/" + serverSoftware + "-staged.jar");
+            if (stagedFile.exists()) stagedFile.delete();
+            outputFile = stagedFile;
+        } else if (profile.equals("MANUAL")) {
             outputFile = new File(downloadsDir.getAbsolutePath() + "/" + serverSoftware + "-latest.jar");
         } else if (serverExe == null) {
             outputFile = new File(GD.WORKING_DIR + "/" + serverSoftware + "-latest.jar");
@@ -113,17 +125,34 @@ public class TaskServerUpdater extends BThread {
         // Use build-id from the config as the checksum.
         // Note that each software has a different form of checksum, so we just inspect the checksum as a string.
         updateBuilder.checksumSupplier(updaterConfig.server_build_id::asString);
+        // A staged update only gets its build-id once it was installed, see StagingArea.Commit
+        AtomicReference<String> stagedChecksum = new AtomicReference<>();
+        boolean isStaging = stagedFile != null;
         updateBuilder.checksumConsumer(checksum -> {
-            updaterConfig.server_build_id.setValues(checksum);
-            try {
-                updaterConfig.save();
-            } catch (YamlWriterException | YamlReaderException | IllegalListException | DuplicateKeyException e) {
-                throw new IOException(e);
+            if (isStaging) {
+                stagedChecksum.set(checksum);
+                return;
             }
+            synchronized (updaterConfig) { // A previous saveLater() might be running
+                updaterConfig.server_build_id.setValues(checksum);
+            }
+            updaterConfig.saveLater();
         });
 
         // Do the update
+        if (profile.equals("AUTOMATIC") && stagedFile == null) // Writes directly into the server jar
+            ResourceGate.get(ResourceGate.SERVER_FILES).awaitWritable(this);
         UpdateStatus status = updateBuilder.execute();
+        if (stagedFile != null && stagedFile.exists() && status.isSuccessStatus()) {
+            File target = serverExe != null ? serverExe : new File(GD.WORKING_DIR + "/" + serverSoftware + "-latest.jar");
+            List<StagingArea.Commit> commits = new ArrayList<>();
+            if (stagedChecksum.get() != null)
+                commits.add(StagingArea.Commit.of(UpdaterConfig.class, stagedChecksum.get(), updaterConfig.server_build_id.getKeys()));
+            StagingArea.get().stage(stagedFile, target, null, serverSoftware, StagingArea.RESOURCE_SERVER_JAR, commits);
+            setStatus("Staged server update, gets installed at the next restart.");
+            setSuccess(true);
+            return;
+        }
         if (status == UpdateStatus.OUT_OF_DATE) {
             setStatus("Update found!");
         } else {
@@ -141,16 +170,22 @@ public class TaskServerUpdater extends BThread {
             return;
         }
 
+        if (profile.equals("AUTOMATIC") && StagingArea.isStagingRequired()) {
+            setStatus("Skipped SteamCMD update, because the server is running. Gets updated at the next restart.");
+            skip();
+            return;
+        }
+
         SteamCMD steamCMD = new SteamCMD();
         File serverDir = new File(steamCMD.dirSteamServersDownloads + "/" + updaterConfig.server_software.asString());
         boolean isFirstInstall = !serverDir.exists();
         boolean isSuccess = steamCMD.installOrUpdateServer(updaterConfig.server_software.asString(), line -> {
             if (line.startsWith("Waiting for user info")) // Download status not shown, stays stuck at this message for me on Windows, don't know why.
                 line = "Downloading files, this might take a bit...";
-            AL.debug(this.getClass(), "SteamCMD-Out: " + line);
+            DebugLog.debug(this.getClass(), "SteamCMD-Out: {}", line);
             setStatus(line);
         }, errLine -> {
-            AL.debug(this.getClass(), "SteamCMD-Err-Out: " + errLine);
+            DebugLog.debug(this.getClass(), "SteamCMD-Err-Out: {}", errLine);
             setStatus(errLine);
             addWarning(errLine);
         });
@@ -159,6 +194,7 @@ public class TaskServerUpdater extends BThread {
             return;
         }
         if (profile.equals("AUTOMATIC")) {
+            ResourceGate.get(ResourceGate.SERVER_FILES).awaitWritable(this);
             setStatus("Moving files, this might take a bit...");
             FileUtils.copyDirectory(serverDir, GD.WORKING_DIR);
             if (isFirstInstall) { // Update start command
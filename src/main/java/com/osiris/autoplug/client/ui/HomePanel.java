@@ -9,22 +9,22 @@
 package com.osiris.autoplug.client.ui;
 
 import com.osiris.autoplug.client.console.Commands;
+import com.osiris.autoplug.client.ui.utils.ConsoleView;
 import com.osiris.autoplug.client.ui.utils.HintTextField;
 import com.osiris.autoplug.client.ui.utils.MyMouseListener;
+import com.osiris.autoplug.client.utils.io.AsyncLogPipeline;
 import com.osiris.betterlayout.BLayout;
 import com.osiris.jlib.logger.AL;
-import com.osiris.jlib.logger.MessageFormatter;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
 
 public class HomePanel extends BLayout {
 
     public JLabel labelConsole = new JLabel("Console");
-    public BLayout txtConsole;
+    public ConsoleView txtConsole = new ConsoleView();
     public HintTextField txtSendCommand = new HintTextField("Send command...");
     private final JButton execute;
 
@@ -39,31 +39,20 @@ public class HomePanel extends BLayout {
 
         //TODO this.addV(getBtnMinecraftLaunch());
 
-        txtConsole = new BLayout(this, 100, 80);
-        txtConsole.defaultCompStyles.delPadding();
-        txtConsole.makeScrollable();
-        //TODO txtConsole.getScrollPane().getVerticalScrollBar().setUnitIncrement(16);
+        BLayout consoleLayout = new BLayout(this, 100, 80);
+        consoleLayout.defaultCompStyles.delPadding();
+        consoleLayout.addV(txtConsole);
 
         this.addV(txtSendCommand);
         this.addV(jPanel);
 
-        AL.actionsOnMessageEvent.add(msg -> {
-            txtConsole.access(() -> {
-                for (JLabel jLabel : toLabel(MessageFormatter.formatForFile(msg))) {
-                    txtConsole.addV(jLabel);
-                }
-                //txtConsole.setText(txtConsole.getText() +  + "\n");
-            });
-            txtConsole.scrollToEndV();
-        });
+        // TODO convert ansi colors to awt
+        AsyncLogPipeline.get().addSink(entry -> txtConsole.append(entry.getPlain()));
         txtSendCommand.addKeyListener(new KeyListener() {
             @Override
             public void keyTyped(KeyEvent e) {
                 if (e.getKeyChar() == KeyEvent.VK_ENTER) {
-                    txtConsole.access(() -> {
-                        txtConsole.addV(new JLabel(txtSendCommand.getText()));
-                    });
-                    txtConsole.scrollToEndV();
+                    txtConsole.append(txtSendCommand.getText());
                     AL.info("Received System-Tray command: '" + txtSendCommand.getText() + "'");
                     Commands.execute(txtSendCommand.getText());
                     txtSendCommand.setText("");
@@ -82,10 +71,7 @@ public class HomePanel extends BLayout {
         });
 
         execute.addActionListener(e -> {
-            txtConsole.access(() -> {
-                txtConsole.addV(new JLabel(txtSendCommand.getText()));
-            });
-            txtConsole.scrollToEndV();
+            txtConsole.append(txtSendCommand.getText());
             AL.info("Received System-Tray command: '" + txtSendCommand.getText() + "'");
             Commands.execute(txtSendCommand.getText());
             txtSendCommand.setText("");
@@ -99,14 +85,4 @@ public class HomePanel extends BLayout {
         }));
         return btn;
     }
-
-    private java.util.List<JLabel> toLabel(String ansi) {
-        // TODO convert ansi colors to awt
-        String[] lines = ansi.split("\n");
-        java.util.List<JLabel> list = new ArrayList<>();
-        for (String line : lines) {
-            list.add(new JLabel(line));
-        }
-        return list;
-    }
 }
@@ -8,21 +8,14 @@
 
 package com.osiris.autoplug.client.ui;
 
+import com.osiris.autoplug.client.configs.ResourceRegistry;
 import com.osiris.autoplug.client.ui.utils.MyMouseListener;
 import com.osiris.betterlayout.BLayout;
-import com.osiris.dyml.Yaml;
-import com.osiris.dyml.YamlSection;
-import com.osiris.dyml.exceptions.DuplicateKeyException;
-import com.osiris.dyml.exceptions.IllegalListException;
-import com.osiris.dyml.exceptions.YamlReaderException;
 import com.osiris.jlib.logger.AL;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.io.IOException;
 import java.util.List;
-import java.util.Objects;
 
 public class MinecraftModsPanel extends BLayout {
     public JButton btnRefreshData = new JButton("Refresh");
@@ -42,29 +35,26 @@ public class MinecraftModsPanel extends BLayout {
         }));
     }
 
-    public void updateData() throws YamlReaderException, IOException, DuplicateKeyException, IllegalListException {
+    public void updateData() throws Exception {
         // Fetch data
         int columnsCount = 4;
         String[] columnNames = {"Name", "Version", "Latest", "Author"};
         Object[][] data = null;
-        File yamlFile = new File(System.getProperty("user.dir") + "/autoplug/mods.yml");
-        if (!yamlFile.exists()) {
+        ResourceRegistry registry = ResourceRegistry.get(ResourceRegistry.MODS);
+        registry.refresh(); // Only parses the yaml if it was modified
+        List<ResourceRegistry.Resource> resources = registry.getAll();
+        if (resources.isEmpty()) {
             data = new Object[][]{
                     {"-", "-", "-", "-"}
             };
         } else {
-            Yaml modsConfig = new Yaml(yamlFile);
-            modsConfig.load();
-            List<YamlSection> sections = Objects.requireNonNull(modsConfig.get("mods")).getChildSections();
-            sections.remove(0); // To skip first child, since that's no mod data
-            data = new Object[sections.size()][columnsCount];
-            for (int i = 0; i < sections.size(); i++) {
-                YamlSection sec = sections.get(i);
-                String modName = sec.getLastKey();
-                data[i][0] = modName;
-                data[i][1] = modsConfig.get("mods", modName, "version").asString();
-                data[i][2] = modsConfig.get("mods", modName, "latest-version").asString();
-                data[i][3] = modsConfig.get("mods", modName, "author").asString();
+            data = new Object[resources.size()][columnsCount];
+            for (int i = 0; i < resources.size(); i++) {
+                ResourceRegistry.Resource r = resources.get(i);
+                data[i][0] = r.name;
+                data[i][1] = r.version;
+                data[i][2] = r.latestVersion;
+                data[i][3] = r.author;
             }
         }
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.ui.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shows the last {@link #getMaxLines()} lines of a console, with a single component. <br>
+ * The lines are kept in a ring ({@link LineModel}) and only the visible rows get rendered,
+ * since the rows of the {@link JList} have a fixed height.
+ * Lines can be appended from any thread, they get added to the list in batches on the EDT,
+ * once every {@link #MS_FRAME} ms, thus log storms cause one repaint per frame, not per line.
+ */
+public class ConsoleView extends JScrollPane {
+    public static final int DEFAULT_MAX_LINES = 10000;
+    public static final int MS_FRAME = 16;
+
+    private final LineModel model;
+    private final JList<String> list;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger countPending = new AtomicInteger();
+    private final Timer timer = new Timer(MS_FRAME, e -> flush());
+    private final int charWidth;
+    private int maxLineLength;
+
+    public ConsoleView() {
+        this(DEFAULT_MAX_LINES);
+    }
+
+    public ConsoleView(int maxLines) {
+        model = new LineModel(maxLines);
+        list = new JList<>(model);
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, list.getFont().getSize()));
+        // Fixed row size, so that Swing never measures all lines.
+        // The width follows the longest line, which is cheap since the font is monospaced.
+        list.setPrototypeCellValue("X");
+        charWidth = list.getFontMetrics(list.getFont()).charWidth('X');
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        setViewportView(list);
+        getVerticalScrollBar().setUnitIncrement(16);
+        timer.setCoalesce(true);
+        timer.start();
+    }
+
+    /**
+     * Thread-safe. Text with multiple lines gets split into separate rows.
+     */
+    public void append(@NotNull String text) {
+        int start = 0, i;
+        while ((i = text.indexOf('\n', start)) != -1) {
+            appendLine(text.substring(start, i));
+            start = i + 1;
+        }
+        if (start < text.length()) appendLine(text.substring(start));
+    }
+
+    private void appendLine(String line) {
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') line = line.substring(0, line.length() - 1);
+        pending.add(line);
+        // Lines beyond the max would be evicted right away anyway
+        if (countPending.incrementAndGet() > model.getMaxLines() && pending.poll() != null)
+            countPending.decrementAndGet();
+    }
+
+    /**
+     * Adds the pending lines to the list and scrolls to the end, if it was at the end before.
+     */
+    private void flush() {
+        if (pending.isEmpty()) return;
+        JScrollBar bar = getVerticalScrollBar();
+        boolean isAtEnd = bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - list.getFixedCellHeight();
+        String line;
+        int count = 0;
+        String[] batch = new String[Math.min(countPending.get(), model.getMaxLines())];
+        while (count < batch.length && (line = pending.poll()) != null) {
+            countPending.decrementAndGet();
+            batch[count++] = line;
+            if (line.length() > maxLineLength) maxLineLength = line.length();
+        }
+        model.addAll(batch, count);
+        int width = (maxLineLength + 1) * charWidth;
+        if (width > list.getFixedCellWidth()) list.setFixedCellWidth(width);
+        if (isAtEnd && model.getSize() > 0)
+            list.ensureIndexIsVisible(model.getSize() - 1);
+    }
+
+    /**
+     * Fills the parent, instead of growing with the lines.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        Container parent = getParent();
+        if (parent == null || parent.getWidth() == 0) return super.getPreferredSize();
+        Insets insets = parent.getInsets();
+        return new Dimension(parent.getWidth() - insets.left - insets.right,
+                parent.getHeight() - insets.top - insets.bottom);
+    }
+
+    public int getMaxLines() {
+        return model.getMaxLines();
+    }
+
+    public void clear() {
+        model.clear();
+    }
+
+    /**
+     * Stops the timer that adds the pending lines. No lines are shown anymore afterwards.
+     */
+    public void close() {
+        timer.stop();
+        pending.clear();
+        countPending.set(0);
+    }
+
+    /**
+     * The last lines in a ring, only accessed on the EDT.
+     */
+    public static class LineModel extends AbstractListModel<String> {
+        private final String[] lines;
+        private int first;
+        private int size;
+
+        public LineModel(int maxLines) {
+            if (maxLines < 1) throw new IllegalArgumentException("Max lines must be at least 1!");
+            this.lines = new String[maxLines];
+        }
+
+        public void addAll(@NotNull String[] batch, int count) {
+            if (count == 0) return;
+            int countEvicted = Math.max(0, size + count - lines.length);
+            if (countEvicted > 0) {
+                int countRemoved = Math.min(countEvicted, size);
+                for (int i = 0; i < countRemoved; i++) {
+                    lines[(first + i) % lines.length] = null;
+                }
+                first = (first + countRemoved) % lines.length;
+                size -= countRemoved;
+                fireIntervalRemoved(this, 0, countRemoved - 1);
+            }
+            int from = Math.max(0, count - lines.length);
+            int index0 = size;
+            for (int i = from; i < count; i++) {
+                lines[(first + size) % lines.length] = batch[i];
+                size++;
+            }
+            fireIntervalAdded(this, index0, size - 1);
+        }
+
+        public void clear() {
+            if (size == 0) return;
+            int oldSize = size;
+            Arrays.fill(lines, null);
+            first = 0;
+            size = 0;
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+
+        public int getMaxLines() {
+            return lines.length;
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return lines[(first + index) % lines.length];
+        }
+    }
+}
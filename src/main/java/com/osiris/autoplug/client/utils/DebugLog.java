@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * Debug logging that only builds the message if debug is enabled, see {@link #isEnabled()}. <br>
+ * Use the parameterised methods, where each "{}" in the pattern gets replaced by the next argument,
+ * instead of concatenating the message, since that happens even if the message is never logged.
+ * Primitive arguments get boxed before the call, thus guard calls with those via {@link #isEnabled()} in hot loops.
+ */
+public final class DebugLog {
+
+    private DebugLog() {
+    }
+
+    /**
+     * A single field read, thus cheap enough for hot loops.
+     */
+    public static boolean isEnabled() {
+        return AL.isDebugEnabled;
+    }
+
+    public static void debug(@NotNull Class<?> origin, @NotNull String message) {
+        if (AL.isDebugEnabled) AL.debug(origin, message);
+    }
+
+    public static void debug(@NotNull Class<?> origin, @NotNull Supplier<String> message) {
+        if (AL.isDebugEnabled) AL.debug(origin, message.get());
+    }
+
+    public static void debug(@NotNull Class<?> origin, @NotNull String pattern, Object arg) {
+        if (AL.isDebugEnabled) AL.debug(origin, format(pattern, arg));
+    }
+
+    public static void debug(@NotNull Class<?> origin, @NotNull String pattern, Object arg1, Object arg2) {
+        if (AL.isDebugEnabled) AL.debug(origin, format(pattern, arg1, arg2));
+    }
+
+    public static void debug(@NotNull Class<?> origin, @NotNull String pattern, Object arg1, Object arg2, Object arg3) {
+        if (AL.isDebugEnabled) AL.debug(origin, format(pattern, arg1, arg2, arg3));
+    }
+
+    public static void debug(@NotNull Class<?> origin, @NotNull String pattern, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (AL.isDebugEnabled) AL.debug(origin, format(pattern, arg1, arg2, arg3, arg4));
+    }
+
+    /**
+     * Note that the array for the arguments is created even if debug is disabled.
+     */
+    public static void debug(@NotNull Class<?> origin, @NotNull String pattern, Object... args) {
+        if (AL.isDebugEnabled) AL.debug(origin, format(pattern, args));
+    }
+
+    /**
+     * Replaces each "{}" in the pattern with the next argument. Surplus placeholders stay as they are.
+     */
+    @NotNull
+    public static String format(@NotNull String pattern, Object... args) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 16 * args.length);
+        int start = 0, iArg = 0;
+        int i;
+        while (iArg < args.length && (i = pattern.indexOf("{}", start)) != -1) {
+            sb.append(pattern, start, i).append(args[iArg++]);
+            start = i + 2;
+        }
+        return sb.append(pattern, start, pattern.length()).toString();
+    }
+}
@@ -19,6 +19,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 /**
@@ -38,6 +39,11 @@ public class GD {
     public static File AP_LATEST_LOG = new File(System.getProperty("user.dir") + "/autoplug/logs/latest.log");
     public static File SYSTEM_LATEST_LOG = new File(System.getProperty("user.dir") + "/autoplug/logs/system-latest.log");
     public static File FILE_OUT = new File(System.getProperty("user.dir") + "/autoplug/logs/console-mirror.log");
+    public static File SERVER_LATEST_LOG = new File(System.getProperty("user.dir") + "/autoplug/logs/server-latest.log");
+    /**
+     * The terminal without the mirror into {@link #FILE_OUT}, set right before the system streams get mirrored.
+     */
+    public static PrintStream TERMINAL_OUT = System.out;
     public static Target TARGET = null;
 
     static {
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Probes the hosts AutoPlug connects to (AutoPlug-Web and the update APIs) in parallel
+ * and caches the results for some minutes, to find out early if AutoPlug is offline. <br>
+ * A probe sends a HEAD request to the host, the same way the actual requests are sent, thus also via the configured proxy.
+ * Any response counts as reachable. A failed probe opens the breaker of that host, see {@link SourceGuard#onProbeFailed(String)},
+ * so that the updaters skip it right away, instead of running into its timeouts one after another.
+ * Probes that did not finish yet, or whose result expired, count as unknown and thus as reachable.
+ */
+public class HostReachability {
+    private static final HostReachability INSTANCE = new HostReachability();
+    private static final int TIMEOUT_MS = 3000;
+    private static final long MS_RESULT_TTL = 10 * 60 * 1000;
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "AutoPlug-HostProbe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @NotNull
+    public static HostReachability get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the hosts AutoPlug uses by default.
+     */
+    @NotNull
+    public static List<String> getDefaultHosts() {
+        List<String> hosts = new ArrayList<>();
+        hosts.add(SourceGuard.getHost(GD.OFFICIAL_WEBSITE));
+        hosts.add("api.spiget.org");
+        hosts.add("api.modrinth.com");
+        hosts.add("api.curseforge.com");
+        hosts.add("api.github.com");
+        hosts.add("papermc.io");
+        hosts.add("api.adoptium.net");
+        return hosts;
+    }
+
+    /**
+     * Starts probing the provided hosts in parallel and returns immediately.
+     * Hosts with a valid cached result or running probe are not probed again.
+     */
+    public void probe(@NotNull Collection<String> hosts) {
+        for (String host : hosts) {
+            probes.compute(host, (h, probe) -> probe != null && !probe.isExpired() ? probe : new Probe(h));
+        }
+    }
+
+    /**
+     * Blocks until at least one of the probed hosts is reachable, all probes finished, or the timeout is exceeded.
+     *
+     * @return true if at least one host is reachable or the result is still unknown.
+     * False only if all probes finished and failed.
+     */
+    public boolean awaitAnyReachable(long msTimeout) throws InterruptedException {
+        List<Probe> list = new ArrayList<>(probes.values());
+        if (list.isEmpty()) return true;
+        CountDownLatch latchAnyReachable = new CountDownLatch(1);
+        CompletableFuture<?>[] futures = new CompletableFuture[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            futures[i] = list.get(i).future.thenAccept(isReachable -> {
+                if (isReachable) latchAnyReachable.countDown();
+            });
+        }
+        CompletableFuture.allOf(futures).thenRun(latchAnyReachable::countDown);
+        latchAnyReachable.await(msTimeout, TimeUnit.MILLISECONDS);
+        for (Probe probe : list) {
+            Boolean isReachable = probe.future.getNow(null);
+            if (isReachable == null || isReachable) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the host is reachable, false if not, or null if unknown.
+     */
+    @Nullable
+    public Boolean isReachable(@NotNull String host) {
+        Probe probe = probes.get(host);
+        if (probe == null || probe.isExpired()) return null;
+        return probe.future.getNow(null);
+    }
+
+    private class Probe {
+        private final CompletableFuture<Boolean> future;
+        private volatile long msFinished;
+
+        private Probe(@NotNull String host) {
+            future = CompletableFuture.supplyAsync(() -> {
+                long msStart = System.currentTimeMillis();
+                boolean isReachable;
+                HttpURLConnection con = null;
+                try {
+                    con = (HttpURLConnection) new URL("https://" + host + "/").openConnection();
+                    con.setRequestMethod("HEAD");
+                    con.addRequestProperty("User-Agent", "AutoPlug-Client - Contact: " + GD.OFFICIAL_WEBSITE);
+                    con.setConnectTimeout(TIMEOUT_MS);
+                    con.setReadTimeout(TIMEOUT_MS);
+                    con.getResponseCode(); // Any status means that the host is reachable
+                    isReachable = true;
+                } catch (Exception e) {
+                    isReachable = false;
+                } finally {
+                    if (con != null) con.disconnect();
+                }
+                if (!isReachable) SourceGuard.get().onProbeFailed(host);
+                msFinished = System.currentTimeMillis();
+                if (AL.isStarted) // Probes start before the logger
+                    AL.debug(HostReachability.class, "Host '" + host + "' reachable=" + isReachable + ", took " + (msFinished - msStart) + "ms");
+                return isReachable;
+            }, executor);
+        }
+
+        private boolean isExpired() {
+            long ms = msFinished;
+            return ms != 0 && System.currentTimeMillis() - ms > MS_RESULT_TTL;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classifies server log lines by their log level in a single pass, using a precompiled
+ * Aho-Corasick automaton over the case-folded (ASCII) characters of the line. <br>
+ * If the line contains a log-level token like in "[12:00:00 WARN]: ..." or "[Server thread/ERROR]: ...",
+ * the first such token decides the level. Otherwise the line is searched for keywords anywhere,
+ * where "error", "critical" and "exception" win over "warn"/"warning", which win over "debug". <br>
+ * Instances are immutable and thus thread-safe.
+ */
+public class LogLevelClassifier {
+    private static final LogLevelClassifier INSTANCE = new LogLevelClassifier();
+    private static final int ALPHABET = 128;
+    /**
+     * For each state and character, the next state, with the failure links already resolved (a DFA).
+     */
+    private final int[] transitions;
+    /**
+     * For each state, the highest level of the keywords ending there, that are found anywhere in a line.
+     */
+    private final Level[] anywhereLevels;
+    /**
+     * For each state, the level of the keyword ending exactly there, if its a log-level token.
+     */
+    private final Level[] tokenLevels;
+    private final int[] depths;
+
+    private LogLevelClassifier() {
+        List<String> keywords = new ArrayList<>();
+        List<Level> levels = new ArrayList<>();
+        List<Boolean> isAnywhere = new ArrayList<>();
+        add(keywords, levels, isAnywhere, "error", Level.ERROR, true);
+        add(keywords, levels, isAnywhere, "critical", Level.ERROR, true);
+        add(keywords, levels, isAnywhere, "exception", Level.ERROR, true);
+        add(keywords, levels, isAnywhere, "severe", Level.ERROR, false);
+        add(keywords, levels, isAnywhere, "fatal", Level.ERROR, false);
+        add(keywords, levels, isAnywhere, "warn", Level.WARN, true);
+        add(keywords, levels, isAnywhere, "warning", Level.WARN, true);
+        add(keywords, levels, isAnywhere, "info", Level.INFO, false);
+        add(keywords, levels, isAnywhere, "debug", Level.DEBUG, true);
+        add(keywords, levels, isAnywhere, "trace", Level.DEBUG, false);
+
+        // Build the trie
+        int maxStates = 1;
+        for (String keyword : keywords) maxStates += keyword.length();
+        int[] trie = new int[maxStates * ALPHABET];
+        Arrays.fill(trie, -1);
+        Level[] anywhere = new Level[maxStates];
+        Level[] token = new Level[maxStates];
+        int[] depth = new int[maxStates];
+        int countStates = 1;
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            int state = 0;
+            for (int j = 0; j < keyword.length(); j++) {
+                int index = state * ALPHABET + keyword.charAt(j);
+                if (trie[index] == -1) {
+                    depth[countStates] = depth[state] + 1;
+                    trie[index] = countStates++;
+                }
+                state = trie[index];
+            }
+            if (isAnywhere.get(i)) anywhere[state] = levels.get(i);
+            token[state] = levels.get(i);
+        }
+
+        // Resolve failure links breadth-first, into a complete transition table
+        int[] fail = new int[countStates];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = trie[c];
+            if (next == -1) trie[c] = 0;
+            else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            // Keywords that are a suffix of the current match, also match anywhere.
+            // Tokens do not need this, since a token always starts right after a reset to the root.
+            Level suffix = anywhere[fail[state]];
+            if (suffix != null && (anywhere[state] == null || suffix.ordinal() > anywhere[state].ordinal()))
+                anywhere[state] = suffix;
+            for (int c = 0; c < ALPHABET; c++) {
+                int index = state * ALPHABET + c;
+                int next = trie[index];
+                if (next == -1) trie[index] = trie[fail[state] * ALPHABET + c];
+                else {
+                    fail[next] = trie[fail[state] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(trie, countStates * ALPHABET);
+        this.anywhereLevels = Arrays.copyOf(anywhere, countStates);
+        this.tokenLevels = Arrays.copyOf(token, countStates);
+        this.depths = Arrays.copyOf(depth, countStates);
+    }
+
+    @NotNull
+    public static LogLevelClassifier get() {
+        return INSTANCE;
+    }
+
+    private static void add(List<String> keywords, List<Level> levels, List<Boolean> isAnywhere, String keyword, Level level, boolean anywhere) {
+        keywords.add(keyword);
+        levels.add(level);
+        isAnywhere.add(anywhere);
+    }
+
+    private static boolean isTokenStart(char c) {
+        return c == '[' || c == ' ' || c == '/';
+    }
+
+    private static boolean isTokenEnd(char c) {
+        return c == ']' || c == ':';
+    }
+
+    @NotNull
+    public Level classify(@NotNull CharSequence line) {
+        int state = 0;
+        Level best = Level.NONE;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0; // None of the keywords contains non-ASCII chars
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            state = transitions[state * ALPHABET + c];
+            if (state == 0) continue;
+            Level token = tokenLevels[state];
+            if (token != null) {
+                int start = i - depths[state]; // Char before the keyword
+                if (start >= 0 && isTokenStart(line.charAt(start))
+                        && i + 1 < length && isTokenEnd(line.charAt(i + 1)))
+                    return token;
+            }
+            Level anywhere = anywhereLevels[state];
+            if (anywhere != null && anywhere.ordinal() > best.ordinal()) best = anywhere;
+        }
+        return best;
+    }
+
+    /**
+     * Ordered by priority, when found anywhere in the line.
+     */
+    public enum Level {
+        NONE, INFO, DEBUG, WARN, ERROR
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Records the duration of each startup phase (from the JVM start until the server process was created)
+ * and prints it as timeline, see the ".startup info" command. <br>
+ * Each timeline is also appended to /autoplug/logs/startup-history.txt, to be able to compare
+ * startups across AutoPlug versions. <br>
+ * Example: <br>
+ * <pre>
+ * StartupProfiler.Phase phase = StartupProfiler.get().begin("Configs");
+ * ...
+ * phase.end();
+ * </pre>
+ */
+public class StartupProfiler {
+    private static final StartupProfiler INSTANCE = new StartupProfiler();
+    private static final long MAX_HISTORY_BYTES = 512 * 1024;
+    private final File historyFile = new File(GD.WORKING_DIR + "/autoplug/logs/startup-history.txt");
+    private final List<Phase> phases = new ArrayList<>();
+    private final long msStart;
+    private int depth = 0;
+    private long msEnd = 0;
+
+    private StartupProfiler() {
+        long msJvmStart = 0;
+        try {
+            msJvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        } catch (Throwable ignored) {
+        }
+        long now = System.currentTimeMillis();
+        if (msJvmStart <= 0 || msJvmStart > now) msJvmStart = now;
+        this.msStart = msJvmStart;
+        Phase jvm = new Phase("JVM startup", 0, msJvmStart);
+        jvm.msEnd = now;
+        phases.add(jvm);
+    }
+
+    @NotNull
+    public static StartupProfiler get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts a new phase. Phases started before the current one ended are its sub-phases.
+     * Does not record anything once the startup {@link #isFinished() finished}, for example on server restarts.
+     */
+    @NotNull
+    public synchronized Phase begin(@NotNull String name) {
+        Phase phase = new Phase(name, depth, System.currentTimeMillis());
+        if (!isFinished()) {
+            phases.add(phase);
+            depth++;
+            phase.isRecorded = true;
+        }
+        return phase;
+    }
+
+    /**
+     * Adds an already finished sub-phase to the current phase, for example a task that ran in another thread.
+     */
+    public synchronized void record(@NotNull String name, long msStart, long msEnd) {
+        if (isFinished() || msEnd <= 0) return;
+        Phase phase = new Phase(name, depth, msStart);
+        phase.msEnd = msEnd;
+        phases.add(phase);
+    }
+
+    /**
+     * Marks the startup as finished and appends the timeline to the history file.
+     * Only the first call has an effect.
+     */
+    public void finish() {
+        List<String> timeline;
+        synchronized (this) {
+            if (isFinished()) return;
+            msEnd = System.currentTimeMillis();
+            timeline = getTimeline();
+        }
+        AL.debug(this.getClass(), "Startup took " + formatMs(msEnd - msStart) + ", see '.startup info' for details.");
+        try {
+            appendToHistory(timeline);
+        } catch (Exception e) {
+            AL.warn("Failed to write startup history to " + historyFile, e);
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return msEnd != 0;
+    }
+
+    /**
+     * @return the timeline, one line per phase, with the offset from the JVM start, the duration and the indented name.
+     * Phases that did not end yet have a "..." as duration. The last line contains the total duration.
+     */
+    @NotNull
+    public synchronized List<String> getTimeline() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-9s %-9s %s", "OFFSET", "DURATION", "PHASE"));
+        for (Phase phase : phases) {
+            StringBuilder indent = new StringBuilder();
+            for (int i = 0; i < phase.depth; i++) {
+                indent.append("  ");
+            }
+            lines.add(String.format("%-9s %-9s %s", "+" + formatMs(phase.msStart - msStart),
+                    phase.msEnd != 0 ? formatMs(phase.msEnd - phase.msStart) : "...", indent + phase.name));
+        }
+        long total = (isFinished() ? msEnd : System.currentTimeMillis()) - msStart;
+        lines.add("Total: " + formatMs(total) + (isFinished() ? "" : " (startup not finished yet)"));
+        return lines;
+    }
+
+    private void appendToHistory(List<String> timeline) throws IOException {
+        historyFile.getParentFile().mkdirs();
+        if (historyFile.length() > MAX_HISTORY_BYTES) {
+            File old = new File(historyFile.getAbsolutePath() + ".old");
+            if (old.exists()) old.delete();
+            historyFile.renameTo(old);
+        }
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(historyFile, true), StandardCharsets.UTF_8))) {
+            writer.println("=== " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(msStart))
+                    + " | " + GD.VERSION + " | total " + formatMs(msEnd - msStart) + " ===");
+            for (String line : timeline) {
+                writer.println(line);
+            }
+            writer.println();
+        }
+    }
+
+    private String formatMs(long ms) {
+        return String.format("%.2fs", ms / 1000.0);
+    }
+
+    public class Phase {
+        private final String name;
+        private final int depth;
+        private final long msStart;
+        private volatile long msEnd;
+        private boolean isRecorded;
+
+        private Phase(String name, int depth, long msStart) {
+            this.name = name;
+            this.depth = depth;
+            this.msStart = msStart;
+        }
+
+        /**
+         * Ends this phase. Calling it more than once has no effect.
+         */
+        public void end() {
+            synchronized (StartupProfiler.this) {
+                if (msEnd != 0) return;
+                msEnd = System.currentTimeMillis();
+                if (isRecorded) StartupProfiler.this.depth = depth;
+            }
+        }
+
+        public long getMsDuration() {
+            return msEnd != 0 ? msEnd - msStart : 0;
+        }
+    }
+}
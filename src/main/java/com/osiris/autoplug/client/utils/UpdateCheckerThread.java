@@ -8,6 +8,7 @@
 
 package com.osiris.autoplug.client.utils;
 
+import com.osiris.autoplug.client.configs.ConfigRegistry;
 import com.osiris.autoplug.client.configs.SystemConfig;
 import com.osiris.autoplug.client.configs.UpdaterConfig;
 import com.osiris.autoplug.client.tasks.updater.java.TaskJavaUpdater;
@@ -20,6 +21,8 @@ import com.osiris.autoplug.client.utils.tasks.UtilsTasks;
 import com.osiris.jlib.logger.AL;
 
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 public class UpdateCheckerThread extends Thread {
     public boolean isRunning = false;
@@ -30,11 +33,11 @@ public class UpdateCheckerThread extends Thread {
             isRunning = true;
             while (isRunning) {
                 long last = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss")
-                        .parse(new SystemConfig().timestamp_last_updater_tasks.asString())
+                        .parse(ConfigRegistry.get(SystemConfig.class).timestamp_last_updater_tasks.asString())
                         .getTime();
                 long now1 = System.currentTimeMillis();
                 long msSinceLast = now1 - last;
-                long msLeft = (new UpdaterConfig().global_recurring_checks_intervall.asInt() * 3600000L) // 1h in ms
+                long msLeft = (ConfigRegistry.get(UpdaterConfig.class).global_recurring_checks_intervall.asInt() * 3600000L) // 1h in ms
                         - msSinceLast;
                 if (msLeft > 0) Thread.sleep(msLeft);
                 AL.info("Running tasks from recurring update-checker thread.");
@@ -53,6 +56,14 @@ public class UpdateCheckerThread extends Thread {
                 taskModsUpdater.start();
                 while (!man.manager.isFinished())
                     Thread.sleep(1000);
+
+                // Updates found while the server is running were staged and get installed at the next restart
+                SystemConfig systemConfig = new SystemConfig();
+                systemConfig.lockFile();
+                systemConfig.load();
+                systemConfig.timestamp_last_updater_tasks.setValues(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+                systemConfig.save();
+                systemConfig.unlockFile();
             }
         } catch (Exception e) {
             AL.warn(e);
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import com.osiris.autoplug.client.utils.tasks.ProgressReporter;
+import org.jetbrains.annotations.NotNull;
+import org.rauschig.jarchivelib.ArchiveEntry;
+import org.rauschig.jarchivelib.ArchiveStream;
+import org.rauschig.jarchivelib.Archiver;
+
+import java.io.File;
+import java.io.IOException;
+
+public class UtilsArchive {
+
+    /**
+     * Same as {@link Archiver#extract(File, File)}, but extracts entry by entry,
+     * to be able to report the amount of unpacked bytes to the provided {@link ProgressReporter}.
+     */
+    public void extract(@NotNull Archiver archiver, @NotNull File archive, @NotNull File destDir,
+                        @NotNull ProgressReporter progress) throws IOException {
+        destDir.mkdirs();
+        try (ArchiveStream stream = archiver.stream(archive)) {
+            ArchiveEntry entry;
+            while ((entry = stream.getNextEntry()) != null) {
+                entry.extract(destDir);
+                if (entry.getSize() > 0) progress.add(entry.getSize());
+            }
+        }
+    }
+}
@@ -9,8 +9,12 @@
 package com.osiris.autoplug.client.utils;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 public class UtilsFile {
 
@@ -44,4 +48,44 @@ public class UtilsFile {
         file.delete(); // Delete old
         return newFile;
     }
+
+    /**
+     * Writes the file atomically: the content gets written to a temporary file next to it first,
+     * which is then synced to disk and renamed to the actual file, see {@link #moveAtomically(File, File)}.
+     * Thus readers and crashes never see a half-written file.
+     */
+    public void writeAtomically(File file, ContentWriter contentWriter) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        File temp = new File(file.getAbsolutePath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                contentWriter.write(out);
+                out.flush();
+                out.getFD().sync();
+            }
+            moveAtomically(temp, file);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Replaces the target with the source file, atomically if the file system supports it.
+     * The source should be in the same directory, since otherwise the file gets copied.
+     */
+    public void moveAtomically(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public interface ContentWriter {
+        /**
+         * Does not need to close the stream.
+         */
+        void write(OutputStream out) throws IOException;
+    }
 }
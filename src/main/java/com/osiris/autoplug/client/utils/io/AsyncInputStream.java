@@ -8,6 +8,9 @@
 
 package com.osiris.autoplug.client.utils.io;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -16,32 +19,77 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
+/**
+ * Reads the lines of the provided stream in a separate thread and publishes them
+ * into a {@link LineRingBuffer}. The reading thread does nothing else, thus a slow consumer
+ * never blocks the stream (and the process writing to it). <br>
+ * Slow consumers should be added via {@link #addSink(String, LineRingBuffer.OverflowPolicy, Consumer)},
+ * so that they run in their own thread. The {@link #listeners} share a single sink
+ * with the {@link LineRingBuffer.OverflowPolicy#DROP_OLDEST} policy, thus they never block the stream either,
+ * but must be fast, otherwise they miss lines.
+ */
 public class AsyncInputStream {
+    public static final int DEFAULT_CAPACITY = 8192;
     private final InputStream inputStream;
     private final Thread thread;
+    private final LineRingBuffer ringBuffer;
     public List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
 
     public AsyncInputStream(InputStream inputStream) {
+        this(inputStream, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum amount of lines a sink can fall behind.
+     */
+    public AsyncInputStream(InputStream inputStream, int capacity) {
         this.inputStream = inputStream;
+        this.ringBuffer = new LineRingBuffer(capacity);
+        ringBuffer.addSink("listeners", LineRingBuffer.OverflowPolicy.DROP_OLDEST, line -> {
+            for (Consumer<String> listener :
+                    listeners) {
+                listener.accept(line);
+            }
+        });
 
         Object o = this;
         thread = new Thread(() -> {
             String line = "";
             try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
                 while ((line = br.readLine()) != null) {
-                    for (Consumer<String> listener :
-                            listeners) {
-                        listener.accept(line);
-                    }
+                    ringBuffer.publish(line);
                 }
             } catch (IOException e) {
                 System.err.println("Error in thread for object '" + o + "' Details:");
                 e.printStackTrace();
+            } finally {
+                ringBuffer.close();
             }
         });
         thread.start();
     }
 
+    /**
+     * Adds a consumer that runs in its own thread, see {@link LineRingBuffer#addSink(String, LineRingBuffer.OverflowPolicy, Consumer)}.
+     */
+    @NotNull
+    public LineRingBuffer.Sink addSink(@NotNull String name, @NotNull LineRingBuffer.OverflowPolicy policy, @NotNull Consumer<String> consumer) {
+        return ringBuffer.addSink(name, policy, consumer);
+    }
+
+    /**
+     * See {@link LineRingBuffer#addSink(String, LineRingBuffer.OverflowPolicy, Consumer, Runnable)}.
+     */
+    @NotNull
+    public LineRingBuffer.Sink addSink(@NotNull String name, @NotNull LineRingBuffer.OverflowPolicy policy, @NotNull Consumer<String> consumer, @Nullable Runnable onCaughtUp) {
+        return ringBuffer.addSink(name, policy, consumer, onCaughtUp);
+    }
+
+    @NotNull
+    public LineRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
     public InputStream getInputStream() {
         return inputStream;
     }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.osiris.jlib.events.MessageEvent;
+import com.osiris.jlib.logger.AL;
+import com.osiris.jlib.logger.Message;
+import com.osiris.jlib.logger.MessageFormatter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves the handling of AutoPlugs log messages off the logging thread. <br>
+ * A single listener is registered at {@link AL#actionsOnMessageEvent}, which only puts the message into a lock-free queue.
+ * A single thread takes the messages in batches, formats each message at most once per format
+ * and hands it to all {@link Sink}s (online console, GUI, console history, log store).
+ * After each batch, the sinks get notified via {@link Sink#onBatchEnd()}, so that they can write/flush once per batch.
+ */
+public class AsyncLogPipeline {
+    /**
+     * If more messages are queued, new messages get dropped, so that a stuck sink cannot use up all memory.
+     */
+    public static final int MAX_QUEUED = 65536;
+    private static final AsyncLogPipeline INSTANCE = new AsyncLogPipeline();
+    /**
+     * True while the current thread logs via {@link #infoUnstored(String)}.
+     * The loggers listeners are called by the logging thread, thus {@link #enqueue(Message)} sees it.
+     */
+    private static final ThreadLocal<Boolean> IS_LOGGING_UNSTORED = ThreadLocal.withInitial(() -> false);
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger countQueued = new AtomicInteger();
+    private final AtomicLong countDropped = new AtomicLong();
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private final MessageEvent<Message> onMessageEvent = this::enqueue;
+    private final Thread thread;
+    private volatile boolean isWaiting;
+    private volatile boolean isClosed;
+
+    private AsyncLogPipeline() {
+        thread = new Thread(this::run, "AutoPlug-LogPipeline");
+        thread.setDaemon(true);
+    }
+
+    @NotNull
+    public static AsyncLogPipeline get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Logs the message like {@link AL#info(String)}, but it does not get added to the log store and console history,
+     * see {@link Entry#isUnstored()}. Used for output that shows stored lines, like search results,
+     * since otherwise each search would add more lines matching the searched text.
+     */
+    public static void infoUnstored(@NotNull String message) {
+        IS_LOGGING_UNSTORED.set(true);
+        try {
+            AL.info(message);
+        } finally {
+            IS_LOGGING_UNSTORED.set(false);
+        }
+    }
+
+    /**
+     * Registers the listener at the logger and starts the thread. Sinks can be added before and after.
+     */
+    public synchronized void start() {
+        if (thread.isAlive() || isClosed) return;
+        if (!AL.actionsOnMessageEvent.contains(onMessageEvent))
+            AL.actionsOnMessageEvent.add(onMessageEvent);
+        thread.start();
+    }
+
+    public void addSink(@NotNull Sink sink) {
+        if (!sinks.contains(sink)) sinks.add(sink);
+    }
+
+    public void removeSink(@NotNull Sink sink) {
+        sinks.remove(sink);
+    }
+
+    private void enqueue(Message message) {
+        if (countQueued.incrementAndGet() > MAX_QUEUED) {
+            countQueued.decrementAndGet();
+            countDropped.incrementAndGet();
+            return;
+        }
+        queue.add(new Entry(message, IS_LOGGING_UNSTORED.get()));
+        if (isWaiting) LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        long countDroppedReported = 0;
+        while (true) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                if (isClosed) break;
+                isWaiting = true;
+                if (queue.isEmpty() && !isClosed) // Check again, to not miss an unpark
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                isWaiting = false;
+                continue;
+            }
+            // Batch: everything that is queued right now
+            do {
+                countQueued.decrementAndGet();
+                for (Sink sink : sinks) {
+                    try {
+                        sink.accept(entry);
+                    } catch (Throwable e) {
+                        // Do not log here, since that would end up in here again
+                    }
+                }
+            } while ((entry = queue.poll()) != null);
+            for (Sink sink : sinks) {
+                try {
+                    sink.onBatchEnd();
+                } catch (Throwable e) {
+                    // Do not log here, since that would end up in here again
+                }
+            }
+            long dropped = countDropped.get();
+            if (dropped != countDroppedReported) {
+                AL.warn("Log pipeline was too slow and skipped " + (dropped - countDroppedReported) + " messages.");
+                countDroppedReported = dropped;
+            }
+        }
+    }
+
+    /**
+     * Handles the remaining queued messages and stops the thread.
+     *
+     * @param msTimeout max time to wait for the remaining messages.
+     */
+    public void close(long msTimeout) throws InterruptedException {
+        isClosed = true;
+        AL.actionsOnMessageEvent.remove(onMessageEvent);
+        LockSupport.unpark(thread);
+        if (thread.isAlive()) thread.join(msTimeout);
+    }
+
+    /**
+     * @return the amount of messages that were dropped, because more than {@link #MAX_QUEUED} were queued.
+     */
+    public long getCountDropped() {
+        return countDropped.get();
+    }
+
+    public int getCountQueued() {
+        return countQueued.get();
+    }
+
+    /**
+     * Receives all log messages in the pipelines thread.
+     */
+    public interface Sink {
+        void accept(@NotNull Entry entry) throws Exception;
+
+        /**
+         * Called after each batch of messages, for example to flush.
+         */
+        default void onBatchEnd() throws Exception {
+        }
+    }
+
+    /**
+     * A log message, whose formatted strings are created on first use and shared by all sinks.
+     */
+    public static class Entry {
+        private final Message message;
+        private final boolean isUnstored;
+        private String ansi;
+        private String plain;
+
+        private Entry(Message message, boolean isUnstored) {
+            this.message = message;
+            this.isUnstored = isUnstored;
+        }
+
+        @NotNull
+        public Message getMessage() {
+            return message;
+        }
+
+        /**
+         * @return the message formatted for the terminal, with ANSI colors.
+         */
+        @NotNull
+        public String getAnsi() {
+            if (ansi == null) ansi = MessageFormatter.formatForAnsiConsole(message);
+            return ansi;
+        }
+
+        /**
+         * @return the message formatted like in the log file, without ANSI colors.
+         */
+        @NotNull
+        public String getPlain() {
+            if (plain == null) plain = MessageFormatter.formatForFile(message);
+            return plain;
+        }
+
+        public boolean isDebug() {
+            return message.getType() == Message.Type.DEBUG;
+        }
+
+        /**
+         * @return true if this message was logged via {@link #infoUnstored(String)}, thus sinks that store lines should skip it.
+         */
+        public boolean isUnstored() {
+            return isUnstored;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes messages in batches, instead of flushing after each message, which would be one syscall
+ * (and one TLS record for sockets) per message. <br>
+ * Messages are queued and written by a separate thread, which flushes once the batch reached {@link #maxBatchChars},
+ * after at most {@link #msMaxLatency} since the first queued message, or right away for urgent messages.
+ * The order of the messages is kept. <br>
+ * If the underlying writer is too slow and more than {@link #maxPendingChars} are queued,
+ * the oldest queued messages are dropped and counted. A notice about the dropped messages is written instead.
+ * Never blocks the caller.
+ */
+public class CoalescingWriter implements Closeable {
+    private final Writer out;
+    private final int maxBatchChars;
+    private final int maxPendingChars;
+    private final long msMaxLatency;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private final AtomicLong countDropped = new AtomicLong();
+    private final AtomicLong countFlushes = new AtomicLong();
+    private final Thread thread;
+    private final StringBuilder batch = new StringBuilder();
+    private int pendingChars;
+    private long countDroppedUnreported;
+    private long msFirstPending;
+    private boolean isUrgent;
+    private boolean isClosed;
+
+    /**
+     * Uses a 20ms max latency, 8k chars batches and drops messages if more than 1M chars are pending.
+     */
+    public CoalescingWriter(@NotNull Writer out, @NotNull String name) {
+        this(out, name, 8192, 1024 * 1024, 20);
+    }
+
+    /**
+     * @param maxBatchChars   flushes once this amount of chars is queued.
+     * @param maxPendingChars drops the oldest messages once more than this amount of chars is queued.
+     * @param msMaxLatency    flushes once the first queued message waited this long.
+     */
+    public CoalescingWriter(@NotNull Writer out, @NotNull String name, int maxBatchChars, int maxPendingChars, long msMaxLatency) {
+        this.out = out;
+        this.maxBatchChars = maxBatchChars;
+        this.maxPendingChars = maxPendingChars;
+        this.msMaxLatency = msMaxLatency;
+        this.thread = new Thread(this::run, "AutoPlug-Coalescer-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the message. A line break is appended, if the message contains none.
+     *
+     * @param isUrgent if true, the queued messages are flushed right away.
+     * @return false if this writer is closed.
+     */
+    public boolean write(@NotNull String message, boolean isUrgent) {
+        if (!message.contains(System.lineSeparator())) message = message + "\n";
+        synchronized (this) {
+            if (isClosed) return false;
+            if (pending.isEmpty()) msFirstPending = System.currentTimeMillis();
+            pending.addLast(message);
+            pendingChars += message.length();
+            while (pendingChars > maxPendingChars && pending.size() > 1) {
+                pendingChars -= pending.removeFirst().length();
+                countDropped.incrementAndGet();
+                countDroppedUnreported++;
+            }
+            if (isUrgent) this.isUrgent = true;
+            if (isUrgent || pendingChars >= maxBatchChars || pending.size() == 1) notifyAll();
+        }
+        return true;
+    }
+
+    public boolean write(@NotNull String message) {
+        return write(message, false);
+    }
+
+    private void run() {
+        while (true) {
+            int countBatch = 0;
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && !isClosed) {
+                        wait();
+                    }
+                    // Wait for more messages, until the batch is full, urgent or the latency exceeded
+                    long msWait;
+                    while (!isClosed && !isUrgent && pendingChars < maxBatchChars
+                            && (msWait = msFirstPending + msMaxLatency - System.currentTimeMillis()) > 0) {
+                        wait(msWait);
+                    }
+                } catch (InterruptedException e) {
+                    isClosed = true;
+                }
+                if (pending.isEmpty() && isClosed) break;
+                batch.setLength(0);
+                if (countDroppedUnreported > 0) {
+                    batch.append("[AutoPlug] Skipped ").append(countDroppedUnreported)
+                            .append(" messages, because the connection was too slow.\n");
+                    countDroppedUnreported = 0;
+                }
+                String message;
+                while ((message = pending.pollFirst()) != null) {
+                    batch.append(message);
+                    countBatch++;
+                }
+                pendingChars = 0;
+                isUrgent = false;
+            }
+            try {
+                out.write(batch.toString());
+                out.flush();
+                countFlushes.incrementAndGet();
+            } catch (Exception e) {
+                // Do not log here, since this might be the logs destination
+                countDropped.addAndGet(countBatch);
+            }
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Writes the queued messages and closes the underlying writer. Returns immediately.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            isClosed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return the amount of messages that were dropped, because the underlying writer was too slow or failed.
+     */
+    public long getCountDropped() {
+        return countDropped.get();
+    }
+
+    /**
+     * @return the amount of batches written (and flushed) to the underlying writer.
+     */
+    public long getCountFlushes() {
+        return countFlushes.get();
+    }
+
+    @NotNull
+    public Thread getThread() {
+        return thread;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes commands into the servers stdin from a single thread, so that the submitting threads
+ * (online console, plugin commands, restarter, terminal, tray) never block on a full pipe. <br>
+ * Commands are queued in a lock-free queue and written in batches, with one flush per batch.
+ * Since there is a single queue, the commands of each source are written in the order they were submitted. <br>
+ * Backpressure: at most {@link #maxQueued} commands are queued in total and at most {@link #maxQueuedPerSource}
+ * per source, so that a flood from one source cannot starve the others.
+ * Further submissions are rejected, or delayed for a given time, see {@link #submit(String, String, long)}.
+ */
+public class CommandWriter implements Closeable {
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+    public static final int DEFAULT_MAX_QUEUED_PER_SOURCE = 256;
+
+    private final OutputStream out;
+    private final int maxQueued;
+    private final int maxQueuedPerSource;
+    private final ConcurrentLinkedQueue<Command> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger countQueued = new AtomicInteger();
+    private final Map<String, AtomicInteger> countQueuedPerSource = new ConcurrentHashMap<>();
+    private final AtomicLong countWritten = new AtomicLong();
+    private final AtomicLong countRejected = new AtomicLong();
+    private final AtomicLong countFlushes = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean isWaiting;
+    private volatile boolean isClosed;
+
+    /**
+     * Queues at most {@link #DEFAULT_MAX_QUEUED} commands, and {@link #DEFAULT_MAX_QUEUED_PER_SOURCE} per source.
+     */
+    public CommandWriter(@NotNull OutputStream out) {
+        this(out, DEFAULT_MAX_QUEUED, DEFAULT_MAX_QUEUED_PER_SOURCE);
+    }
+
+    public CommandWriter(@NotNull OutputStream out, int maxQueued, int maxQueuedPerSource) {
+        this.out = out;
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerSource = maxQueuedPerSource;
+        this.thread = new Thread(this::run, "AutoPlug-CommandWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the command without blocking. A line break is appended, if the command contains none,
+     * since the server does not execute it otherwise.
+     *
+     * @param source for example "online-console", used to limit and report the queued commands per source.
+     * @return false if rejected, because too many commands are queued or this writer is closed.
+     */
+    public boolean submit(@NotNull String command, @NotNull String source) {
+        if (tryEnqueue(command, source)) return true;
+        countRejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Same as {@link #submit(String, String)}, but retries for up to the given time if too many commands are queued,
+     * for commands that must not get lost, like the stop command.
+     */
+    public boolean submit(@NotNull String command, @NotNull String source, long msMaxWait) throws InterruptedException {
+        long msEnd = System.currentTimeMillis() + msMaxWait;
+        while (!tryEnqueue(command, source)) {
+            if (isClosed || System.currentTimeMillis() >= msEnd) {
+                countRejected.incrementAndGet();
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Does not count rejections, so that retries are only counted once.
+     */
+    private boolean tryEnqueue(@NotNull String command, @NotNull String source) {
+        if (isClosed) return false;
+        AtomicInteger countOfSource = countQueuedPerSource.computeIfAbsent(source, k -> new AtomicInteger());
+        if (countOfSource.incrementAndGet() > maxQueuedPerSource) {
+            countOfSource.decrementAndGet();
+            return false;
+        }
+        if (countQueued.incrementAndGet() > maxQueued) {
+            countQueued.decrementAndGet();
+            countOfSource.decrementAndGet();
+            return false;
+        }
+        if (!command.contains(System.lineSeparator())) command = command + System.lineSeparator();
+        queue.add(new Command(command.getBytes(StandardCharsets.UTF_8), countOfSource));
+        if (isWaiting) LockSupport.unpark(thread);
+        return true;
+    }
+
+    private void run() {
+        while (true) {
+            Command command = queue.poll();
+            if (command == null) {
+                if (isClosed) break;
+                isWaiting = true;
+                if (queue.isEmpty() && !isClosed) // Check again, to not miss an unpark
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                isWaiting = false;
+                continue;
+            }
+            try {
+                // Batch: everything that is queued right now, with a single flush
+                do {
+                    countQueued.decrementAndGet();
+                    command.countOfSource.decrementAndGet();
+                    out.write(command.bytes);
+                    countWritten.incrementAndGet();
+                } while ((command = queue.poll()) != null);
+                out.flush();
+                countFlushes.incrementAndGet();
+            } catch (IOException e) {
+                if (!isClosed) AL.warn("Failed to write commands to the server, it probably stopped.", e);
+                isClosed = true;
+                discardQueued();
+                break;
+            }
+        }
+    }
+
+    private void discardQueued() {
+        Command command;
+        while ((command = queue.poll()) != null) {
+            countQueued.decrementAndGet();
+            command.countOfSource.decrementAndGet();
+        }
+    }
+
+    /**
+     * Discards the queued commands and stops the thread. Further submissions are rejected.
+     * Does not close the underlying stream.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        LockSupport.unpark(thread);
+        discardQueued();
+    }
+
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    public int getCountQueued() {
+        return countQueued.get();
+    }
+
+    public int getCountQueued(@NotNull String source) {
+        AtomicInteger count = countQueuedPerSource.get(source);
+        return count == null ? 0 : count.get();
+    }
+
+    public long getCountWritten() {
+        return countWritten.get();
+    }
+
+    public long getCountRejected() {
+        return countRejected.get();
+    }
+
+    public long getCountFlushes() {
+        return countFlushes.get();
+    }
+
+    private static class Command {
+        private final byte[] bytes;
+        private final AtomicInteger countOfSource;
+
+        private Command(byte[] bytes, AtomicInteger countOfSource) {
+            this.bytes = bytes;
+            this.countOfSource = countOfSource;
+        }
+    }
+}
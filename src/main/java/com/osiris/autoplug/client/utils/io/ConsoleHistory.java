@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recent console lines (AutoPlug and server), so that clients like the online console
+ * get the last lines instantly on connect, without re-reading the log files. <br>
+ * The lines are stored UTF-8 encoded and length-prefixed in a single ring of bytes, bounded by {@link #getMaxBytes()}.
+ * Lines that get evicted from memory are appended to a file in the same format,
+ * with an index of every {@link #INDEX_INTERVAL}th line, so that older pages can be read via {@link #getPage(long, int)},
+ * for example by the '.logs history' command. <br>
+ * Each line has a sequence number, starting at 0, that stays the same for the lifetime of this history.
+ */
+public class ConsoleHistory {
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+    public static final int INDEX_INTERVAL = 256;
+    /**
+     * Once the file exceeds this size, it gets started over.
+     */
+    public static final long MAX_SPILL_BYTES = 64L * 1024 * 1024;
+    /**
+     * Adds AutoPlugs log messages, formatted like in the terminal. Debug messages only if debug is enabled.
+     * Lines shown from the history itself are skipped, see {@link AsyncLogPipeline#infoUnstored(String)}.
+     */
+    public static final AsyncLogPipeline.Sink logSink = entry -> {
+        if ((entry.isDebug() && !AL.isDebugEnabled) || entry.isUnstored()) return;
+        get().add(entry.getAnsi());
+    };
+    private static ConsoleHistory instance;
+
+    @Nullable
+    private final File spillFile;
+    private byte[] data;
+    /**
+     * Position of the oldest line in {@link #data}.
+     */
+    private int tail;
+    /**
+     * Position where the next line gets written in {@link #data}.
+     */
+    private int head;
+    private int usedBytes;
+    /**
+     * Sequence of the oldest line in memory.
+     */
+    private long firstSeq;
+    private long nextSeq;
+    @Nullable
+    private DataOutputStream spillOut;
+    private boolean isSpillFailed;
+    private long spillBytes;
+    private long spillFirstSeq;
+    private long[] spillIndex = new long[64];
+
+    /**
+     * @param spillFile where evicted lines get stored. Null to discard them instead.
+     */
+    public ConsoleHistory(int maxBytes, @Nullable File spillFile) {
+        if (maxBytes < 64) throw new IllegalArgumentException("Max bytes must be at least 64!");
+        this.data = new byte[maxBytes];
+        this.spillFile = spillFile;
+        if (spillFile != null && spillFile.exists()) spillFile.delete(); // From a previous session
+    }
+
+    @NotNull
+    public static synchronized ConsoleHistory get() {
+        if (instance == null)
+            instance = new ConsoleHistory(DEFAULT_MAX_BYTES,
+                    new File(GD.WORKING_DIR + "/autoplug/logs/console-history.bin"));
+        return instance;
+    }
+
+    public synchronized void add(@NotNull String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + 4 > data.length) bytes = Arrays.copyOf(bytes, data.length - 4);
+        int needed = bytes.length + 4;
+        while (data.length - usedBytes < needed) {
+            evictOldest();
+        }
+        writeInt(head, bytes.length);
+        writeBytes((head + 4) % data.length, bytes);
+        head = (head + needed) % data.length;
+        usedBytes += needed;
+        nextSeq++;
+    }
+
+    /**
+     * Changes the amount of memory used for lines. Lines that do not fit anymore get evicted.
+     */
+    public synchronized void setMaxBytes(int maxBytes) {
+        if (maxBytes < 64) throw new IllegalArgumentException("Max bytes must be at least 64!");
+        if (maxBytes == data.length) return;
+        List<String> lines = new ArrayList<>();
+        readMemory(firstSeq, nextSeq, lines);
+        data = new byte[maxBytes];
+        head = 0;
+        tail = 0;
+        usedBytes = 0;
+        nextSeq = firstSeq;
+        for (String line : lines) {
+            add(line);
+        }
+    }
+
+    /**
+     * @return the last lines in memory, oldest first. Never reads from disk.
+     */
+    @NotNull
+    public synchronized List<String> getLast(int count) {
+        List<String> lines = new ArrayList<>(Math.min(count, (int) (nextSeq - firstSeq)));
+        readMemory(Math.max(firstSeq, nextSeq - count), nextSeq, lines);
+        return lines;
+    }
+
+    /**
+     * @param fromSeq sequence of the first line, see {@link #getFirstSeq()} and {@link #getNextSeq()}.
+     * @return up to count lines starting at fromSeq, oldest first. Lines older than
+     * {@link #getFirstSeq()} are not available anymore and thus skipped.
+     */
+    @NotNull
+    public synchronized List<String> getPage(long fromSeq, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long from = Math.max(fromSeq, getFirstSeq());
+        long to = Math.min(fromSeq + count, nextSeq);
+        if (from >= to) return lines;
+        if (from < firstSeq) {
+            readSpill(from, Math.min(to, firstSeq), lines);
+            from = firstSeq;
+        }
+        readMemory(from, to, lines);
+        return lines;
+    }
+
+    /**
+     * @return sequence of the oldest available line, either in memory or on disk.
+     */
+    public synchronized long getFirstSeq() {
+        return spillOut != null ? spillFirstSeq : firstSeq;
+    }
+
+    /**
+     * @return sequence of the oldest line in memory.
+     */
+    public synchronized long getFirstSeqInMemory() {
+        return firstSeq;
+    }
+
+    /**
+     * @return sequence the next added line will get, which equals the total amount of added lines.
+     */
+    public synchronized long getNextSeq() {
+        return nextSeq;
+    }
+
+    public synchronized int getMaxBytes() {
+        return data.length;
+    }
+
+    public synchronized int getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void evictOldest() {
+        int length = readInt(tail);
+        if (spillFile != null && !isSpillFailed) {
+            spill(readBytes((tail + 4) % data.length, length));
+        }
+        tail = (tail + 4 + length) % data.length;
+        usedBytes -= 4 + length;
+        firstSeq++;
+    }
+
+    private void spill(byte[] bytes) {
+        try {
+            if (spillOut == null || spillBytes > MAX_SPILL_BYTES) {
+                if (spillOut != null) spillOut.close();
+                spillFile.getParentFile().mkdirs();
+                spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile, false)));
+                spillBytes = 0;
+                spillFirstSeq = firstSeq;
+            }
+            long index = firstSeq - spillFirstSeq;
+            if (index % INDEX_INTERVAL == 0) {
+                int i = (int) (index / INDEX_INTERVAL);
+                if (i >= spillIndex.length) spillIndex = Arrays.copyOf(spillIndex, spillIndex.length * 2);
+                spillIndex[i] = spillBytes;
+            }
+            spillOut.writeInt(bytes.length);
+            spillOut.write(bytes);
+            spillBytes += 4 + bytes.length;
+        } catch (IOException e) {
+            // Do not log here, since AutoPlugs log messages end up in here too.
+            // Only the lines in memory stay available.
+            isSpillFailed = true;
+            spillOut = null;
+        }
+    }
+
+    private void readSpill(long from, long to, List<String> lines) throws IOException {
+        if (spillOut == null) return;
+        spillOut.flush();
+        int i = (int) ((from - spillFirstSeq) / INDEX_INTERVAL);
+        long seq = spillFirstSeq + (long) i * INDEX_INTERVAL;
+        try (FileInputStream fileIn = new FileInputStream(spillFile)) {
+            fileIn.getChannel().position(spillIndex[i]);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn));
+            for (; seq < to; seq++) {
+                int length = in.readInt();
+                if (seq < from) {
+                    in.skipBytes(length);
+                } else {
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    lines.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    private void readMemory(long from, long to, List<String> lines) {
+        int pos = tail;
+        for (long seq = firstSeq; seq < to; seq++) {
+            int length = readInt(pos);
+            if (seq >= from)
+                lines.add(new String(readBytes((pos + 4) % data.length, length), StandardCharsets.UTF_8));
+            pos = (pos + 4 + length) % data.length;
+        }
+    }
+
+    private void writeInt(int pos, int value) {
+        for (int i = 0; i < 4; i++) {
+            data[(pos + i) % data.length] = (byte) (value >>> (24 - 8 * i));
+        }
+    }
+
+    private int readInt(int pos) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (data[(pos + i) % data.length] & 0xFF);
+        }
+        return value;
+    }
+
+    private void writeBytes(int pos, byte[] bytes) {
+        int first = Math.min(bytes.length, data.length - pos);
+        System.arraycopy(bytes, 0, data, pos, first);
+        System.arraycopy(bytes, first, data, 0, bytes.length - first);
+    }
+
+    private byte[] readBytes(int pos, int length) {
+        byte[] bytes = new byte[length];
+        int first = Math.min(length, data.length - pos);
+        System.arraycopy(data, pos, bytes, 0, first);
+        System.arraycopy(data, 0, bytes, first, length - first);
+        return bytes;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.osiris.autoplug.client.tasks.updater.search.SourceGuard;
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.jlib.json.exceptions.HttpErrorException;
+import com.osiris.jlib.json.exceptions.WrongJsonTypeException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a json response directly from the HTTP stream, token by token, instead of
+ * parsing the complete document into a tree first. <br>
+ * Only the requested fields of objects are materialized (projection), everything else gets skipped,
+ * and the connection can be closed as soon as the needed data was found (early termination).
+ * Thus memory and CPU usage scale with the fields we need and not with the response size. <br>
+ * Example: <br>
+ * <pre>
+ * try (JsonStream json = new JsonStream(url)) {
+ *     if (json.seek("data"))
+ *         json.forEach(JsonStream.fields("id", "fileName"), obj -> ...);
+ * }
+ * </pre>
+ */
+public class JsonStream implements AutoCloseable {
+    private final HttpURLConnection con;
+    private final JsonReader reader;
+
+    public JsonStream(@NotNull String url) throws IOException, HttpErrorException {
+        this(url, null);
+    }
+
+    /**
+     * Connects to the provided url and throws an exception if the status code is not 200.
+     *
+     * @param headers additional request headers, can be null.
+     */
+    public JsonStream(@NotNull String url, @Nullable Map<String, String> headers) throws IOException, HttpErrorException {
+        con = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            con.addRequestProperty("User-Agent", "AutoPlug-Client - Contact: " + GD.OFFICIAL_WEBSITE);
+            con.addRequestProperty("Accept", "application/json");
+            con.addRequestProperty("Accept-Encoding", "gzip");
+            if (headers != null) headers.forEach(con::addRequestProperty);
+            int code = SourceGuard.get().connect(con);
+            if (code != 200)
+                throw new HttpErrorException(code, con.getResponseMessage(), "Couldn't get the json file from: " + url);
+            InputStream in = con.getInputStream();
+            if ("gzip".equalsIgnoreCase(con.getContentEncoding())) in = new GZIPInputStream(in);
+            reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException | HttpErrorException | RuntimeException e) {
+            con.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the complete response into a tree, like the json library does,
+     * but with the timeouts of the host, see {@link SourceGuard#connect(HttpURLConnection)}.
+     */
+    @NotNull
+    public static JsonElement getAsJsonElement(@NotNull String url) throws IOException, HttpErrorException {
+        try (JsonStream json = new JsonStream(url)) {
+            return JsonParser.parseReader(json.reader);
+        } catch (JsonParseException e) {
+            throw new IOException("Couldn't parse the json file from: " + url, e);
+        }
+    }
+
+    @NotNull
+    public static JsonArray getAsJsonArray(@NotNull String url) throws IOException, HttpErrorException, WrongJsonTypeException {
+        JsonElement element = getAsJsonElement(url);
+        if (!element.isJsonArray())
+            throw new WrongJsonTypeException("Its not a json array! Check it out -> " + url);
+        return element.getAsJsonArray();
+    }
+
+    @NotNull
+    public static JsonObject getAsObject(@NotNull String url) throws IOException, HttpErrorException, WrongJsonTypeException {
+        JsonElement element = getAsJsonElement(url);
+        if (!element.isJsonObject())
+            throw new WrongJsonTypeException("Its not a json object! Check it out -> " + url);
+        return element.getAsJsonObject();
+    }
+
+    /**
+     * @return the objects of the json array.
+     */
+    @NotNull
+    public static List<JsonObject> getAsList(@NotNull String url) throws IOException, HttpErrorException, WrongJsonTypeException {
+        List<JsonObject> list = new ArrayList<>();
+        for (JsonElement element : getAsJsonArray(url)) {
+            list.add(element.getAsJsonObject());
+        }
+        return list;
+    }
+
+    /**
+     * @return a set containing the provided field names, to be used for projection.
+     */
+    @NotNull
+    public static Set<String> fields(@NotNull String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    /**
+     * @return the underlying reader, for anything not covered by this class.
+     */
+    @NotNull
+    public JsonReader getReader() {
+        return reader;
+    }
+
+    /**
+     * Skips fields of the current object, until the field with the provided name is found. <br>
+     * If the reader is positioned at the beginning of an object, enters that object first,
+     * thus multiple names can be provided to navigate into nested objects, for example: seek("data", "files").
+     *
+     * @return true if the reader is now positioned at the value of the last name,
+     * false if a name was not found or a value along the path is not an object.
+     */
+    public boolean seek(@NotNull String... path) throws IOException {
+        for (String name : path) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) reader.beginObject();
+            else if (reader.peek() != JsonToken.NAME) return false;
+            boolean isFound = false;
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(name)) {
+                    isFound = true;
+                    break;
+                }
+                reader.skipValue();
+            }
+            if (!isFound) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the object at the current position, but only keeps its top-level fields
+     * contained in the provided set. The values of those fields are kept completely.
+     *
+     * @return the projected object or null, if the value was json null.
+     */
+    @Nullable
+    public JsonObject readObject(@NotNull Set<String> fields) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        JsonObject obj = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (fields.contains(name)) obj.add(name, JsonParser.parseReader(reader));
+            else reader.skipValue();
+        }
+        reader.endObject();
+        return obj;
+    }
+
+    /**
+     * Iterates over the objects of the array at the current position, see {@link #readObject(Set)}.
+     * Only one object is held in memory at a time.
+     *
+     * @param onObject gets called for each object, return false to stop reading.
+     * @return true if the complete array was read, false if stopped early.
+     */
+    public boolean forEach(@NotNull Set<String> fields, @NotNull Predicate<JsonObject> onObject) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            JsonObject obj = readObject(fields);
+            if (obj != null && !onObject.test(obj)) return false;
+        }
+        reader.endArray();
+        return true;
+    }
+
+    /**
+     * Closes the connection, also if the response was not read completely.
+     */
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        } finally {
+            con.disconnect();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Single-producer, multi-consumer ring buffer for lines. <br>
+ * The producer only publishes lines, each {@link Sink} consumes them in its own thread at its own pace.
+ * Thus a slow sink (for example a network connection) does not slow down the producer or the other sinks. <br>
+ * What happens when a sink falls behind by more than the capacity, depends on its {@link OverflowPolicy}.
+ */
+public class LineRingBuffer {
+    private static final long MS_DROP_WARNING_INTERVAL = 5000;
+    private final int capacity;
+    private final AtomicReferenceArray<String> slots;
+    /**
+     * Sequence of the line that is currently written. Set before the slot gets written,
+     * so that sinks can detect if the slot they just read was overwritten.
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+    /**
+     * Sequence of the last completely written line.
+     */
+    private final AtomicLong published = new AtomicLong(-1);
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private volatile Thread producer;
+    private volatile boolean isClosed;
+
+    /**
+     * @param capacity the maximum amount of lines a sink can fall behind.
+     */
+    public LineRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be greater than 0!");
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Adds a new sink, that receives all lines published from now on, in its own thread.
+     */
+    @NotNull
+    public Sink addSink(@NotNull String name, @NotNull OverflowPolicy policy, @NotNull Consumer<String> consumer) {
+        return addSink(name, policy, consumer, null);
+    }
+
+    /**
+     * See {@link #addSink(String, OverflowPolicy, Consumer)}.
+     *
+     * @param onCaughtUp if not null, runs in the sinks thread once it consumed all published lines,
+     *                   for example to flush the lines written by the consumer in one go.
+     */
+    @NotNull
+    public Sink addSink(@NotNull String name, @NotNull OverflowPolicy policy, @NotNull Consumer<String> consumer, @Nullable Runnable onCaughtUp) {
+        Sink sink = new Sink(name, policy, consumer, onCaughtUp);
+        sinks.add(sink);
+        sink.thread.start();
+        return sink;
+    }
+
+    /**
+     * Must only be called by a single thread. Returns immediately, unless a
+     * sink with the {@link OverflowPolicy#BLOCK} policy is full.
+     */
+    public void publish(@NotNull String line) {
+        if (isClosed) throw new IllegalStateException("Ring buffer is closed!");
+        long seq = published.get() + 1;
+        for (Sink sink : sinks) {
+            if (sink.policy != OverflowPolicy.BLOCK) continue;
+            while (seq - sink.next >= capacity && sink.thread.isAlive()) {
+                producer = Thread.currentThread();
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+        claimed.set(seq);
+        slots.set((int) (seq % capacity), line);
+        published.set(seq);
+        for (Sink sink : sinks) {
+            if (sink.isWaiting) LockSupport.unpark(sink.thread);
+        }
+    }
+
+    /**
+     * Sinks consume the remaining lines and stop afterwards.
+     */
+    public void close() {
+        isClosed = true;
+        for (Sink sink : sinks) {
+            LockSupport.unpark(sink.thread);
+        }
+    }
+
+    @NotNull
+    public List<Sink> getSinks() {
+        return sinks;
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * If the sink is full, the oldest lines it did not consume yet are dropped and counted, see {@link Sink#getCountDropped()}.
+         * The producer never waits.
+         */
+        DROP_OLDEST,
+        /**
+         * If the sink is full, the producer waits until the sink consumed a line.
+         */
+        BLOCK
+    }
+
+    public class Sink {
+        private final String name;
+        private final OverflowPolicy policy;
+        private final Consumer<String> consumer;
+        private final Runnable onCaughtUp;
+        private final Thread thread;
+        private final AtomicLong countDropped = new AtomicLong();
+        private volatile long next;
+        private volatile boolean isWaiting;
+        private volatile boolean isRemoved;
+        private long countDroppedUnreported;
+        private long msLastDropWarning;
+        private boolean isCaughtUp = true;
+
+        private Sink(String name, OverflowPolicy policy, Consumer<String> consumer, Runnable onCaughtUp) {
+            this.name = name;
+            this.policy = policy;
+            this.consumer = consumer;
+            this.onCaughtUp = onCaughtUp;
+            this.next = published.get() + 1;
+            this.thread = new Thread(this::run, "AutoPlug-Sink-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            while (!isRemoved) {
+                long seq = next;
+                if (seq > published.get()) {
+                    caughtUp();
+                    if (isClosed) break;
+                    isWaiting = true;
+                    if (seq > published.get() && !isClosed) // Check again, to not miss an unpark
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                    isWaiting = false;
+                    continue;
+                }
+                String line = slots.get((int) (seq % capacity));
+                long oldest = claimed.get() - capacity + 1;
+                if (seq < oldest) { // Was overwritten while reading, or before
+                    countDropped.addAndGet(oldest - seq);
+                    countDroppedUnreported += oldest - seq;
+                    next = oldest;
+                    continue;
+                }
+                reportDropped();
+                try {
+                    consumer.accept(line);
+                } catch (Throwable e) {
+                    AL.warn("Error in sink '" + name + "' while consuming line: " + line, e);
+                }
+                isCaughtUp = false;
+                next = seq + 1;
+                Thread p = producer;
+                if (p != null && policy == OverflowPolicy.BLOCK) LockSupport.unpark(p);
+            }
+            reportDropped();
+        }
+
+        private void caughtUp() {
+            if (isCaughtUp) return;
+            isCaughtUp = true;
+            if (onCaughtUp == null) return;
+            try {
+                onCaughtUp.run();
+            } catch (Throwable e) {
+                AL.warn("Error in sink '" + name + "' after consuming lines.", e);
+            }
+        }
+
+        private void reportDropped() {
+            if (countDroppedUnreported == 0) return;
+            long now = System.currentTimeMillis();
+            if (now - msLastDropWarning < MS_DROP_WARNING_INTERVAL) return;
+            AL.warn("Sink '" + name + "' was too slow and skipped " + countDroppedUnreported + " lines (" + countDropped.get() + " in total).");
+            countDroppedUnreported = 0;
+            msLastDropWarning = now;
+        }
+
+        /**
+         * Stops this sink. Lines that were not consumed yet are discarded.
+         */
+        public void remove() {
+            isRemoved = true;
+            sinks.remove(this);
+            LockSupport.unpark(thread);
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the total amount of lines this sink skipped, because it was too slow.
+         */
+        public long getCountDropped() {
+            return countDropped.get();
+        }
+
+        /**
+         * @return the amount of published lines this sink did not consume yet.
+         */
+        public long getLag() {
+            return Math.max(0, published.get() + 1 - next);
+        }
+
+        @NotNull
+        public Thread getThread() {
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rotates log files into an archive directory and gzips them in a background thread,
+ * so that the startup does not wait for the compression. <br>
+ * Does not log anything itself, since it is used before the logger is started.
+ * Failures are printed to {@link System#err}.
+ */
+public class LogArchiver {
+    private final File archiveDir;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "AutoPlug-LogCompressor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public LogArchiver(@NotNull File archiveDir) {
+        this.archiveDir = archiveDir;
+    }
+
+    /**
+     * Moves the file into the archive directory, with the date of its last modification in its name,
+     * and compresses it in the background. Does nothing if the file does not exist or is empty.
+     */
+    public void archive(@NotNull File file) {
+        try {
+            if (!file.exists() || file.length() == 0) return;
+            archiveDir.mkdirs();
+            String name = file.getName();
+            int iExt = name.lastIndexOf('.');
+            String baseName = iExt > 0 ? name.substring(0, iExt) : name;
+            String date = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date(file.lastModified()));
+            File dest = new File(archiveDir, baseName + "-" + date + ".log");
+            for (int i = 1; dest.exists() || new File(dest + ".gz").exists(); i++) {
+                dest = new File(archiveDir, baseName + "-" + date + "-" + i + ".log");
+            }
+            Files.move(file.toPath(), dest.toPath());
+            compressLater(dest);
+        } catch (Exception e) {
+            System.err.println("Failed to archive log file " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Compresses all uncompressed logs in the directory in the background, that were not modified within the given time.
+     * For example rotated server logs, or archived logs whose compression was interrupted.
+     *
+     * @param excludedNames file names that are never compressed, like the currently written "latest.log".
+     */
+    public void compressOldLogs(@NotNull File dir, long msMinAge, @NotNull String... excludedNames) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".log"));
+        if (files == null) return;
+        long msMaxLastModified = System.currentTimeMillis() - msMinAge;
+        for (File file : files) {
+            boolean isExcluded = false;
+            for (String excludedName : excludedNames) {
+                if (file.getName().equals(excludedName)) {
+                    isExcluded = true;
+                    break;
+                }
+            }
+            if (!isExcluded && file.isFile() && file.lastModified() < msMaxLastModified) compressLater(file);
+        }
+    }
+
+    /**
+     * Deletes archived logs older than the given amount of days.
+     */
+    public void deleteOlderThan(int days) {
+        File[] files = archiveDir.listFiles();
+        if (files == null) return;
+        long msMin = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+        for (File file : files) {
+            if (file.isFile() && file.lastModified() < msMin) file.delete();
+        }
+    }
+
+    /**
+     * Waits until the pending compressions finished. New ones cannot be added afterwards.
+     */
+    public void awaitCompression(long msTimeout) throws InterruptedException {
+        compressor.shutdown();
+        compressor.awaitTermination(msTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void compressLater(@NotNull File file) {
+        compressor.submit(() -> {
+            File gz = new File(file.getParentFile(), file.getName() + ".gz");
+            File tmp = new File(file.getParentFile(), file.getName() + ".gz.tmp");
+            try {
+                try (InputStream in = new FileInputStream(file);
+                     OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp), 65536)) {
+                    byte[] buffer = new byte[65536];
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                }
+                Files.move(tmp.toPath(), gz.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                gz.setLastModified(file.lastModified());
+                file.delete();
+            } catch (Exception e) {
+                tmp.delete();
+                System.err.println("Failed to compress log file " + file + ": " + e);
+            }
+        });
+    }
+}
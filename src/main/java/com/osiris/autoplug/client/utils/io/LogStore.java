@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.osiris.autoplug.client.utils.GD;
+import com.osiris.jlib.logger.AL;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores console lines in hourly, gzipped blocks, so that old lines can be searched quickly. <br>
+ * Each block has an index file with its time range and the set of case-folded trigrams (3 letters/digits)
+ * its lines contain, as a bitmap. A search only decompresses the blocks in the time range,
+ * that contain all trigrams of the searched text. <br>
+ * Lines of the current block are kept in memory and appended to an open file, which gets sealed
+ * into a block once the hour changes, or it gets too big. Blocks older than {@link #getMaxDays()} get deleted.
+ */
+public class LogStore {
+    public static final int MAX_BLOCK_LINES = 8192;
+    public static final int MAX_BLOCK_CHARS = 1024 * 1024;
+    private static final long MS_BUCKET = TimeUnit.HOURS.toMillis(1);
+    private static final int ALPHABET = 36;
+    private static final int COUNT_TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[;\\d]*[ -/]*[@-~]");
+    /**
+     * Adds AutoPlugs log messages, formatted like in the log file.
+     */
+    public static final AsyncLogPipeline.Sink logSink = new AsyncLogPipeline.Sink() {
+        @Override
+        public void accept(@NotNull AsyncLogPipeline.Entry entry) {
+            LogStore store = get();
+            if (store == null || (entry.isDebug() && !AL.isDebugEnabled)) return;
+            if (entry.isUnstored()) return;
+            store.add(entry.getPlain());
+        }
+
+        @Override
+        public void onBatchEnd() throws IOException {
+            LogStore store = get();
+            if (store != null) store.flush();
+        }
+    };
+    @Nullable
+    private static LogStore instance;
+
+    private final File dir;
+    private final File openFile;
+    private final int maxDays;
+    private final List<Block> blocks = new ArrayList<>();
+    /**
+     * Lines of the open block, each prefixed with its timestamp and a tab.
+     */
+    private final List<String> openLines = new ArrayList<>();
+    private BitSet openTrigrams = new BitSet(COUNT_TRIGRAMS);
+    private long openBucket = -1;
+    private int openChars;
+    @Nullable
+    private Writer openOut;
+    private boolean isFailed;
+    private boolean isClosed;
+
+    public LogStore(@NotNull File dir, int maxDays) throws IOException {
+        this.dir = dir;
+        this.openFile = new File(dir, "open.log");
+        this.maxDays = maxDays;
+        dir.mkdirs();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".idx"));
+        if (files != null)
+            for (File file : files) {
+                try {
+                    blocks.add(readBlock(file));
+                } catch (Exception e) {
+                    AL.warn("Skipped damaged log store block: " + file, e);
+                }
+            }
+        blocks.sort(Comparator.comparingLong(b -> b.msFirst));
+        recoverOpenFile();
+        deleteOldBlocks();
+    }
+
+    /**
+     * @return the global log store, or null if it was not started (disabled in the logger config).
+     */
+    @Nullable
+    public static synchronized LogStore get() {
+        return instance;
+    }
+
+    /**
+     * Starts the global log store at /autoplug/logs/store, which receives AutoPlugs log messages from now on.
+     * Server output gets added by the server.
+     */
+    public static synchronized void start(int maxDays) throws IOException {
+        if (instance != null) return;
+        instance = new LogStore(new File(GD.WORKING_DIR + "/autoplug/logs/store"), maxDays);
+        AsyncLogPipeline.get().addSink(logSink);
+    }
+
+    /**
+     * Adds all trigrams of the text, except the ones containing other chars than ASCII letters and digits.
+     */
+    private static void addTrigrams(@NotNull CharSequence text, @NotNull BitSet trigrams) {
+        int trigram = 0, countValid = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int code = code(text.charAt(i));
+            if (code < 0) {
+                countValid = 0;
+                continue;
+            }
+            trigram = (trigram * ALPHABET + code) % COUNT_TRIGRAMS;
+            if (++countValid >= 3) trigrams.set(trigram);
+        }
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        if (c >= '0' && c <= '9') return 26 + c - '0';
+        return -1;
+    }
+
+    private static long timestampOf(@NotNull String storedLine) {
+        int i = storedLine.indexOf('\t');
+        try {
+            return Long.parseLong(storedLine.substring(0, i));
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    public void add(@NotNull String line) {
+        add(System.currentTimeMillis(), line);
+    }
+
+    /**
+     * Lines containing line breaks are stored as separate lines.
+     */
+    public synchronized void add(long msTimestamp, @NotNull String line) {
+        if (isFailed || isClosed) return;
+        if (line.indexOf('\u001B') >= 0) line = ANSI.matcher(line).replaceAll("");
+        try {
+            long bucket = msTimestamp / MS_BUCKET;
+            if (!openLines.isEmpty() && (bucket != openBucket || openLines.size() >= MAX_BLOCK_LINES || openChars >= MAX_BLOCK_CHARS))
+                seal();
+            openBucket = bucket;
+            if (openOut == null)
+                openOut = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(openFile, true), StandardCharsets.UTF_8));
+            for (String s : line.split("\\r?\\n")) {
+                String stored = msTimestamp + "\t" + s;
+                openLines.add(stored);
+                openChars += stored.length();
+                addTrigrams(s, openTrigrams);
+                openOut.write(stored);
+                openOut.write('\n');
+            }
+        } catch (IOException e) {
+            // Do not log here, since AutoPlugs log messages end up in here too
+            isFailed = true;
+        }
+    }
+
+    /**
+     * @param text      case-insensitive text the lines must contain.
+     * @param msSince   only lines that were added after this timestamp.
+     * @param maxResults only the most recent matches get returned.
+     */
+    @NotNull
+    public Result search(@NotNull String text, long msSince, int maxResults) throws IOException {
+        long msStart = System.currentTimeMillis();
+        BitSet queryTrigrams = new BitSet(COUNT_TRIGRAMS);
+        addTrigrams(text, queryTrigrams);
+        List<Block> blocks;
+        List<String> openLines;
+        synchronized (this) {
+            if (openOut != null) openOut.flush();
+            blocks = new ArrayList<>(this.blocks);
+            openLines = new ArrayList<>(this.openLines);
+        }
+        Result result = new Result(maxResults);
+        for (Block block : blocks) {
+            if (block.msLast < msSince) continue;
+            result.countBlocks++;
+            BitSet missing = (BitSet) queryTrigrams.clone();
+            missing.andNot(block.trigrams);
+            if (!missing.isEmpty()) continue;
+            result.countBlocksScanned++;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(block.file), 65536), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    result.check(line, text, msSince);
+                }
+            } catch (FileNotFoundException e) {
+                // Deleted in the meantime, because too old
+            }
+        }
+        for (String line : openLines) {
+            result.check(line, text, msSince);
+        }
+        result.msDuration = System.currentTimeMillis() - msStart;
+        return result;
+    }
+
+    /**
+     * Writes the buffered lines of the open block to disk.
+     */
+    public synchronized void flush() throws IOException {
+        if (openOut != null) openOut.flush();
+    }
+
+    public synchronized void close() throws IOException {
+        if (openOut != null) openOut.close();
+        openOut = null;
+        isClosed = true;
+    }
+
+    public int getMaxDays() {
+        return maxDays;
+    }
+
+    public synchronized int getCountBlocks() {
+        return blocks.size();
+    }
+
+    private void seal() throws IOException {
+        if (openOut != null) openOut.close();
+        openOut = null;
+        long msFirst = timestampOf(openLines.get(0));
+        long msLast = timestampOf(openLines.get(openLines.size() - 1));
+        String name = String.valueOf(msFirst);
+        for (int i = 1; new File(dir, name + ".log.gz").exists(); i++) {
+            name = msFirst + "-" + i;
+        }
+        File file = new File(dir, name + ".log.gz");
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file), 65536), StandardCharsets.UTF_8)) {
+            for (String line : openLines) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+        Block block = new Block(file, msFirst, msLast, openLines.size(), openTrigrams);
+        // Written last, since blocks without index file are ignored
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(new File(dir, name + ".idx"))))) {
+            out.writeLong(block.msFirst);
+            out.writeLong(block.msLast);
+            out.writeInt(block.countLines);
+            long[] bits = block.trigrams.toLongArray();
+            out.writeInt(bits.length);
+            for (long l : bits) {
+                out.writeLong(l);
+            }
+        }
+        blocks.add(block);
+        openLines.clear();
+        openTrigrams = new BitSet(COUNT_TRIGRAMS);
+        openChars = 0;
+        openFile.delete();
+        deleteOldBlocks();
+    }
+
+    @NotNull
+    private Block readBlock(@NotNull File idxFile) throws IOException {
+        String name = idxFile.getName().substring(0, idxFile.getName().length() - ".idx".length());
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(idxFile)))) {
+            long msFirst = in.readLong();
+            long msLast = in.readLong();
+            int countLines = in.readInt();
+            long[] bits = new long[in.readInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new Block(new File(dir, name + ".log.gz"), msFirst, msLast, countLines, BitSet.valueOf(bits));
+        }
+    }
+
+    /**
+     * Seals the lines of the open file from the last session, which might have ended abruptly.
+     */
+    private void recoverOpenFile() throws IOException {
+        if (!openFile.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(openFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int i = line.indexOf('\t');
+                if (i <= 0 || timestampOf(line) == 0) continue; // Partially written
+                openLines.add(line);
+                addTrigrams(line.substring(i + 1), openTrigrams);
+            }
+        }
+        if (openLines.isEmpty()) openFile.delete();
+        else seal();
+    }
+
+    private void deleteOldBlocks() {
+        long msMin = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxDays);
+        Iterator<Block> it = blocks.iterator();
+        while (it.hasNext()) {
+            Block block = it.next();
+            if (block.msLast >= msMin) continue;
+            String name = block.file.getName().substring(0, block.file.getName().length() - ".log.gz".length());
+            new File(dir, name + ".idx").delete();
+            block.file.delete();
+            it.remove();
+        }
+    }
+
+    private static class Block {
+        private final File file;
+        private final long msFirst;
+        private final long msLast;
+        private final int countLines;
+        private final BitSet trigrams;
+
+        private Block(File file, long msFirst, long msLast, int countLines, BitSet trigrams) {
+            this.file = file;
+            this.msFirst = msFirst;
+            this.msLast = msLast;
+            this.countLines = countLines;
+            this.trigrams = trigrams;
+        }
+    }
+
+    public static class Result {
+        private final int maxResults;
+        private final ArrayDeque<String> matches = new ArrayDeque<>();
+        private int countMatches;
+        private int countBlocks;
+        private int countBlocksScanned;
+        private long msDuration;
+
+        private Result(int maxResults) {
+            this.maxResults = maxResults;
+        }
+
+        private void check(String storedLine, String text, long msSince) {
+            int i = storedLine.indexOf('\t');
+            if (i < 0 || !StringUtils.containsIgnoreCase(storedLine.substring(i + 1), text)
+                    || timestampOf(storedLine) < msSince) return;
+            countMatches++;
+            matches.addLast(storedLine);
+            if (matches.size() > maxResults) matches.removeFirst();
+        }
+
+        /**
+         * @return the most recent matching lines, oldest first.
+         */
+        @NotNull
+        public List<String> getLines() {
+            List<String> lines = new ArrayList<>(matches.size());
+            for (String line : matches) {
+                lines.add(line.substring(line.indexOf('\t') + 1));
+            }
+            return lines;
+        }
+
+        /**
+         * @return the timestamps of the lines returned by {@link #getLines()}.
+         */
+        @NotNull
+        public List<Long> getTimestamps() {
+            List<Long> timestamps = new ArrayList<>(matches.size());
+            for (String line : matches) {
+                timestamps.add(timestampOf(line));
+            }
+            return timestamps;
+        }
+
+        /**
+         * @return the total amount of matching lines, which might be more than {@link #getLines()}.
+         */
+        public int getCountMatches() {
+            return countMatches;
+        }
+
+        /**
+         * @return the amount of blocks in the time range.
+         */
+        public int getCountBlocks() {
+            return countBlocks;
+        }
+
+        /**
+         * @return the amount of blocks that had to be decompressed, because they might contain the text.
+         */
+        public int getCountBlocksScanned() {
+            return countBlocksScanned;
+        }
+
+        public long getMsDuration() {
+            return msDuration;
+        }
+    }
+}
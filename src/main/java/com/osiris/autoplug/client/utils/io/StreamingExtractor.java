@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import com.osiris.autoplug.client.utils.DebugLog;
+import com.osiris.autoplug.client.utils.UtilsByte;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Extracts a zip or tar.gz archive directly from a stream (for example a HTTP response body)
+ * into a directory, without writing the archive itself to disk. <br>
+ * The SHA-256 hash is calculated over the original (compressed) stream, thus it can be
+ * compared with the checksum of the archive provided by the download API, once {@link #extract(InputStream, ReadListener)} returns. <br>
+ * Entries that would end up outside the destination directory (path traversal, like "../../evil.jar")
+ * cause an {@link IOException} and abort the extraction. <br>
+ * Since that check only looks at the path, it is not allowed to write through symbolic links (for example "link/evil.jar")
+ * and symbolic links may not point through other symbolic links, otherwise a chain of links could escape the directory.
+ */
+public class StreamingExtractor {
+    private final File destDir;
+    private final Path destPath;
+    private final boolean isTarGz;
+    private final MessageDigest digest;
+    private long readBytes;
+    private int countEntries;
+    private String hash;
+
+    /**
+     * @param destDir the directory to extract into. Gets created if needed.
+     * @param isTarGz true if the archive is a tar.gz, false if its a zip.
+     */
+    public StreamingExtractor(@NotNull File destDir, boolean isTarGz) throws NoSuchAlgorithmException {
+        this.destDir = destDir;
+        this.destPath = destDir.toPath().toAbsolutePath().normalize();
+        this.isTarGz = isTarGz;
+        this.digest = MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+     * Reads the provided stream until its end and extracts all entries into the destination directory.
+     * Does not close the provided stream.
+     *
+     * @param listener if not null, gets notified about each chunk of bytes read from the original stream.
+     */
+    public void extract(@NotNull InputStream in, @Nullable ReadListener listener) throws IOException {
+        Files.createDirectories(destPath);
+        InputStream raw = new HashingInputStream(in, listener);
+        byte[] buffer = new byte[8192];
+        try (ArchiveInputStream archive = isTarGz
+                ? new TarArchiveInputStream(new GzipCompressorInputStream(raw))
+                : new ZipArchiveInputStream(raw, "UTF-8", true, true)) {
+            extractEntries(archive, buffer);
+        }
+        // Drain the rest (for example the zips central directory),
+        // so that the hash covers the complete archive
+        while (raw.read(buffer) != -1) ;
+        hash = UtilsByte.encode(digest.digest()).toLowerCase();
+    }
+
+    private void extractEntries(@NotNull ArchiveInputStream archive, byte[] buffer) throws IOException {
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            if (!archive.canReadEntryData(entry)) {
+                DebugLog.debug(this.getClass(), "Skipped unsupported archive entry: {}", entry.getName());
+                continue;
+            }
+            Path target = resolve(destPath, entry.getName());
+            if (entry.isDirectory()) {
+                Files.createDirectories(target);
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            int mode = 0;
+            if (entry instanceof TarArchiveEntry) {
+                TarArchiveEntry tarEntry = (TarArchiveEntry) entry;
+                if (tarEntry.isSymbolicLink()) {
+                    link(target, tarEntry.getLinkName());
+                    continue;
+                }
+                if (tarEntry.isLink()) { // Hard link, the target was already extracted
+                    Files.copy(resolve(destPath, tarEntry.getLinkName()), target, StandardCopyOption.REPLACE_EXISTING);
+                    continue;
+                }
+                mode = tarEntry.getMode();
+            } else if (entry instanceof ZipArchiveEntry)
+                mode = ((ZipArchiveEntry) entry).getUnixMode();
+            if (Files.isSymbolicLink(target)) // Replace instead of writing to wherever it points
+                Files.delete(target);
+
+            try (OutputStream out = Files.newOutputStream(target)) {
+                int n;
+                while ((n = archive.read(buffer)) != -1)
+                    out.write(buffer, 0, n);
+            }
+            if ((mode & 0100) != 0) // Owner may execute, important for the binaries of a JDK
+                target.toFile().setExecutable(true, (mode & 0011) == 0);
+            countEntries++;
+        }
+    }
+
+    /**
+     * Resolves the entry name against the directory and makes sure
+     * the result does not escape it, also not through a symbolic link in one of its parent directories.
+     */
+    @NotNull
+    private Path resolve(@NotNull Path dir, @NotNull String entryName) throws IOException {
+        Path target = dir.resolve(entryName).normalize();
+        if (!target.startsWith(destPath))
+            throw new IOException("Archive entry '" + entryName + "' is outside of the target directory '" + destDir + "'.");
+        for (Path parent = target.getParent(); parent != null && !parent.equals(destPath); parent = parent.getParent()) {
+            if (Files.isSymbolicLink(parent))
+                throw new IOException("Archive entry '" + entryName + "' is inside the symbolic link '" + parent + "'.");
+        }
+        return target;
+    }
+
+    /**
+     * Creates the symbolic link, after making sure that it points into the destination directory. <br>
+     * Its target is walked name by name, like the file system would resolve it, and may not pass through
+     * another symbolic link, since "link/.." is not the same as the directory of "link".
+     */
+    private void link(@NotNull Path link, @NotNull String linkName) throws IOException {
+        Path linkPath = link.getFileSystem().getPath(linkName);
+        if (linkPath.isAbsolute())
+            throw new IOException("Symbolic link '" + link + "' points to the absolute path '" + linkName + "'.");
+        Path target = link.getParent();
+        for (Path name : linkPath) {
+            if (!target.equals(link.getParent()) && Files.isSymbolicLink(target))
+                throw new IOException("Symbolic link '" + link + "' -> '" + linkName + "' points through the symbolic link '" + target + "'.");
+            target = target.resolve(name).normalize();
+            if (!target.startsWith(destPath))
+                throw new IOException("Symbolic link '" + link + "' -> '" + linkName + "' points outside of the target directory '" + destDir + "'.");
+        }
+        Files.deleteIfExists(link);
+        try {
+            Files.createSymbolicLink(link, link.getParent().relativize(target));
+        } catch (IOException | UnsupportedOperationException e) {
+            // For example on Windows without the required privileges
+            if (Files.exists(target)) Files.copy(target, link);
+            else DebugLog.debug(this.getClass(), "Failed to create symbolic link '{}' -> '{}': {}", link, linkName, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the lowercase hex SHA-256 hash of the complete original stream.
+     * Only available after {@link #extract(InputStream, ReadListener)} finished.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the amount of bytes read from the original stream.
+     */
+    public long getReadBytes() {
+        return readBytes;
+    }
+
+    /**
+     * @return the amount of extracted files.
+     */
+    public int getCountEntries() {
+        return countEntries;
+    }
+
+    public File getDestDir() {
+        return destDir;
+    }
+
+    public interface ReadListener {
+        void onRead(int bytes) throws Exception;
+    }
+
+    private class HashingInputStream extends FilterInputStream {
+        private final ReadListener listener;
+
+        private HashingInputStream(InputStream in, ReadListener listener) {
+            super(in);
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                digest.update((byte) b);
+                onRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                digest.update(b, off, n);
+                onRead(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must be hashed too
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 1))];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (r == -1) break;
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the original stream
+        }
+
+        private void onRead(int n) throws IOException {
+            readBytes += n;
+            if (listener == null) return;
+            try {
+                listener.onRead(n);
+            } catch (IOException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
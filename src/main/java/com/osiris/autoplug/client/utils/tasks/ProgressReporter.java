@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.tasks;
+
+import com.osiris.betterthread.BThread;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the progress of a byte-oriented operation (download, unpack, backup, upload)
+ * to its {@link BThread} at a fixed cadence. <br>
+ * The hot loop only calls {@link #add(long)}, which is lock-free and does not allocate,
+ * while building the status string, calculating throughput and ETA is done by a single shared
+ * daemon thread, at most {@link #DEFAULT_INTERVAL_MS} times per second per reporter. <br>
+ * Always {@link #close()} the reporter once the operation finished, to stop publishing.
+ */
+public class ProgressReporter implements AutoCloseable {
+    /**
+     * 10 Hz, which is more than the task printers refresh rate anyway.
+     */
+    public static final long DEFAULT_INTERVAL_MS = 100;
+    private static final ScheduledExecutorService PUBLISHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "AutoPlug-ProgressReporter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final BThread task;
+    private final String action;
+    private final String subject;
+    private final LongAdder done = new LongAdder();
+    private final long msStart = System.currentTimeMillis();
+    private final ScheduledFuture<?> future;
+    private volatile long total;
+    private volatile LongSupplier source;
+    private volatile Supplier<String> detail;
+    private boolean isClosed;
+
+    /**
+     * @param task    the task to publish the status and progress to.
+     * @param action  the action that is performed, for example "Downloading".
+     * @param subject the thing the action is performed on, for example a file name.
+     * @param total   the total amount of bytes, or a value smaller than 1 if unknown.
+     */
+    public ProgressReporter(@NotNull BThread task, @NotNull String action, @NotNull String subject, long total) {
+        this(task, action, subject, total, DEFAULT_INTERVAL_MS);
+    }
+
+    public ProgressReporter(@NotNull BThread task, @NotNull String action, @NotNull String subject, long total, long msInterval) {
+        this.task = task;
+        this.action = action;
+        this.subject = subject;
+        this.total = total;
+        if (total > 0) task.setMax(total);
+        publish();
+        this.future = PUBLISHER.scheduleAtFixedRate(this::tick, msInterval, msInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return human-readable representation of the provided bytes, for example "12.3mb".
+     */
+    @NotNull
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + "b";
+        if (bytes < 1024 * 1024) return String.format("%.1fkb", bytes / 1024.0);
+        if (bytes < 1024L * 1024 * 1024) return String.format("%.1fmb", bytes / (1024.0 * 1024));
+        return String.format("%.2fgb", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    /**
+     * @return human-readable representation of the provided seconds, for example "1m 05s".
+     */
+    @NotNull
+    public static String formatSeconds(long seconds) {
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3600) return String.format("%dm %02ds", seconds / 60, seconds % 60);
+        return String.format("%dh %02dm", seconds / 3600, (seconds % 3600) / 60);
+    }
+
+    /**
+     * Call this from the hot loop. Lock-free and allocation-free.
+     */
+    public void add(long bytes) {
+        done.add(bytes);
+    }
+
+    /**
+     * Use an external counter (for example of a third-party library) instead of {@link #add(long)}.
+     * The supplier gets polled by the publisher thread.
+     */
+    public ProgressReporter setSource(@Nullable LongSupplier source) {
+        this.source = source;
+        return this;
+    }
+
+    /**
+     * Additional text appended to the status, for example the file currently processed.
+     * The supplier gets polled by the publisher thread.
+     */
+    public ProgressReporter setDetail(@Nullable Supplier<String> detail) {
+        this.detail = detail;
+        return this;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+        if (total > 0) task.setMax(total);
+    }
+
+    public long getDone() {
+        LongSupplier source = this.source;
+        return source != null ? source.getAsLong() : done.sum();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMsElapsed() {
+        return System.currentTimeMillis() - msStart;
+    }
+
+    /**
+     * @return average bytes per second since this reporter was created.
+     */
+    public long getBytesPerSecond() {
+        long ms = getMsElapsed();
+        return ms <= 0 ? 0 : getDone() * 1000 / ms;
+    }
+
+    /**
+     * @return a short summary like "(12.3mb/200.0mb, 5.1mb/s)" that can be used for the final status.
+     */
+    @NotNull
+    public String summary() {
+        long total = this.total;
+        long done = getDone();
+        return "(" + formatBytes(done) + (total > 0 ? "/" + formatBytes(total) : "")
+                + ", " + formatBytes(getBytesPerSecond()) + "/s)";
+    }
+
+    private synchronized void tick() {
+        if (isClosed) return;
+        try {
+            publish();
+        } catch (Exception e) { // Otherwise the executor would silently stop publishing
+            AL.debug(this.getClass(), "Failed to publish progress: " + e.getMessage());
+        }
+    }
+
+    private void publish() {
+        long total = this.total;
+        long done = getDone();
+        long speed = getBytesPerSecond();
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(action).append(' ').append(subject).append("... (").append(formatBytes(done));
+        if (total > 0) sb.append('/').append(formatBytes(total));
+        sb.append(", ").append(formatBytes(speed)).append("/s");
+        if (total > 0 && speed > 0 && done < total)
+            sb.append(", ETA ").append(formatSeconds((total - done) / speed));
+        sb.append(')');
+        Supplier<String> detail = this.detail;
+        if (detail != null) {
+            String s = detail.get();
+            if (s != null && !s.isEmpty()) sb.append(' ').append(s);
+        }
+        task.setStatus(sb.toString());
+        if (total > 0) task.setNow(done); // Otherwise the task may use its own max/now, like a file count
+    }
+
+    /**
+     * Stops publishing and publishes the final progress one last time.
+     * Set the final status after calling this.
+     */
+    @Override
+    public synchronized void close() {
+        if (isClosed) return;
+        isClosed = true;
+        future.cancel(false);
+        publish();
+    }
+}
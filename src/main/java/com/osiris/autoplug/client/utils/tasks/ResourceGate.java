@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.tasks;
+
+import com.osiris.betterthread.BThread;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A named resource (for example the servers files), that can be reserved for reading
+ * by tasks of a {@link TaskGraph}, across threads. <br>
+ * Code that modifies the resource calls {@link #awaitWritable(BThread)} right before doing so,
+ * which blocks until all reservations were released. This allows a task to do most of its work
+ * (like searching for updates and downloading them) while another task is still reading the resource,
+ * and only wait for the short part that actually writes to it. <br>
+ * Without reservations (for example when running an updater via a command) nothing blocks.
+ */
+public class ResourceGate {
+    /**
+     * The servers root directory and everything in it that gets backed up,
+     * like the server jar, plugins, mods and worlds.
+     */
+    public static final String SERVER_FILES = "server-files";
+    private static final Map<String, ResourceGate> GATES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private int countReservations;
+
+    private ResourceGate(String name) {
+        this.name = name;
+    }
+
+    @NotNull
+    public static ResourceGate get(@NotNull String name) {
+        return GATES.computeIfAbsent(name, ResourceGate::new);
+    }
+
+    public synchronized void reserve() {
+        countReservations++;
+    }
+
+    public synchronized void release() {
+        if (countReservations > 0) countReservations--;
+        if (countReservations == 0) notifyAll();
+    }
+
+    /**
+     * Blocks until no reservations are left.
+     *
+     * @param task if not null, its status gets updated while waiting.
+     */
+    public synchronized void awaitWritable(@Nullable BThread task) throws InterruptedException {
+        if (countReservations == 0) return;
+        String oldStatus = task != null ? task.getStatus() : null;
+        if (task != null) task.setStatus("Waiting for other tasks to finish reading the " + name + "...");
+        while (countReservations > 0)
+            wait();
+        if (task != null) task.setStatus(oldStatus);
+    }
+
+    public synchronized boolean isReserved() {
+        return countReservations > 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
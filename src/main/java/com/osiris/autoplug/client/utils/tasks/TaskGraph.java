@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.tasks;
+
+import com.osiris.betterthread.BThread;
+import com.osiris.jlib.logger.AL;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs {@link BThread}s as a dependency graph, instead of one after another. <br>
+ * Each task can declare the tasks it depends on and the resources it reads and writes.
+ * Tasks that touch the same resource and at least one of them writes it, run in the order they were added,
+ * everything else runs concurrently. A task gets started as soon as all its dependencies finished,
+ * which is signalled by the finishing tasks themselves, thus there is no polling involved. <br>
+ * Resources read by a task are also reserved in their {@link ResourceGate} until the task finished,
+ * so that tasks can delay only their writing part, see {@link ResourceGate#awaitWritable(BThread)}.
+ */
+public class TaskGraph {
+    private final List<Node> nodes = new ArrayList<>();
+    private CountDownLatch latchFinished;
+    private long msStart;
+
+    /**
+     * Adds the task to the graph. Does nothing and returns null if the task is null,
+     * so that optional tasks do not need extra checks.
+     */
+    public Node add(@Nullable BThread task) {
+        if (task == null) return null;
+        Node node = new Node(task);
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Resolves the dependencies and starts all tasks without dependencies. Returns immediately.
+     *
+     * @throws IllegalStateException if the dependencies contain a cycle.
+     */
+    public void start() {
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            for (int j = 0; j < i; j++) {
+                Node earlier = nodes.get(j);
+                if (isConflicting(earlier, node)) node.dependencies.add(earlier);
+            }
+        }
+        checkForCycles();
+
+        msStart = System.currentTimeMillis();
+        latchFinished = new CountDownLatch(nodes.size());
+        for (Node node : nodes) {
+            for (String resource : node.reads) {
+                ResourceGate.get(resource).reserve();
+            }
+        }
+        for (Node node : nodes) {
+            CompletableFuture<?>[] dependencies = new CompletableFuture[node.dependencies.size()];
+            int i = 0;
+            for (Node dependency : node.dependencies) {
+                dependencies[i++] = dependency.done;
+            }
+            CompletableFuture.allOf(dependencies).whenComplete((v, e) -> node.launch());
+        }
+    }
+
+    /**
+     * Blocks until all tasks of this graph finished.
+     */
+    public void awaitFinished() throws InterruptedException {
+        if (latchFinished == null) throw new IllegalStateException("Graph was not started yet!");
+        latchFinished.await();
+    }
+
+    /**
+     * @return the chain of tasks that determined the total duration, from first to last.
+     * Starts at the last finished task and follows the dependency that finished last.
+     */
+    @NotNull
+    public List<Node> getCriticalPath() {
+        LinkedList<Node> path = new LinkedList<>();
+        Node current = null;
+        for (Node node : nodes) {
+            if (current == null || node.msEnd > current.msEnd) current = node;
+        }
+        while (current != null) {
+            path.addFirst(current);
+            Node latest = null;
+            for (Node dependency : current.dependencies) {
+                if (latest == null || dependency.msEnd > latest.msEnd) latest = dependency;
+            }
+            current = latest;
+        }
+        return path;
+    }
+
+    /**
+     * @return for example "SelfUpdater (0.8s) -> BackupTask (12.4s) -> GeneralTasks (0.1s), total 13.3s".
+     */
+    @NotNull
+    public String getCriticalPathAsString() {
+        StringBuilder sb = new StringBuilder();
+        long msEnd = msStart;
+        for (Node node : getCriticalPath()) {
+            if (sb.length() != 0) sb.append(" -> ");
+            sb.append(node.task.getName()).append(" (").append(formatMs(node.getMsDuration())).append(")");
+            msEnd = Math.max(msEnd, node.msEnd);
+        }
+        return sb.append(", total ").append(formatMs(msEnd - msStart)).toString();
+    }
+
+    @NotNull
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    private String formatMs(long ms) {
+        return String.format("%.1fs", ms / 1000.0);
+    }
+
+    private boolean isConflicting(@NotNull Node a, @NotNull Node b) {
+        for (String resource : a.writes) {
+            if (b.writes.contains(resource) || b.reads.contains(resource)) return true;
+        }
+        for (String resource : b.writes) {
+            if (a.reads.contains(resource)) return true;
+        }
+        return false;
+    }
+
+    private void checkForCycles() {
+        Set<Node> done = new HashSet<>();
+        for (Node node : nodes) {
+            checkForCycles(node, new HashSet<>(), done);
+        }
+    }
+
+    private void checkForCycles(Node node, Set<Node> visiting, Set<Node> done) {
+        if (done.contains(node)) return;
+        if (!visiting.add(node))
+            throw new IllegalStateException("Dependency cycle detected at task '" + node.task.getName() + "'!");
+        for (Node dependency : node.dependencies) {
+            checkForCycles(dependency, visiting, done);
+        }
+        visiting.remove(node);
+        done.add(node);
+    }
+
+    public class Node {
+        private final BThread task;
+        private final Set<Node> dependencies = new LinkedHashSet<>();
+        private final Set<String> reads = new HashSet<>();
+        private final Set<String> writes = new HashSet<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile long msStart;
+        private volatile long msEnd;
+
+        private Node(@NotNull BThread task) {
+            this.task = task;
+        }
+
+        /**
+         * This task only starts once the provided tasks finished.
+         * Null values are ignored.
+         */
+        public Node dependsOn(@Nullable Node... nodes) {
+            for (Node node : nodes) {
+                if (node != null && node != this) dependencies.add(node);
+            }
+            return this;
+        }
+
+        public Node reads(@NotNull String... resources) {
+            reads.addAll(Arrays.asList(resources));
+            return this;
+        }
+
+        public Node writes(@NotNull String... resources) {
+            writes.addAll(Arrays.asList(resources));
+            return this;
+        }
+
+        /**
+         * Starts the task and waits for it in a separate thread, to notify the dependent tasks once its finished.
+         */
+        private void launch() {
+            Thread waiter = new Thread(() -> {
+                msStart = System.currentTimeMillis();
+                try {
+                    task.start();
+                    task.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    AL.warn("Failed to run task '" + task.getName() + "'!", e);
+                } finally {
+                    msEnd = System.currentTimeMillis();
+                    for (String resource : reads) {
+                        ResourceGate.get(resource).release();
+                    }
+                    AL.debug(TaskGraph.class, "Task '" + task.getName() + "' finished after " + formatMs(getMsDuration()) + ".");
+                    done.complete(null);
+                    latchFinished.countDown();
+                }
+            }, "AutoPlug-TaskGraph-" + task.getName());
+            waiter.setDaemon(true);
+            waiter.start();
+        }
+
+        @NotNull
+        public BThread getTask() {
+            return task;
+        }
+
+        public long getMsStart() {
+            return msStart;
+        }
+
+        /**
+         * @return the time in ms when the task finished, or 0 if it did not finish yet.
+         */
+        public long getMsEnd() {
+            return msEnd;
+        }
+
+        /**
+         * @return the time in ms from starting the task until it finished, or 0 if it did not run yet.
+         */
+        public long getMsDuration() {
+            return msEnd > 0 ? msEnd - msStart : 0;
+        }
+    }
+}
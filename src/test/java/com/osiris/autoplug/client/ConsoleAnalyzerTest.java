@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleAnalyzerTest {
+
+    @Test
+    void getSourceOfFrame() {
+        assertEquals("com.example.myplugin", ConsoleAnalyzer.getSourceOfFrame(
+                "\tat com.example.myplugin.listeners.JoinListener.onJoin(JoinListener.java:42) ~[MyPlugin.jar:?]"));
+        assertEquals("com.example.myplugin", ConsoleAnalyzer.getSourceOfFrame(
+                "[12:00:00 WARN]: \tat com.example.myplugin.Main.lambda$onEnable$0(Main.java:10)"));
+        assertEquals("me.dev", ConsoleAnalyzer.getSourceOfFrame("\tat me.dev.Plugin.<init>(Plugin.java:1)"));
+        // Server, JDK and libraries
+        assertNull(ConsoleAnalyzer.getSourceOfFrame("\tat org.bukkit.plugin.SimplePluginManager.callEvent(SimplePluginManager.java:1)"));
+        assertNull(ConsoleAnalyzer.getSourceOfFrame("\tat java.lang.Thread.run(Thread.java:833)"));
+        assertNull(ConsoleAnalyzer.getSourceOfFrame("\tat net.minecraft.server.MinecraftServer.tick(MinecraftServer.java:1)"));
+        // No frames
+        assertNull(ConsoleAnalyzer.getSourceOfFrame("java.lang.IllegalStateException: Player that is not online"));
+        assertNull(ConsoleAnalyzer.getSourceOfFrame("[12:00:00 INFO]: Steve joined at spawn"));
+        assertNull(ConsoleAnalyzer.getSourceOfFrame(""));
+    }
+
+    @Test
+    void rollingCounter() {
+        ConsoleAnalyzer.RollingCounter counter = new ConsoleAnalyzer.RollingCounter();
+        long msNow = 1000L * 60000; // Start of a minute
+        counter.add(msNow, 2);
+        counter.add(msNow + 59999, 3); // Same minute
+        counter.add(msNow + 60000, 5); // Next minute
+        assertEquals(5, counter.sum(msNow + 60000, 1));
+        assertEquals(10, counter.sum(msNow + 60000, 2));
+        assertArrayEquals(new long[]{0, 5, 5}, counter.getPerMinute(msNow + 60000, 3));
+        // Buckets of minutes older than the window do not count, also when reused
+        long msLater = msNow + ConsoleAnalyzer.RollingCounter.MINUTES * 60000L;
+        assertEquals(5, counter.sum(msLater, ConsoleAnalyzer.RollingCounter.MINUTES));
+        counter.add(msLater, 1);
+        assertEquals(6, counter.sum(msLater, ConsoleAnalyzer.RollingCounter.MINUTES));
+        assertEquals(1, counter.sum(msLater, 1));
+        // More minutes than the window are capped
+        assertEquals(6, counter.sum(msLater, 1000));
+    }
+
+    @Test
+    void exceptionHeaderWithAtInsideWords() {
+        ConsoleAnalyzer.ExceptionDetector detector = new ConsoleAnalyzer.ExceptionDetector();
+        long msNow = System.currentTimeMillis();
+        detector.onLine("java.lang.IllegalStateException: Player that is not online", msNow);
+        detector.onLine("\tat com.example.myplugin.Main.onCommand(Main.java:10)", msNow);
+        List<Map.Entry<String, Long>> top = detector.getTopSources(1, 1);
+        assertEquals(1, top.size());
+        assertEquals("com.example.myplugin", top.get(0).getKey());
+        assertEquals(1, (long) top.get(0).getValue());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.tasks.updater;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagingAreaTest {
+    private final File root;
+    private final File dir;
+
+    StagingAreaTest() throws IOException {
+        root = Files.createTempDirectory("staging-area-test").toFile();
+        dir = new File(root, "staged");
+    }
+
+    @Test
+    void installsStagedFile() throws Exception {
+        File target = write(new File(root, "plugins/MyPlugin.jar"), "old");
+        File old = write(new File(root, "plugins/MyPlugin-1.0.jar"), "older");
+        StagingArea area = new StagingArea(dir);
+        area.stage(write(new File(root, "download.jar"), "new"), target, old, "MyPlugin",
+                StagingArea.RESOURCE_PLUGINS, Collections.emptyList());
+
+        assertTrue(area.hasStaged());
+        assertEquals(Collections.singleton(StagingArea.RESOURCE_PLUGINS), area.getStagedResources());
+        assertEquals("old", read(target)); // Not installed yet
+
+        assertEquals(1, area.install(null));
+        assertEquals("new", read(target));
+        assertFalse(old.exists());
+        assertFalse(area.hasStaged());
+        assertFalse(new File(target.getAbsolutePath() + ".staged").exists());
+    }
+
+    @Test
+    void stagedEntriesSurviveRestart() throws Exception {
+        File target = new File(root, "server.jar");
+        new StagingArea(dir).stage(write(new File(root, "download.jar"), "new"), target, null, "Server",
+                StagingArea.RESOURCE_SERVER_JAR, Collections.emptyList());
+
+        StagingArea restarted = new StagingArea(dir);
+        assertEquals(1, restarted.getEntries().size());
+        assertEquals(target.getAbsolutePath(), restarted.getEntries().get(0).target);
+        assertEquals(1, restarted.install(null));
+        assertEquals("new", read(target));
+        assertFalse(new StagingArea(dir).hasStaged());
+    }
+
+    @Test
+    void stagingSameTargetAgainReplacesEntry() throws Exception {
+        File target = new File(root, "plugins/MyPlugin.jar");
+        StagingArea area = new StagingArea(dir);
+        area.stage(write(new File(root, "v1.jar"), "v1"), target, null, "MyPlugin",
+                StagingArea.RESOURCE_PLUGINS, Collections.emptyList());
+        area.stage(write(new File(root, "v2.jar"), "v2"), target, null, "MyPlugin",
+                StagingArea.RESOURCE_PLUGINS, Collections.emptyList());
+
+        assertEquals(1, area.getEntries().size());
+        assertEquals(1, area.install(null));
+        assertEquals("v2", read(target));
+    }
+
+    @Test
+    void modifiedStagedFileIsNotInstalled() throws Exception {
+        File target = write(new File(root, "plugins/MyPlugin.jar"), "old");
+        StagingArea area = new StagingArea(dir);
+        area.stage(write(new File(root, "download.jar"), "new"), target, null, "MyPlugin",
+                StagingArea.RESOURCE_PLUGINS, Collections.emptyList());
+        write(new File(dir, area.getEntries().get(0).file), "tampered");
+
+        assertEquals(0, area.install(null));
+        assertEquals("old", read(target));
+        assertFalse(area.hasStaged());
+    }
+
+    @Test
+    void installsStagedDirectory() throws Exception {
+        File target = new File(root, "jdk");
+        write(new File(target, "bin/java"), "old");
+        File source = new File(root, "download");
+        write(new File(source, "bin/java"), "new");
+        StagingArea area = new StagingArea(dir);
+        area.stage(source, target, null, "Java", StagingArea.RESOURCE_JAVA, Collections.emptyList());
+
+        assertEquals(Collections.singleton(StagingArea.RESOURCE_JAVA), area.getStagedResources());
+        assertEquals(1, area.install(null));
+        assertEquals("new", read(new File(target, "bin/java")));
+        assertFalse(new File(root, "jdk.old").exists());
+    }
+
+    private File write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
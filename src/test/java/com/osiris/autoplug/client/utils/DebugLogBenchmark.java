@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import com.osiris.jlib.logger.AL;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocations of a typical debug line from the plugin search loops, with debug disabled,
+ * between the previous string concatenation and {@link DebugLog}. <br>
+ * Run the main method from the IDE, or via the test classpath. See the gc.alloc.rate.norm (bytes per operation) results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebugLogBenchmark {
+    private final String pluginName = "EssentialsX";
+    private final String author = "md_5";
+    private final String queryAuthor = "kangarko";
+    private final String url = "https://api.spiget.org/v2/resources/9089/versions?size=1&sort=-releaseDate";
+    private double similarity = 0.4231;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DebugLogBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        AL.isDebugEnabled = false;
+    }
+
+    @Benchmark
+    public void concatenated(Blackhole bh) {
+        String message = "[" + pluginName + "] Similarity between -> " + author + " and " + queryAuthor + " is: " + similarity;
+        bh.consume(message);
+        similarity += 0.0001;
+    }
+
+    @Benchmark
+    public void guardedParameterised(Blackhole bh) {
+        if (DebugLog.isEnabled())
+            DebugLog.debug(DebugLogBenchmark.class, "[{}] Similarity between -> {} and {} is: {}", pluginName, author, queryAuthor, similarity);
+        bh.consume(similarity);
+        similarity += 0.0001;
+    }
+
+    @Benchmark
+    public void parameterised(Blackhole bh) {
+        DebugLog.debug(DebugLogBenchmark.class, "[{}] Fetching latest release... ({})", pluginName, url);
+        bh.consume(url);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.fusesource.jansi.Ansi;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the colorization of server log lines via {@link LogLevelClassifier}
+ * with the previous implementation, which searched the line once per keyword. <br>
+ * Run the main method from the IDE, or via the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogLevelClassifierBenchmark {
+    private final String[] lines = {
+            "[12:00:00 INFO]: Preparing spawn area: 42%",
+            "[12:00:00 WARN]: Can't keep up! Is the server overloaded? Running 2043ms or 40 ticks behind",
+            "[12:00:00] [Server thread/ERROR]: Encountered an unexpected exception",
+            "\tat net.minecraft.server.MinecraftServer.tickChildren(MinecraftServer.java:1234) ~[server.jar:?]",
+            "[12:00:00 INFO]: Steve[/127.0.0.1:54321] logged in with entity id 123 at ([world]0.5, 64.0, 0.5)",
+            "[12:00:00] [Worker-Main-5/DEBUG] [net.minecraftforge.fml/]: Loading chunk data for region r.0.0.mca"
+    };
+    private final StringBuilder buffer = new StringBuilder(256);
+    private int index;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(LogLevelClassifierBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private String nextLine() {
+        index = (index + 1) % lines.length;
+        return lines[index];
+    }
+
+    @Benchmark
+    public void containsIgnoreCase(Blackhole bh) {
+        String line = nextLine();
+        Ansi ansi = Ansi.ansi();
+        if (StringUtils.containsIgnoreCase(line, "error") ||
+                StringUtils.containsIgnoreCase(line, "critical") ||
+                StringUtils.containsIgnoreCase(line, "exception")) {
+            ansi.fgRed().a(line).reset();
+        } else if (StringUtils.containsIgnoreCase(line, "warn") ||
+                StringUtils.containsIgnoreCase(line, "warning")) {
+            ansi.fgYellow().a(line).reset();
+        } else if (StringUtils.containsIgnoreCase(line, "debug")) {
+            ansi.fgCyan().a(line).reset();
+        } else {
+            ansi.a(line).reset();
+        }
+        bh.consume(ansi.toString());
+    }
+
+    @Benchmark
+    public void classifier(Blackhole bh) {
+        String line = nextLine();
+        buffer.setLength(0);
+        switch (LogLevelClassifier.get().classify(line)) {
+            case ERROR:
+                buffer.append("\u001B[31m");
+                break;
+            case WARN:
+                buffer.append("\u001B[33m");
+                break;
+            case DEBUG:
+                buffer.append("\u001B[36m");
+                break;
+            default:
+                break;
+        }
+        bh.consume(buffer.append(line).append("\u001B[m").toString());
+    }
+}
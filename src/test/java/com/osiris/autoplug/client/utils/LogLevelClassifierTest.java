@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static com.osiris.autoplug.client.utils.LogLevelClassifier.Level.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogLevelClassifierTest {
+
+    @Test
+    void classify() {
+        LogLevelClassifier c = LogLevelClassifier.get();
+        // Log-level tokens
+        assertEquals(WARN, c.classify("[12:00:00 WARN]: Can't keep up! Is the server overloaded?"));
+        assertEquals(ERROR, c.classify("[12:00:00] [Server thread/ERROR]: Encountered an unexpected exception"));
+        assertEquals(ERROR, c.classify("[12:00:00 SEVERE]: Could not load plugin"));
+        assertEquals(INFO, c.classify("[12:00:00 INFO]: Player said: there is an error"));
+        // Keywords anywhere
+        assertEquals(NONE, c.classify("Done (12.345s)! For help, type \"help\""));
+        assertEquals(ERROR, c.classify("java.lang.NullPointerException: null"));
+        assertEquals(ERROR, c.classify("some WARNING and a Critical thing"));
+        assertEquals(WARN, c.classify("this is a Warning"));
+        assertEquals(DEBUG, c.classify("debugging stuff"));
+        assertEquals(NONE, c.classify("information without token"));
+        assertEquals(NONE, c.classify(""));
+        assertEquals(WARN, c.classify("ünïcödé wärn WARN"));
+    }
+}
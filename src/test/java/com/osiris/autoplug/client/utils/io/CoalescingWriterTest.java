@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingWriterTest {
+
+    @Test
+    void writesMessagesInOrderInOneBatch() throws Exception {
+        StringWriter out = new StringWriter();
+        CoalescingWriter writer = new CoalescingWriter(out, "test", 1024 * 1024, 1024 * 1024, 60000);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(writer.write("message " + i));
+            expected.append("message ").append(i).append("\n");
+        }
+        writer.close();
+        writer.getThread().join(10000);
+
+        assertEquals(expected.toString(), out.toString());
+        assertEquals(1, writer.getCountFlushes());
+        assertEquals(0, writer.getCountDropped());
+        assertFalse(writer.write("after close"));
+    }
+
+    @Test
+    void urgentMessageIsFlushedRightAway() throws Exception {
+        StringWriter out = new StringWriter();
+        CoalescingWriter writer = new CoalescingWriter(out, "test", 1024 * 1024, 1024 * 1024, 60000);
+        writer.write("first");
+        writer.write("second", true);
+        long msEnd = System.currentTimeMillis() + 10000;
+        while (writer.getCountFlushes() == 0 && System.currentTimeMillis() < msEnd) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, writer.getCountFlushes()); // Way before the max latency
+        assertEquals("first\nsecond\n", out.toString());
+        writer.close();
+    }
+
+    @Test
+    void dropsOldestMessagesIfTooManyArePending() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter out = new StringWriter() {
+            @Override
+            public void write(String str) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(str);
+            }
+        };
+        // Each message has 4 chars including the line break, thus at most 5 fit
+        CoalescingWriter writer = new CoalescingWriter(out, "test", 1024, 20, 60000);
+        writer.write("aaa", true);
+        assertTrue(writing.await(10, TimeUnit.SECONDS)); // Now stuck writing the first batch
+        for (int i = 0; i < 10; i++) {
+            writer.write("m0" + i);
+        }
+        assertEquals(5, writer.getCountDropped());
+        release.countDown();
+        writer.close();
+        writer.getThread().join(10000);
+
+        assertEquals("aaa\n[AutoPlug] Skipped 5 messages, because the connection was too slow.\n"
+                + "m05\nm06\nm07\nm08\nm09\n", out.toString());
+        assertEquals(2, writer.getCountFlushes());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandWriterTest {
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    void limitsQueuedCommandsPerSource() throws Exception {
+        BlockingOutputStream out = new BlockingOutputStream();
+        CommandWriter writer = new CommandWriter(out, 10, 3);
+        assertTrue(writer.submit("first", "console"));
+        assertTrue(out.writing.await(10, TimeUnit.SECONDS)); // Now stuck writing the first command
+
+        assertTrue(writer.submit("c1", "console"));
+        assertTrue(writer.submit("c2", "console"));
+        assertTrue(writer.submit("c3", "console"));
+        assertFalse(writer.submit("c4", "console"));
+        // Other sources are not affected by the flood
+        assertTrue(writer.submit("p1", "plugin"));
+        assertEquals(3, writer.getCountQueued("console"));
+        assertEquals(1, writer.getCountQueued("plugin"));
+        assertEquals(4, writer.getCountQueued());
+        assertEquals(1, writer.getCountRejected());
+
+        out.release.countDown();
+        awaitWritten(writer, 5);
+        assertEquals("first" + NL + "c1" + NL + "c2" + NL + "c3" + NL + "p1" + NL, out.toString());
+        assertEquals(0, writer.getCountQueued("console"));
+        assertEquals(0, writer.getCountQueued());
+        writer.close();
+    }
+
+    @Test
+    void limitsQueuedCommandsInTotal() throws Exception {
+        BlockingOutputStream out = new BlockingOutputStream();
+        CommandWriter writer = new CommandWriter(out, 2, 10);
+        assertTrue(writer.submit("first", "a"));
+        assertTrue(out.writing.await(10, TimeUnit.SECONDS));
+
+        assertTrue(writer.submit("a1", "a"));
+        assertTrue(writer.submit("b1", "b"));
+        assertFalse(writer.submit("c1", "c"));
+        assertEquals(0, writer.getCountQueued("c"));
+        assertEquals(1, writer.getCountRejected());
+        out.release.countDown();
+        writer.close();
+    }
+
+    @Test
+    void waitingSubmitCountsRejectionOnce() throws Exception {
+        BlockingOutputStream out = new BlockingOutputStream();
+        CommandWriter writer = new CommandWriter(out, 10, 1);
+        assertTrue(writer.submit("first", "console"));
+        assertTrue(out.writing.await(10, TimeUnit.SECONDS));
+        assertTrue(writer.submit("queued", "console"));
+
+        assertFalse(writer.submit("waiting", "console", 100));
+        assertEquals(1, writer.getCountRejected());
+
+        // Succeeds once the queue has room again
+        out.release.countDown();
+        assertTrue(writer.submit("waiting", "console", 10000));
+        awaitWritten(writer, 3);
+        assertEquals("first" + NL + "queued" + NL + "waiting" + NL, out.toString());
+        assertEquals(1, writer.getCountRejected());
+        writer.close();
+    }
+
+    @Test
+    void rejectsCommandsAfterClose() {
+        CommandWriter writer = new CommandWriter(new ByteArrayOutputStream());
+        writer.close();
+        assertTrue(writer.isClosed());
+        assertFalse(writer.submit("stop", "stop"));
+        assertEquals(1, writer.getCountRejected());
+    }
+
+    private void awaitWritten(CommandWriter writer, long count) throws InterruptedException {
+        long msEnd = System.currentTimeMillis() + 10000;
+        while (writer.getCountWritten() < count && System.currentTimeMillis() < msEnd) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, writer.getCountWritten());
+    }
+
+    /**
+     * Blocks the first write until released, so that commands pile up in the queue.
+     */
+    private static class BlockingOutputStream extends ByteArrayOutputStream {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(b, off, len);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return new String(toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineRingBufferTest {
+
+    @Test
+    void blockingSinkReceivesAllLinesInOrder() throws Exception {
+        LineRingBuffer buffer = new LineRingBuffer(4);
+        List<String> received = new CopyOnWriteArrayList<>();
+        LineRingBuffer.Sink sink = buffer.addSink("test", LineRingBuffer.OverflowPolicy.BLOCK, line -> {
+            received.add(line);
+            if (received.size() % 10 == 0) Thread.yield(); // Slower than the producer
+        });
+        for (int i = 0; i < 1000; i++) {
+            buffer.publish(String.valueOf(i));
+        }
+        buffer.close();
+        sink.getThread().join(10000);
+
+        assertEquals(1000, received.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(String.valueOf(i), received.get(i));
+        }
+        assertEquals(0, sink.getCountDropped());
+    }
+
+    @Test
+    void slowSinkDropsOldestLines() throws Exception {
+        int capacity = 8;
+        LineRingBuffer buffer = new LineRingBuffer(capacity);
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        LineRingBuffer.Sink sink = buffer.addSink("slow", LineRingBuffer.OverflowPolicy.DROP_OLDEST, line -> {
+            received.add(line);
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        buffer.publish("0");
+        assertTrue(consuming.await(10, TimeUnit.SECONDS));
+        // The sink is stuck at the first line, thus the producer overwrites the ring multiple times without waiting
+        for (int i = 1; i < 100; i++) {
+            buffer.publish(String.valueOf(i));
+        }
+        release.countDown();
+        buffer.close();
+        sink.getThread().join(10000);
+
+        // The first line and the last lines that were still in the ring
+        assertEquals(1 + capacity, received.size());
+        assertEquals("0", received.get(0));
+        for (int i = 1; i < received.size(); i++) {
+            assertEquals(String.valueOf(100 - capacity + i - 1), received.get(i));
+        }
+        assertEquals(100 - 1 - capacity, sink.getCountDropped());
+        assertEquals(0, sink.getLag());
+    }
+
+    @Test
+    void caughtUpSinkFlushesAllConsumedLines() throws Exception {
+        LineRingBuffer buffer = new LineRingBuffer(16);
+        List<String> pending = new CopyOnWriteArrayList<>();
+        List<String> flushed = new CopyOnWriteArrayList<>();
+        LineRingBuffer.Sink sink = buffer.addSink("log-file", LineRingBuffer.OverflowPolicy.BLOCK, pending::add, () -> {
+            flushed.addAll(pending);
+            pending.clear();
+        });
+        for (int i = 0; i < 100; i++) {
+            buffer.publish(String.valueOf(i));
+        }
+        buffer.close();
+        sink.getThread().join(10000);
+
+        assertEquals(100, flushed.size());
+        assertEquals("99", flushed.get(99));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void sinkOnlyReceivesLinesPublishedAfterAdding() throws Exception {
+        LineRingBuffer buffer = new LineRingBuffer(16);
+        buffer.publish("before");
+        List<String> received = new CopyOnWriteArrayList<>();
+        LineRingBuffer.Sink sink = buffer.addSink("late", LineRingBuffer.OverflowPolicy.BLOCK, received::add);
+        buffer.publish("after");
+        buffer.close();
+        sink.getThread().join(10000);
+
+        assertEquals(1, received.size());
+        assertEquals("after", received.get(0));
+    }
+}
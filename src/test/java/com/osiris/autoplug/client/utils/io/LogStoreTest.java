@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogStoreTest {
+    private static final long MS_HOUR = TimeUnit.HOURS.toMillis(1);
+    private final File dir;
+    /**
+     * Start of the hour, 3 hours ago.
+     */
+    private final long msBase = (System.currentTimeMillis() / MS_HOUR - 3) * MS_HOUR;
+
+    LogStoreTest() throws IOException {
+        dir = Files.createTempDirectory("log-store-test").toFile();
+    }
+
+    @Test
+    void searchOnlyScansBlocksContainingTheText() throws Exception {
+        LogStore store = new LogStore(dir, 7);
+        store.add(msBase, "Starting minecraft server version 1.20.4");
+        store.add(msBase + MS_HOUR, "Steve joined the game");
+        store.add(msBase + 2 * MS_HOUR, "Error occurred while enabling MyPlugin v1.0");
+        store.add(msBase + 3 * MS_HOUR, "Done (3.2s)!"); // Stays in the open block
+        assertEquals(3, store.getCountBlocks());
+
+        LogStore.Result result = store.search("myplugin", 0, 10);
+        assertEquals(Arrays.asList("Error occurred while enabling MyPlugin v1.0"), result.getLines());
+        assertEquals(Arrays.asList(msBase + 2 * MS_HOUR), result.getTimestamps());
+        assertEquals(3, result.getCountBlocks());
+        assertEquals(1, result.getCountBlocksScanned());
+
+        assertEquals(Arrays.asList("Done (3.2s)!"), store.search("done", 0, 10).getLines());
+        store.close();
+    }
+
+    @Test
+    void keepsMostRecentMatchesInOrder() throws Exception {
+        LogStore store = new LogStore(dir, 7);
+        for (int i = 0; i < 5; i++) {
+            store.add(msBase + i, "match " + i);
+        }
+        LogStore.Result result = store.search("MATCH", 0, 2);
+        assertEquals(Arrays.asList("match 3", "match 4"), result.getLines());
+        assertEquals(5, result.getCountMatches());
+
+        assertEquals(Arrays.asList("match 4"), store.search("match", msBase + 4, 10).getLines());
+        store.close();
+    }
+
+    @Test
+    void splitsLinesAndRemovesAnsiCodes() throws Exception {
+        LogStore store = new LogStore(dir, 7);
+        store.add(msBase, "\u001B[31mfirst line\u001B[0m\nsecond line");
+        assertEquals(Arrays.asList("first line", "second line"), store.search("line", 0, 10).getLines());
+        store.close();
+    }
+
+    @Test
+    void recoversOpenBlockAfterCrash() throws Exception {
+        LogStore store = new LogStore(dir, 7);
+        store.add(msBase, "Saving chunks for level 'world'");
+        store.flush(); // Not closed, like after a crash
+        assertEquals(0, store.getCountBlocks());
+
+        LogStore recovered = new LogStore(dir, 7);
+        assertEquals(1, recovered.getCountBlocks());
+        assertEquals(Arrays.asList("Saving chunks for level 'world'"), recovered.search("chunks", 0, 10).getLines());
+        recovered.close();
+    }
+
+    @Test
+    void deletesBlocksOlderThanMaxDays() throws Exception {
+        LogStore store = new LogStore(dir, 1);
+        store.add(msBase - TimeUnit.DAYS.toMillis(2), "old line");
+        store.add(msBase, "new line");
+        store.add(msBase + MS_HOUR, "newest line"); // Seals the block of "new line"
+        assertEquals(1, store.getCountBlocks());
+        assertEquals(Arrays.asList("new line", "newest line"), store.search("line", 0, 10).getLines());
+        store.close();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.io;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingExtractorTest {
+    private final File root;
+    private final File dest;
+
+    StreamingExtractorTest() throws IOException {
+        root = Files.createTempDirectory("streaming-extractor-test").toFile();
+        dest = new File(root, "a/b/c/dest"); // Deep enough that all escapes below end up in root
+    }
+
+    @Test
+    void extractsFilesAndLinks() throws Exception {
+        TarBuilder tar = new TarBuilder()
+                .file("jdk/lib/modules", "modules")
+                .link("jdk/bin/modules", "../lib/modules");
+        StreamingExtractor extractor = new StreamingExtractor(dest, true);
+        extractor.extract(tar.toStream(), null);
+
+        assertEquals("modules", read(new File(dest, "jdk/bin/modules")));
+        assertTrue(Files.isSymbolicLink(new File(dest, "jdk/bin/modules").toPath()));
+        assertEquals(1, extractor.getCountEntries());
+        assertNotNull(extractor.getHash());
+    }
+
+    @Test
+    void rejectsEntriesOutsideOfDestination() throws Exception {
+        TarBuilder tar = new TarBuilder().file("jdk/../../evil", "evil");
+        assertThrows(IOException.class, () -> new StreamingExtractor(dest, true).extract(tar.toStream(), null));
+        assertFalse(isEvilExtracted());
+    }
+
+    @Test
+    void rejectsLinksOutsideOfDestination() throws Exception {
+        TarBuilder tar = new TarBuilder().link("jdk/evil", "../../evil");
+        assertThrows(IOException.class, () -> new StreamingExtractor(dest, true).extract(tar.toStream(), null));
+        assertFalse(Files.exists(new File(dest, "jdk/evil").toPath(), LinkOption.NOFOLLOW_LINKS));
+    }
+
+    @Test
+    void rejectsEntriesInsideLinks() throws Exception {
+        // l1 points to the destination itself, thus l1/b/l2 is actually b/l2 and points 4 directories up, not 2
+        TarBuilder tar = new TarBuilder()
+                .link("b/c/l1", "../..")
+                .link("b/c/l1/b/l2", "../../../..")
+                .file("b/c/l1/b/l2/b/evil", "evil");
+        assertThrows(IOException.class, () -> new StreamingExtractor(dest, true).extract(tar.toStream(), null));
+        assertFalse(isEvilExtracted());
+        assertFalse(Files.exists(new File(dest, "b/l2").toPath(), LinkOption.NOFOLLOW_LINKS));
+    }
+
+    @Test
+    void rejectsLinksThroughLinks() throws Exception {
+        // Textually l2 points to "b", but the file system resolves l1/.. to the parent of the destination
+        TarBuilder tar = new TarBuilder()
+                .link("b/c/l1", "../..")
+                .link("b/c/l2", "l1/../..")
+                .file("b/c/l2/evil", "evil");
+        assertThrows(IOException.class, () -> new StreamingExtractor(dest, true).extract(tar.toStream(), null));
+        assertFalse(isEvilExtracted());
+        assertFalse(Files.exists(new File(dest, "b/c/l2").toPath(), LinkOption.NOFOLLOW_LINKS));
+    }
+
+    @Test
+    void replacesLinksInsteadOfWritingThroughThem() throws Exception {
+        TarBuilder tar = new TarBuilder()
+                .file("jdk/release", "release")
+                .link("jdk/modules", "release")
+                .file("jdk/modules", "modules");
+        new StreamingExtractor(dest, true).extract(tar.toStream(), null);
+
+        assertEquals("release", read(new File(dest, "jdk/release")));
+        assertEquals("modules", read(new File(dest, "jdk/modules")));
+        assertFalse(Files.isSymbolicLink(new File(dest, "jdk/modules").toPath()));
+    }
+
+    private boolean isEvilExtracted() throws IOException {
+        try (Stream<Path> paths = Files.walk(root.toPath())) {
+            return paths.anyMatch(path -> path.getFileName().toString().equals("evil"));
+        }
+    }
+
+    private String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static class TarBuilder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final TarArchiveOutputStream out;
+
+        private TarBuilder() throws IOException {
+            out = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes));
+        }
+
+        private TarBuilder file(String name, String content) throws IOException {
+            byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry entry = new TarArchiveEntry(name);
+            entry.setSize(data.length);
+            out.putArchiveEntry(entry);
+            out.write(data);
+            out.closeArchiveEntry();
+            return this;
+        }
+
+        private TarBuilder link(String name, String linkName) throws IOException {
+            TarArchiveEntry entry = new TarArchiveEntry(name, TarArchiveEntry.LF_SYMLINK);
+            entry.setLinkName(linkName);
+            out.putArchiveEntry(entry);
+            out.closeArchiveEntry();
+            return this;
+        }
+
+        private ByteArrayInputStream toStream() throws IOException {
+            out.close();
+            return new ByteArrayInputStream(bytes.toByteArray());
+        }
+    }
+}
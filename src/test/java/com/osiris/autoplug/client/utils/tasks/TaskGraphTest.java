@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024 Osiris-Team.
+ * All rights reserved.
+ *
+ * This software is copyrighted work, licensed under the terms
+ * of the MIT-License. Consult the "LICENSE" file for details.
+ */
+
+package com.osiris.autoplug.client.utils.tasks;
+
+import com.osiris.betterthread.BThread;
+import com.osiris.betterthread.BThreadManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskGraphTest {
+    private final BThreadManager manager = new BThreadManager();
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Test
+    void conflictingWritersRunInAddedOrder() throws Exception {
+        TaskGraph graph = new TaskGraph();
+        graph.add(new RecordingTask("A", 50)).writes("plugins");
+        graph.add(new RecordingTask("B", 0)).writes("plugins");
+        graph.add(new RecordingTask("C", 0)).reads("plugins");
+        graph.start();
+        graph.awaitFinished();
+
+        assertEquals("[start A, end A, start B, end B, start C, end C]", events.toString());
+        assertFalse(ResourceGate.get("plugins").isReserved());
+    }
+
+    @Test
+    void dependentTaskWaitsForItsDependencies() throws Exception {
+        TaskGraph graph = new TaskGraph();
+        TaskGraph.Node a = graph.add(new RecordingTask("A", 50));
+        TaskGraph.Node b = graph.add(new RecordingTask("B", 20));
+        graph.add(new RecordingTask("C", 0)).dependsOn(a, b, null);
+        graph.start();
+        graph.awaitFinished();
+
+        assertEquals(6, events.size());
+        assertEquals("start C", events.get(4));
+        List<TaskGraph.Node> path = graph.getCriticalPath();
+        assertEquals(2, path.size());
+        assertEquals("A", path.get(0).getTask().getName());
+        assertEquals("C", path.get(1).getTask().getName());
+    }
+
+    @Test
+    void independentTasksRunConcurrently() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        TaskGraph graph = new TaskGraph();
+        for (String name : new String[]{"A", "B"}) {
+            graph.add(new BThread(name, manager) {
+                @Override
+                public void runAtStart() throws Exception {
+                    bothRunning.countDown();
+                    // Would time out if the tasks ran one after another
+                    if (!bothRunning.await(10, TimeUnit.SECONDS)) events.add("timeout " + getName());
+                }
+            }).reads("server-files-test");
+        }
+        graph.start();
+        graph.awaitFinished();
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void nullTasksAreIgnored() throws Exception {
+        TaskGraph graph = new TaskGraph();
+        assertNull(graph.add(null));
+        graph.add(new RecordingTask("A", 0)).dependsOn((TaskGraph.Node) null);
+        graph.start();
+        graph.awaitFinished();
+        assertEquals(1, graph.getNodes().size());
+    }
+
+    @Test
+    void cycleIsDetected() {
+        TaskGraph graph = new TaskGraph();
+        TaskGraph.Node a = graph.add(new RecordingTask("A", 0));
+        TaskGraph.Node b = graph.add(new RecordingTask("B", 0)).dependsOn(a);
+        a.dependsOn(b);
+        assertThrows(IllegalStateException.class, graph::start);
+    }
+
+    private class RecordingTask extends BThread {
+        private final long msSleep;
+
+        private RecordingTask(String name, long msSleep) {
+            super(name, manager);
+            this.msSleep = msSleep;
+        }
+
+        @Override
+        public void runAtStart() throws Exception {
+            events.add("start " + getName());
+            Thread.sleep(msSleep);
+            events.add("end " + getName());
+        }
+    }
+}